@@ -0,0 +1,49 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.controllers;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordWriter;
+import com.vmware.weathervane.auction.rest.representation.AttendanceWriterMetricsRepresentation;
+
+/*
+ * Serves the counters of the background attendance record writers, so that
+ * the queue depth, the writes made by callers when the queue is full, and
+ * the dropped records can be followed during a run
+ */
+@Controller
+@RequestMapping(value = "/attendanceWriterMetrics")
+public class AttendanceWriterMetricsController extends BaseController {
+	private static final Logger logger = LoggerFactory.getLogger(AttendanceWriterMetricsController.class);
+
+	private AttendanceRecordWriter attendanceRecordWriter;
+
+	@Inject
+	@Named("attendanceRecordWriter")
+	public void setAttendanceRecordWriter(AttendanceRecordWriter attendanceRecordWriter) {
+		this.attendanceRecordWriter = attendanceRecordWriter;
+	}
+
+	@RequestMapping(method = RequestMethod.GET)
+	@ResponseStatus( HttpStatus.OK )
+	@ResponseBody
+	public AttendanceWriterMetricsRepresentation getAttendanceWriterMetrics() {
+		logger.debug("getAttendanceWriterMetrics");
+
+		return attendanceRecordWriter.getMetrics();
+	}
+
+}
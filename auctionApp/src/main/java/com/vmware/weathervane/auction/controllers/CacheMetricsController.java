@@ -0,0 +1,60 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.controllers;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.vmware.weathervane.auction.rest.representation.CacheMetricsRepresentation;
+import com.vmware.weathervane.auction.service.CacheMetricsService;
+
+@Controller
+@RequestMapping(value = "/cacheMetrics")
+public class CacheMetricsController extends BaseController {
+	private static final Logger logger = LoggerFactory.getLogger(CacheMetricsController.class);
+
+	private CacheMetricsService cacheMetricsService;
+
+	@Inject
+	@Named("cacheMetricsService")
+	public void setCacheMetricsService(CacheMetricsService service) {
+		this.cacheMetricsService = service;
+	}
+
+	@RequestMapping(method = RequestMethod.GET)
+	@ResponseStatus( HttpStatus.OK )
+	@ResponseBody
+	public List<CacheMetricsRepresentation> getCacheMetrics() {
+		logger.info("getCacheMetrics");
+
+		return cacheMetricsService.getCacheMetrics();
+	}
+
+	@RequestMapping(value = "/{cacheName}", method = RequestMethod.GET)
+	@ResponseBody
+	public CacheMetricsRepresentation getCacheMetrics(@PathVariable String cacheName, HttpServletResponse response) {
+		logger.info("getCacheMetrics cacheName = " + cacheName);
+
+		CacheMetricsRepresentation cacheMetrics = cacheMetricsService.getCacheMetrics(cacheName);
+		if (cacheMetrics == null) {
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+		}
+		return cacheMetrics;
+	}
+
+}
@@ -29,6 +29,7 @@ import com.vmware.weathervane.auction.rest.representation.AttendanceRecordRepres
 import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
 import com.vmware.weathervane.auction.rest.representation.AuthenticationRequestRepresentation;
 import com.vmware.weathervane.auction.rest.representation.BidRepresentation;
+import com.vmware.weathervane.auction.rest.representation.CacheWarmerStatusRepresentation;
 import com.vmware.weathervane.auction.rest.representation.CollectionRepresentation;
 import com.vmware.weathervane.auction.rest.representation.ImageInfoRepresentation;
 import com.vmware.weathervane.auction.rest.representation.ItemRepresentation;
@@ -138,6 +139,13 @@ public class HealthCheckController extends BaseController {
 		
 	}
 	
-
+	@RequestMapping(value = "/warmer", method = RequestMethod.GET)
+	@ResponseStatus( HttpStatus.OK )
+	@ResponseBody
+	public CacheWarmerStatusRepresentation warmerStatus() {
+		logger.debug("warmerStatus");
+		
+		return cacheWarmerService.getStatus();
+	}
 
 }
@@ -18,6 +18,7 @@ public interface AuctionDao extends GenericDao<Auction, Long> {
 	List<Item> getItemPageForAuction(Auction theAuction, int page, int pageSize);
 
 	List<Auction> getAuctionsToStart(Date endTime);
+	List<Auction> getFutureAuctions();
 	List<Item> getItemsForAuction(Long auctionId);
 	Item getFirstItem(Auction theAuction);
 	Item getNextItem(Auction theAuction, Long itemId);
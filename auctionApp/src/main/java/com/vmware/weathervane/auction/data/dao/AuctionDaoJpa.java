@@ -94,6 +94,28 @@ public class AuctionDaoJpa extends GenericDaoJpa<Auction, Long> implements Aucti
 
 	}
 
+	/**
+	 * 
+	 * Method to fetch all auctions which have not yet been started, in order
+	 * of start time
+	 * 
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Auction> getFutureAuctions() {
+
+		logger.info("getFutureAuctions.");
+
+		String theQueryString = "SELECT e FROM Auction e " + "WHERE e.state = :state "
+				+ "ORDER BY e.startTime ASC";
+
+		TypedQuery<Auction> theQuery = entityManager.createQuery(theQueryString, Auction.class)
+				.setParameter("state", Auction.AuctionState.FUTURE);
+
+		return theQuery.getResultList();
+
+	}
+
 	/**
 	 * 
 	 * Method to fetch all auctions which are currently running
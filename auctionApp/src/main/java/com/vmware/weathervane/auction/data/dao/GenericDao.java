@@ -20,6 +20,7 @@ public interface GenericDao<T extends DomainObject, ID extends Serializable> {
 
 	public T get(ID id);
 	public T getForUpdate(ID id);	
+	public T getReference(ID id);
 	public List<T> getAll();
 	public List<T> getPage(int page, int pageSize);
 	public Long getCount();
@@ -16,6 +16,7 @@ import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceContextType;
 import javax.persistence.Query;
 
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.vmware.weathervane.auction.data.model.DomainObject;
@@ -57,6 +58,20 @@ public class GenericDaoJpa<T extends DomainObject, ID extends Serializable> impl
 		}
 	}
 
+	/*
+	 * Returns an uninitialized reference to the entity, which is only loaded
+	 * if its state is accessed.  Must be called within the transaction that
+	 * will use the reference.
+	 */
+	@Transactional(propagation=Propagation.MANDATORY)
+	public T getReference(ID id) {
+		if (id == null) {
+			return null;
+		} else {
+			return entityManager.getReference(type, id);
+		}
+	}
+
 	@Transactional(readOnly=true)
 	public List<T> getAll() {
 		return entityManager.createQuery("select o from " +
@@ -41,6 +41,12 @@ public interface HighBidDao extends GenericDao<HighBid, Long> {
 
 	HighBid getActiveHighBid(Long auctionId);
 
+	/*
+	 * Locks the active highBid of the auction and increments its version, so
+	 * that writes by any auctioneer that read an earlier version are fenced.
+	 */
+	HighBid getActiveHighBidForTakeover(Long auctionId);
+
 	List<HighBid> findByAuctionId(Long auctionId);
 
 	int deleteByAuction(Auction auction);
@@ -69,6 +69,25 @@ public class HighBidDaoJpa extends GenericDaoJpa<HighBid, Long> implements HighB
 
 	}
 	
+	@Override
+	public HighBid getActiveHighBidForTakeover(Long auctionId) {
+				
+		String theQueryString  = "SELECT e FROM HighBid e "
+				+ "WHERE (e.state = :state1 OR  e.state = :state2) "
+				+ " AND auction_id = :auctionid ";
+		
+		logger.info("getActiveHighBidForTakeover for auction " + auctionId + ". theQueryString = " + theQueryString);
+		
+		TypedQuery<HighBid> theQuery = entityManager.createQuery(theQueryString, HighBid.class)
+				.setParameter("state1", HighBidState.OPEN)
+				.setParameter("state2", HighBidState.LASTCALL)
+				.setParameter("auctionid", auctionId)
+				.setLockMode(LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+				
+		return theQuery.getSingleResult();
+
+	}
+	
 	@Override
 	@Transactional
 	public int deleteByPreloaded(Boolean preloaded) {
@@ -0,0 +1,34 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.dao;
+
+import com.vmware.weathervane.auction.data.model.DomainObject;
+import com.vmware.weathervane.auction.data.model.User;
+
+/**
+ * Well-known entities are rows that are created when the database is loaded
+ * and are used on every auction, such as the user that holds the starting bid
+ * on every item. Their ids are looked up once, and each use gets a JPA
+ * reference rather than running a query.
+ *
+ * The ids never need to be looked up again while the application is running.
+ * DBPrep resets the data between runs without deleting the preloaded users,
+ * and a full reload by the DbLoader is only done while the application
+ * servers are stopped.
+ */
+public interface WellKnownEntityDao {
+
+	/*
+	 * The user associated with all starting bids, and therefore the winning
+	 * bidder on items that receive no real bids
+	 */
+	public static final String UNSOLD_USER = "unsoldUser";
+	public static final String UNSOLD_USER_EMAIL = "unsold@auction.xyz";
+
+	public <T extends DomainObject> T getReference(String name, Class<T> type);
+
+	public User getUnsoldUser();
+
+}
@@ -0,0 +1,114 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+import javax.persistence.PersistenceException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vmware.weathervane.auction.data.model.DomainObject;
+import com.vmware.weathervane.auction.data.model.User;
+
+@Repository("wellKnownEntityDao")
+public class WellKnownEntityDaoJpa implements WellKnownEntityDao {
+
+	private static final Logger logger = LoggerFactory.getLogger(WellKnownEntityDaoJpa.class);
+
+	private EntityManager entityManager;
+
+	/*
+	 * The query used to find the id of each well-known entity.  Each query
+	 * has a single parameter named key.
+	 */
+	private final Map<String, WellKnownEntity> wellKnownEntities = new ConcurrentHashMap<String, WellKnownEntity>();
+
+	private final ConcurrentMap<String, Object> resolvedIds = new ConcurrentHashMap<String, Object>();
+
+	@PersistenceContext(type=PersistenceContextType.TRANSACTION)
+	public void setEntityManager(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	public WellKnownEntityDaoJpa() {
+		super();
+		logger.info("WellKnownEntityDaoJpa constructor");
+
+		register(UNSOLD_USER, User.class, "SELECT user.id FROM User user WHERE user.email = :key", UNSOLD_USER_EMAIL);
+	}
+
+	private void register(String name, Class<? extends DomainObject> type, String idQuery, Object key) {
+		wellKnownEntities.put(name, new WellKnownEntity(type, idQuery, key));
+	}
+
+	@PostConstruct
+	public void initialize() {
+		/*
+		 * The data is normally loaded before the application is started.  If
+		 * it isn't, the ids are looked up on first use.
+		 */
+		try {
+			for (String name : wellKnownEntities.keySet()) {
+				resolveId(name);
+			}
+		} catch (PersistenceException | DataAccessException ex) {
+			logger.warn("initialize: Could not look up well-known entities: " + ex.getMessage());
+		}
+	}
+
+	@Override
+	@Transactional(propagation=Propagation.MANDATORY)
+	public <T extends DomainObject> T getReference(String name, Class<T> type) {
+		WellKnownEntity wellKnownEntity = wellKnownEntities.get(name);
+		if ((wellKnownEntity == null) || !type.equals(wellKnownEntity.type)) {
+			throw new IllegalArgumentException("No well-known entity " + name + " of type " + type.getSimpleName());
+		}
+
+		Object id = resolvedIds.get(name);
+		if (id == null) {
+			id = resolveId(name);
+		}
+		return entityManager.getReference(type, id);
+	}
+
+	@Override
+	@Transactional(propagation=Propagation.MANDATORY)
+	public User getUnsoldUser() {
+		return getReference(UNSOLD_USER, User.class);
+	}
+
+	private Object resolveId(String name) {
+		WellKnownEntity wellKnownEntity = wellKnownEntities.get(name);
+		Object id = entityManager.createQuery(wellKnownEntity.idQuery).setParameter("key", wellKnownEntity.key)
+				.getSingleResult();
+		resolvedIds.put(name, id);
+		logger.info("resolveId: Well-known entity " + name + " has id " + id);
+		return id;
+	}
+
+	private static class WellKnownEntity {
+		private final Class<? extends DomainObject> type;
+		private final String idQuery;
+		private final Object key;
+
+		public WellKnownEntity(Class<? extends DomainObject> type, String idQuery, Object key) {
+			this.type = type;
+			this.idQuery = idQuery;
+			this.key = key;
+		}
+	}
+}
@@ -15,6 +15,8 @@ public interface AttendanceRecordRepositoryCustom {
 	
 	void deleteByAuctionId(Long auctionId);
 
+	void saveBatch(List<AttendanceRecord> records);
+
 	List<AttendanceRecord> findByUserId(Long userId);
 
 	List<AttendanceRecord> findByUserIdAndTimestampLessThanEqual(Long userId, Date toDate);	
@@ -66,6 +66,15 @@ public class AttendanceRecordRepositoryImpl implements AttendanceRecordRepositor
 				});
 	}
 
+	/*
+	 * Writes the records as a single batch.  The records should all be in the
+	 * same partition, i.e. for the same user.
+	 */
+	@Override
+	public void saveBatch(List<AttendanceRecord> records) {
+		cassandraOperations.batchOps().insert(records).execute();
+	}
+
 	@Override
 	public List<AttendanceRecord> findByUserId(Long userId) {
 		String selectString = "select * from attendancerecord_by_userid where user_id = " + userId;
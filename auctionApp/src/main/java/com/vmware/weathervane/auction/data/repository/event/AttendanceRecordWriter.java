@@ -0,0 +1,383 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.repository.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.data.model.AttendanceRecord;
+import com.vmware.weathervane.auction.rest.representation.AttendanceWriterMetricsRepresentation;
+
+/**
+ * Writes attendance records to the event store in the background, so that
+ * joining or leaving an auction does not wait for the write.
+ *
+ * Records are placed on a bounded queue. The writer threads drain the queue,
+ * group the records by user, which is the partition key of the
+ * attendancerecord_by_userid table, and write each group as a single batch.
+ * When the queue is full the record is either written on the calling thread,
+ * which slows the caller down to the rate of the writers, or dropped.
+ *
+ * A record stays in the pending records of its user until it has been
+ * written, so that the attendance history of a user can include the records
+ * that are still queued.
+ *
+ * The counters and the depth of the queue are served at
+ * /attendanceWriterMetrics while the application runs.
+ */
+public class AttendanceRecordWriter {
+
+	private static final Logger logger = LoggerFactory.getLogger(AttendanceRecordWriter.class);
+
+	@Inject
+	private AttendanceRecordRepository attendanceRecordRepository;
+
+	private boolean useAttendanceWriters = true;
+	private int numAttendanceWriters = 2;
+	private int attendanceQueueSize = 10000;
+	private int maxBatchSize = 100;
+
+	/*
+	 * If true, records are dropped when the queue is full.  Otherwise they are
+	 * written on the calling thread.
+	 */
+	private boolean dropWhenFull = false;
+
+	private BlockingQueue<AttendanceRecord> attendanceQueue;
+
+	/*
+	 * The records of each user that have been queued but not yet written.
+	 * Writes of a user's records are made while holding the lock of the
+	 * user's pending records.
+	 */
+	private final ConcurrentMap<Long, PendingRecords> pendingRecords = new ConcurrentHashMap<Long, PendingRecords>();
+
+	private List<AttendanceWriter> attendanceWriters = new ArrayList<AttendanceWriter>();
+
+	private final AtomicLong recordsQueued = new AtomicLong();
+	private final AtomicLong recordsWritten = new AtomicLong();
+	private final AtomicLong batchesWritten = new AtomicLong();
+	private final AtomicLong callerWrites = new AtomicLong();
+	private final AtomicLong recordsDropped = new AtomicLong();
+	private final AtomicLong writeFailures = new AtomicLong();
+
+	@PostConstruct
+	private void startServiceThreads() {
+		logger.info("startServiceThreads useAttendanceWriters = " + useAttendanceWriters + ", numAttendanceWriters = "
+				+ numAttendanceWriters + ", attendanceQueueSize = " + attendanceQueueSize + ", dropWhenFull = "
+				+ dropWhenFull);
+
+		if (useAttendanceWriters) {
+			attendanceQueue = new LinkedBlockingQueue<AttendanceRecord>(attendanceQueueSize);
+
+			for (int i = 0; i < numAttendanceWriters; i++) {
+				AttendanceWriter attendanceWriter = new AttendanceWriter();
+				Thread attendanceWriterThread = new Thread(attendanceWriter, "attendanceWriter" + i);
+				attendanceWriters.add(attendanceWriter);
+				attendanceWriterThread.start();
+			}
+		}
+	}
+
+	@PreDestroy
+	public void stopServiceThreads() {
+		logger.info("AttendanceRecordWriter stopServiceThreads");
+		for (AttendanceWriter attendanceWriter : attendanceWriters) {
+			attendanceWriter.kill();
+		}
+		attendanceWriters.clear();
+
+		logger.warn(getMetrics().toString());
+	}
+
+	public AttendanceWriterMetricsRepresentation getMetrics() {
+		AttendanceWriterMetricsRepresentation metrics = new AttendanceWriterMetricsRepresentation();
+		metrics.setUseAttendanceWriters(useAttendanceWriters);
+		metrics.setDropWhenFull(dropWhenFull);
+		metrics.setQueueDepth(getQueueDepth());
+		metrics.setQueueCapacity(useAttendanceWriters ? attendanceQueueSize : 0);
+		metrics.setRecordsQueued(recordsQueued.get());
+		metrics.setRecordsWritten(recordsWritten.get());
+		metrics.setBatchesWritten(batchesWritten.get());
+		metrics.setCallerWrites(callerWrites.get());
+		metrics.setRecordsDropped(recordsDropped.get());
+		metrics.setWriteFailures(writeFailures.get());
+		return metrics;
+	}
+
+	/**
+	 * Saves an attendance record. Returns once the record has been queued, or
+	 * written if the writers are not being used.
+	 */
+	public void save(AttendanceRecord record) {
+		if (!useAttendanceWriters) {
+			attendanceRecordRepository.save(record);
+			return;
+		}
+
+		Long userId = record.getKey().getUserId();
+		PendingRecords userPending = lockPending(userId);
+		try {
+			userPending.records.add(record);
+		} finally {
+			unlockPending(userId, userPending);
+		}
+
+		if (attendanceQueue.offer(record)) {
+			recordsQueued.incrementAndGet();
+			return;
+		}
+
+		/*
+		 * The queue is full.  If the writers already wrote the record as part
+		 * of another record's batch, then there is nothing left to do.
+		 */
+		userPending = lockPending(userId);
+		try {
+			if (!userPending.records.remove(record)) {
+				return;
+			}
+			if (dropWhenFull) {
+				logger.debug("save: attendance queue is full, dropping record for userId " + userId);
+				recordsDropped.incrementAndGet();
+			} else {
+				callerWrites.incrementAndGet();
+				attendanceRecordRepository.save(record);
+			}
+		} finally {
+			unlockPending(userId, userPending);
+		}
+	}
+
+	/**
+	 * Writes any queued records for the user before returning. This must be
+	 * called before records of the user are updated in place.
+	 */
+	public void flush(Long userId) {
+		if (!useAttendanceWriters) {
+			return;
+		}
+
+		PendingRecords userPending = lockPending(userId);
+		try {
+			writePending(userId, userPending);
+		} finally {
+			unlockPending(userId, userPending);
+		}
+	}
+
+	/**
+	 * Returns the records of the user that have not yet been written and whose
+	 * timestamps are within the range. Either end of the range may be null.
+	 */
+	public List<AttendanceRecord> getPendingRecords(Long userId, Date fromDate, Date toDate) {
+		PendingRecords userPending = pendingRecords.get(userId);
+		if (userPending == null) {
+			return Collections.emptyList();
+		}
+
+		List<AttendanceRecord> records = new ArrayList<AttendanceRecord>();
+		userPending.lock.lock();
+		try {
+			for (AttendanceRecord record : userPending.records) {
+				Date timestamp = record.getKey().getTimestamp();
+				if (((fromDate == null) || !timestamp.before(fromDate))
+						&& ((toDate == null) || !timestamp.after(toDate))) {
+					records.add(record);
+				}
+			}
+		} finally {
+			userPending.lock.unlock();
+		}
+		return records;
+	}
+
+	/*
+	 * Gets the pending records of the user and locks them.  The pending
+	 * records are removed from the map when they are empty, so they must be
+	 * checked again once locked.
+	 */
+	private PendingRecords lockPending(Long userId) {
+		while (true) {
+			PendingRecords userPending = pendingRecords.computeIfAbsent(userId, id -> new PendingRecords());
+			userPending.lock.lock();
+			if (pendingRecords.get(userId) == userPending) {
+				return userPending;
+			}
+			userPending.lock.unlock();
+		}
+	}
+
+	private void unlockPending(Long userId, PendingRecords userPending) {
+		if (userPending.records.isEmpty()) {
+			pendingRecords.remove(userId, userPending);
+		}
+		userPending.lock.unlock();
+	}
+
+	/*
+	 * Writes all of the pending records of a user as one batch.  The caller
+	 * must hold the lock of the pending records.
+	 */
+	private void writePending(Long userId, PendingRecords userPending) {
+		if (userPending.records.isEmpty()) {
+			return;
+		}
+		List<AttendanceRecord> batch = new ArrayList<AttendanceRecord>(userPending.records);
+		userPending.records.clear();
+		try {
+			if (batch.size() == 1) {
+				attendanceRecordRepository.save(batch.get(0));
+			} else {
+				attendanceRecordRepository.saveBatch(batch);
+			}
+			recordsWritten.addAndGet(batch.size());
+			batchesWritten.incrementAndGet();
+		} catch (RuntimeException e) {
+			logger.warn("writePending: Failed to write " + batch.size() + " attendance records for userId " + userId
+					+ ": " + e.getMessage());
+			writeFailures.addAndGet(batch.size());
+		}
+	}
+
+	public long getRecordsQueued() {
+		return recordsQueued.get();
+	}
+
+	public long getRecordsWritten() {
+		return recordsWritten.get();
+	}
+
+	public long getBatchesWritten() {
+		return batchesWritten.get();
+	}
+
+	public long getCallerWrites() {
+		return callerWrites.get();
+	}
+
+	public long getRecordsDropped() {
+		return recordsDropped.get();
+	}
+
+	public long getWriteFailures() {
+		return writeFailures.get();
+	}
+
+	public int getQueueDepth() {
+		return (attendanceQueue != null) ? attendanceQueue.size() : 0;
+	}
+
+	public boolean isUseAttendanceWriters() {
+		return useAttendanceWriters;
+	}
+
+	public void setUseAttendanceWriters(boolean useAttendanceWriters) {
+		this.useAttendanceWriters = useAttendanceWriters;
+	}
+
+	public int getNumAttendanceWriters() {
+		return numAttendanceWriters;
+	}
+
+	public void setNumAttendanceWriters(int numAttendanceWriters) {
+		this.numAttendanceWriters = numAttendanceWriters;
+	}
+
+	public int getAttendanceQueueSize() {
+		return attendanceQueueSize;
+	}
+
+	public void setAttendanceQueueSize(int attendanceQueueSize) {
+		this.attendanceQueueSize = attendanceQueueSize;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public boolean isDropWhenFull() {
+		return dropWhenFull;
+	}
+
+	public void setDropWhenFull(boolean dropWhenFull) {
+		this.dropWhenFull = dropWhenFull;
+	}
+
+	private static class PendingRecords {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final List<AttendanceRecord> records = new ArrayList<AttendanceRecord>();
+	}
+
+	protected class AttendanceWriter implements Runnable {
+
+		private volatile boolean notKilled = true;
+
+		public void kill() {
+			logger.debug("AttendanceWriter::kill");
+			notKilled = false;
+		}
+
+		@Override
+		public void run() {
+			logger.info("AttendanceWriter run()");
+			List<AttendanceRecord> drained = new ArrayList<AttendanceRecord>(maxBatchSize);
+			while (notKilled || (!attendanceQueue.isEmpty())) {
+				drained.clear();
+				try {
+					AttendanceRecord first = attendanceQueue.poll(10, TimeUnit.SECONDS);
+					if (first == null) {
+						continue;
+					}
+					drained.add(first);
+				} catch (InterruptedException e) {
+					logger.warn("AttendanceWriter interrupted before a record became available.");
+					continue;
+				}
+				attendanceQueue.drainTo(drained, maxBatchSize - 1);
+
+				/*
+				 * Each user's pending records are written together.  Records
+				 * already written by a flush or by another writer are no
+				 * longer pending and are skipped.
+				 */
+				Set<Long> users = new LinkedHashSet<Long>();
+				for (AttendanceRecord record : drained) {
+					users.add(record.getKey().getUserId());
+				}
+				for (Long userId : users) {
+					PendingRecords userPending = lockPending(userId);
+					try {
+						writePending(userId, userPending);
+					} finally {
+						unlockPending(userId, userPending);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.interceptors;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.springframework.cache.annotation.Cacheable;
+
+import com.vmware.weathervane.auction.service.CacheMetricsService;
+
+/**
+ * Measures the time taken to load the value of a Cacheable method, and
+ * records it with the CacheMetricsService.
+ *
+ * It must be ordered inside the cache advice, so that it is only called on a
+ * miss.
+ */
+public class CacheLoadTimingAspect {
+
+	private CacheMetricsService cacheMetricsService;
+
+	public Object timeCacheLoad(ProceedingJoinPoint joinPoint, Cacheable cacheable) throws Throwable {
+		long startNanos = System.nanoTime();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			long loadNanos = System.nanoTime() - startNanos;
+			String[] names = cacheable.value();
+			if (names.length == 0) {
+				names = cacheable.cacheNames();
+			}
+			for (String cacheName : names) {
+				cacheMetricsService.recordCacheLoad(cacheName, loadNanos);
+			}
+		}
+	}
+
+	public CacheMetricsService getCacheMetricsService() {
+		return cacheMetricsService;
+	}
+
+	public void setCacheMetricsService(CacheMetricsService cacheMetricsService) {
+		this.cacheMetricsService = cacheMetricsService;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.rest.representation;
+
+import java.io.Serializable;
+
+public class AttendanceWriterMetricsRepresentation extends Representation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private boolean useAttendanceWriters;
+	private boolean dropWhenFull;
+	private int queueDepth;
+	private int queueCapacity;
+	private long recordsQueued;
+	private long recordsWritten;
+	private long batchesWritten;
+	private long callerWrites;
+	private long recordsDropped;
+	private long writeFailures;
+
+	public AttendanceWriterMetricsRepresentation() {
+
+	}
+
+	public boolean isUseAttendanceWriters() {
+		return useAttendanceWriters;
+	}
+
+	public void setUseAttendanceWriters(boolean useAttendanceWriters) {
+		this.useAttendanceWriters = useAttendanceWriters;
+	}
+
+	public boolean isDropWhenFull() {
+		return dropWhenFull;
+	}
+
+	public void setDropWhenFull(boolean dropWhenFull) {
+		this.dropWhenFull = dropWhenFull;
+	}
+
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public void setQueueDepth(int queueDepth) {
+		this.queueDepth = queueDepth;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public long getRecordsQueued() {
+		return recordsQueued;
+	}
+
+	public void setRecordsQueued(long recordsQueued) {
+		this.recordsQueued = recordsQueued;
+	}
+
+	public long getRecordsWritten() {
+		return recordsWritten;
+	}
+
+	public void setRecordsWritten(long recordsWritten) {
+		this.recordsWritten = recordsWritten;
+	}
+
+	public long getBatchesWritten() {
+		return batchesWritten;
+	}
+
+	public void setBatchesWritten(long batchesWritten) {
+		this.batchesWritten = batchesWritten;
+	}
+
+	public long getCallerWrites() {
+		return callerWrites;
+	}
+
+	public void setCallerWrites(long callerWrites) {
+		this.callerWrites = callerWrites;
+	}
+
+	public long getRecordsDropped() {
+		return recordsDropped;
+	}
+
+	public void setRecordsDropped(long recordsDropped) {
+		this.recordsDropped = recordsDropped;
+	}
+
+	public long getWriteFailures() {
+		return writeFailures;
+	}
+
+	public void setWriteFailures(long writeFailures) {
+		this.writeFailures = writeFailures;
+	}
+
+	@Override
+	public String toString() {
+		return "AttendanceWriterMetrics: useAttendanceWriters = " + useAttendanceWriters + ", dropWhenFull = "
+				+ dropWhenFull + ", queueDepth = " + queueDepth + ", queueCapacity = " + queueCapacity
+				+ ", recordsQueued = " + recordsQueued + ", recordsWritten = " + recordsWritten
+				+ ", batchesWritten = " + batchesWritten + ", callerWrites = " + callerWrites
+				+ ", recordsDropped = " + recordsDropped + ", writeFailures = " + writeFailures;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.rest.representation;
+
+import java.io.Serializable;
+
+public class CacheMetricsRepresentation extends Representation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String cacheName;
+	private String provider;
+	private long hits;
+	private long misses;
+	private double hitRatio;
+	private long puts;
+	private long evictions;
+	private long entries;
+	private long bytes;
+	private long loads;
+	private double averageLoadMillis;
+	private double maxLoadMillis;
+
+	public CacheMetricsRepresentation() {
+
+	}
+
+	public String getCacheName() {
+		return cacheName;
+	}
+
+	public void setCacheName(String cacheName) {
+		this.cacheName = cacheName;
+	}
+
+	public String getProvider() {
+		return provider;
+	}
+
+	public void setProvider(String provider) {
+		this.provider = provider;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public void setHits(long hits) {
+		this.hits = hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public void setMisses(long misses) {
+		this.misses = misses;
+	}
+
+	public double getHitRatio() {
+		return hitRatio;
+	}
+
+	public void setHitRatio(double hitRatio) {
+		this.hitRatio = hitRatio;
+	}
+
+	public long getPuts() {
+		return puts;
+	}
+
+	public void setPuts(long puts) {
+		this.puts = puts;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public void setEvictions(long evictions) {
+		this.evictions = evictions;
+	}
+
+	public long getEntries() {
+		return entries;
+	}
+
+	public void setEntries(long entries) {
+		this.entries = entries;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	public long getLoads() {
+		return loads;
+	}
+
+	public void setLoads(long loads) {
+		this.loads = loads;
+	}
+
+	public double getAverageLoadMillis() {
+		return averageLoadMillis;
+	}
+
+	public void setAverageLoadMillis(double averageLoadMillis) {
+		this.averageLoadMillis = averageLoadMillis;
+	}
+
+	public double getMaxLoadMillis() {
+		return maxLoadMillis;
+	}
+
+	public void setMaxLoadMillis(double maxLoadMillis) {
+		this.maxLoadMillis = maxLoadMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheMetrics: cacheName = " + cacheName + ", provider = " + provider + ", hits = " + hits
+				+ ", misses = " + misses + ", hitRatio = " + hitRatio + ", puts = " + puts + ", evictions = "
+				+ evictions + ", entries = " + entries + ", bytes = " + bytes + ", loads = " + loads
+				+ ", averageLoadMillis = " + averageLoadMillis + ", maxLoadMillis = " + maxLoadMillis;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.rest.representation;
+
+import java.io.Serializable;
+
+public class CacheWarmerStatusRepresentation extends Representation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private boolean prewarm;
+	private boolean ready;
+	private String phase;
+	private int numWarmerThreads;
+	private double requestsPerSecond;
+	private long requestsCompleted;
+	private long requestsFailed;
+	private long elapsedMillis;
+
+	public CacheWarmerStatusRepresentation() {
+
+	}
+
+	public boolean isPrewarm() {
+		return prewarm;
+	}
+
+	public void setPrewarm(boolean prewarm) {
+		this.prewarm = prewarm;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void setReady(boolean ready) {
+		this.ready = ready;
+	}
+
+	public String getPhase() {
+		return phase;
+	}
+
+	public void setPhase(String phase) {
+		this.phase = phase;
+	}
+
+	public int getNumWarmerThreads() {
+		return numWarmerThreads;
+	}
+
+	public void setNumWarmerThreads(int numWarmerThreads) {
+		this.numWarmerThreads = numWarmerThreads;
+	}
+
+	public double getRequestsPerSecond() {
+		return requestsPerSecond;
+	}
+
+	public void setRequestsPerSecond(double requestsPerSecond) {
+		this.requestsPerSecond = requestsPerSecond;
+	}
+
+	public long getRequestsCompleted() {
+		return requestsCompleted;
+	}
+
+	public void setRequestsCompleted(long requestsCompleted) {
+		this.requestsCompleted = requestsCompleted;
+	}
+
+	public long getRequestsFailed() {
+		return requestsFailed;
+	}
+
+	public void setRequestsFailed(long requestsFailed) {
+		this.requestsFailed = requestsFailed;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheWarmerStatus: prewarm = " + prewarm + ", ready = " + ready + ", phase = " + phase
+				+ ", requestsCompleted = " + requestsCompleted + ", requestsFailed = " + requestsFailed
+				+ ", elapsedMillis = " + elapsedMillis;
+	}
+}
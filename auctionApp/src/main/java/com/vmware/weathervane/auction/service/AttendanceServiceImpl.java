@@ -9,8 +9,12 @@ SPDX-License-Identifier: BSD-2-Clause
  */
 package com.vmware.weathervane.auction.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -19,7 +23,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vmware.weathervane.auction.data.model.AttendanceRecord;
+import com.vmware.weathervane.auction.data.model.AttendanceRecord.AttendanceRecordKey;
 import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordRepository;
+import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordWriter;
 import com.vmware.weathervane.auction.rest.representation.AttendanceRecordRepresentation;
 import com.vmware.weathervane.auction.rest.representation.CollectionRepresentation;
 import com.vmware.weathervane.auction.service.liveAuction.LiveAuctionServiceConstants;
@@ -34,6 +40,9 @@ public class AttendanceServiceImpl implements AttendanceService {
 	
 	@Inject
 	AttendanceRecordRepository attendanceRecordRepository;
+
+	@Inject
+	AttendanceRecordWriter attendanceRecordWriter;
 	
 	public AttendanceServiceImpl() {
 
@@ -61,6 +70,22 @@ public class AttendanceServiceImpl implements AttendanceService {
 				queryResults = attendanceRecordRepository.findByUserIdAndTimestampGreaterThanEqual(userId, fromDate);
 		else
 				queryResults = attendanceRecordRepository.findByUserIdAndTimestampBetween(userId, fromDate, toDate);
+
+		/*
+		 * Include the records that are still waiting to be written
+		 */
+		List<AttendanceRecord> pendingRecords = attendanceRecordWriter.getPendingRecords(userId, fromDate, toDate);
+		if (!pendingRecords.isEmpty()) {
+			Map<AttendanceRecordKey, AttendanceRecord> mergedRecords = new TreeMap<AttendanceRecordKey, AttendanceRecord>(
+					Comparator.comparing((AttendanceRecordKey k) -> k.getTimestamp()));
+			for (AttendanceRecord record : queryResults) {
+				mergedRecords.put(record.getKey(), record);
+			}
+			for (AttendanceRecord record : pendingRecords) {
+				mergedRecords.putIfAbsent(record.getKey(), record);
+			}
+			queryResults = new ArrayList<AttendanceRecord>(mergedRecords.values());
+		}
 			
 		List<AttendanceRecordRepresentation> liveAttendanceRecords = 
 				queryResults.stream().limit(realPageSize)
@@ -19,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.vmware.weathervane.auction.data.dao.UserDao;
 import com.vmware.weathervane.auction.data.model.User;
 import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordRepository;
+import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordWriter;
 import com.vmware.weathervane.auction.rest.representation.LoginResponse;
 import com.vmware.weathervane.auction.rest.representation.UserRepresentation;
 import com.vmware.weathervane.auction.service.exception.AuthenticationException;
@@ -34,6 +35,9 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
 	@Inject
 	AttendanceRecordRepository attendanceRecordRepository;
+
+	@Inject
+	AttendanceRecordWriter attendanceRecordWriter;
 	
 	
 	@Inject
@@ -84,6 +88,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 	 		theUser.setLoggedin(false);
 	 		theUser.setAuthToken(null); // remove token
 			userDao.update(theUser);
+			attendanceRecordWriter.flush(theUser.getId());
 			attendanceRecordRepository.leaveAuctionsForUser(theUser.getId());
 		} else {
 			throw new InvalidStateException("User not authenticated");
@@ -0,0 +1,27 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.vmware.weathervane.auction.rest.representation.CacheMetricsRepresentation;
+
+public interface CacheMetricsService {
+	List<CacheMetricsRepresentation> getCacheMetrics();
+
+	CacheMetricsRepresentation getCacheMetrics(String cacheName);
+
+	/**
+	 * Records the time taken to load a value into a cache on a miss
+	 */
+	void recordCacheLoad(String cacheName, long loadNanos);
+
+	/**
+	 * Reports a cache that is not managed by the cacheManager. The supplier
+	 * is asked for the metrics of the cache each time they are requested.
+	 */
+	void registerCache(String cacheName, Supplier<CacheMetricsRepresentation> metricsSupplier);
+}
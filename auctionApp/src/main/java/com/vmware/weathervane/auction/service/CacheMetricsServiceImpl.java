@@ -0,0 +1,199 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.CacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.vmware.weathervane.auction.rest.representation.CacheMetricsRepresentation;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
+
+/**
+ * Collects the metrics of the caches used through the Spring cacheManager.
+ *
+ * Hits, misses, puts, evictions and sizes are read from the statistics kept
+ * by the cache provider, either ehcache or Ignite, when the metrics are
+ * requested. The time taken to load a value on a miss is not kept by either
+ * provider, so it is measured by the CacheLoadTimingAspect, which wraps the
+ * execution of each Cacheable method, and recorded here.
+ *
+ * Caches that are not managed by the cacheManager, such as the cache of
+ * active auctions, are registered with a supplier of their metrics.
+ */
+public class CacheMetricsServiceImpl implements CacheMetricsService {
+	private static final Logger logger = LoggerFactory.getLogger(CacheMetricsServiceImpl.class);
+
+	private static final double nanosPerMilli = 1000000.0;
+
+	@Inject
+	private CacheManager cacheManager;
+
+	/*
+	 * The caches to report.  If empty, the caches known to the cacheManager
+	 * are reported.  The Ignite cacheManager only knows about a cache once it
+	 * has been used, so the caches are listed in the configuration.
+	 */
+	private List<String> cacheNames = new ArrayList<String>();
+
+	private final ConcurrentMap<String, LoadTimes> cacheNameToLoadTimesMap = new ConcurrentHashMap<String, LoadTimes>();
+
+	private final ConcurrentMap<String, Supplier<CacheMetricsRepresentation>> registeredCaches = new ConcurrentHashMap<String, Supplier<CacheMetricsRepresentation>>();
+
+	@PreDestroy
+	private void printCacheMetrics() {
+		logger.warn("Cache Metrics: ");
+		for (CacheMetricsRepresentation cacheMetrics : getCacheMetrics()) {
+			logger.warn(cacheMetrics.toString());
+		}
+	}
+
+	@Override
+	public List<CacheMetricsRepresentation> getCacheMetrics() {
+		Collection<String> names = cacheNames;
+		if (names.isEmpty()) {
+			names = cacheManager.getCacheNames();
+		}
+		names = new ArrayList<String>(names);
+		for (String cacheName : registeredCaches.keySet()) {
+			if (!names.contains(cacheName)) {
+				names.add(cacheName);
+			}
+		}
+
+		List<CacheMetricsRepresentation> cacheMetricsList = new ArrayList<CacheMetricsRepresentation>();
+		for (String cacheName : names) {
+			CacheMetricsRepresentation cacheMetrics = getCacheMetrics(cacheName);
+			if (cacheMetrics != null) {
+				cacheMetricsList.add(cacheMetrics);
+			}
+		}
+		return cacheMetricsList;
+	}
+
+	@Override
+	public CacheMetricsRepresentation getCacheMetrics(String cacheName) {
+		CacheMetricsRepresentation cacheMetrics;
+		Supplier<CacheMetricsRepresentation> metricsSupplier = registeredCaches.get(cacheName);
+		if (metricsSupplier != null) {
+			cacheMetrics = metricsSupplier.get();
+		} else {
+			Cache cache = cacheManager.getCache(cacheName);
+			if (cache == null) {
+				logger.info("getCacheMetrics: No cache named " + cacheName);
+				return null;
+			}
+
+			cacheMetrics = new CacheMetricsRepresentation();
+			Object nativeCache = cache.getNativeCache();
+			if (nativeCache instanceof Ehcache) {
+				addEhcacheMetrics(cacheMetrics, (Ehcache) nativeCache);
+			} else if (nativeCache instanceof IgniteCache) {
+				addIgniteMetrics(cacheMetrics, (IgniteCache<?, ?>) nativeCache);
+			} else {
+				cacheMetrics.setProvider(nativeCache.getClass().getSimpleName());
+			}
+		}
+		cacheMetrics.setCacheName(cacheName);
+
+		long lookups = cacheMetrics.getHits() + cacheMetrics.getMisses();
+		if (lookups > 0) {
+			cacheMetrics.setHitRatio(cacheMetrics.getHits() / (double) lookups);
+		}
+
+		LoadTimes loadTimes = cacheNameToLoadTimesMap.get(cacheName);
+		if (loadTimes != null) {
+			long loads = loadTimes.loads.sum();
+			cacheMetrics.setLoads(loads);
+			if (loads > 0) {
+				cacheMetrics.setAverageLoadMillis(loadTimes.totalNanos.sum() / nanosPerMilli / loads);
+			}
+			cacheMetrics.setMaxLoadMillis(loadTimes.maxNanos.get() / nanosPerMilli);
+		}
+
+		return cacheMetrics;
+	}
+
+	private void addEhcacheMetrics(CacheMetricsRepresentation cacheMetrics, Ehcache ehcache) {
+		StatisticsGateway statistics = ehcache.getStatistics();
+		cacheMetrics.setProvider("ehcache");
+		cacheMetrics.setHits(statistics.cacheHitCount());
+		cacheMetrics.setMisses(statistics.cacheMissCount());
+		cacheMetrics.setPuts(statistics.cachePutCount());
+		cacheMetrics.setEvictions(statistics.cacheEvictedCount());
+		cacheMetrics.setEntries(statistics.getLocalHeapSize());
+		cacheMetrics.setBytes(statistics.getLocalHeapSizeInBytes());
+	}
+
+	/*
+	 * Only reports the metrics of this node.  Statistics must be enabled for
+	 * the cache in ignitecache.xml
+	 */
+	private void addIgniteMetrics(CacheMetricsRepresentation cacheMetrics, IgniteCache<?, ?> igniteCache) {
+		CacheMetrics metrics = igniteCache.localMetrics();
+		cacheMetrics.setProvider("ignite");
+		cacheMetrics.setHits(metrics.getCacheHits());
+		cacheMetrics.setMisses(metrics.getCacheMisses());
+		cacheMetrics.setPuts(metrics.getCachePuts());
+		cacheMetrics.setEvictions(metrics.getCacheEvictions());
+		cacheMetrics.setEntries(igniteCache.localSizeLong(CachePeekMode.ALL));
+		cacheMetrics.setBytes(metrics.getOffHeapAllocatedSize());
+	}
+
+	@Override
+	public void recordCacheLoad(String cacheName, long loadNanos) {
+		LoadTimes loadTimes = cacheNameToLoadTimesMap.get(cacheName);
+		if (loadTimes == null) {
+			loadTimes = new LoadTimes();
+			LoadTimes existing = cacheNameToLoadTimesMap.putIfAbsent(cacheName, loadTimes);
+			if (existing != null) {
+				loadTimes = existing;
+			}
+		}
+		loadTimes.loads.increment();
+		loadTimes.totalNanos.add(loadNanos);
+		long maxNanos = loadTimes.maxNanos.get();
+		while ((loadNanos > maxNanos) && !loadTimes.maxNanos.compareAndSet(maxNanos, loadNanos)) {
+			maxNanos = loadTimes.maxNanos.get();
+		}
+	}
+
+	@Override
+	public void registerCache(String cacheName, Supplier<CacheMetricsRepresentation> metricsSupplier) {
+		registeredCaches.put(cacheName, metricsSupplier);
+	}
+
+	public List<String> getCacheNames() {
+		return cacheNames;
+	}
+
+	public void setCacheNames(List<String> cacheNames) {
+		this.cacheNames = cacheNames;
+	}
+
+	private static class LoadTimes {
+		private final LongAdder loads = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+	}
+}
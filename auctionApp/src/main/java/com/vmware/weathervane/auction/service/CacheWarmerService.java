@@ -4,6 +4,10 @@ SPDX-License-Identifier: BSD-2-Clause
 */
 package com.vmware.weathervane.auction.service;
 
+import com.vmware.weathervane.auction.rest.representation.CacheWarmerStatusRepresentation;
+
 public interface CacheWarmerService {
 	boolean isReady();
+
+	CacheWarmerStatusRepresentation getStatus();
 }
@@ -10,10 +10,20 @@ SPDX-License-Identifier: BSD-2-Clause
 package com.vmware.weathervane.auction.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -22,8 +32,11 @@ import org.slf4j.LoggerFactory;
 
 import com.vmware.weathervane.auction.data.dao.UserDao;
 import com.vmware.weathervane.auction.data.dao.AuctionDao;
+import com.vmware.weathervane.auction.data.imageStore.model.ImageInfo;
+import com.vmware.weathervane.auction.data.model.Item.ItemState;
 import com.vmware.weathervane.auction.data.model.User;
 import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
+import com.vmware.weathervane.auction.rest.representation.CacheWarmerStatusRepresentation;
 import com.vmware.weathervane.auction.rest.representation.CollectionRepresentation;
 import com.vmware.weathervane.auction.rest.representation.ItemRepresentation;
 import com.vmware.weathervane.auction.rest.representation.UserRepresentation;
@@ -37,6 +50,9 @@ public class CacheWarmerServiceImpl implements CacheWarmerService {
 
 	private static final Logger logger = LoggerFactory.getLogger(CacheWarmerServiceImpl.class);
 
+	private static final int pageSize = 5;
+	private static final int usersPerTask = 100;
+
 	@Inject
 	@Named("liveAuctionService")
 	private LiveAuctionService liveAuctionService;
@@ -61,8 +77,31 @@ public class CacheWarmerServiceImpl implements CacheWarmerService {
 	@Named("auctionDao")
 	AuctionDao auctionDao;	
 
-	private boolean cachesWarmed = false;
+	/*
+	 * Number of threads issuing warm-up requests, and the target rate of
+	 * warm-up requests across all threads. A rate of 0 means no limit.
+	 */
+	private int numWarmerThreads = 8;
+	private double warmerRequestsPerSecond = 0;
+	private int warmerQueueSize = 1000;
+
+	private volatile boolean cachesWarmed = false;
 	private AtomicBoolean warmerRun = new AtomicBoolean(false);
+	private volatile boolean preWarm = false;
+
+	/*
+	 * Progress of the warmer
+	 */
+	private volatile String phase = "NOTSTARTED";
+	private final AtomicLong requestsCompleted = new AtomicLong(0);
+	private final AtomicLong requestsFailed = new AtomicLong(0);
+	private volatile long warmerStartMillis = 0;
+	private volatile long warmerEndMillis = 0;
+
+	/*
+	 * Time at which the next request may be issued when the rate is limited
+	 */
+	private long nextRequestNanos = 0;
 
 	public CacheWarmerServiceImpl() {
 
@@ -71,25 +110,103 @@ public class CacheWarmerServiceImpl implements CacheWarmerService {
 	@Override
 	public boolean isReady() {
 		if (!warmerRun.getAndSet(true)) {
-			Boolean preWarm = Boolean.getBoolean("PREWARM");
+			preWarm = Boolean.getBoolean("PREWARM");
 			if (preWarm) {
-				logger.warn("Prewarming caches");
+				logger.warn("Prewarming caches with " + numWarmerThreads + " threads, requestsPerSecond = "
+						+ warmerRequestsPerSecond);
 				// Start the cache warmer on the first healthCheck
 				Thread warmerThread = new Thread(new CacheWarmingRunner(), "cacheWarmer");
 				warmerThread.start();
 			} else {
 				logger.warn("Not prewarming caches");
+				phase = "DISABLED";
 				cachesWarmed = true;
 			}
 		}
 		return cachesWarmed;
 	}
 
+	@Override
+	public CacheWarmerStatusRepresentation getStatus() {
+		CacheWarmerStatusRepresentation status = new CacheWarmerStatusRepresentation();
+		status.setPrewarm(preWarm);
+		status.setReady(cachesWarmed);
+		status.setPhase(phase);
+		status.setNumWarmerThreads(numWarmerThreads);
+		status.setRequestsCompleted(requestsCompleted.get());
+		status.setRequestsFailed(requestsFailed.get());
+		if (warmerStartMillis > 0) {
+			long endMillis = warmerEndMillis > 0 ? warmerEndMillis : System.currentTimeMillis();
+			status.setElapsedMillis(endMillis - warmerStartMillis);
+			if (status.getElapsedMillis() > 0) {
+				status.setRequestsPerSecond(
+						(status.getRequestsCompleted() + status.getRequestsFailed()) * 1000.0 / status.getElapsedMillis());
+			}
+		}
+		return status;
+	}
+
+	/*
+	 * Blocks until the next request is permitted under the target rate.
+	 */
+	private void acquireRequestPermit() {
+		if (warmerRequestsPerSecond <= 0) {
+			return;
+		}
+		long permitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (nextRequestNanos < now) {
+				nextRequestNanos = now;
+			}
+			permitNanos = nextRequestNanos;
+			nextRequestNanos += (long) (1000000000L / warmerRequestsPerSecond);
+		}
+		long waitNanos = permitNanos - System.nanoTime();
+		if (waitNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/*
+	 * Warms the item cache and the thumbnail cache for a single item
+	 */
+	private void warmItem(Long itemId) {
+		acquireRequestPermit();
+		itemService.getItem(itemId);
+		requestsCompleted.incrementAndGet();
+
+		acquireRequestPermit();
+		List<ImageInfo> imageInfos = itemService.getImageInfosForItem(itemId);
+		requestsCompleted.incrementAndGet();
+		if (imageInfos == null) {
+			return;
+		}
+		for (ImageInfo imageInfo : imageInfos) {
+			acquireRequestPermit();
+			itemService.getThumbnailImageForItem(itemId, imageInfo.getKey().getImageId());
+			requestsCompleted.incrementAndGet();
+		}
+	}
+
+	private CollectionRepresentation<ItemRepresentation> getFirstItemsPage(Long auctionId) {
+		acquireRequestPermit();
+		CollectionRepresentation<ItemRepresentation> itemsPage = itemService.getItems(auctionId, 0, pageSize);
+		requestsCompleted.incrementAndGet();
+		return itemsPage;
+	}
+
 	protected class CacheWarmingRunner implements Runnable {
 
 		@Override
 		public void run() {
 			logger.debug("Warming caches");
+			phase = "WAITINGFORAUCTIONS";
+			warmerStartMillis = System.currentTimeMillis();
 			/*
 			 * Wait until the number of running auctions equals the number of 
 			 * activated auctions
@@ -106,61 +223,207 @@ public class CacheWarmerServiceImpl implements CacheWarmerService {
 				runningAuctions = auctionDao.countActiveAuctions();
 			}
 			logger.debug("activatedAuctions==runningAuctions=={}", runningAuctions);
-			/*
-			 * First get all of the active auction pages by pagesSize=5 and save the
-			 * auctionIds.
-			 */
-			int pageSize = 5;
-			List<Long> auctionIds = new ArrayList<Long>();
+
+			final AtomicInteger threadNum = new AtomicInteger(0);
+			ThreadPoolExecutor warmerExecutor = new ThreadPoolExecutor(numWarmerThreads, numWarmerThreads, 0L,
+					TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(warmerQueueSize), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							return new Thread(r, "cacheWarmer" + threadNum.getAndIncrement());
+						}
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+			try {
+				List<Long> auctionIds = warmActiveAuctionPages(warmerExecutor);
+				Map<Long, List<ItemRepresentation>> firstItemsPages = warmCurrentItems(warmerExecutor, auctionIds);
+				warmAuctionsAndItems(warmerExecutor, auctionIds, firstItemsPages);
+				warmAuthTokens(warmerExecutor);
+			} catch (InterruptedException e) {
+				logger.warn("InterruptedException while warming caches: {}", e.getMessage());
+			} finally {
+				warmerExecutor.shutdown();
+			}
+
+			phase = "COMPLETE";
+			warmerEndMillis = System.currentTimeMillis();
+			logger.warn("Finished warming caches: " + getStatus());
+			cachesWarmed = true;
+		}
+
+		/*
+		 * Get all of the active auction pages by pagesSize=5 and return the
+		 * auctionIds.
+		 */
+		private List<Long> warmActiveAuctionPages(ExecutorService warmerExecutor) throws InterruptedException {
+			phase = "ACTIVEAUCTIONS";
+			acquireRequestPermit();
 			CollectionRepresentation<AuctionRepresentation> activeAuctions = liveAuctionService.getActiveAuctions(0, pageSize);
+			requestsCompleted.incrementAndGet();
 			long totalAuctions = activeAuctions.getTotalRecords();
 			long numPages = (long) Math.ceil(totalAuctions / (pageSize * 1.0));
 			logger.debug("Warming caches.  There are " + totalAuctions + " auctions in " + numPages + " pages.");
+
+			final List<Long> auctionIds = Collections.synchronizedList(new ArrayList<Long>());
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
 			for (int pageNum = 0; pageNum < numPages; pageNum++) {
-				logger.debug("Warming caches. Getting active auctions page " + pageNum);
-				activeAuctions = liveAuctionService.getActiveAuctions(pageNum, pageSize);
-				List<AuctionRepresentation> results = activeAuctions.getResults();
-				for (AuctionRepresentation anAuction : results) {
-					auctionIds.add(anAuction.getId());
-				}
+				final int thePageNum = pageNum;
+				tasks.add(new WarmingTask() {
+					@Override
+					protected void warm() {
+						logger.debug("Warming caches. Getting active auctions page " + thePageNum);
+						acquireRequestPermit();
+						CollectionRepresentation<AuctionRepresentation> page = liveAuctionService
+								.getActiveAuctions(thePageNum, pageSize);
+						requestsCompleted.incrementAndGet();
+						for (AuctionRepresentation anAuction : page.getResults()) {
+							auctionIds.add(anAuction.getId());
+						}
+					}
+				});
 			}
-			
-			/*
-			 * Get all of the individual active auctions, the
-			 * first page of items, and all of the items on that page
-			 */
-			for (Long auctionId: auctionIds) {
-				logger.debug("Warming caches. Getting auction for auctionId " + auctionId);
-				auctionService.getAuction(auctionId);
-				logger.debug("Warming caches. Getting first items page for auctionId " + auctionId);
-				CollectionRepresentation<ItemRepresentation> activeItems = 	itemService.getItems(auctionId, 0, pageSize);
-				List<ItemRepresentation> items = activeItems.getResults();
-				for (ItemRepresentation item : items) {
-					logger.debug("Warming caches. Getting item for itemId " + item.getId());
-					itemService.getItem(item.getId());
-				}
+			warmerExecutor.invokeAll(tasks);
+			return new ArrayList<Long>(auctionIds);
+		}
+
+		/*
+		 * The current items and their thumbnails are requested by every user
+		 * who joins an auction, so they are warmed first.  Returns the first
+		 * page of items of each auction, so that the remaining items can be
+		 * warmed without fetching the page again.
+		 */
+		private Map<Long, List<ItemRepresentation>> warmCurrentItems(ExecutorService warmerExecutor, List<Long> auctionIds)
+				throws InterruptedException {
+			phase = "CURRENTITEMS";
+			final Map<Long, List<ItemRepresentation>> firstItemsPages = new ConcurrentHashMap<Long, List<ItemRepresentation>>();
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (final Long auctionId : auctionIds) {
+				tasks.add(new WarmingTask() {
+					@Override
+					protected void warm() {
+						logger.debug("Warming caches. Getting current items for auctionId " + auctionId);
+						List<ItemRepresentation> items = getFirstItemsPage(auctionId).getResults();
+						firstItemsPages.put(auctionId, items);
+						for (ItemRepresentation item : items) {
+							if (item.getState() == ItemState.ACTIVE) {
+								warmItem(item.getId());
+							}
+						}
+					}
+				});
 			}
-			
-			/*
-			 * Warm the auth token cache
-			 */
+			warmerExecutor.invokeAll(tasks);
+			return firstItemsPages;
+		}
+
+		/*
+		 * Get all of the individual active auctions, and the remaining items
+		 * on the first page of items.
+		 */
+		private void warmAuctionsAndItems(ExecutorService warmerExecutor, List<Long> auctionIds,
+				final Map<Long, List<ItemRepresentation>> firstItemsPages) throws InterruptedException {
+			phase = "AUCTIONSANDITEMS";
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (final Long auctionId : auctionIds) {
+				tasks.add(new WarmingTask() {
+					@Override
+					protected void warm() {
+						logger.debug("Warming caches. Getting auction for auctionId " + auctionId);
+						acquireRequestPermit();
+						auctionService.getAuction(auctionId);
+						requestsCompleted.incrementAndGet();
+						List<ItemRepresentation> items = firstItemsPages.get(auctionId);
+						if (items == null) {
+							// Fetching the page failed while warming the current items
+							items = getFirstItemsPage(auctionId).getResults();
+						}
+						for (ItemRepresentation item : items) {
+							if (item.getState() != ItemState.ACTIVE) {
+								logger.debug("Warming caches. Getting item for itemId " + item.getId());
+								warmItem(item.getId());
+							}
+						}
+					}
+				});
+			}
+			warmerExecutor.invokeAll(tasks);
+		}
+
+		/*
+		 * Warm the auth token cache
+		 */
+		private void warmAuthTokens(ExecutorService warmerExecutor) throws InterruptedException {
+			phase = "AUTHTOKENS";
 			logger.debug("Warming caches. Getting logged in users");
 			List<User> loggedInUsers = userDao.getLoggedInUsers();
-			if (loggedInUsers != null) {
-				logger.debug("Warming caches. There are " + loggedInUsers.size() + " logged in users");
-				for (User aUser : loggedInUsers) {
-					if (aUser.isLoggedin()) {
-						try {
-							UserRepresentation userRep = userService.getUserByAuthToken(aUser.getAuthToken());
-							logger.debug("Warming caches. Got userId " + userRep.getId() + " for authToken " + aUser.getAuthToken() );
-						} catch (Exception e) {
-							
+			if (loggedInUsers == null) {
+				return;
+			}
+			logger.debug("Warming caches. There are " + loggedInUsers.size() + " logged in users");
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for (int start = 0; start < loggedInUsers.size(); start += usersPerTask) {
+				final List<User> users = loggedInUsers.subList(start, Math.min(start + usersPerTask, loggedInUsers.size()));
+				tasks.add(new WarmingTask() {
+					@Override
+					protected void warm() {
+						for (User aUser : users) {
+							if (aUser.isLoggedin()) {
+								acquireRequestPermit();
+								try {
+									UserRepresentation userRep = userService.getUserByAuthToken(aUser.getAuthToken());
+									logger.debug("Warming caches. Got userId " + userRep.getId() + " for authToken " + aUser.getAuthToken());
+									requestsCompleted.incrementAndGet();
+								} catch (Exception e) {
+									requestsFailed.incrementAndGet();
+								}
+							}
 						}
 					}
-				}
+				});
 			}
-			
-			cachesWarmed = true;
+			warmerExecutor.invokeAll(tasks);
 		}
 	}
+
+	/*
+	 * A unit of warming work.  Failures are counted rather than propagated so
+	 * that one bad entity does not stop the warmer.
+	 */
+	protected abstract class WarmingTask implements Callable<Object> {
+
+		protected abstract void warm();
+
+		@Override
+		public Object call() {
+			try {
+				warm();
+			} catch (Exception e) {
+				logger.warn("Exception while warming caches: " + e.getMessage());
+				requestsFailed.incrementAndGet();
+			}
+			return null;
+		}
+	}
+
+	public int getNumWarmerThreads() {
+		return numWarmerThreads;
+	}
+
+	public void setNumWarmerThreads(int numWarmerThreads) {
+		this.numWarmerThreads = numWarmerThreads;
+	}
+
+	public double getWarmerRequestsPerSecond() {
+		return warmerRequestsPerSecond;
+	}
+
+	public void setWarmerRequestsPerSecond(double warmerRequestsPerSecond) {
+		this.warmerRequestsPerSecond = warmerRequestsPerSecond;
+	}
+
+	public int getWarmerQueueSize() {
+		return warmerQueueSize;
+	}
+
+	public void setWarmerQueueSize(int warmerQueueSize) {
+		this.warmerQueueSize = warmerQueueSize;
+	}
 }
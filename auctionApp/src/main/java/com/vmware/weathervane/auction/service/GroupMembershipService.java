@@ -28,10 +28,16 @@ public interface GroupMembershipService {
 
 	String readContentsForNode(String parentPath, Long nodeId) throws Exception;
 
+	void writeBytesForNode(String parentPath, Long nodeId, byte[] contents) throws Exception;
+
+	byte[] readBytesForNode(String parentPath, Long nodeId) throws Exception;
+
 	List<String> registerChildrenChangedCallback(String parentPath, Consumer<String> consumer) throws Exception;
 
 	String registerContentsChangedCallback(String parentPath, Long nodeId, Consumer<String> consumer) throws Exception;
 
+	byte[] registerBytesChangedCallback(String parentPath, Long nodeId, Consumer<String> consumer) throws Exception;
+
 	List<String> getChildrenForNode(String parentPath) throws Exception;
 
 	void deleteNode(String parentPath, Long nodeId) throws Exception;
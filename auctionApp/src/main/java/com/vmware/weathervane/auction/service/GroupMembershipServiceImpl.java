@@ -239,6 +239,17 @@ public class GroupMembershipServiceImpl implements GroupMembershipService {
 
 	}
 
+	@Override
+	public void writeBytesForNode(String parentPath, Long nodeId, byte[] contents) throws Exception {
+		if (client == null) {
+			throw new InvalidStateException("Curator framework not initialized");
+		}
+		String path = "/" + parentPath + "/" + Long.toString(nodeId);
+		logger.debug("Setting " + contents.length + " bytes of data for path " + path);
+		client.setData().forPath(path, contents);
+
+	}
+
 	@Override
 	public List<String> getChildrenForNode(String parentPath) throws Exception {
 		if (client == null) {
@@ -274,6 +285,17 @@ public class GroupMembershipServiceImpl implements GroupMembershipService {
 		return new String(contents);
 	}
 
+	@Override
+	public byte[] readBytesForNode(String parentPath, Long nodeId) throws Exception {
+		if (client == null) {
+			throw new InvalidStateException("Curator framework not initialized");
+		}
+		String path = "/" + parentPath + "/" + Long.toString(nodeId);
+		logger.debug("readBytesForNode: reading node for path " + path );
+
+		return client.getData().forPath(path);
+	}
+
 	@Override
 	public List<String> registerChildrenChangedCallback(String parentPath, Consumer<String> consumer) throws Exception {
 		if (client == null) {
@@ -319,4 +341,28 @@ public class GroupMembershipServiceImpl implements GroupMembershipService {
 
 	}
 
+	/*
+	 * The contents are read at the same time as the watcher is set, so no
+	 * change made after the returned contents can be missed.
+	 */
+	@Override
+	public byte[] registerBytesChangedCallback(String parentPath, Long nodeId, Consumer<String> consumer) throws Exception {
+		if (client == null) {
+			throw new InvalidStateException("Curator framework not initialized");
+		}
+		String path = "/" + parentPath + "/" + Long.toString(nodeId);
+		logger.debug("Getting data and setting watcher for path " + path);
+
+		CuratorWatcher watcher = new CuratorWatcher() {
+
+			@Override
+			public void process(WatchedEvent event) throws Exception {
+				consumer.accept(event.getPath());
+			}
+		};
+
+		return client.getData().usingWatcher(watcher).forPath(path);
+
+	}
+
 }
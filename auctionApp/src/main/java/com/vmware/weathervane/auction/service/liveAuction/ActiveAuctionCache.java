@@ -0,0 +1,228 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
+import com.vmware.weathervane.auction.rest.representation.CacheMetricsRepresentation;
+
+/**
+ * Holds all of the active auctions, in order of auctionId, so that every
+ * page of active auctions is taken from the same list rather than each page
+ * being cached, and loaded from the database, separately.
+ *
+ * The list is reloaded once it is older than maxAgeMillis. Only one thread
+ * loads the list. If there is an older list, the other threads are given it
+ * while the load is in progress, and otherwise they wait for the load to
+ * complete. Auctions that start or end are added to or removed from the list
+ * in place, including a list that is being loaded when the change arrives.
+ */
+public class ActiveAuctionCache {
+	private static final Logger logger = LoggerFactory.getLogger(ActiveAuctionCache.class);
+
+	private static final Comparator<AuctionRepresentation> byId = Comparator.comparing(AuctionRepresentation::getId);
+
+	private final Supplier<List<AuctionRepresentation>> _loader;
+	private final long _maxAgeNanos;
+
+	private final Object _lock = new Object();
+
+	private volatile Snapshot _snapshot;
+
+	/*
+	 * The load in progress, and the changes that have arrived since it
+	 * started.  Guarded by _lock.
+	 */
+	private FutureTask<Snapshot> _pendingLoad;
+	private List<AuctionRepresentation[]> _changesDuringLoad;
+
+	private final LongAdder _hits = new LongAdder();
+	private final LongAdder _loads = new LongAdder();
+
+	public ActiveAuctionCache(Supplier<List<AuctionRepresentation>> loader, long maxAgeMillis) {
+		_loader = loader;
+		_maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+	}
+
+	/**
+	 * Returns the active auctions in order of auctionId. The list must not be
+	 * modified.
+	 */
+	public List<AuctionRepresentation> getActiveAuctions() {
+		Snapshot snapshot = _snapshot;
+		if ((snapshot != null) && !snapshot.isExpired()) {
+			_hits.increment();
+			return snapshot.auctions;
+		}
+
+		FutureTask<Snapshot> load;
+		boolean runLoad = false;
+		synchronized (_lock) {
+			snapshot = _snapshot;
+			if ((snapshot != null) && !snapshot.isExpired()) {
+				_hits.increment();
+				return snapshot.auctions;
+			}
+			if (_pendingLoad == null) {
+				_pendingLoad = new FutureTask<Snapshot>(this::load);
+				_changesDuringLoad = new ArrayList<AuctionRepresentation[]>();
+				runLoad = true;
+			} else if (snapshot != null) {
+				_hits.increment();
+				return snapshot.auctions;
+			}
+			load = _pendingLoad;
+		}
+
+		if (runLoad) {
+			load.run();
+		}
+		try {
+			return load.get().auctions;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the active auctions to load", e);
+		}
+	}
+
+	private Snapshot load() {
+		_loads.increment();
+		try {
+			List<AuctionRepresentation> loadedAuctions = _loader.get();
+			AuctionRepresentation[] auctions = loadedAuctions.toArray(new AuctionRepresentation[loadedAuctions.size()]);
+			Arrays.sort(auctions, byId);
+			Snapshot snapshot = new Snapshot(auctions, System.nanoTime());
+			synchronized (_lock) {
+				for (AuctionRepresentation[] change : _changesDuringLoad) {
+					snapshot = snapshot.apply(change[0], change[1]);
+				}
+				_snapshot = snapshot;
+			}
+			logger.debug("load: loaded " + snapshot.auctions.size() + " active auctions");
+			return snapshot;
+		} finally {
+			synchronized (_lock) {
+				_pendingLoad = null;
+				_changesDuringLoad = null;
+			}
+		}
+	}
+
+	/**
+	 * Adds an auction that has started
+	 */
+	public void auctionStarted(AuctionRepresentation auction) {
+		applyChange(new AuctionRepresentation(auction.getId()), auction);
+	}
+
+	/**
+	 * Removes an auction that is no longer active
+	 */
+	public void auctionEnded(Long auctionId) {
+		applyChange(new AuctionRepresentation(auctionId), null);
+	}
+
+	/*
+	 * Replaces the auction with the id of key by the auction, or removes it if
+	 * auction is null
+	 */
+	private void applyChange(AuctionRepresentation key, AuctionRepresentation auction) {
+		synchronized (_lock) {
+			if (_changesDuringLoad != null) {
+				_changesDuringLoad.add(new AuctionRepresentation[] { key, auction });
+			}
+			if (_snapshot != null) {
+				_snapshot = _snapshot.apply(key, auction);
+			}
+		}
+	}
+
+	public long getHits() {
+		return _hits.sum();
+	}
+
+	public long getLoads() {
+		return _loads.sum();
+	}
+
+	/**
+	 * Returns the hits and loads of the cache, with each load counted as a
+	 * miss, and the number of auctions in the current list
+	 */
+	public CacheMetricsRepresentation getCacheMetrics() {
+		CacheMetricsRepresentation cacheMetrics = new CacheMetricsRepresentation();
+		cacheMetrics.setProvider(ActiveAuctionCache.class.getSimpleName());
+		cacheMetrics.setHits(getHits());
+		cacheMetrics.setMisses(getLoads());
+		cacheMetrics.setLoads(getLoads());
+		Snapshot snapshot = _snapshot;
+		if (snapshot != null) {
+			cacheMetrics.setEntries(snapshot.auctions.size());
+		}
+		return cacheMetrics;
+	}
+
+	private class Snapshot {
+		private final AuctionRepresentation[] sortedAuctions;
+		private final List<AuctionRepresentation> auctions;
+		private final long loadedAtNanos;
+
+		public Snapshot(AuctionRepresentation[] sortedAuctions, long loadedAtNanos) {
+			this.sortedAuctions = sortedAuctions;
+			this.auctions = Collections.unmodifiableList(Arrays.asList(sortedAuctions));
+			this.loadedAtNanos = loadedAtNanos;
+		}
+
+		public boolean isExpired() {
+			return (System.nanoTime() - loadedAtNanos) > _maxAgeNanos;
+		}
+
+		/*
+		 * Returns a copy with the change applied, keeping the time at which
+		 * the list was loaded
+		 */
+		public Snapshot apply(AuctionRepresentation key, AuctionRepresentation auction) {
+			int index = Arrays.binarySearch(sortedAuctions, key, byId);
+			AuctionRepresentation[] changed;
+			if (index >= 0) {
+				if (auction != null) {
+					changed = sortedAuctions.clone();
+					changed[index] = auction;
+				} else {
+					changed = new AuctionRepresentation[sortedAuctions.length - 1];
+					System.arraycopy(sortedAuctions, 0, changed, 0, index);
+					System.arraycopy(sortedAuctions, index + 1, changed, index, changed.length - index);
+				}
+			} else if (auction != null) {
+				int insertAt = -(index + 1);
+				changed = new AuctionRepresentation[sortedAuctions.length + 1];
+				System.arraycopy(sortedAuctions, 0, changed, 0, insertAt);
+				changed[insertAt] = auction;
+				System.arraycopy(sortedAuctions, insertAt, changed, insertAt + 1, sortedAuctions.length - insertAt);
+			} else {
+				return this;
+			}
+			return new Snapshot(changed, loadedAtNanos);
+		}
+	}
+}
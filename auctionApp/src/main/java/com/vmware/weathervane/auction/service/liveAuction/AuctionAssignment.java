@@ -0,0 +1,108 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encodes the set of auctions assigned to a node in the compact form that is
+ * stored in the node's entry in the auction assignment map.
+ *
+ * The ids are sorted and stored as the differences between successive ids,
+ * each written as a variable length integer. Since the auctions assigned to a
+ * node are spread over a small range of ids, most ids take a single byte, so
+ * an assignment is several times smaller than the comma-separated list of ids
+ * that was used before and is decoded without any string parsing. Entries
+ * written in the comma-separated form are still read.
+ */
+public class AuctionAssignment {
+	private static final Logger logger = LoggerFactory.getLogger(AuctionAssignment.class);
+
+	private static final byte FORMAT_VERSION = 1;
+
+	private AuctionAssignment() {
+	}
+
+	public static byte[] encode(Collection<Long> auctionIds) {
+		long[] sortedIds = new long[auctionIds.size()];
+		int i = 0;
+		for (Long auctionId : auctionIds) {
+			sortedIds[i++] = auctionId;
+		}
+		Arrays.sort(sortedIds);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(2 + sortedIds.length * 2);
+		out.write(FORMAT_VERSION);
+		writeVarLong(out, sortedIds.length);
+		long previousId = 0;
+		for (long auctionId : sortedIds) {
+			writeVarLong(out, auctionId - previousId);
+			previousId = auctionId;
+		}
+		return out.toByteArray();
+	}
+
+	public static Set<Long> decode(byte[] contents) {
+		if ((contents == null) || (contents.length == 0)) {
+			return new HashSet<Long>();
+		}
+		if (contents[0] != FORMAT_VERSION) {
+			return decodeLegacy(new String(contents, StandardCharsets.UTF_8));
+		}
+
+		int[] position = new int[] { 1 };
+		int numIds = (int) readVarLong(contents, position);
+		Set<Long> auctionIds = new HashSet<Long>(numIds * 2);
+		long auctionId = 0;
+		for (int i = 0; i < numIds; i++) {
+			auctionId += readVarLong(contents, position);
+			auctionIds.add(auctionId);
+		}
+		return auctionIds;
+	}
+
+	private static Set<Long> decodeLegacy(String auctionAssignmentString) {
+		Set<Long> auctionIds = new HashSet<Long>();
+		for (String idString : auctionAssignmentString.split(",")) {
+			if (idString.isEmpty()) {
+				continue;
+			}
+			try {
+				auctionIds.add(Long.parseLong(idString));
+			} catch (NumberFormatException e) {
+				logger.warn("decodeLegacy got numberFormatException for " + idString);
+			}
+		}
+		return auctionIds;
+	}
+
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarLong(byte[] contents, int[] position) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = contents[position[0]++];
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
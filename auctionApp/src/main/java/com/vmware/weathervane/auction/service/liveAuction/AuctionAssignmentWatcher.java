@@ -0,0 +1,119 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.service.GroupMembershipService;
+
+/**
+ * Watches the entry of a node in the auction assignment map, and tells a
+ * listener which auctions have been added to and removed from the node each
+ * time the entry changes.
+ *
+ * The listener is called on the executor, one change at a time. The watch is
+ * set when the entry is read, so no change can be missed between reading the
+ * assignment and watching for the next change.
+ */
+public class AuctionAssignmentWatcher implements Consumer<String> {
+	private static final Logger logger = LoggerFactory.getLogger(AuctionAssignmentWatcher.class);
+
+	/*
+	 * The watch on the entry is only set again by a successful read, so a
+	 * read that fails is retried, waiting a little longer after each attempt.
+	 */
+	private static final int maxUpdateAttempts = 5;
+	private static final long updateRetryDelayMillis = 1000;
+
+	private final GroupMembershipService _groupMembershipService;
+	private final String _assignmentMapName;
+	private final Long _nodeNumber;
+	private final ExecutorService _executorService;
+
+	/*
+	 * Called with the added auctions and then the removed auctions
+	 */
+	private final BiConsumer<Set<Long>, Set<Long>> _listener;
+
+	/*
+	 * Only used on the executor
+	 */
+	private Set<Long> _assignedAuctions = new HashSet<Long>();
+
+	public AuctionAssignmentWatcher(GroupMembershipService groupMembershipService, String assignmentMapName,
+			Long nodeNumber, ExecutorService executorService, BiConsumer<Set<Long>, Set<Long>> listener) {
+		_groupMembershipService = groupMembershipService;
+		_assignmentMapName = assignmentMapName;
+		_nodeNumber = nodeNumber;
+		_executorService = executorService;
+		_listener = listener;
+	}
+
+	public void start() throws Exception {
+		Set<Long> assignedAuctions = AuctionAssignment
+				.decode(_groupMembershipService.registerBytesChangedCallback(_assignmentMapName, _nodeNumber, this));
+		_executorService.execute(() -> deliver(assignedAuctions));
+	}
+
+	@Override
+	public void accept(String path) {
+		logger.info("Auction assignment for node " + _nodeNumber + " has changed (path = " + path + ").  Scheduling handler");
+		_executorService.execute(this::update);
+	}
+
+	private void update() {
+		Set<Long> assignedAuctions = null;
+		for (int attempt = 1; assignedAuctions == null; attempt++) {
+			try {
+				assignedAuctions = AuctionAssignment
+						.decode(_groupMembershipService.registerBytesChangedCallback(_assignmentMapName, _nodeNumber, this));
+			} catch (Exception e) {
+				if (attempt >= maxUpdateAttempts) {
+					logger.error("Could not get current auction assignment after " + attempt
+							+ " attempts.  This node is no longer handling assignments: " + e.getMessage());
+					return;
+				}
+				logger.warn("Could not get current auction assignment on attempt " + attempt + ".  Retrying: "
+						+ e.getMessage());
+				try {
+					Thread.sleep(updateRetryDelayMillis * attempt);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		deliver(assignedAuctions);
+	}
+
+	private void deliver(Set<Long> assignedAuctions) {
+		Set<Long> added = new HashSet<Long>();
+		for (Long auctionId : assignedAuctions) {
+			if (!_assignedAuctions.contains(auctionId)) {
+				added.add(auctionId);
+			}
+		}
+		Set<Long> removed = new HashSet<Long>();
+		for (Long auctionId : _assignedAuctions) {
+			if (!assignedAuctions.contains(auctionId)) {
+				removed.add(auctionId);
+			}
+		}
+		_assignedAuctions = assignedAuctions;
+
+		logger.info("Auction assignment for node " + _nodeNumber + " has " + assignedAuctions.size() + " auctions. "
+				+ added.size() + " added and " + removed.size() + " removed");
+		if (!added.isEmpty() || !removed.isEmpty()) {
+			_listener.accept(added, removed);
+		}
+	}
+}
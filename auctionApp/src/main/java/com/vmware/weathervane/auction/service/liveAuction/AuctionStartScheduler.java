@@ -0,0 +1,167 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.util.FixedOffsetCalendarFactory;
+
+/**
+ * Holds the start times of the auctions that have not yet been assigned, in
+ * order of start time, so that the leader can assign each auction when it is
+ * due to start rather than polling the database for auctions to start.
+ *
+ * Times are taken from the FixedOffsetCalendarFactory, as are the start times
+ * of the auctions. An auction is due leadMillis before its start time.
+ */
+public class AuctionStartScheduler {
+	private static final Logger logger = LoggerFactory.getLogger(AuctionStartScheduler.class);
+
+	private final long _leadMillis;
+
+	private final PriorityQueue<ScheduledStart> _startQueue = new PriorityQueue<ScheduledStart>();
+	private final Map<Long, ScheduledStart> _auctionIdToStartMap = new HashMap<Long, ScheduledStart>();
+
+	private final ReentrantLock _lock = new ReentrantLock();
+	private final Condition _changed = _lock.newCondition();
+
+	public AuctionStartScheduler(long leadMillis) {
+		_leadMillis = leadMillis;
+	}
+
+	/**
+	 * Schedules the auction to start at startTime, replacing any time at which
+	 * it was already scheduled to start.
+	 */
+	public void schedule(Long auctionId, Date startTime) {
+		_lock.lock();
+		try {
+			ScheduledStart previous = _auctionIdToStartMap.remove(auctionId);
+			if (previous != null) {
+				_startQueue.remove(previous);
+			}
+			ScheduledStart start = new ScheduledStart(auctionId, startTime.getTime());
+			_auctionIdToStartMap.put(auctionId, start);
+			_startQueue.add(start);
+			if (_startQueue.peek() == start) {
+				_changed.signalAll();
+			}
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes an auction that no longer needs to be started
+	 */
+	public void cancel(Long auctionId) {
+		_lock.lock();
+		try {
+			ScheduledStart start = _auctionIdToStartMap.remove(auctionId);
+			if (start != null) {
+				_startQueue.remove(start);
+				logger.debug("cancel: auction " + auctionId + " no longer scheduled to start");
+			}
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	public void clear() {
+		_lock.lock();
+		try {
+			_startQueue.clear();
+			_auctionIdToStartMap.clear();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Wakes any thread waiting in awaitDueAuctions
+	 */
+	public void wakeUp() {
+		_lock.lock();
+		try {
+			_changed.signalAll();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	public int size() {
+		_lock.lock();
+		try {
+			return _startQueue.size();
+		} finally {
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until at least one auction is due to start, and then removes and
+	 * returns all of the auctions that are due. Returns an empty list if no
+	 * auction is due within maxWaitMillis or if woken up.
+	 */
+	public List<Long> awaitDueAuctions(long maxWaitMillis) throws InterruptedException {
+		List<Long> dueAuctionIds = new ArrayList<Long>();
+		_lock.lock();
+		try {
+			long waitMillis = maxWaitMillis;
+			ScheduledStart next = _startQueue.peek();
+			if (next != null) {
+				long millisUntilDue = next.startTimeMillis - _leadMillis - now();
+				waitMillis = Math.min(waitMillis, millisUntilDue);
+			}
+			if (waitMillis > 0) {
+				_changed.await(waitMillis, TimeUnit.MILLISECONDS);
+			}
+
+			long dueTime = now() + _leadMillis;
+			while (!_startQueue.isEmpty() && (_startQueue.peek().startTimeMillis <= dueTime)) {
+				ScheduledStart start = _startQueue.poll();
+				_auctionIdToStartMap.remove(start.auctionId);
+				dueAuctionIds.add(start.auctionId);
+			}
+		} finally {
+			_lock.unlock();
+		}
+		return dueAuctionIds;
+	}
+
+	private long now() {
+		return FixedOffsetCalendarFactory.getCalendar().getTimeInMillis();
+	}
+
+	private static class ScheduledStart implements Comparable<ScheduledStart> {
+		private final Long auctionId;
+		private final long startTimeMillis;
+
+		public ScheduledStart(Long auctionId, long startTimeMillis) {
+			this.auctionId = auctionId;
+			this.startTimeMillis = startTimeMillis;
+		}
+
+		@Override
+		public int compareTo(ScheduledStart other) {
+			int result = Long.compare(startTimeMillis, other.startTimeMillis);
+			if (result == 0) {
+				result = auctionId.compareTo(other.auctionId);
+			}
+			return result;
+		}
+	}
+}
@@ -18,7 +18,6 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
@@ -32,9 +31,11 @@ import com.vmware.weathervane.auction.data.model.Bid.BidState;
 import com.vmware.weathervane.auction.data.model.HighBid;
 import com.vmware.weathervane.auction.data.model.HighBid.HighBidState;
 import com.vmware.weathervane.auction.data.repository.event.BidRepository;
+import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
 import com.vmware.weathervane.auction.rest.representation.BidRepresentation;
 import com.vmware.weathervane.auction.service.exception.AuctionNoItemsException;
 import com.vmware.weathervane.auction.service.exception.InvalidStateException;
+import com.vmware.weathervane.auction.service.liveAuction.message.LiveAuctionMessageBus;
 import com.vmware.weathervane.auction.util.FixedOffsetCalendarFactory;
 
 public class AuctioneerImpl implements Auctioneer, Runnable {
@@ -42,10 +43,16 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 	private static final Logger logger = LoggerFactory.getLogger(AuctioneerImpl.class);
 	private final Long nodeNumber;
 
-	private static final String liveAuctionExchangeName = "liveAuctionMgmtExchange";
 	private static final String highBidRoutingKey = "highBid.";
+	private static final String auctionStartedRoutingKey = "auctionStarted.";
 	private static final String auctionEndedRoutingKey = "auctionEnded.";
 
+	/*
+	 * The attempts to take over the highBid of a running auction, backing off
+	 * from 10ms to 1s between them
+	 */
+	private static final int maxTakeOverAttempts = 10;
+
 	private Long _auctionId;
 
 	private ScheduledExecutorService _scheduledExecutorService = null;
@@ -65,15 +72,22 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 	private HighBidDao _highBidDao;
 	private BidRepository _bidRepository;
 	private AuctionDao _auctionDao;
-	private RabbitTemplate _liveAuctionRabbitTemplate;
+	private LiveAuctionMessageBus _liveAuctionMessageBus;
+	private NewBidRouter _newBidRouter;
 	
 	private long _auctionMaxIdleTime;
 	private boolean _shuttingDown;
+
+	/*
+	 * Holds the high bid in memory when bids are accepted without a database
+	 * round trip.  Null if every bid is committed before it is accepted.
+	 */
+	private HighBidWriteBehind.AuctionHighBid _auctionHighBid = null;
 	
 	public AuctioneerImpl(Long auctionId, ScheduledExecutorService scheduledExecutorService,
 			AuctioneerTx auctioneerTx, HighBidDao highBidDao, BidRepository bidRepository,
-			AuctionDao auctionDao, RabbitTemplate rabbitTemplate, long auctionMaxIdleTime,
-			Long nodeNumber) {
+			AuctionDao auctionDao, LiveAuctionMessageBus liveAuctionMessageBus, NewBidRouter newBidRouter, long auctionMaxIdleTime,
+			Long nodeNumber, HighBidWriteBehind highBidWriteBehind) {
 		logger.info("Starting auction with auctionId " + auctionId);
 		_auctionId = auctionId;
 		_scheduledExecutorService = scheduledExecutorService;
@@ -81,9 +95,13 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 		_highBidDao = highBidDao;
 		_bidRepository = bidRepository;
 		_auctionDao = auctionDao;
-		_liveAuctionRabbitTemplate = rabbitTemplate;
+		_liveAuctionMessageBus = liveAuctionMessageBus;
+		_newBidRouter = newBidRouter;
 		_auctionMaxIdleTime = auctionMaxIdleTime;
 		this.nodeNumber = nodeNumber;
+		if (highBidWriteBehind != null) {
+			_auctionHighBid = highBidWriteBehind.getAuctionHighBid(auctionId);
+		}
 
 		// Get the latest info about the auction
 		Auction theAuction = _auctionDao.get(_auctionId);
@@ -122,9 +140,16 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 		} else if (theAuction.getState().equals(Auction.AuctionState.RUNNING)) {
 			/*
 			 * Get the current item and highBid for this auction so that I can
-			 * handle bids
+			 * handle bids.  When high bids are held in memory, taking over the
+			 * highBid increments its version, which fences off any writes still
+			 * pending on the previous owner of the auction.
 			 */
-			_highBid = _highBidDao.getActiveHighBid(_auctionId);
+			if (_auctionHighBid != null) {
+				_highBid = takeOverAuction();
+				resetAuctionHighBid(_highBid);
+			} else {
+				_highBid = _highBidDao.getActiveHighBid(_auctionId);
+			}
 						
 			/*
 			 * We don't know how long it took to switch ownership of this auction, so
@@ -149,6 +174,7 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 
 			try {
 				_highBid = _auctioneerTx.postNewHighBidTx(newBid);
+				resetAuctionHighBid(_highBid);
 				logger.debug("Saved new highBid: " + _highBid.toString());
 			} catch (InvalidStateException e) {
 				/*
@@ -160,7 +186,8 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 				newBid.setState(BidState.NOSUCHUSER);
 				_bidRepository.save(newBid);
 			} catch (Exception e) {
-				logger.debug("Caught exception " + e.getCause() + " from postNewHighBid: " + e.getMessage());
+				logger.warn("Caught exception " + e.getCause() + " from postNewHighBid when resending highBid for auction "
+						+ _auctionId + ": " + e.getMessage());
 			}
 			
 			propagateNewHighBid(_highBid);
@@ -215,6 +242,15 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 			_watchdogTaskScheduledFuture.cancel(true);
 			_watchdogTaskScheduledFuture = null;
 		}
+
+		/*
+		 * Write the high bid before the new owner of the auction reads it
+		 */
+		try {
+			flushAuctionHighBid();
+		} catch (PessimisticLockingFailureException ex) {
+			logger.warn("Cleanup could not write the highBid for auctionId " + _auctionId + ": " + ex.getMessage());
+		}
 	}
 
 	@Override
@@ -228,8 +264,7 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 			 * the queue for the new owner 
 			 */
 			logger.debug("handleNewBidMessage: shutting down and so propagating bid " + theBid);
-			_liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName, 
-					LiveAuctionServiceImpl.newBidRoutingKey + theBid.getAuctionId(), theBid);
+			_newBidRouter.send(theBid);
 			return;
 		}
 		
@@ -303,14 +338,14 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 		BidRepresentation theBid;
 		while ((theBid = newBidQueue.poll()) != null) {
 
-			if (_shuttingDown) {
+			if (_shuttingDown || ((_auctionHighBid != null) && _auctionHighBid.isFenced())) {
 				/*
-				 * When the node is shutting down, don't handle new bids, just put them back on 
+				 * When the node is shutting down, or another node has taken
+				 * over the auction, don't handle new bids, just put them back on 
 				 * the queue for the new owner 
 				 */
 				logger.debug("run: shutting down and so propagating bid " + theBid);
-				_liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName, 
-						LiveAuctionServiceImpl.newBidRoutingKey + theBid.getAuctionId(), theBid);
+				_newBidRouter.send(theBid);
 				continue;
 			}
 
@@ -358,7 +393,11 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 					BidState originalState = newBid.getState();
 					while (returnedBid == null) {
 						try {
-							returnedBid = _auctioneerTx.postNewHighBidTx(newBid);
+							if (_auctionHighBid != null) {
+								returnedBid = _auctionHighBid.postNewHighBid(newBid);
+							} else {
+								returnedBid = _auctioneerTx.postNewHighBidTx(newBid);
+							}
 						} catch (ObjectOptimisticLockingFailureException ex) {
 							logger.info("auctioneer run: got ObjectOptimisticLockingFailureException with message "
 									+ ex.getMessage() + " newBid = " + newBid);
@@ -443,10 +482,67 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 		_isRunning.release();
 	}
 
+	/*
+	 * Makes any pending writes of the in-memory high bid.  This must be done
+	 * before the high bid is changed in a transaction.
+	 */
+	private void flushAuctionHighBid() {
+		if (_auctionHighBid != null) {
+			_auctionHighBid.flush();
+		}
+	}
+
+	/*
+	 * Takes over the active highBid of a running auction, retrying with a
+	 * backoff while the previous owner holds the lock on the highBid row.
+	 * Throws the last exception once maxTakeOverAttempts have failed.
+	 */
+	private HighBid takeOverAuction() {
+		long backoffMillis = 10;
+		int attempts = 0;
+		while (true) {
+			try {
+				attempts++;
+				return _auctioneerTx.takeOverAuctionTx(_auctionId);
+			} catch (PessimisticLockingFailureException | ObjectOptimisticLockingFailureException ex) {
+				if (attempts >= maxTakeOverAttempts) {
+					logger.warn("takeOverAuction: auctionId = " + _auctionId + " failed after " + attempts
+							+ " attempts. message: " + ex.getMessage());
+					throw ex;
+				}
+				logger.info("takeOverAuction: auctionId = " + _auctionId + " got " + ex.getClass().getSimpleName()
+						+ ", retrying in " + backoffMillis + "ms. message: " + ex.getMessage());
+			}
+			try {
+				Thread.sleep(backoffMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return _auctioneerTx.takeOverAuctionTx(_auctionId);
+			}
+			backoffMillis = Math.min(backoffMillis * 2, 1000);
+		}
+	}
+
+	/*
+	 * Sets the in-memory high bid after the high bid has been changed in a
+	 * transaction
+	 */
+	private void resetAuctionHighBid(HighBid persistedHighBid) {
+		if ((_auctionHighBid != null) && (persistedHighBid != null)) {
+			_auctionHighBid.reset(persistedHighBid);
+		}
+	}
+
+	/*
+	 * Sends the high bid to all nodes.  The high bid carries the number of
+	 * this node so that new bids for the auction can be routed to it.
+	 */
 	protected void propagateNewHighBid(HighBid newHighBid) {
 		logger.info("propagating new high bid " + newHighBid);
-		_liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName, highBidRoutingKey
-				+ _auctionId, new BidRepresentation(newHighBid));
+		BidRepresentation highBidRepresentation = new BidRepresentation(newHighBid);
+		highBidRepresentation.setOwnerNode(nodeNumber);
+		_liveAuctionMessageBus.send(highBidRoutingKey
+				+ _auctionId, highBidRepresentation);
 	}
 
 	private boolean startNextItem(HighBid curHighBid) {
@@ -455,10 +551,12 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 		boolean nextSuceeded = false;
 		while (!nextSuceeded) {
 			try {
+				flushAuctionHighBid();
 				nextHighBid = _auctioneerTx.startNextItem(curHighBid);
 				if (nextHighBid != null) {
 					nextSuceeded = true;
 					_highBid = nextHighBid;
+					resetAuctionHighBid(_highBid);
 					logger.debug("startNextItem propagating item start bid " + _highBid);
 					propagateNewHighBid(_highBid);
 
@@ -477,8 +575,8 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 						+ ", auctionId = "
 						+ _auctionId
 						+ ", itemId = " + curHighBid.getItem().getId());
-			} catch (CannotAcquireLockException ex) {
-				logger.warn("startNextItem threw CannotAcquireLockException with message "
+			} catch (PessimisticLockingFailureException ex) {
+				logger.warn("startNextItem threw " + ex.getClass().getSimpleName() + " with message "
 						+ ex.getMessage()
 						+ ", auctionId = "
 						+ _auctionId
@@ -498,11 +596,16 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 				try {
 					logger.debug("StartAuctionTask: trying to start auction " + _auctionId);
 					_highBid = _auctioneerTx.startAuction(_auctionId);
+					resetAuctionHighBid(_highBid);
 					logger.debug("StartAuctionTask: Started auction " + _auctionId);
 
 					// Notify interested parties of the new high bid
 					propagateNewHighBid(_highBid);
 
+					// Add the auction to the active auctions on all nodes
+					_liveAuctionMessageBus.send(auctionStartedRoutingKey + _auctionId,
+							new AuctionRepresentation(_highBid.getAuction()));
+
 					suceeded = true;
 
 				} catch (InvalidStateException ex) {
@@ -515,6 +618,8 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 						try {
 							_auctioneerTx.invalidateAuction(_auctionId);
 							suceeded1 = true;
+							_liveAuctionMessageBus.send(auctionEndedRoutingKey + _auctionId,
+									new AuctionRepresentation(_auctionId));
 						} catch (ObjectOptimisticLockingFailureException exc) {
 							// Optimistic lock exception means someone
 							// invalidated the auction before us
@@ -585,11 +690,22 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 				_isWatchdogRunning.release();
 				return;
 			}
+			if ((_auctionHighBid != null) && _auctionHighBid.isFenced()) {
+				// Another node has taken over the auction
+				logger.info("bidwatchdogtask:run for auction " + _auctionId + " not running. Auction has moved to another node.");
+				_watchdogTaskScheduledFuture = null;
+				_isWatchdogRunning.release();
+				return;
+			}
 			
 			HighBid curHighBid = null;
 			Boolean suceeded = false;
 			while (!suceeded && !_shuttingDown) {
 				try {
+					flushAuctionHighBid();
+					if ((_auctionHighBid != null) && _auctionHighBid.isFenced()) {
+						break;
+					}
 					curHighBid = _auctioneerTx.makeForwardProgress(_highBid);
 					logger.info("bidwatchdogtask:run for auction " + _auctionId + ". makeForwardProgress returned highbid: " + curHighBid);
 					if (_shuttingDown) {
@@ -609,6 +725,7 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 						break;
 					}
 					_highBid = curHighBid;
+					resetAuctionHighBid(_highBid);
 
 					if (curHighBid.getState().equals(HighBidState.LASTCALL)) {
 						/*
@@ -617,6 +734,9 @@ public class AuctioneerImpl implements Auctioneer, Runnable {
 						logger.debug("bidwatchdogtask:run propagating lastcall bid " + _highBid);
 						propagateNewHighBid(_highBid);
 					} else if (curHighBid.getState().equals(HighBidState.SOLD)) {
+						if (_auctionHighBid != null) {
+							_auctionHighBid.itemSold(curHighBid);
+						}
 
 						logger.debug("bidwatchdogtask:run propagating sold bid " + _highBid);
 						propagateNewHighBid(_highBid);
@@ -58,6 +58,34 @@ public interface AuctioneerTx {
 
 	HighBid postNewHighBidTx(Bid theBid) throws InvalidStateException;
 
+	/**
+	 * Writes a high bid whose current state is kept in memory by its
+	 * auctioneer. The write is fenced by the version of the highbid row. If the
+	 * row does not have the version that the auctioneer last wrote, then another
+	 * node has taken over the auction and the write is rejected.
+	 * 
+	 * @return The persisted high bid, carrying its new version
+	 * @throws InvalidStateException
+	 *             if the write was fenced
+	 */
+	HighBid persistHighBidTx(HighBid highBid, Integer expectedVersion) throws InvalidStateException;
+
+	/**
+	 * Takes over the active high bid of an auction for a new auctioneer. The
+	 * version of the highbid row is incremented whether or not the high bid
+	 * changes, and the new version is the fencing token of the new
+	 * auctioneer. Any write by a previous auctioneer that still expects an
+	 * older version is rejected by persistHighBidTx.
+	 * 
+	 * @return The active high bid, carrying the version of the new auctioneer
+	 */
+	HighBid takeOverAuctionTx(long auctionId);
+
+	/**
+	 * @return The credit limit of the user, or null if there is no such user
+	 */
+	Float getCreditLimit(Long userId);
+
 	HighBid makeForwardProgress(HighBid highBid);
 
 	void resetItems(Long auctionId);
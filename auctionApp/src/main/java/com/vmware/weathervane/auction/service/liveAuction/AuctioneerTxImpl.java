@@ -27,6 +27,7 @@ import com.vmware.weathervane.auction.data.dao.BidCompletionDelayDao;
 import com.vmware.weathervane.auction.data.dao.HighBidDao;
 import com.vmware.weathervane.auction.data.dao.ItemDao;
 import com.vmware.weathervane.auction.data.dao.UserDao;
+import com.vmware.weathervane.auction.data.dao.WellKnownEntityDao;
 import com.vmware.weathervane.auction.data.model.Auction;
 import com.vmware.weathervane.auction.data.model.Bid;
 import com.vmware.weathervane.auction.data.model.HighBid;
@@ -62,6 +63,10 @@ public class AuctioneerTxImpl implements AuctioneerTx {
 	@Named("userDao")
 	private UserDao userDao;
 
+	@Inject
+	@Named("wellKnownEntityDao")
+	private WellKnownEntityDao wellKnownEntityDao;
+
 	@Inject
 	@Named("highBidDao")
 	private HighBidDao highBidDao;
@@ -130,7 +135,7 @@ public class AuctioneerTxImpl implements AuctioneerTx {
 			highBid.setState(HighBidState.SOLD);
 			currentItem.setState(ItemState.SOLD);
 
-			if (!purchaser.getEmail().equals("unsold@auction.xyz")) {
+			if (!purchaser.getEmail().equals(WellKnownEntityDao.UNSOLD_USER_EMAIL)) {
 				// Adjust the credit limit of the user
 				purchaser.setCreditLimit(purchaser.getCreditLimit() - highBid.getAmount());
 			} else {
@@ -199,7 +204,7 @@ public class AuctioneerTxImpl implements AuctioneerTx {
 		 * starting bids, and therefore will be the winning bidder if there are
 		 * no real bids on the Item
 		 */
-		User unsoldUser = userDao.getUserByName("unsold@auction.xyz");
+		User unsoldUser = wellKnownEntityDao.getUnsoldUser();
 		
 		/*
 		 * Create the HighBid record for this auction and item.  The current,
@@ -304,6 +309,50 @@ public class AuctioneerTxImpl implements AuctioneerTx {
 		return curHighBid;
 	}
 		
+	@Override
+	@Transactional
+	public HighBid persistHighBidTx(HighBid highBid, Integer expectedVersion) throws InvalidStateException {
+		Long itemId = highBid.getItemId();
+
+		HighBid curHighBid = highBidDao.findByItemId(itemId);
+		if ((expectedVersion == null) || !expectedVersion.equals(curHighBid.getVersion())) {
+			logger.warn("persistHighBidTx: highBid for auctionId=" + highBid.getAuctionId() + " itemId=" + itemId
+					+ " has version " + curHighBid.getVersion() + ", expected version " + expectedVersion);
+			throw new InvalidStateException("HighBid for item " + itemId + " was written by another auctioneer");
+		}
+
+		logger.debug("persistHighBidTx auctionId=" + highBid.getAuctionId() + " itemId=" + itemId
+				+ " userId=" + highBid.getBidderId() + " amount=" + highBid.getAmount()
+				+ " bidCount=" + highBid.getBidCount());
+
+		curHighBid.setBidCount(highBid.getBidCount());
+		curHighBid.setAmount(highBid.getAmount());
+		curHighBid.setBidder(userDao.getReference(highBid.getBidderId()));
+		curHighBid.setBidId(highBid.getBidId());
+		curHighBid.setState(highBid.getState());
+		curHighBid.setCurrentBidTime(highBid.getCurrentBidTime());
+
+		return curHighBid;
+	}
+
+	@Override
+	@Transactional
+	public HighBid takeOverAuctionTx(long auctionId) {
+		HighBid highBid = highBidDao.getActiveHighBidForTakeover(auctionId);
+		logger.info("takeOverAuctionTx: took over auction " + auctionId + " at highBid version " + highBid.getVersion());
+		return highBid;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Float getCreditLimit(Long userId) {
+		User theUser = userDao.get(userId);
+		if (theUser == null) {
+			return null;
+		}
+		return theUser.getCreditLimit();
+	}
+		
 	@Override
 	@Transactional
 	public Auction pendAuction(long auctionId) throws InvalidStateException {
@@ -403,7 +452,7 @@ public class AuctioneerTxImpl implements AuctioneerTx {
 		 * starting bids, and therefore will be the winning bidder if there are
 		 * no real bids on the Item
 		 */
-		User unsoldUser = userDao.getUserByName("unsold@auction.xyz");
+		User unsoldUser = wellKnownEntityDao.getUnsoldUser();
 		
 		/*
 		 * Create the HighBid record for this auction and item.  The current,
@@ -25,7 +25,6 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -81,7 +80,7 @@ public class ClientBidUpdater {
 	private ItemDao _itemDao;
 	private ScheduledExecutorService _scheduledExecutorService;
 	private ImageStoreFacade _imageStoreFacade;
-	private RabbitTemplate _rabbitTemplate;
+	private NewBidRouter _newBidRouter;
 
 	private boolean _sentWakeUpBid = false;
 	
@@ -92,14 +91,14 @@ public class ClientBidUpdater {
 	
 	public ClientBidUpdater(Long auctionId, HighBidDao highBidDao, ItemDao itemDao,
 			ScheduledExecutorService scheduledExecutorService, ImageStoreFacade imageStoreFacade,
-			RabbitTemplate rabbitTemplate) {
+			NewBidRouter newBidRouter) {
 		logger.info("Creating clientBidUpdater for auction " + auctionId);
 		_auctionId = auctionId;
 		_itemDao = itemDao;
 		_imageStoreFacade = imageStoreFacade;
 		_highBidDao = highBidDao;
 		_scheduledExecutorService = scheduledExecutorService;	
-		_rabbitTemplate = rabbitTemplate;
+		_newBidRouter = newBidRouter;
 		
 		/*
 		 * Initialize our knowledge of existing high bids for this auction so
@@ -263,9 +262,7 @@ public class ClientBidUpdater {
 			 * to start the watchdog timer 
 			 */
 			if ((highBidRepresentation.getLastBidCount() == 1) && !_sentWakeUpBid) {
-				_rabbitTemplate.convertAndSend(LiveAuctionServiceImpl.liveAuctionExchangeName, 
-						LiveAuctionServiceImpl.newBidRoutingKey + highBidRepresentation.getAuctionId(), 
-						highBidRepresentation);
+				_newBidRouter.send(highBidRepresentation);
 				_sentWakeUpBid = true;
 			}
 			if (((highBidRepresentation != null)
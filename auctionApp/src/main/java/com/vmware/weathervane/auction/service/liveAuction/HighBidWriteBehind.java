@@ -0,0 +1,307 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.vmware.weathervane.auction.data.model.Bid;
+import com.vmware.weathervane.auction.data.model.Bid.BidState;
+import com.vmware.weathervane.auction.data.model.HighBid;
+import com.vmware.weathervane.auction.data.model.HighBid.HighBidState;
+import com.vmware.weathervane.auction.data.model.User;
+import com.vmware.weathervane.auction.service.exception.InvalidStateException;
+
+/**
+ * Keeps the high bids of the auctions run on this node in memory, and writes
+ * them to the database behind the auctioneers. Since an auction is only run
+ * by the node to which it is assigned, the in-memory high bid of an auction
+ * is authoritative, and a bid can be accepted without a database round trip.
+ *
+ * The writes for an auction are made in order, and each write is fenced by
+ * the version of the highbid row. When another node takes over an auction it
+ * increments the version, and from then on the writes from this node are
+ * rejected and the auctioneer stops accepting bids.
+ *
+ * The credit limits of bidders are cached for all of the auctions on the
+ * node. A credit limit is only reduced when an item is sold, so a purchase
+ * made through another node may not be seen until the node restarts.
+ */
+public class HighBidWriteBehind {
+	private static final Logger logger = LoggerFactory.getLogger(HighBidWriteBehind.class);
+
+	/*
+	 * Attempts to write a high bid while the highbid row is locked by another
+	 * transaction, and the backoff between them
+	 */
+	private static final int maxWriteAttempts = 10;
+	private static final long initialBackoffMillis = 10;
+	private static final long maxBackoffMillis = 1000;
+
+	private final AuctioneerTx _auctioneerTx;
+	private final ExecutorService _writerExecutorService;
+
+	private final ConcurrentMap<Long, Float> _creditLimitCache = new ConcurrentHashMap<Long, Float>();
+
+	public HighBidWriteBehind(AuctioneerTx auctioneerTx, ExecutorService writerExecutorService) {
+		_auctioneerTx = auctioneerTx;
+		_writerExecutorService = writerExecutorService;
+	}
+
+	public AuctionHighBid getAuctionHighBid(Long auctionId) {
+		return new AuctionHighBid(auctionId);
+	}
+
+	/*
+	 * Returns the credit limit of the user, or null if there is no such user
+	 */
+	private Float getCreditLimit(Long userId) {
+		Float creditLimit = _creditLimitCache.get(userId);
+		if (creditLimit == null) {
+			creditLimit = _auctioneerTx.getCreditLimit(userId);
+			if (creditLimit != null) {
+				Float existing = _creditLimitCache.putIfAbsent(userId, creditLimit);
+				if (existing != null) {
+					creditLimit = existing;
+				}
+			}
+		}
+		return creditLimit;
+	}
+
+	/**
+	 * The in-memory high bid of one auction, and the writes of that high bid
+	 * that have not yet been made.
+	 */
+	public class AuctionHighBid implements Runnable {
+		private final Long _auctionId;
+
+		private volatile HighBid _highBid = null;
+
+		/*
+		 * The version of the highbid row after the last write by this node
+		 */
+		private Integer _persistedVersion = null;
+		private volatile boolean _fenced = false;
+
+		/*
+		 * A write that failed to lock the highbid row, and must be made
+		 * before the pending writes.  Guarded by _writeLock.
+		 */
+		private HighBid _retryWrite = null;
+
+		private final Queue<HighBid> _pendingWrites = new ConcurrentLinkedQueue<HighBid>();
+		private final AtomicBoolean _isScheduled = new AtomicBoolean(false);
+		private final ReentrantLock _writeLock = new ReentrantLock();
+
+		private AuctionHighBid(Long auctionId) {
+			_auctionId = auctionId;
+		}
+
+		/**
+		 * Sets the high bid after it has been changed in the database by the
+		 * auctioneer. Any pending writes must have been flushed first.
+		 */
+		public void reset(HighBid persistedHighBid) {
+			_writeLock.lock();
+			try {
+				_highBid = persistedHighBid;
+				_persistedVersion = persistedHighBid.getVersion();
+				_retryWrite = null;
+			} finally {
+				_writeLock.unlock();
+			}
+		}
+
+		/**
+		 * Determines the state of a new bid using the in-memory high bid, in
+		 * the same way as AuctioneerTx.postNewHighBidTx. If the bid is a new
+		 * high bid, then the new high bid is returned and a write is scheduled.
+		 * Otherwise the current high bid is returned.
+		 */
+		public HighBid postNewHighBid(Bid theBid) throws InvalidStateException {
+			Long bidderId = theBid.getKey().getBidderId();
+
+			Float creditLimit = getCreditLimit(bidderId);
+			if (creditLimit == null) {
+				logger.warn("postNewHighBid: Attempt to post a bid for a nonexistant user with ID " + bidderId);
+				throw new InvalidStateException("Attempt to post a bid for a nonexistant user with ID " + bidderId);
+			}
+
+			HighBid curHighBid = _highBid;
+			if (creditLimit.floatValue() < theBid.getAmount().floatValue()) {
+				theBid.setState(BidState.INSUFFICIENTFUNDS);
+				return curHighBid;
+			} else if (curHighBid.getState().equals(HighBidState.SOLD)) {
+				theBid.setState(BidState.ITEMSOLD);
+				return curHighBid;
+			}
+
+			theBid.setState(BidState.HIGH);
+
+			/*
+			 * Only the id of the bidder is needed until the high bid is
+			 * written
+			 */
+			User bidder = new User();
+			bidder.setId(bidderId);
+
+			HighBid newHighBid = new HighBid(curHighBid);
+			newHighBid.setBidCount(curHighBid.getBidCount() + 1);
+			newHighBid.setAmount(theBid.getAmount());
+			newHighBid.setBidder(bidder);
+			newHighBid.setBidId(theBid.getId());
+			newHighBid.setState(HighBidState.OPEN);
+			newHighBid.setCurrentBidTime(theBid.getKey().getBidTime());
+			_highBid = newHighBid;
+
+			_pendingWrites.add(newHighBid);
+			if (_isScheduled.compareAndSet(false, true)) {
+				_writerExecutorService.execute(this);
+			}
+			return newHighBid;
+		}
+
+		/**
+		 * Reduces the cached credit limit of the purchaser of a sold item
+		 */
+		public void itemSold(HighBid soldHighBid) {
+			Long purchaserId = soldHighBid.getBidderId();
+			Float creditLimit = _creditLimitCache.get(purchaserId);
+			if (creditLimit != null) {
+				_creditLimitCache.replace(purchaserId, creditLimit, creditLimit - soldHighBid.getAmount());
+			}
+		}
+
+		/**
+		 * Makes all pending writes before returning. If the highbid row stays
+		 * locked by another transaction, the PessimisticLockingFailureException
+		 * is thrown once the write has been retried maxWriteAttempts times, and
+		 * the write is kept for the next flush.
+		 */
+		public void flush() {
+			PessimisticLockingFailureException ex = writePending();
+			if (ex != null) {
+				throw ex;
+			}
+		}
+
+		/**
+		 * @return true if another node has taken over the auction
+		 */
+		public boolean isFenced() {
+			return _fenced;
+		}
+
+		@Override
+		public void run() {
+			_isScheduled.set(false);
+			PessimisticLockingFailureException ex = writePending();
+			if (ex != null) {
+				logger.error("HighBidWriteBehind: write for auction " + _auctionId + " failed after "
+						+ maxWriteAttempts + " attempts.  Leaving it for the next write or flush: " + ex.getMessage());
+			}
+		}
+
+		/*
+		 * Makes the pending writes, backing off between attempts that fail to
+		 * lock the highbid row.  The write lock is not held while backing off.
+		 * Returns the last exception if the write could not be made.
+		 */
+		private PessimisticLockingFailureException writePending() {
+			long backoffMillis = initialBackoffMillis;
+			for (int attempt = 1;; attempt++) {
+				PessimisticLockingFailureException ex;
+				_writeLock.lock();
+				try {
+					ex = writeLatest();
+				} finally {
+					_writeLock.unlock();
+				}
+				if ((ex == null) || (attempt >= maxWriteAttempts)) {
+					return ex;
+				}
+
+				logger.info("HighBidWriteBehind: write for auction " + _auctionId + " got "
+						+ ex.getClass().getSimpleName() + " with message " + ex.getMessage() + ". Retrying in "
+						+ backoffMillis + "ms.");
+				try {
+					Thread.sleep(backoffMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return ex;
+				}
+				backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+			}
+		}
+
+		/*
+		 * Writes the latest pending high bid.  Each pending write carries the
+		 * full state of the high bid, so only the latest one needs to be
+		 * written.  If the highbid row is locked, the write is kept to be
+		 * retried and the exception is returned.  Must hold _writeLock.
+		 */
+		private PessimisticLockingFailureException writeLatest() {
+			HighBid latest = _retryWrite;
+			_retryWrite = null;
+			HighBid next;
+			while ((next = _pendingWrites.poll()) != null) {
+				latest = next;
+			}
+			if (latest == null) {
+				return null;
+			}
+			if (_fenced) {
+				discard(latest);
+				return null;
+			}
+
+			try {
+				HighBid persisted = _auctioneerTx.persistHighBidTx(latest, _persistedVersion);
+				_persistedVersion = persisted.getVersion();
+				return null;
+			} catch (InvalidStateException | ObjectOptimisticLockingFailureException ex) {
+				logger.warn("HighBidWriteBehind: write for auction " + _auctionId
+						+ " was fenced.  Another node has taken over the auction: " + ex.getMessage());
+				_fenced = true;
+				discard(latest);
+				return null;
+			} catch (PessimisticLockingFailureException ex) {
+				_retryWrite = latest;
+				return ex;
+			}
+		}
+
+		/*
+		 * The high bids that can no longer be written were already sent to the
+		 * bidders as HIGH, but the node that took over the auction does not
+		 * know about them.  They are logged so that the lost bids can be seen.
+		 */
+		private void discard(HighBid latest) {
+			logDiscarded(latest);
+			HighBid next;
+			while ((next = _pendingWrites.poll()) != null) {
+				logDiscarded(next);
+			}
+		}
+
+		private void logDiscarded(HighBid discarded) {
+			logger.warn("HighBidWriteBehind: discarding unwritten highBid for auction " + _auctionId + ", itemId = "
+					+ discarded.getItemId() + ", bidId = " + discarded.getBidId() + ", bidderId = "
+					+ discarded.getBidderId() + ", amount = " + discarded.getAmount() + ", bidCount = "
+					+ discarded.getBidCount() + ". It was sent to the bidders as the high bid.");
+		}
+	}
+}
@@ -34,6 +34,7 @@ public interface LiveAuctionService {
 	
 	long getActiveAuctionsMisses();
 
+	void handleAuctionStartedMessage(AuctionRepresentation anAuction);
 	void handleAuctionEndedMessage(AuctionRepresentation anAuction);
 	void handleHighBidMessage(BidRepresentation newHighBid);
 	void handleNewBidMessage(BidRepresentation theBid);
@@ -4,11 +4,13 @@ SPDX-License-Identifier: BSD-2-Clause
 */
 package com.vmware.weathervane.auction.service.liveAuction;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -35,13 +38,7 @@ import javax.servlet.AsyncContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.core.Binding;
-import org.springframework.amqp.core.Binding.DestinationType;
-import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.rabbit.core.RabbitAdmin;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.vmware.weathervane.auction.data.dao.AuctionDao;
@@ -55,7 +52,7 @@ import com.vmware.weathervane.auction.data.model.AttendanceRecord.AttendanceReco
 import com.vmware.weathervane.auction.data.model.Auction;
 import com.vmware.weathervane.auction.data.model.Auction.AuctionState;
 import com.vmware.weathervane.auction.data.model.HighBid;
-import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordRepository;
+import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordWriter;
 import com.vmware.weathervane.auction.data.repository.event.BidRepository;
 import com.vmware.weathervane.auction.rest.representation.AttendanceRecordRepresentation;
 import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
@@ -64,10 +61,12 @@ import com.vmware.weathervane.auction.rest.representation.BidRepresentation.Bidd
 import com.vmware.weathervane.auction.rest.representation.CollectionRepresentation;
 import com.vmware.weathervane.auction.rest.representation.ItemRepresentation;
 import com.vmware.weathervane.auction.service.BidService;
+import com.vmware.weathervane.auction.service.CacheMetricsService;
 import com.vmware.weathervane.auction.service.GroupMembershipService;
 import com.vmware.weathervane.auction.service.exception.AuctionNotActiveException;
 import com.vmware.weathervane.auction.service.exception.AuthenticationException;
 import com.vmware.weathervane.auction.service.exception.InvalidStateException;
+import com.vmware.weathervane.auction.service.liveAuction.message.LiveAuctionMessageBus;
 import com.vmware.weathervane.auction.service.liveAuction.message.StartAuctioneer;
 import com.vmware.weathervane.auction.util.FixedOffsetCalendarFactory;
 
@@ -81,6 +80,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 
 	public static final String liveAuctionExchangeName = "liveAuctionMgmtExchange";
 	public static final String newBidRoutingKey = "newBid.";
+	public static final String newBidQueueName = "newBidQueue";
 
 
 	// The longest that an auction can go (in seconds) without a bid before the
@@ -94,12 +94,37 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	private ScheduledExecutorService _assignmentHandlerExecutorService = Executors.newScheduledThreadPool(1);
 	private ScheduledThreadPoolExecutor _clientUpdateExecutorService;
 
-	private List<Long> _currentAuctionAssignment;
+	/*
+	 * When true, auctioneers keep the high bid in memory and write it to the
+	 * database behind the bids
+	 */
+	private boolean _inMemoryHighBids = false;
+	private ExecutorService _highBidWriterExecutorService = null;
+	private HighBidWriteBehind _highBidWriteBehind = null;
+
+	private AuctionAssignmentWatcher _auctionAssignmentWatcher;
 	
 	MembershipChangedHandler _membershipChangedHandler = null;
 	
 	private ConcurrentMap<Long, Auctioneer> _auctionIdToAuctioneerMap = new ConcurrentHashMap<Long, Auctioneer>();
-	private ConcurrentMap<Long, Binding> _auctionIdToBindingMap = new ConcurrentHashMap<Long, Binding>();
+
+	/*
+	 * Routes new bids to the nodes running their auctions
+	 */
+	private NewBidRouter _newBidRouter;
+
+	/*
+	 * The last time that the routes of new bids were read from the auction
+	 * assignment map after a bid arrived for an auction not running here
+	 */
+	private volatile long _lastNewBidRouteRefresh = 0;
+	private static final long minNewBidRouteRefreshIntervalMillis = 1000;
+
+	/*
+	 * The number of times that a new bid can be forwarded between nodes
+	 * before it is dropped
+	 */
+	private static final int maxNewBidForwards = 2;
 
 	/*
 	 * Set to true when exiting to allow leader (if we are the leader) to exit cleanly
@@ -113,16 +138,31 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	 */
 	private Map<Long, ClientBidUpdater> _clientBidUpdaterMap = new ConcurrentSkipListMap<Long, ClientBidUpdater>();
 
-	private static long _activeAuctionsMisses = 0;
+	/*
+	 * All of the active auctions, from which each page of active auctions is
+	 * taken.  The list is reloaded from the database when it is older than
+	 * activeAuctionCacheMaxAgeMillis, and is kept up to date in between by the
+	 * auctionStarted and auctionEnded messages.  Its metrics are reported
+	 * by the cacheMetricsService under activeAuctionCacheName.
+	 */
+	public static final String activeAuctionCacheName = "activeAuctionCache";
+	private ActiveAuctionCache _activeAuctionCache;
+	private long _activeAuctionCacheMaxAgeMillis = 30000;
 
 	/*
-	 * When fetching pending auctions, this controls both the time period in
-	 * seconds for which to fetch the next set of auctions, and the delay until
-	 * the next set of auctions is fetched. It is actually used by the
-	 * AuctionManager
+	 * The longest time in seconds that the leader waits for an auction to
+	 * become due before checking whether the node is exiting.
 	 */
 	private int _auctionQueueUpdateDelay;
 
+	/*
+	 * The auctions not yet started, which the leader assigns to nodes as they
+	 * become due.  An auction becomes due this many milliseconds before its
+	 * start time.
+	 */
+	private AuctionStartScheduler _auctionStartScheduler;
+	private long _auctionStartLeadMillis = 0;
+
 	/*
 	 * The delay in seconds between sending out heartbearts
 	 */
@@ -133,20 +173,17 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	private static Lock auctionAssignmentChangeLock = new ReentrantLock();
 
 	@Inject
-	@Named("liveAuctionRabbitTemplate")
-	RabbitTemplate liveAuctionRabbitTemplate;
-
-	@Inject
-	private RabbitAdmin rabbitAdmin;
-
-	@Inject
-	@Named("newBidQueue")
-	private Queue _newBidQueue;
+	@Named("liveAuctionMessageBus")
+	private LiveAuctionMessageBus liveAuctionMessageBus;
 
 	@Inject
 	@Named("groupMembershipService")
 	private GroupMembershipService groupMembershipService;
 
+	@Inject
+	@Named("cacheMetricsService")
+	private CacheMetricsService cacheMetricsService;
+
 	@Inject
 	@Named("liveAuctionServiceTx")
 	private LiveAuctionServiceTx liveAuctionServiceTx;
@@ -175,7 +212,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	private BidRepository _bidRepository;
 
 	@Inject
-	private AttendanceRecordRepository attendanceRecordRepository;
+	private AttendanceRecordWriter attendanceRecordWriter;
 
 	@Inject
 	@Named("bidService")
@@ -220,6 +257,26 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		});
 		_clientUpdateExecutorService.setRemoveOnCancelPolicy(true);
 
+		_newBidRouter = new NewBidRouter(liveAuctionMessageBus);
+		_auctionStartScheduler = new AuctionStartScheduler(_auctionStartLeadMillis);
+		_activeAuctionCache = new ActiveAuctionCache(this::loadActiveAuctions, _activeAuctionCacheMaxAgeMillis);
+		cacheMetricsService.registerCache(activeAuctionCacheName, _activeAuctionCache::getCacheMetrics);
+
+		if (_inMemoryHighBids) {
+			logger.info("LiveAuctionService initialize.  Keeping high bids in memory with write-behind");
+			_highBidWriterExecutorService = Executors.newFixedThreadPool(_numAuctioneerExecutorThreads, new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					final String threadName = String.format("highBidWriterThread-%d", counter.incrementAndGet());
+					Thread newThread = new Thread(r, threadName);
+					return newThread;
+				}
+			});
+			_highBidWriteBehind = new HighBidWriteBehind(_auctioneerTx, _highBidWriterExecutorService);
+		}
+
 		/*
 		 * Schedule a task to join the auction management distributed group.
 		 * Don't join immediately so we are sure that the node is fully started.
@@ -235,6 +292,15 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 					 */
 					logger.info("Getting node number for this service");
 					nodeNumber = groupMembershipService.nextLongValue(auctionAssignmentMapName, auctionIdCounterName);
+
+					/*
+					 * Bind the newBidQueue to the routing key of this node.
+					 * New bids for all of the auctions run on this node are
+					 * sent with this key, so the binding doesn't change when
+					 * auctions are assigned to or removed from the node.
+					 */
+					logger.info("Binding newBidQueue to routing key " + NewBidRouter.getNodeRoutingKey(nodeNumber));
+					liveAuctionMessageBus.bindQueue(newBidQueueName, NewBidRouter.getNodeRoutingKey(nodeNumber));
 					
 					/*
 					 * Create a node to hold the auction assignment for this
@@ -244,15 +310,14 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 					groupMembershipService.createNode(auctionAssignmentMapName, nodeNumber, "");
 
 					/*
-					 * Register a callback to listen for changes in the auctions
-					 * assigned to this node sent to the group. When the auction
-					 * assignment changes, update the auctioneers running on
-					 * this node
+					 * Watch for changes in the auctions assigned to this node.
+					 * When the auction assignment changes, update the
+					 * auctioneers running on this node
 					 */
 					logger.info("Registering change callback for assigned auctions");
-					groupMembershipService.registerContentsChangedCallback(auctionAssignmentMapName, nodeNumber,
-							new AuctionAssignmentChangedHandler());
-					_currentAuctionAssignment = new LinkedList<Long>();
+					_auctionAssignmentWatcher = new AuctionAssignmentWatcher(groupMembershipService, auctionAssignmentMapName,
+							nodeNumber, _assignmentHandlerExecutorService, (added, removed) -> handleAuctionAssignmentChange(added, removed));
+					_auctionAssignmentWatcher.start();
 
 					logger.info("Joining distributed group " + auctionManagementGroupName);
 					groupMembershipService.joinDistributedGroup(auctionManagementGroupName, nodeNumber);
@@ -287,7 +352,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			for (HighBid aHighBid : highBids) {
 				_clientBidUpdaterMap.put(aHighBid.getAuctionId(),
 						new ClientBidUpdater(aHighBid.getAuctionId(), _highBidDao, itemDao, 
-								_clientUpdateExecutorService, imageStoreFacade, liveAuctionRabbitTemplate));
+								_clientUpdateExecutorService, imageStoreFacade, _newBidRouter));
 			}
 		}
 	}
@@ -303,12 +368,18 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		_auctioneerExecutorService.shutdown();
 		_assignmentHandlerExecutorService.shutdown();
 		_clientUpdateExecutorService.shutdown();
+		if (_highBidWriterExecutorService != null) {
+			_highBidWriterExecutorService.shutdown();
+		}
 
 		try {
 			_groupMembershipExecutorService.awaitTermination(30, TimeUnit.SECONDS);
 			_auctioneerExecutorService.awaitTermination(30, TimeUnit.SECONDS);
 			_assignmentHandlerExecutorService.awaitTermination(30, TimeUnit.SECONDS);
 			_clientUpdateExecutorService.awaitTermination(30, TimeUnit.SECONDS);
+			if (_highBidWriterExecutorService != null) {
+				_highBidWriterExecutorService.awaitTermination(30, TimeUnit.SECONDS);
+			}
 		} catch (InterruptedException e) {
 			logger.debug("Awaiting termination on executorService was interrupted");
 		}
@@ -331,13 +402,15 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		if (!_exiting) {
 			_exiting = true;
 			logger.warn("Received prepareForShutdown message");
+			_auctionStartScheduler.wakeUp();
 			
 			/*
-			 * Remove all of the rabbitmq bindings
+			 * Remove the newBidQueue binding for this node
 			 */
-			for (Long auctionId : _auctionIdToBindingMap.keySet()) {
-				rabbitAdmin.removeBinding(_auctionIdToBindingMap.get(auctionId));
-				Auctioneer auctioneer = _auctionIdToAuctioneerMap.get(auctionId);
+			if (nodeNumber != null) {
+				liveAuctionMessageBus.unbindQueue(newBidQueueName, NewBidRouter.getNodeRoutingKey(nodeNumber));
+			}
+			for (Auctioneer auctioneer : _auctionIdToAuctioneerMap.values()) {
 				auctioneer.shutdown();
 			}
 
@@ -360,22 +433,19 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	}
 
 	@Override
-	@Cacheable(value = "activeAuctionCache")
 	public CollectionRepresentation<AuctionRepresentation> getActiveAuctions(Integer page, Integer pageSize) {
-		_activeAuctionsMisses++;
 		logger.info("GetActiveAuctions page = {}, pageSize = {}", page, pageSize);
 
-		ArrayList<AuctionRepresentation> liveAuctions = new ArrayList<AuctionRepresentation>();
 		CollectionRepresentation<AuctionRepresentation> colRep = new CollectionRepresentation<AuctionRepresentation>();
 
-		// Get the total number of active auctions
-		long totalRecords = auctionDao.countActiveAuctions();
+		List<AuctionRepresentation> activeAuctions = _activeAuctionCache.getActiveAuctions();
+		long totalRecords = activeAuctions.size();
 
 		if (totalRecords == 0) {
 			colRep.setPage(0);
 			colRep.setPageSize(0);
 			colRep.setTotalRecords(0L);
-			colRep.setResults(liveAuctions);
+			colRep.setResults(new ArrayList<AuctionRepresentation>());
 			return colRep;
 		}
 
@@ -391,20 +461,29 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			page = 0;
 		}
 
-		List<Auction> auctions = auctionDao.getAuctionsPage(page, pageSize, AuctionState.RUNNING);
-		for (Auction anAuction : auctions) {
-			liveAuctions.add(new AuctionRepresentation(anAuction));
-		}
+		int fromIndex = page * pageSize;
+		int toIndex = (int) Math.min(fromIndex + pageSize, totalRecords);
 
 		colRep.setPage(page);
 		colRep.setPageSize(pageSize);
-		colRep.setTotalRecords((long) totalRecords);
-		colRep.setResults(liveAuctions);
+		colRep.setTotalRecords(totalRecords);
+		colRep.setResults(new ArrayList<AuctionRepresentation>(activeAuctions.subList(fromIndex, toIndex)));
 
 		return colRep;
 
 	}
 
+	private List<AuctionRepresentation> loadActiveAuctions() {
+		logger.info("loadActiveAuctions: loading the active auctions");
+		long startNanos = System.nanoTime();
+		List<AuctionRepresentation> activeAuctions = new ArrayList<AuctionRepresentation>();
+		for (Auction anAuction : auctionDao.getActiveAuctions()) {
+			activeAuctions.add(new AuctionRepresentation(anAuction));
+		}
+		cacheMetricsService.recordCacheLoad(activeAuctionCacheName, System.nanoTime() - startNanos);
+		return activeAuctions;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -439,7 +518,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		newRecord.setState(AttendanceRecordState.ATTENDING);
 		newRecord.setKey(key);
 		newRecord.setId(UUID.randomUUID());
-		attendanceRecordRepository.save(newRecord);
+		attendanceRecordWriter.save(newRecord);
 
 		return new AttendanceRecordRepresentation(newRecord);
 
@@ -458,7 +537,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		attendanceRecord.setState(AttendanceRecordState.LEFT);
 		attendanceRecord.setKey(key);
 		attendanceRecord.setId(UUID.randomUUID());
-		attendanceRecordRepository.save(attendanceRecord);
+		attendanceRecordWriter.save(attendanceRecord);
 
 		return new AttendanceRecordRepresentation(attendanceRecord);
 	}
@@ -473,11 +552,16 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	public BidRepresentation postNewBid(BidRepresentation theBid) throws InvalidStateException {
 
 		logger.debug("postNewBid propagating bid " + theBid);
-		liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName, newBidRoutingKey + theBid.getAuctionId(), theBid);
+		_newBidRouter.send(theBid);
 
-		theBid.setBiddingState(BiddingState.ACCEPTED);
-		theBid.setMessage(BiddingState.ACCEPTED.toString());
-		return theBid;
+		/*
+		 * The message bus may deliver the bid itself rather than a copy, so
+		 * the bid that was sent must not be changed.
+		 */
+		BidRepresentation acceptedBid = new BidRepresentation(theBid);
+		acceptedBid.setBiddingState(BiddingState.ACCEPTED);
+		acceptedBid.setMessage(BiddingState.ACCEPTED.toString());
+		return acceptedBid;
 	}
 
 	/**
@@ -513,28 +597,32 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		logger.warn("Node " + nodeNumber + " received StartAuction message for auctionId " + startAuction.getAuctionId());
 		Long auctionId = startAuction.getAuctionId();
 
-		/*
-		 * Add a binding to the newBidQueue to listen for new bids for this
-		 * auction.
-		 */
-		Binding newBidBinding = new Binding(_newBidQueue.getName(), DestinationType.QUEUE, liveAuctionExchangeName, newBidRoutingKey + auctionId, null);
-		rabbitAdmin.declareBinding(newBidBinding);
-		_auctionIdToBindingMap.put(auctionId, newBidBinding);
-
 		Auctioneer auctioneer = new AuctioneerImpl(auctionId, _auctioneerExecutorService, _auctioneerTx, _highBidDao, _bidRepository, auctionDao,
-				liveAuctionRabbitTemplate, auctionMaxIdleTime, nodeNumber);
+				liveAuctionMessageBus, _newBidRouter, auctionMaxIdleTime, nodeNumber, _highBidWriteBehind);
 		_auctionIdToAuctioneerMap.put(auctionId, auctioneer);
+		_newBidRouter.setOwner(auctionId, nodeNumber);
 
 	}
 	
+	@Override
+	public void handleAuctionStartedMessage(AuctionRepresentation anAuction) {
+		logger.info("auctionStarted.  Got an auction started message for auction with id " + anAuction.getId());
+
+		_activeAuctionCache.auctionStarted(anAuction);
+	}
+
 	@Override
 	public void handleAuctionEndedMessage(AuctionRepresentation anAuction) {
-		logger.info("auctionStarted.  Got an auction ended message for auction with id " + anAuction.getId());
+		logger.info("auctionEnded.  Got an auction ended message for auction with id " + anAuction.getId());
 
 		Long auctionId = anAuction.getId();
-		ClientBidUpdater clientBidUpdater = _clientBidUpdaterMap.get(auctionId);
-		clientBidUpdater.shutdown();
-		_clientBidUpdaterMap.remove(auctionId);
+		_auctionStartScheduler.cancel(auctionId);
+		_activeAuctionCache.auctionEnded(auctionId);
+
+		ClientBidUpdater clientBidUpdater = _clientBidUpdaterMap.remove(auctionId);
+		if (clientBidUpdater != null) {
+			clientBidUpdater.shutdown();
+		}
 
 		Auctioneer auctioneer = _auctionIdToAuctioneerMap.get(auctionId);
 		if (auctioneer != null) {
@@ -556,6 +644,9 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			logger.warn("handleHighBidMessage got highBid " + newHighBid + " with no auctionId.");
 			return;
 		}
+		if (newHighBid.getOwnerNode() != null) {
+			_newBidRouter.setOwner(auctionId, newHighBid.getOwnerNode());
+		}
 		
 		logger.debug("handleHighBidMessage: auctionId = " + auctionId);
 		ClientBidUpdater clientBidUpdater = _clientBidUpdaterMap.get(auctionId);
@@ -564,7 +655,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			// Create a ClientBidUpdater for this auction
 			logger.debug("HighBidDispatcher creating ClientBidUpdater for highBid " + newHighBid);
 			clientBidUpdater = new ClientBidUpdater(newHighBid.getAuctionId(), _highBidDao, itemDao, 
-					_clientUpdateExecutorService, imageStoreFacade, liveAuctionRabbitTemplate);
+					_clientUpdateExecutorService, imageStoreFacade, _newBidRouter);
 
 			_clientBidUpdaterMap.put(auctionId, clientBidUpdater);
 		}
@@ -579,11 +670,54 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		Auctioneer auctioneer = _auctionIdToAuctioneerMap.get(auctionId);
 		if (auctioneer != null) {
 			auctioneer.handleNewBidMessage(theBid);
+			return;
+		}
+
+		/*
+		 * The bid was unrouted, or was routed using an old auction
+		 * assignment.  Forward it to the node running the auction, unless it
+		 * has already been forwarded too many times, which happens while the
+		 * nodes disagree about the owner of the auction.
+		 */
+		int forwardCount = (theBid.getForwardCount() != null) ? theBid.getForwardCount() : 0;
+		refreshNewBidRoutes();
+		if (forwardCount >= maxNewBidForwards) {
+			logger.warn("Dropping new bid for auction " + auctionId + " after it was forwarded " + forwardCount
+					+ " times");
+			return;
+		}
+		Long owner = _newBidRouter.getOwner(auctionId);
+		if ((owner != null) && !owner.equals(nodeNumber) && !_exiting) {
+			logger.debug("handleNewBidMessage forwarding bid for auction " + auctionId + " to node " + owner);
+			theBid.setForwardCount(forwardCount + 1);
+			_newBidRouter.sendToNode(owner, theBid);
 		} else {
 			logger.warn("Received new bid for auction which is not running.  Auction ID = " + auctionId);
 		}
 	}
 
+	/*
+	 * Reads the owners of the auctions from the auction assignment map.  This
+	 * is done at most once per interval when bids arrive for auctions that
+	 * are not running here.
+	 */
+	private void refreshNewBidRoutes() {
+		long now = System.currentTimeMillis();
+		if ((now - _lastNewBidRouteRefresh) < minNewBidRouteRefreshIntervalMillis) {
+			return;
+		}
+		_lastNewBidRouteRefresh = now;
+		updateNewBidRoutes();
+	}
+
+	private void updateNewBidRoutes() {
+		try {
+			_newBidRouter.setAuctionAssignment(getCurrentAuctionAssignmentMap());
+		} catch (Exception e) {
+			logger.warn("Could not read the auction assignment map to route new bids: " + e.getMessage());
+		}
+	}
+
 	@Override
 	public ItemRepresentation getCurrentItem(long auctionId) throws AuctionNotActiveException {
 		logger.debug("getCurrentItem for auction " + auctionId);
@@ -600,46 +734,6 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 	}
 
 
-	private List<Long> auctionAssignmentStringToList(String auctionAssignmentString) {
-		List<Long> auctionIds = new LinkedList<Long>();
-		if ((auctionAssignmentString == null) || (auctionAssignmentString.equals(""))) {
-			return auctionIds;
-		}
-		
-		String[] auctionIdStrings = auctionAssignmentString.split(",");
-		for (String idString : auctionIdStrings) {
-			Long id = null;
-			try {
-				id = Long.parseLong(idString);
-			} catch (NumberFormatException e) {
-				logger.warn("auctionAssignmentStringToList got numberFormatException for " + idString);
-				continue;
-			}
-			if (id != null) {
-				auctionIds.add(id);
-			}
-		}
-		
-		auctionIds.sort((x,y) -> Long.compare(x, y));
-		return auctionIds;
-		
-	}
-	
-	private String auctionAssignmentListToString(List<Long> auctionIds) {
-		logger.info("auctionAssignmentListToString");
-		StringBuilder auctionAssignmentString = new StringBuilder();
-		
-		for (Long id : auctionIds) {
-			auctionAssignmentString.append(id.toString() + ",");
-		}
-		
-		// Delete last comma
-		if (auctionAssignmentString.length() > 0) {
-			auctionAssignmentString.deleteCharAt(auctionAssignmentString.length() - 1);
-		}
-		return auctionAssignmentString.toString();
-	}
-	
 	private Map<String, List<Long>> rebalanceAuctions(Map<String, List<Long>> groupMembers) {
 		logger.info("rebalanceAuctions: There are " + groupMembers.size() + " members");
 
@@ -677,12 +771,12 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		/*
 		 * Remove auctions from members with more than auctionsPerMember
 		 */
-		List<Long> unassignedAuctions = new ArrayList<Long>();
+		Deque<Long> unassignedAuctions = new ArrayDeque<Long>();
 		for (String memberId : groupMembers.keySet()) {
 			List<Long> auctionIds = groupMembers.get(memberId);
 			logger.info("rebalanceAuctions: removing auctions. member " + memberId + " is running " + auctionIds.size() + " auctions.");
 			while (auctionIds.size() > auctionsPerMember) {
-				Long auctionId = auctionIds.remove(0);
+				Long auctionId = auctionIds.remove(auctionIds.size() - 1);
 				logger.info("rebalanceAuctions removing auction " + auctionId + " from AuctionManagement group member " + memberId);
 
 				unassignedAuctions.add(auctionId);
@@ -702,7 +796,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 				while (auctionIds.size() < auctionsPerMember) {
 					logger.info("rebalanceAuctions: removing auctionId from unassignedAuctions.  unassignedAuctions has " + unassignedAuctions.size()
 							+ " auctions");
-					Long auctionId = unassignedAuctions.remove(0);
+					Long auctionId = unassignedAuctions.poll();
 					logger.info("rebalanceAuctions: got auctionId " + auctionId);
 					auctionIds.add(auctionId);
 					logger.info("rebalanceAuctions assigning auction " + auctionId + " to AuctionManagement group member " + memberId);
@@ -717,7 +811,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			while (!unassignedAuctions.isEmpty()) {
 				for (String memberId : groupMembers.keySet()) {
 					List<Long> auctionIds = groupMembers.get(memberId);
-					Long auctionId = unassignedAuctions.remove(0);
+					Long auctionId = unassignedAuctions.poll();
 					logger.info("rebalanceAuctions assigning auction " + auctionId + " to AuctionManagement group member " + memberId);
 					auctionIds.add(auctionId);
 					if (unassignedAuctions.isEmpty()) {
@@ -748,21 +842,44 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 				continue;
 			}
 			
-			String assignedAuctionsString = groupMembershipService.readContentsForNode(auctionAssignmentMapName, id);
-			logger.debug("getCurrentAuctionAssignmentMap: For memberId " + memberId + " got assignedAuctionsString " + assignedAuctionsString);
-			assignmentMap.put(memberId, auctionAssignmentStringToList(assignedAuctionsString));
+			Set<Long> assignedAuctions = AuctionAssignment.decode(groupMembershipService.readBytesForNode(auctionAssignmentMapName, id));
+			logger.debug("getCurrentAuctionAssignmentMap: memberId " + memberId + " has " + assignedAuctions.size() + " assigned auctions");
+			assignmentMap.put(memberId, new ArrayList<Long>(assignedAuctions));
 		}
 		
 		return assignmentMap;
 		
 	}
 
-	private void updateCurrentAuctionAssignment(Map<String, List<Long>> auctionAssignmentMap) throws Exception {
+	/*
+	 * Returns a copy of an auction assignment map that won't be changed when
+	 * the auctions are assigned or rebalanced.
+	 */
+	private Map<String, Set<Long>> copyAuctionAssignmentMap(Map<String, List<Long>> auctionAssignmentMap) {
+		Map<String, Set<Long>> assignmentCopy = new HashMap<String, Set<Long>>();
+		for (Map.Entry<String, List<Long>> entry : auctionAssignmentMap.entrySet()) {
+			assignmentCopy.put(entry.getKey(), new HashSet<Long>(entry.getValue()));
+		}
+		return assignmentCopy;
+	}
+
+	/*
+	 * Writes the assignment of each member whose auctions have changed since
+	 * the previous assignment.  Members whose auctions haven't changed aren't
+	 * written, so they aren't notified.
+	 */
+	private void updateCurrentAuctionAssignment(Map<String, List<Long>> auctionAssignmentMap, 
+			Map<String, Set<Long>> previousAssignmentMap) throws Exception {
 		logger.info("updateCurrentAuctionAssignment");
 		for (String memberId : auctionAssignmentMap.keySet()) {
-			logger.info("Translating auctionAssignmentListToString for member " + memberId);
-			String auctionAssignmentString = auctionAssignmentListToString(auctionAssignmentMap.get(memberId));
-			groupMembershipService.writeContentsForNode(auctionAssignmentMapName, Long.parseLong(memberId), auctionAssignmentString);
+			List<Long> assignedAuctions = auctionAssignmentMap.get(memberId);
+			Set<Long> previousAuctions = previousAssignmentMap.get(memberId);
+			if ((previousAuctions != null) && (previousAuctions.size() == assignedAuctions.size())
+					&& previousAuctions.containsAll(assignedAuctions)) {
+				continue;
+			}
+			logger.info("updateCurrentAuctionAssignment: writing " + assignedAuctions.size() + " auctions for member " + memberId);
+			groupMembershipService.writeBytesForNode(auctionAssignmentMapName, Long.parseLong(memberId), AuctionAssignment.encode(assignedAuctions));
 		}
 		
 	}
@@ -816,91 +933,42 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		return _isMaster;
 	}
 	
-	protected class AuctionAssignmentChangedHandler implements Consumer<String> {
-
-		@Override
-		public void accept(String t) {
-			logger.info("Auction assignment for node " + nodeNumber + " has changed (path = " + t + ").  Scheduling handler");
-			_assignmentHandlerExecutorService.execute(new AuctionAssignmentChangedRunner());
-		}
-		
-	}
-	
-	protected class AuctionAssignmentChangedRunner implements Runnable {
-
-		@Override
-		public void run() {
+	/*
+	 * Called by the AuctionAssignmentWatcher with the auctions that have been
+	 * added to and removed from this node.
+	 */
+	private void handleAuctionAssignmentChange(Set<Long> auctionsToAdd, Set<Long> auctionsToRemove) {
+		logger.info("handleAuctionAssignmentChange: adding " + auctionsToAdd.size() + " and removing " 
+				+ auctionsToRemove.size() + " auctions");
 
-			String assignedAuctionString = null;
-			try {
-				assignedAuctionString = groupMembershipService.readContentsForNode(auctionAssignmentMapName, nodeNumber);
-			} catch (Exception e1) {
-				// ToDo: Should shut down the node at this point so that another node will handle the auctions 
-				logger.error("Could not get current auction assignment.  This node is no longer handling assignments: " + e1.getMessage());
-			}
-			List<Long> newAuctionAssignment = auctionAssignmentStringToList(assignedAuctionString);
-			logger.info("AuctionAssignmentChangedRunner got assignedAuctionString: " + assignedAuctionString + ". There are " + newAuctionAssignment.size()
-					+ " ids in assignedAuctionIds");
+		/*
+		 * Update the routes of new bids before stopping any auctioneers,
+		 * so that the bids they still hold are sent to the new owners.
+		 */
+		updateNewBidRoutes();
 
-			/*
-			 * Go through and create lists of auctions to remove and add
-			 * handling on this node
-			 */
-			List<Long> auctionsToRemoveList = new LinkedList<Long>(_currentAuctionAssignment);
-			List<Long> auctionsToAddList = new LinkedList<Long>();
-			for (Long auctionId : newAuctionAssignment) {
-				if (!auctionsToRemoveList.remove(auctionId)) {
-					/*
-					 * This auction was not already running on this node. It
-					 * needs to be added.
-					 */
-					auctionsToAddList.add(auctionId);
-				}
+		/*
+		 * Stop the auctioneers for the auctions that this node was running but
+		 * should stop running.
+		 */
+		for (Long auctionId : auctionsToRemove) {
+			logger.info("Auction " + auctionId + " is no longer running on this node.  Stopping auctioneer");
+			Auctioneer auctioneer = _auctionIdToAuctioneerMap.remove(auctionId);
+			if (auctioneer != null) {
+				auctioneer.cleanup();
 			}
+		}
 
+		for (Long auctionId : auctionsToAdd) {
 			/*
-			 * Any auctionIds remaining in the auctionsToRemoveList are those
-			 * that this node was running but should stop running.
+			 * We are currently running this auction.
+			 * Start an auctioneer for it.
 			 */
-			for (Long auctionId : auctionsToRemoveList) {
-				logger.info("Auction " + auctionId + " is no longer running on this node.  Stopping auctioneer");
-				// Remove the binding
-				rabbitAdmin.removeBinding(_auctionIdToBindingMap.remove(auctionId));
-
-				// Clean up the auctioneer
-				_auctionIdToAuctioneerMap.remove(auctionId).cleanup();
-			}
-
-			for (Long auctionId : auctionsToAddList) {
-				/*
-				 * We are currently running this auction.
-				 * Start an auctioneer for it.
-				 */
-				logger.info("Auction " + auctionId + " has been assigned to this node. Starting Auctioneer");
-				/*
-				 * Add a binding to the newBidQueue to listen for new bids for
-				 * this auction.
-				 */
-				Binding newBidBinding = new Binding(_newBidQueue.getName(), DestinationType.QUEUE, liveAuctionExchangeName, newBidRoutingKey + auctionId, null);
-				rabbitAdmin.declareBinding(newBidBinding);
-				_auctionIdToBindingMap.put(auctionId, newBidBinding);
-
-				Auctioneer auctioneer = new AuctioneerImpl(auctionId, _auctioneerExecutorService, _auctioneerTx, _highBidDao, _bidRepository, auctionDao,
-						liveAuctionRabbitTemplate, auctionMaxIdleTime, nodeNumber);
-				_auctionIdToAuctioneerMap.put(auctionId, auctioneer);
-			}
-
-			_currentAuctionAssignment = newAuctionAssignment;
-
-			// Reregister the callback
-			try {
-				groupMembershipService.registerContentsChangedCallback(auctionAssignmentMapName, nodeNumber, new AuctionAssignmentChangedHandler());
-			} catch (Exception e) {
-				// ToDo: Should shut down the node at this point so that another node will handle the auctions 
-				logger.error("Could not register callback to track auction assignment changes.  This node is no longer handling assignments: " + e.getMessage());
-			}
+			logger.info("Auction " + auctionId + " has been assigned to this node. Starting Auctioneer");
+			Auctioneer auctioneer = new AuctioneerImpl(auctionId, _auctioneerExecutorService, _auctioneerTx, _highBidDao, _bidRepository, auctionDao,
+					liveAuctionMessageBus, _newBidRouter, auctionMaxIdleTime, nodeNumber, _highBidWriteBehind);
+			_auctionIdToAuctioneerMap.put(auctionId, auctioneer);
 		}
-
 	}
 	
 	protected class MembershipChangedHandler implements Consumer<String> {
@@ -937,6 +1005,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 				 * Get the current auction assignments
 				 */
 				Map<String, List<Long>> auctionAssignmentMap = getCurrentAuctionAssignmentMap();
+				Map<String, Set<Long>> previousAssignmentMap = copyAuctionAssignmentMap(auctionAssignmentMap);
 
 				/*
 				 * Compare current and previous group membership to determine
@@ -975,7 +1044,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 				/*
 				 * Update the assignments in the groupManagement service
 				 */
-				updateCurrentAuctionAssignment(auctionAssignmentMap);
+				updateCurrentAuctionAssignment(auctionAssignmentMap, previousAssignmentMap);
 				
 			} catch (Exception e) {
 				logger.warn("Could not reassign auctions due to membership change: " + e.getMessage());
@@ -1023,76 +1092,41 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 			}
 			
 			/*
-			 * Now run forever, checking whether there are new auctions. The
-			 * leader always runs forever unless the node is shutting down or
-			 * crashes.
+			 * Find the running auctions that are not assigned to any node, and
+			 * load the start times of the auctions that have not yet started.
+			 * This is the only time that the leader reads the auctions from the
+			 * database.
 			 */
-			Calendar endTime = FixedOffsetCalendarFactory.getCalendar();
+			boolean loadedAuctionStarts = false;
+			try {
+				loadAuctionStarts();
+				loadedAuctionStarts = true;
+			} catch (Exception e) {
+				logger.warn("TakeLeadershipHandler could not load the auctions to start: " + e.getMessage());
+			}
 
-			while (!_exiting) {
+			/*
+			 * Now run forever, assigning each auction when it is due to start.
+			 * The leader always runs forever unless the node is shutting down
+			 * or crashes.
+			 */
+			while (loadedAuctionStarts && !_exiting) {
+				List<Long> dueAuctionIds;
 				try {
-					Thread.sleep(_auctionQueueUpdateDelay * 1000);
+					dueAuctionIds = _auctionStartScheduler.awaitDueAuctions(_auctionQueueUpdateDelay * 1000);
 				} catch (InterruptedException e) {
-					logger.warn("TakeLeadershipHandler sleep interrupted.  Exiting");
+					logger.warn("TakeLeadershipHandler wait interrupted.  Exiting");
 					break;
 				}
+				if (dueAuctionIds.isEmpty()) {
+					continue;
+				}
+				
 				try {
-					
-					auctionAssignmentChangeLock.lock();
-					logger.info("TakeLeadershipHandler got auctionAssignmentChangeLock");
-
-					endTime.add(Calendar.SECOND, _auctionQueueUpdateDelay);
-
-					/*
-					 * Get the current auction assignment
-					 */
-					Map<String, List<Long>> auctionAssignmentMap = getCurrentAuctionAssignmentMap();
-					logger.info("auctionAssignmentMap has " + auctionAssignmentMap.size() 
-							+ " entries.");
-					/*
-					 * Get the list of all auctions running and find any that are not currently 
-					 * being managed by any node.
-					 */
-					List<Long> allAssignedAuctions = new LinkedList<Long>();
-					for (String memberId : auctionAssignmentMap.keySet()) {
-						allAssignedAuctions.addAll(auctionAssignmentMap.get(memberId));
-					}
-					
-					List<Auction> runningAuctions = auctionDao.getActiveAuctions();
-					List<Long> unassignedAuctionIds = new ArrayList<Long>();
-					for (Auction auction: runningAuctions) {
-						if (!allAssignedAuctions.contains(auction.getId())) {
-							/*
-							 * This auction wasn't assigned to any node
-							 */
-							unassignedAuctionIds.add(auction.getId());
-						}
-					}
-										
-					/*
-					 * Get list of auctions starting in next
-					 * auctionQueueUpdateDelay minutes ordered by increasing
-					 * time. The returned list is not inclusive of the end time.
-					 */
-					List<Auction> upcomingAuctions = auctionDao.getAuctionsToStart(endTime.getTime());
-					for (Auction anAuction : upcomingAuctions) {
-						unassignedAuctionIds.add(anAuction.getId());
-					}
-
-					if (unassignedAuctionIds.size() > 0) {
-						auctionAssignmentMap = assignAuctions(auctionAssignmentMap, unassignedAuctionIds);
-
-						/*
-						 * Update the assignments in the groupManagement service
-						 */
-						updateCurrentAuctionAssignment(auctionAssignmentMap);
-					}
+					assignUnassignedAuctions(dueAuctionIds);
 				} catch (Exception e) {
 					logger.warn("TakeLeadershipHandler loop failed: " + e.getMessage());
 					break;
-				} finally {
-					auctionAssignmentChangeLock.unlock();
-					logger.info("TakeLeadershipHandler released auctionAssignmentChangeLock");
 				}
 
 			}
@@ -1104,6 +1138,61 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		
 	}
 	
+	/*
+	 * Assigns the running auctions that no node is running, and schedules the
+	 * auctions that have not yet started.
+	 */
+	private void loadAuctionStarts() throws Exception {
+		_auctionStartScheduler.clear();
+
+		List<Long> runningAuctionIds = new ArrayList<Long>();
+		for (Auction auction : auctionDao.getActiveAuctions()) {
+			runningAuctionIds.add(auction.getId());
+		}
+		assignUnassignedAuctions(runningAuctionIds);
+
+		List<Auction> futureAuctions = auctionDao.getFutureAuctions();
+		for (Auction auction : futureAuctions) {
+			_auctionStartScheduler.schedule(auction.getId(), auction.getStartTime());
+		}
+		logger.info("loadAuctionStarts: scheduled " + futureAuctions.size() + " auctions to start");
+	}
+
+	/*
+	 * Assigns those of the auctions that are not already assigned to a node
+	 */
+	private void assignUnassignedAuctions(List<Long> auctionIds) throws Exception {
+		auctionAssignmentChangeLock.lock();
+		try {
+			logger.info("assignUnassignedAuctions got auctionAssignmentChangeLock");
+			Map<String, List<Long>> auctionAssignmentMap = getCurrentAuctionAssignmentMap();
+			Map<String, Set<Long>> previousAssignmentMap = copyAuctionAssignmentMap(auctionAssignmentMap);
+			Set<Long> allAssignedAuctions = new HashSet<Long>();
+			for (Set<Long> memberAuctions : previousAssignmentMap.values()) {
+				allAssignedAuctions.addAll(memberAuctions);
+			}
+
+			List<Long> unassignedAuctionIds = new ArrayList<Long>();
+			for (Long auctionId : auctionIds) {
+				if (!allAssignedAuctions.contains(auctionId)) {
+					unassignedAuctionIds.add(auctionId);
+				}
+			}
+
+			if (unassignedAuctionIds.size() > 0) {
+				auctionAssignmentMap = assignAuctions(auctionAssignmentMap, unassignedAuctionIds);
+
+				/*
+				 * Update the assignments in the groupManagement service
+				 */
+				updateCurrentAuctionAssignment(auctionAssignmentMap, previousAssignmentMap);
+			}
+		} finally {
+			auctionAssignmentChangeLock.unlock();
+			logger.info("assignUnassignedAuctions released auctionAssignmentChangeLock");
+		}
+	}
+
 	public int getAuctionQueueUpdateDelay() {
 		return _auctionQueueUpdateDelay;
 	}
@@ -1112,6 +1201,22 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		this._auctionQueueUpdateDelay = auctionQueueUpdateDelay;
 	}
 
+	public long getAuctionStartLeadMillis() {
+		return _auctionStartLeadMillis;
+	}
+
+	public void setAuctionStartLeadMillis(long auctionStartLeadMillis) {
+		this._auctionStartLeadMillis = auctionStartLeadMillis;
+	}
+
+	public long getActiveAuctionCacheMaxAgeMillis() {
+		return _activeAuctionCacheMaxAgeMillis;
+	}
+
+	public void setActiveAuctionCacheMaxAgeMillis(long activeAuctionCacheMaxAgeMillis) {
+		this._activeAuctionCacheMaxAgeMillis = activeAuctionCacheMaxAgeMillis;
+	}
+
 	public int getNumAuctioneerExecutorThreads() {
 		return _numAuctioneerExecutorThreads;
 	}
@@ -1136,6 +1241,14 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 		this._liveAuctionNodeHeartbeatDelay = liveAuctionNodeHeartbeatDelay;
 	}
 
+	public boolean isInMemoryHighBids() {
+		return _inMemoryHighBids;
+	}
+
+	public void setInMemoryHighBids(boolean inMemoryHighBids) {
+		this._inMemoryHighBids = inMemoryHighBids;
+	}
+
 	@Override
 	public int getAuctionMaxIdleTime() {
 		return auctionMaxIdleTime;
@@ -1147,7 +1260,7 @@ public class LiveAuctionServiceImpl implements LiveAuctionService {
 
 	@Override
 	public long getActiveAuctionsMisses() {
-		return _activeAuctionsMisses;
+		return _activeAuctionCache.getLoads();
 	}
 	
 }
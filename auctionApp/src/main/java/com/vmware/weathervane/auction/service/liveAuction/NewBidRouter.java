@@ -0,0 +1,105 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.rest.representation.BidRepresentation;
+import com.vmware.weathervane.auction.service.liveAuction.message.LiveAuctionMessageBus;
+
+/**
+ * Routes new bids to the node that is running the auctioneer for the
+ * auction. The newBidQueue of each node is bound once, to the routing key of
+ * the node, so moving an auction from one node to another does not change
+ * any bindings.
+ *
+ * The owner of each auction is taken from the auction assignment map, and
+ * from the high bids, which carry the number of the node that sent them. A bid
+ * for an auction whose owner is not known is sent with the unrouted routing
+ * key, and is forwarded to the owner by whichever node receives it. A node
+ * that receives a bid for an auction that it is not running also forwards it
+ * to the owner, at most a few times.
+ */
+public class NewBidRouter {
+	private static final Logger logger = LoggerFactory.getLogger(NewBidRouter.class);
+
+	public static final String nodeNewBidRoutingKey = LiveAuctionServiceImpl.newBidRoutingKey + "node.";
+	public static final String unroutedNewBidRoutingKey = LiveAuctionServiceImpl.newBidRoutingKey + "unrouted.";
+
+	private final LiveAuctionMessageBus _liveAuctionMessageBus;
+
+	/*
+	 * Maps each auctionId to the number of the node running the auction
+	 */
+	private final Map<Long, Long> _auctionIdToNodeMap = new ConcurrentHashMap<Long, Long>();
+
+	public NewBidRouter(LiveAuctionMessageBus liveAuctionMessageBus) {
+		_liveAuctionMessageBus = liveAuctionMessageBus;
+	}
+
+	public static String getNodeRoutingKey(Long nodeNumber) {
+		return nodeNewBidRoutingKey + nodeNumber;
+	}
+
+	/**
+	 * Sends the bid to the node running its auction, or with the unrouted
+	 * routing key if the owner of the auction is not known.
+	 */
+	public void send(BidRepresentation theBid) {
+		Long owner = _auctionIdToNodeMap.get(theBid.getAuctionId());
+		if (owner != null) {
+			_liveAuctionMessageBus.send(getNodeRoutingKey(owner), theBid);
+		} else {
+			logger.debug("send: no owner known for auction " + theBid.getAuctionId() + ". Sending unrouted");
+			_liveAuctionMessageBus.send(unroutedNewBidRoutingKey + theBid.getAuctionId(), theBid);
+		}
+	}
+
+	/**
+	 * Sends the bid directly to a node
+	 */
+	public void sendToNode(Long nodeNumber, BidRepresentation theBid) {
+		_liveAuctionMessageBus.send(getNodeRoutingKey(nodeNumber), theBid);
+	}
+
+	public Long getOwner(Long auctionId) {
+		return _auctionIdToNodeMap.get(auctionId);
+	}
+
+	/**
+	 * Replaces the owners of all auctions with those in an auction assignment
+	 * map, which maps the id of each node to the auctions assigned to it.
+	 */
+	public synchronized void setAuctionAssignment(Map<String, List<Long>> auctionAssignmentMap) {
+		Map<Long, Long> auctionIdToNodeMap = new HashMap<Long, Long>();
+		for (Map.Entry<String, List<Long>> entry : auctionAssignmentMap.entrySet()) {
+			Long nodeNumber;
+			try {
+				nodeNumber = Long.parseLong(entry.getKey());
+			} catch (NumberFormatException e) {
+				logger.info("setAuctionAssignment: Got NumberFormatException translating memberId " + entry.getKey());
+				continue;
+			}
+			for (Long auctionId : entry.getValue()) {
+				auctionIdToNodeMap.put(auctionId, nodeNumber);
+			}
+		}
+		_auctionIdToNodeMap.keySet().retainAll(auctionIdToNodeMap.keySet());
+		_auctionIdToNodeMap.putAll(auctionIdToNodeMap);
+	}
+
+	/**
+	 * Records the owner of a single auction
+	 */
+	public void setOwner(Long auctionId, Long nodeNumber) {
+		_auctionIdToNodeMap.put(auctionId, nodeNumber);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction.message;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Delivers the live auction messages through queues in this JVM rather than
+ * through RabbitMQ. This can only be used when there is a single app server
+ * and no bid service, and is used to measure the throughput of a single node
+ * without the overhead of the broker.
+ *
+ * Messages are delivered as the objects that were sent, without being
+ * serialized, so a message must not be modified once it has been sent.
+ */
+public class InMemoryLiveAuctionMessageBus implements LiveAuctionMessageBus, SmartLifecycle {
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryLiveAuctionMessageBus.class);
+
+	private final Map<String, InMemoryMessageQueue> queues = new HashMap<String, InMemoryMessageQueue>();
+
+	private final List<Binding> bindings = new CopyOnWriteArrayList<Binding>();
+
+	private volatile boolean running = false;
+
+	public void setQueues(List<InMemoryMessageQueue> queueList) {
+		for (InMemoryMessageQueue queue : queueList) {
+			queues.put(queue.getName(), queue);
+			for (String pattern : queue.getBindings()) {
+				bindings.add(new Binding(queue, pattern));
+			}
+		}
+	}
+
+	@Override
+	public void send(String routingKey, Object message) {
+		String[] routingWords = routingKey.split("\\.", -1);
+		/*
+		 * A queue gets one copy of a message even if more than one of its
+		 * bindings match.  Most messages match a single queue, so the set of
+		 * queues already delivered to is only created for a second queue.
+		 */
+		InMemoryMessageQueue firstQueue = null;
+		Set<InMemoryMessageQueue> deliveredQueues = null;
+		for (Binding binding : bindings) {
+			if (!binding.matches(routingWords)) {
+				continue;
+			}
+			if (firstQueue == null) {
+				firstQueue = binding.queue;
+				binding.queue.offer(message);
+			} else if (binding.queue != firstQueue) {
+				if (deliveredQueues == null) {
+					deliveredQueues = new HashSet<InMemoryMessageQueue>();
+				}
+				if (deliveredQueues.add(binding.queue)) {
+					binding.queue.offer(message);
+				}
+			}
+		}
+		if (firstQueue == null) {
+			logger.debug("send: no queue bound for routing key " + routingKey);
+		}
+	}
+
+	@Override
+	public void bindQueue(String queueName, String routingKey) {
+		bindings.add(new Binding(getQueue(queueName), routingKey));
+	}
+
+	@Override
+	public void unbindQueue(String queueName, String routingKey) {
+		InMemoryMessageQueue queue = getQueue(queueName);
+		for (Binding binding : bindings) {
+			if ((binding.queue == queue) && binding.pattern.equals(routingKey)) {
+				bindings.remove(binding);
+				return;
+			}
+		}
+	}
+
+	private InMemoryMessageQueue getQueue(String queueName) {
+		InMemoryMessageQueue queue = queues.get(queueName);
+		if (queue == null) {
+			throw new IllegalArgumentException("No queue with id " + queueName);
+		}
+		return queue;
+	}
+
+	@Override
+	public void start() {
+		logger.info("start: starting " + queues.size() + " in-memory queues");
+		for (InMemoryMessageQueue queue : queues.values()) {
+			queue.start();
+		}
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		logger.info("stop: stopping in-memory queues");
+		for (InMemoryMessageQueue queue : queues.values()) {
+			queue.stop();
+		}
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/*
+	 * A binding of a queue to a topic pattern.  In the pattern, * matches
+	 * exactly one word and # matches zero or more words.
+	 */
+	private static class Binding {
+		private final InMemoryMessageQueue queue;
+		private final String pattern;
+		private final String[] patternWords;
+
+		public Binding(InMemoryMessageQueue queue, String pattern) {
+			this.queue = queue;
+			this.pattern = pattern;
+			this.patternWords = pattern.split("\\.", -1);
+		}
+
+		public boolean matches(String[] routingWords) {
+			return matches(0, routingWords, 0);
+		}
+
+		private boolean matches(int patternIndex, String[] routingWords, int routingIndex) {
+			if (patternIndex == patternWords.length) {
+				return routingIndex == routingWords.length;
+			}
+			String patternWord = patternWords[patternIndex];
+			if (patternWord.equals("#")) {
+				for (int i = routingIndex; i <= routingWords.length; i++) {
+					if (matches(patternIndex + 1, routingWords, i)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			if (routingIndex == routingWords.length) {
+				return false;
+			}
+			if (patternWord.equals("*") || patternWord.equals(routingWords[routingIndex])) {
+				return matches(patternIndex + 1, routingWords, routingIndex + 1);
+			}
+			return false;
+		}
+	}
+}
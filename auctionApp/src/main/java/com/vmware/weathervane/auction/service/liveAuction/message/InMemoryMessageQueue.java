@@ -0,0 +1,174 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction.message;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A queue of the InMemoryLiveAuctionMessageBus, and the consumers that
+ * deliver its messages to a listener. As with a RabbitMQ listener container,
+ * there are concurrency consumers, and each consumer takes up to prefetch
+ * messages from the queue at a time and delivers them to the listener in
+ * order. Like a broker queue, the queue itself is not bounded.
+ */
+public class InMemoryMessageQueue {
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryMessageQueue.class);
+
+	private String name;
+	private List<String> bindings = Collections.emptyList();
+	private int concurrency = 1;
+	private int prefetch = 250;
+
+	private Object listener;
+	private String listenerMethod;
+	private Method method;
+
+	private final BlockingQueue<Object> messages = new LinkedBlockingQueue<Object>();
+	private final List<Consumer> consumers = new ArrayList<Consumer>();
+
+	public void offer(Object message) {
+		messages.offer(message);
+	}
+
+	public synchronized void start() {
+		if (!consumers.isEmpty()) {
+			return;
+		}
+		method = findListenerMethod();
+		logger.info("start: queue " + name + " starting " + concurrency + " consumers with prefetch " + prefetch
+				+ " for " + listener.getClass().getSimpleName() + "." + listenerMethod);
+		for (int i = 0; i < concurrency; i++) {
+			Consumer consumer = new Consumer();
+			consumers.add(consumer);
+			new Thread(consumer, name + "Consumer" + i).start();
+		}
+	}
+
+	public synchronized void stop() {
+		for (Consumer consumer : consumers) {
+			consumer.kill();
+		}
+		consumers.clear();
+	}
+
+	public synchronized boolean isRunning() {
+		return !consumers.isEmpty();
+	}
+
+	/*
+	 * The listener method is found by name, as for a RabbitMQ listener
+	 */
+	private Method findListenerMethod() {
+		for (Method candidate : listener.getClass().getMethods()) {
+			if (candidate.getName().equals(listenerMethod) && (candidate.getParameterCount() == 1)) {
+				return candidate;
+			}
+		}
+		throw new IllegalStateException("No method " + listenerMethod + " with one parameter on "
+				+ listener.getClass().getName());
+	}
+
+	private void deliver(Object message) {
+		try {
+			method.invoke(listener, message);
+		} catch (InvocationTargetException e) {
+			logger.warn("deliver: " + listenerMethod + " for queue " + name + " threw " + e.getCause());
+		} catch (IllegalAccessException | IllegalArgumentException e) {
+			logger.warn("deliver: could not deliver " + message + " to " + listenerMethod + " for queue " + name
+					+ ": " + e);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<String> getBindings() {
+		return bindings;
+	}
+
+	public void setBindings(List<String> bindings) {
+		this.bindings = bindings;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getPrefetch() {
+		return prefetch;
+	}
+
+	public void setPrefetch(int prefetch) {
+		this.prefetch = prefetch;
+	}
+
+	public Object getListener() {
+		return listener;
+	}
+
+	public void setListener(Object listener) {
+		this.listener = listener;
+	}
+
+	public String getListenerMethod() {
+		return listenerMethod;
+	}
+
+	public void setListenerMethod(String listenerMethod) {
+		this.listenerMethod = listenerMethod;
+	}
+
+	private class Consumer implements Runnable {
+
+		private volatile boolean notKilled = true;
+
+		public void kill() {
+			notKilled = false;
+		}
+
+		@Override
+		public void run() {
+			List<Object> prefetched = new ArrayList<Object>(prefetch);
+			while (notKilled) {
+				prefetched.clear();
+				try {
+					Object first = messages.poll(1, TimeUnit.SECONDS);
+					if (first == null) {
+						continue;
+					}
+					prefetched.add(first);
+				} catch (InterruptedException e) {
+					logger.warn("Consumer for queue " + name + " interrupted before a message became available. Exiting.");
+					Thread.currentThread().interrupt();
+					return;
+				}
+				messages.drainTo(prefetched, prefetch - 1);
+
+				for (Object message : prefetched) {
+					deliver(message);
+				}
+			}
+		}
+	}
+}
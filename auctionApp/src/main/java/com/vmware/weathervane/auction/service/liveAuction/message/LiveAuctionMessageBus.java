@@ -0,0 +1,25 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction.message;
+
+/**
+ * Carries the messages of the live auctions between the app servers. A
+ * message is sent with a routing key, and is delivered to each queue that
+ * has a binding whose pattern matches the routing key, using the rules of an
+ * AMQP topic exchange.
+ */
+public interface LiveAuctionMessageBus {
+
+	public void send(String routingKey, Object message);
+
+	/*
+	 * Adds a binding from the routing key to the queue.  The queueName is
+	 * the id of the queue in the messaging configuration.
+	 */
+	public void bindQueue(String queueName, String routingKey);
+
+	public void unbindQueue(String queueName, String routingKey);
+
+}
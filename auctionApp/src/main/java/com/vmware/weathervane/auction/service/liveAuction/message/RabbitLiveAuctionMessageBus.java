@@ -0,0 +1,68 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction.message;
+
+import java.util.Map;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Binding.DestinationType;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * Sends the live auction messages through the liveAuctionMgmtExchange of
+ * RabbitMQ.
+ */
+public class RabbitLiveAuctionMessageBus implements LiveAuctionMessageBus {
+
+	private final RabbitTemplate rabbitTemplate;
+	private final RabbitAdmin rabbitAdmin;
+	private final String exchangeName;
+
+	/*
+	 * The queues that can be bound, by id.  Queues without a name in the
+	 * configuration are given generated names.
+	 */
+	private Map<String, Queue> queues;
+
+	public RabbitLiveAuctionMessageBus(RabbitTemplate rabbitTemplate, RabbitAdmin rabbitAdmin, String exchangeName) {
+		this.rabbitTemplate = rabbitTemplate;
+		this.rabbitAdmin = rabbitAdmin;
+		this.exchangeName = exchangeName;
+	}
+
+	@Override
+	public void send(String routingKey, Object message) {
+		rabbitTemplate.convertAndSend(exchangeName, routingKey, message);
+	}
+
+	@Override
+	public void bindQueue(String queueName, String routingKey) {
+		rabbitAdmin.declareBinding(getBinding(queueName, routingKey));
+	}
+
+	@Override
+	public void unbindQueue(String queueName, String routingKey) {
+		rabbitAdmin.removeBinding(getBinding(queueName, routingKey));
+	}
+
+	private Binding getBinding(String queueName, String routingKey) {
+		Queue queue = queues.get(queueName);
+		if (queue == null) {
+			throw new IllegalArgumentException("No queue with id " + queueName);
+		}
+		return new Binding(queue.getName(), DestinationType.QUEUE, exchangeName, routingKey, null);
+	}
+
+	public Map<String, Queue> getQueues() {
+		return queues;
+	}
+
+	public void setQueues(Map<String, Queue> queues) {
+		this.queues = queues;
+	}
+
+}
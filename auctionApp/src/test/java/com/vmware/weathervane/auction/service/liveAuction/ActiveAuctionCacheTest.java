@@ -0,0 +1,200 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.weathervane.auction.rest.representation.AuctionRepresentation;
+import com.vmware.weathervane.auction.rest.representation.CacheMetricsRepresentation;
+
+/*
+ * Unit tests for ActiveAuctionCache
+ */
+public class ActiveAuctionCacheTest {
+
+	private ExecutorService executor;
+
+	/*
+	 * The loader waits on releaseLoad, after counting down loadStarted, when
+	 * blockLoads is set
+	 */
+	private final AtomicInteger loaderCalls = new AtomicInteger();
+	private volatile boolean blockLoads = false;
+	private volatile boolean failLoads = false;
+	private volatile List<Long> loadedIds = Arrays.asList(3L, 1L, 2L);
+	private final CountDownLatch loadStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseLoad = new CountDownLatch(1);
+
+	@Before
+	public void setup() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void teardown() {
+		releaseLoad.countDown();
+		executor.shutdownNow();
+	}
+
+	private List<AuctionRepresentation> load() {
+		loaderCalls.incrementAndGet();
+		if (blockLoads) {
+			loadStarted.countDown();
+			try {
+				releaseLoad.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (failLoads) {
+			throw new IllegalStateException("load failed");
+		}
+		List<AuctionRepresentation> auctions = new ArrayList<AuctionRepresentation>();
+		for (Long auctionId : loadedIds) {
+			auctions.add(new AuctionRepresentation(auctionId));
+		}
+		return auctions;
+	}
+
+	private static List<Long> ids(List<AuctionRepresentation> auctions) {
+		List<Long> auctionIds = new ArrayList<Long>();
+		for (AuctionRepresentation auction : auctions) {
+			auctionIds.add(auction.getId());
+		}
+		return auctionIds;
+	}
+
+	@Test
+	public void loadsOnceInOrderOfId() {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+
+		assertEquals(Arrays.asList(1L, 2L, 3L), ids(cache.getActiveAuctions()));
+		assertEquals(Arrays.asList(1L, 2L, 3L), ids(cache.getActiveAuctions()));
+		assertEquals(1, cache.getLoads());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void cacheMetricsCountLoadsAsMisses() {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+		cache.getActiveAuctions();
+		cache.getActiveAuctions();
+		cache.getActiveAuctions();
+
+		CacheMetricsRepresentation cacheMetrics = cache.getCacheMetrics();
+		assertEquals(2, cacheMetrics.getHits());
+		assertEquals(1, cacheMetrics.getMisses());
+		assertEquals(1, cacheMetrics.getLoads());
+		assertEquals(3, cacheMetrics.getEntries());
+	}
+
+	@Test
+	public void reloadsWhenExpired() throws InterruptedException {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 0);
+
+		cache.getActiveAuctions();
+		Thread.sleep(1);
+		loadedIds = Arrays.asList(4L);
+
+		assertEquals(Arrays.asList(4L), ids(cache.getActiveAuctions()));
+		assertEquals(2, cache.getLoads());
+	}
+
+	@Test
+	public void startedAndEndedAuctionsApplied() {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+		cache.getActiveAuctions();
+
+		AuctionRepresentation startedAuction = new AuctionRepresentation(5L);
+		cache.auctionStarted(startedAuction);
+		cache.auctionEnded(2L);
+		cache.auctionEnded(7L);
+
+		List<AuctionRepresentation> auctions = cache.getActiveAuctions();
+		assertEquals(Arrays.asList(1L, 3L, 5L), ids(auctions));
+		assertSame(startedAuction, auctions.get(2));
+		assertEquals(1, cache.getLoads());
+	}
+
+	@Test
+	public void changesDuringLoadApplied() throws Exception {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+		blockLoads = true;
+		Future<List<AuctionRepresentation>> loaded = executor.submit(cache::getActiveAuctions);
+		assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+		// The loader has already read the auctions, so would miss these
+		cache.auctionStarted(new AuctionRepresentation(4L));
+		cache.auctionEnded(1L);
+		releaseLoad.countDown();
+
+		assertEquals(Arrays.asList(2L, 3L, 4L), ids(loaded.get(10, TimeUnit.SECONDS)));
+		assertEquals(Arrays.asList(2L, 3L, 4L), ids(cache.getActiveAuctions()));
+	}
+
+	@Test
+	public void concurrentMissesLoadOnce() throws Exception {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+		blockLoads = true;
+		Future<List<AuctionRepresentation>> first = executor.submit(cache::getActiveAuctions);
+		assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+		Future<List<AuctionRepresentation>> second = executor.submit(cache::getActiveAuctions);
+		Thread.sleep(100);
+		releaseLoad.countDown();
+
+		assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+		assertEquals(1, loaderCalls.get());
+		assertEquals(1, cache.getLoads());
+	}
+
+	@Test
+	public void expiredListServedWhileLoading() throws Exception {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 0);
+		List<AuctionRepresentation> expired = cache.getActiveAuctions();
+		Thread.sleep(1);
+
+		blockLoads = true;
+		Future<List<AuctionRepresentation>> loaded = executor.submit(cache::getActiveAuctions);
+		assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+		assertSame(expired, cache.getActiveAuctions());
+		releaseLoad.countDown();
+		loaded.get(10, TimeUnit.SECONDS);
+		assertEquals(2, loaderCalls.get());
+	}
+
+	@Test
+	public void failedLoadRetried() {
+		ActiveAuctionCache cache = new ActiveAuctionCache(this::load, 60000);
+		failLoads = true;
+		try {
+			cache.getActiveAuctions();
+			fail("expected the load to fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		failLoads = false;
+		assertEquals(Arrays.asList(1L, 2L, 3L), ids(cache.getActiveAuctions()));
+		assertEquals(2, cache.getLoads());
+	}
+}
@@ -0,0 +1,76 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/*
+ * Unit tests for AuctionAssignment
+ */
+public class AuctionAssignmentTest {
+
+	@Test
+	public void roundTrip() {
+		Set<Long> auctionIds = new HashSet<Long>(Arrays.asList(17L, 3L, 250L, 4L, 128L, 100000L));
+
+		assertEquals(auctionIds, AuctionAssignment.decode(AuctionAssignment.encode(auctionIds)));
+	}
+
+	@Test
+	public void roundTripLargeIds() {
+		Set<Long> auctionIds = new HashSet<Long>(Arrays.asList(0L, 1L, Integer.MAX_VALUE + 1L, Long.MAX_VALUE));
+
+		assertEquals(auctionIds, AuctionAssignment.decode(AuctionAssignment.encode(auctionIds)));
+	}
+
+	@Test
+	public void roundTripEmpty() {
+		Set<Long> auctionIds = new HashSet<Long>();
+
+		assertEquals(auctionIds, AuctionAssignment.decode(AuctionAssignment.encode(auctionIds)));
+	}
+
+	@Test
+	public void closeIdsTakeOneByteEach() {
+		Set<Long> auctionIds = new HashSet<Long>();
+		for (long auctionId = 1000; auctionId < 1100; auctionId++) {
+			auctionIds.add(auctionId);
+		}
+
+		/*
+		 * The version and count, two bytes for the first id, and one byte
+		 * for each of the others
+		 */
+		assertEquals(1 + 1 + 2 + 99, AuctionAssignment.encode(auctionIds).length);
+	}
+
+	@Test
+	public void decodesLegacyFormat() {
+		byte[] legacy = "12,5,,300".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(new HashSet<Long>(Arrays.asList(5L, 12L, 300L)), AuctionAssignment.decode(legacy));
+	}
+
+	@Test
+	public void legacyFormatSkipsBadIds() {
+		byte[] legacy = "12,x,300".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(new HashSet<Long>(Arrays.asList(12L, 300L)), AuctionAssignment.decode(legacy));
+	}
+
+	@Test
+	public void decodesMissingEntryAsEmpty() {
+		assertTrue(AuctionAssignment.decode(null).isEmpty());
+		assertTrue(AuctionAssignment.decode(new byte[0]).isEmpty());
+	}
+}
@@ -0,0 +1,116 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service.liveAuction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.weathervane.auction.util.FixedOffsetCalendarFactory;
+
+/*
+ * Unit tests for AuctionStartScheduler
+ */
+public class AuctionStartSchedulerTest {
+
+	private static final long leadMillis = 60000;
+
+	private AuctionStartScheduler scheduler;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		scheduler = new AuctionStartScheduler(leadMillis);
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	private Date startingIn(long millis) {
+		return new Date(FixedOffsetCalendarFactory.getCalendar().getTimeInMillis() + millis);
+	}
+
+	@Test
+	public void dueAuctionsReturnedInOrderOfStartTime() throws InterruptedException {
+		scheduler.schedule(3L, startingIn(-1000));
+		scheduler.schedule(1L, startingIn(-3000));
+		scheduler.schedule(2L, startingIn(-2000));
+
+		assertEquals(Arrays.asList(1L, 2L, 3L), scheduler.awaitDueAuctions(10000));
+		assertEquals(0, scheduler.size());
+	}
+
+	@Test
+	public void auctionDueLeadMillisBeforeStart() throws InterruptedException {
+		scheduler.schedule(1L, startingIn(leadMillis / 2));
+		scheduler.schedule(2L, startingIn(leadMillis * 60));
+
+		assertEquals(Collections.singletonList(1L), scheduler.awaitDueAuctions(10000));
+		assertEquals(1, scheduler.size());
+	}
+
+	@Test
+	public void noAuctionDueWithinMaxWait() throws InterruptedException {
+		scheduler.schedule(1L, startingIn(leadMillis * 60));
+
+		assertTrue(scheduler.awaitDueAuctions(10).isEmpty());
+		assertEquals(1, scheduler.size());
+	}
+
+	@Test
+	public void scheduleReplacesStartTime() throws InterruptedException {
+		scheduler.schedule(1L, startingIn(-1000));
+		scheduler.schedule(1L, startingIn(leadMillis * 60));
+
+		assertEquals(1, scheduler.size());
+		assertTrue(scheduler.awaitDueAuctions(10).isEmpty());
+	}
+
+	@Test
+	public void cancelRemovesAuction() throws InterruptedException {
+		scheduler.schedule(1L, startingIn(-1000));
+		scheduler.schedule(2L, startingIn(-1000));
+		scheduler.cancel(1L);
+
+		assertEquals(Collections.singletonList(2L), scheduler.awaitDueAuctions(10000));
+	}
+
+	@Test
+	public void earlierStartWakesWaiter() throws Exception {
+		scheduler.schedule(1L, startingIn(leadMillis * 60));
+		Future<List<Long>> dueAuctionIds = executor.submit(() -> scheduler.awaitDueAuctions(60000));
+		Thread.sleep(100);
+
+		scheduler.schedule(2L, startingIn(-1000));
+
+		assertEquals(Collections.singletonList(2L), dueAuctionIds.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void wakeUpReturnsWaiter() throws Exception {
+		Future<List<Long>> dueAuctionIds = executor.submit(() -> scheduler.awaitDueAuctions(60000));
+		Thread.sleep(100);
+
+		scheduler.wakeUp();
+
+		assertTrue(dueAuctionIds.get(10, TimeUnit.SECONDS).isEmpty());
+	}
+}
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import com.vmware.weathervane.auction.representation.WarmerStatusRepresentation;
 import com.vmware.weathervane.auction.service.WarmerService;
 
 @Controller
@@ -45,6 +46,14 @@ public class WarmerController  {
 			return "initializing";
 		}		
 	}
+
+	@RequestMapping(value="/status", method = RequestMethod.GET )
+	@ResponseStatus( HttpStatus.OK )
+	@ResponseBody
+	public WarmerStatusRepresentation status() {
+		logger.info("status");
+		return warmerService.getStatus();
+	}
 	
 
 
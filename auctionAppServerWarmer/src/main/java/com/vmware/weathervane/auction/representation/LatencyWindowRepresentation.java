@@ -0,0 +1,104 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.representation;
+
+import java.io.Serializable;
+
+/*
+ * Latency statistics for one window of consecutive requests to a single
+ * endpoint.
+ */
+public class LatencyWindowRepresentation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long windowNum;
+	private int samples;
+	private double medianMillis;
+	private double meanMillis;
+	private double coefficientOfVariation;
+	private double medianChange;
+	private boolean stable;
+	private int consecutiveStableWindows;
+
+	public LatencyWindowRepresentation() {
+
+	}
+
+	public long getWindowNum() {
+		return windowNum;
+	}
+
+	public void setWindowNum(long windowNum) {
+		this.windowNum = windowNum;
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	public void setSamples(int samples) {
+		this.samples = samples;
+	}
+
+	public double getMedianMillis() {
+		return medianMillis;
+	}
+
+	public void setMedianMillis(double medianMillis) {
+		this.medianMillis = medianMillis;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public void setMeanMillis(double meanMillis) {
+		this.meanMillis = meanMillis;
+	}
+
+	public double getCoefficientOfVariation() {
+		return coefficientOfVariation;
+	}
+
+	public void setCoefficientOfVariation(double coefficientOfVariation) {
+		this.coefficientOfVariation = coefficientOfVariation;
+	}
+
+	/*
+	 * Relative change of the median from the previous window
+	 */
+	public double getMedianChange() {
+		return medianChange;
+	}
+
+	public void setMedianChange(double medianChange) {
+		this.medianChange = medianChange;
+	}
+
+	public boolean isStable() {
+		return stable;
+	}
+
+	public void setStable(boolean stable) {
+		this.stable = stable;
+	}
+
+	public int getConsecutiveStableWindows() {
+		return consecutiveStableWindows;
+	}
+
+	public void setConsecutiveStableWindows(int consecutiveStableWindows) {
+		this.consecutiveStableWindows = consecutiveStableWindows;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyWindow: windowNum = " + windowNum + ", samples = " + samples + ", medianMillis = "
+				+ medianMillis + ", meanMillis = " + meanMillis + ", coefficientOfVariation = "
+				+ coefficientOfVariation + ", medianChange = " + medianChange + ", stable = " + stable
+				+ ", consecutiveStableWindows = " + consecutiveStableWindows;
+	}
+}
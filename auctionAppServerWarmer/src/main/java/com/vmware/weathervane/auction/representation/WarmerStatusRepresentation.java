@@ -0,0 +1,128 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.representation;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+public class WarmerStatusRepresentation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String mode;
+	private int concurrency;
+	private boolean warmingComplete;
+	private long sessionsCompleted;
+	private long sessionsFailed;
+	private boolean adaptive;
+	private boolean converged;
+	private long convergedAfterMillis;
+	private double maxCoefficientOfVariation;
+	private double maxMedianChange;
+	private int requiredStableWindows;
+	private Map<String, List<LatencyWindowRepresentation>> endpointLatencies;
+
+	public WarmerStatusRepresentation() {
+
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public void setMode(String mode) {
+		this.mode = mode;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public boolean isWarmingComplete() {
+		return warmingComplete;
+	}
+
+	public void setWarmingComplete(boolean warmingComplete) {
+		this.warmingComplete = warmingComplete;
+	}
+
+	public long getSessionsCompleted() {
+		return sessionsCompleted;
+	}
+
+	public void setSessionsCompleted(long sessionsCompleted) {
+		this.sessionsCompleted = sessionsCompleted;
+	}
+
+	public long getSessionsFailed() {
+		return sessionsFailed;
+	}
+
+	public void setSessionsFailed(long sessionsFailed) {
+		this.sessionsFailed = sessionsFailed;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	public boolean isConverged() {
+		return converged;
+	}
+
+	public void setConverged(boolean converged) {
+		this.converged = converged;
+	}
+
+	public long getConvergedAfterMillis() {
+		return convergedAfterMillis;
+	}
+
+	public void setConvergedAfterMillis(long convergedAfterMillis) {
+		this.convergedAfterMillis = convergedAfterMillis;
+	}
+
+	public double getMaxCoefficientOfVariation() {
+		return maxCoefficientOfVariation;
+	}
+
+	public void setMaxCoefficientOfVariation(double maxCoefficientOfVariation) {
+		this.maxCoefficientOfVariation = maxCoefficientOfVariation;
+	}
+
+	public double getMaxMedianChange() {
+		return maxMedianChange;
+	}
+
+	public void setMaxMedianChange(double maxMedianChange) {
+		this.maxMedianChange = maxMedianChange;
+	}
+
+	public int getRequiredStableWindows() {
+		return requiredStableWindows;
+	}
+
+	public void setRequiredStableWindows(int requiredStableWindows) {
+		this.requiredStableWindows = requiredStableWindows;
+	}
+
+	public Map<String, List<LatencyWindowRepresentation>> getEndpointLatencies() {
+		return endpointLatencies;
+	}
+
+	public void setEndpointLatencies(Map<String, List<LatencyWindowRepresentation>> endpointLatencies) {
+		this.endpointLatencies = endpointLatencies;
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.vmware.weathervane.auction.model.User;
+import com.vmware.weathervane.auction.representation.AttendanceRecordRepresentation;
+import com.vmware.weathervane.auction.representation.AuctionRepresentation;
+import com.vmware.weathervane.auction.representation.AuthenticationRequestRepresentation;
+import com.vmware.weathervane.auction.representation.BidRepresentation;
+import com.vmware.weathervane.auction.representation.CollectionRepresentation;
+import com.vmware.weathervane.auction.representation.ItemRepresentation;
+import com.vmware.weathervane.auction.representation.LoginResponse;
+import com.vmware.weathervane.auction.representation.Representation;
+import com.vmware.weathervane.auction.representation.Representation.RestAction;
+import com.vmware.weathervane.auction.representation.UserRepresentation;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/*
+ * Drives the same warm-up sequence as the blocking warmer threads, but with a
+ * non-blocking WebClient so that many sessions can be in progress against the
+ * app server at once without a thread per session.
+ */
+public class AsyncAppServerWarmer {
+	private static final Logger logger = LoggerFactory.getLogger(AsyncAppServerWarmer.class);
+
+	private static final String password = "warmer";
+
+	private static final ParameterizedTypeReference<CollectionRepresentation<AuctionRepresentation>> auctionCollectionType =
+			new ParameterizedTypeReference<CollectionRepresentation<AuctionRepresentation>>() { };
+	private static final ParameterizedTypeReference<CollectionRepresentation<ItemRepresentation>> itemCollectionType =
+			new ParameterizedTypeReference<CollectionRepresentation<ItemRepresentation>>() { };
+	private static final ParameterizedTypeReference<CollectionRepresentation<AttendanceRecordRepresentation>> attendanceCollectionType =
+			new ParameterizedTypeReference<CollectionRepresentation<AttendanceRecordRepresentation>>() { };
+	private static final ParameterizedTypeReference<CollectionRepresentation<BidRepresentation>> bidCollectionType =
+			new ParameterizedTypeReference<CollectionRepresentation<BidRepresentation>>() { };
+
+	private final WebClient webClient;
+	private final String activeProfile;
+	private final int concurrency;
+	private final int iterations;
+	private final EndpointLatencyTracker latencyTracker;
+
+	private final AtomicLong sessionsCompleted;
+	private final AtomicLong sessionsFailed;
+
+	private final BooleanSupplier stopCondition;
+
+	public AsyncAppServerWarmer(String appServerTarget, String activeProfile, int concurrency, int iterations,
+			EndpointLatencyTracker latencyTracker, AtomicLong sessionsCompleted, AtomicLong sessionsFailed,
+			BooleanSupplier stopCondition) {
+		this.activeProfile = activeProfile;
+		this.concurrency = concurrency;
+		this.iterations = iterations;
+		this.latencyTracker = latencyTracker;
+		this.sessionsCompleted = sessionsCompleted;
+		this.sessionsFailed = sessionsFailed;
+		this.stopCondition = stopCondition;
+
+		ConnectionProvider connectionProvider = ConnectionProvider.builder("warmer").maxConnections(concurrency)
+				.pendingAcquireMaxCount(-1).build();
+		this.webClient = WebClient.builder().baseUrl("http://" + appServerTarget + "/auction")
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider))).build();
+	}
+
+	/*
+	 * Runs the warm-up sessions, blocking until all of them have completed or
+	 * the stop condition is met. Each of the concurrent sessions uses its own
+	 * user so that logins and logouts of one session do not invalidate the
+	 * auth token of another.
+	 */
+	public void warmUp() {
+		final int iterationsPerSession = (int) Math.ceil(iterations / (concurrency * 1.0));
+		logger.info("warmUp: Running " + concurrency + " concurrent sessions with " + iterationsPerSession
+				+ " iterations each");
+		Flux.range(0, concurrency)
+				.flatMap(i -> warmWithNewUser("warmer" + UUID.randomUUID() + "@auction.xyz", iterationsPerSession),
+						concurrency)
+				.blockLast();
+	}
+
+	private Mono<Void> warmWithNewUser(final String username, final int iterationsPerSession) {
+		User newUser = new User();
+		newUser.setEmail(username);
+		newUser.setPassword(password);
+		newUser.setFirstname("John");
+		newUser.setLastname("Doe");
+		newUser.setCreditLimit(1000000.0F);
+		newUser.setEnabled(true);
+		newUser.setAuthorities("watcher");
+
+		return send(HttpMethod.POST, null, "/user", new UserRepresentation(newUser),
+				UserRepresentation.class)
+				.flatMap(registeredUser -> Flux.range(0, iterationsPerSession)
+						.takeWhile(i -> !stopCondition.getAsBoolean())
+						.concatMap(i -> runIteration(username), 1)
+						.then(send(HttpMethod.DELETE, null, "/user", registeredUser,
+								UserRepresentation.class)))
+				.then()
+				.onErrorResume(e -> {
+					logger.warn("Warming with user " + username + " failed: " + e.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	/*
+	 * One pass through the main paths of the application
+	 */
+	private Mono<Void> runIteration(String username) {
+		AuthenticationRequestRepresentation authenticationRequest = new AuthenticationRequestRepresentation();
+		authenticationRequest.setUsername(username);
+		authenticationRequest.setPassword(password);
+
+		return send(HttpMethod.POST, null, "/login", authenticationRequest, LoginResponse.class)
+				.flatMap(loginResponse -> {
+					final String authToken = loginResponse.getAuthToken();
+					final String userProfileUrl = "/user/" + loginResponse.getId();
+					return get(authToken, userProfileUrl, UserRepresentation.class)
+							.flatMap(user -> {
+								user.setFirstname(UUID.randomUUID().toString());
+								user.setPassword(password);
+								user.setRepeatPassword(password);
+								return send(HttpMethod.PUT, authToken, userProfileUrl, user,
+										UserRepresentation.class).thenReturn(user);
+							})
+							.flatMap(user -> get(authToken, "/live/auction?pageSize=5&page=0",
+									auctionCollectionType)
+									.flatMap(auctions -> get(authToken, "/auction/1",
+											AuctionRepresentation.class)
+											.then(getAndAddItem(authToken))
+											.then(joinAndLeaveAuction(authToken, user, auctions)))
+									.then(get(authToken,
+											"/item/user/" + user.getId() + "/purchased?page=0&pageSize=5",
+											itemCollectionType))
+									.then(get(authToken, "/attendance/user/" + user.getId(),
+											attendanceCollectionType))
+									.then(get(authToken,
+											"/bid/user/" + user.getId() + "?page=0&pageSize=5", bidCollectionType)))
+							.then(get(authToken, "/logout", String.class));
+				})
+				.then()
+				.doOnSuccess(v -> sessionsCompleted.incrementAndGet())
+				.onErrorResume(e -> {
+					logger.warn("Warm-up iteration failed: " + e.getMessage());
+					sessionsFailed.incrementAndGet();
+					return Mono.empty();
+				});
+	}
+
+	private Mono<Void> getAndAddItem(final String authToken) {
+		return get(authToken, "/item/auction/1", itemCollectionType).flatMap(items -> {
+			if (items.getResults().isEmpty()) {
+				return Mono.empty();
+			}
+			final ItemRepresentation item = items.getResults().get(0);
+			Mono<?> getImage = Mono.empty();
+			List<Map<Representation.RestAction, String>> links = item.getLinks().get("ItemImage");
+			if ((links != null) && (links.size() > 0)) {
+				getImage = get(authToken, "/" + links.get(0).get(RestAction.READ) + "?size=THUMBNAIL",
+						byte[].class);
+			}
+			return getImage
+					.then(get(authToken, "/item/" + item.getId(), ItemRepresentation.class))
+					.then(Mono.defer(() -> {
+						item.setId(null);
+						item.setBidCount(0);
+						return send(HttpMethod.POST, authToken, "/item", item, ItemRepresentation.class);
+					}));
+		}).then();
+	}
+
+	private Mono<Void> joinAndLeaveAuction(final String authToken, final UserRepresentation user,
+			CollectionRepresentation<AuctionRepresentation> auctions) {
+		if (auctions.getResults().isEmpty()) {
+			return Mono.empty();
+		}
+		final AuctionRepresentation auction = auctions.getResults().get(0);
+
+		AttendanceRecordRepresentation arr = new AttendanceRecordRepresentation();
+		arr.setAuctionId(auction.getId());
+		arr.setUserId(user.getId());
+		Mono<?> attend = send(HttpMethod.POST, authToken, "/live/auction", arr,
+				AttendanceRecordRepresentation.class);
+
+		if (activeProfile.contains("noBidService")) {
+			attend = attend.then(
+					get(authToken, "/item/current/auction/" + auction.getId(), ItemRepresentation.class)
+					.flatMap(curItem -> get(authToken, "/item/" + curItem.getId(), ItemRepresentation.class)
+							.then(get(authToken, "/bid/auction/" + auction.getId() + "/item/"
+									+ curItem.getId() + "/count/0", BidRepresentation.class)))
+					.flatMap(bid -> {
+						bid.setAmount((float) 0.0);
+						bid.setUserId(user.getId());
+						bid.setId(null);
+						return send(HttpMethod.POST, authToken, "/bid", bid, BidRepresentation.class);
+					}));
+		}
+
+		return attend.then(send(HttpMethod.DELETE, authToken, "/live/auction/" + auction.getId(), null,
+				AttendanceRecordRepresentation.class)).then();
+	}
+
+	private <T> Mono<T> get(String authToken, String url, Class<T> responseType) {
+		return timed(HttpMethod.GET, url, request(HttpMethod.GET, authToken, url, null).retrieve().bodyToMono(responseType));
+	}
+
+	private <T> Mono<T> get(String authToken, String url, ParameterizedTypeReference<T> responseType) {
+		return timed(HttpMethod.GET, url, request(HttpMethod.GET, authToken, url, null).retrieve().bodyToMono(responseType));
+	}
+
+	private <T> Mono<T> send(HttpMethod method, String authToken, String url, Object body, Class<T> responseType) {
+		return timed(method, url, request(method, authToken, url, body).retrieve().bodyToMono(responseType));
+	}
+
+	private WebClient.RequestHeadersSpec<?> request(HttpMethod method, String authToken, String url, Object body) {
+		WebClient.RequestBodySpec spec = webClient.method(method).uri(url);
+		if (authToken != null) {
+			spec = spec.header("API_TOKEN", authToken);
+		}
+		if (body != null) {
+			return spec.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+		}
+		return spec;
+	}
+
+	/*
+	 * Records the latency of the request, measured from subscription to
+	 * completion, against the endpoint
+	 */
+	private <T> Mono<T> timed(HttpMethod method, String url, final Mono<T> request) {
+		final String endpoint = EndpointLatencyTracker.getEndpointName(method.name(), url);
+		return Mono.defer(() -> {
+			final long startNanos = System.nanoTime();
+			return request.doOnSuccess(response -> latencyTracker.record(endpoint, System.nanoTime() - startNanos));
+		});
+	}
+}
@@ -0,0 +1,209 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.auction.representation.LatencyWindowRepresentation;
+
+/*
+ * Collects the latencies of the warm-up requests per endpoint and summarizes
+ * them in fixed-size windows so that the convergence of the latencies as the
+ * app server warms up can be followed.
+ * 
+ * A window is stable when its coefficient of variation and the relative change
+ * of its median from the previous window are both below the thresholds. The
+ * latencies have converged once every endpoint that has been requested has
+ * had requiredStableWindows consecutive stable windows. An endpoint that has
+ * not yet completed a window keeps the latencies from converging.
+ *
+ * Only the last maxWindowsKept windows of each endpoint are kept.
+ */
+public class EndpointLatencyTracker {
+	private static final Logger logger = LoggerFactory.getLogger(EndpointLatencyTracker.class);
+
+	private static final int maxWindowsKept = 100;
+
+	private static final Pattern numericIdSegment = Pattern.compile("/[0-9]+(?=/|$)");
+
+	/*
+	 * A segment of at least 8 characters that contains a digit, such as a
+	 * UUID or a hash
+	 */
+	private static final Pattern opaqueIdSegment = Pattern.compile("/(?=[^/]*[0-9])[0-9A-Za-z_.-]{8,}(?=/|$)");
+
+	private final int windowSize;
+	private final double maxCoefficientOfVariation;
+	private final double maxMedianChange;
+	private final int requiredStableWindows;
+
+	private final Map<String, EndpointLatencies> endpointLatencies = new ConcurrentHashMap<String, EndpointLatencies>();
+
+	public EndpointLatencyTracker(int windowSize, double maxCoefficientOfVariation, double maxMedianChange,
+			int requiredStableWindows) {
+		this.windowSize = windowSize;
+		this.maxCoefficientOfVariation = maxCoefficientOfVariation;
+		this.maxMedianChange = maxMedianChange;
+		this.requiredStableWindows = requiredStableWindows;
+	}
+
+	public void record(String endpoint, long latencyNanos) {
+		EndpointLatencies latencies = endpointLatencies.get(endpoint);
+		if (latencies == null) {
+			endpointLatencies.putIfAbsent(endpoint, new EndpointLatencies(endpoint));
+			latencies = endpointLatencies.get(endpoint);
+		}
+		latencies.record(latencyNanos);
+	}
+
+	/*
+	 * Returns the completed windows for each endpoint
+	 */
+	public Map<String, List<LatencyWindowRepresentation>> getWindows() {
+		Map<String, List<LatencyWindowRepresentation>> windows = new TreeMap<String, List<LatencyWindowRepresentation>>();
+		for (EndpointLatencies latencies : endpointLatencies.values()) {
+			windows.put(latencies.endpoint, latencies.getWindows());
+		}
+		return windows;
+	}
+
+	public boolean isConverged() {
+		if (endpointLatencies.isEmpty()) {
+			return false;
+		}
+		for (EndpointLatencies latencies : endpointLatencies.values()) {
+			/*
+			 * An endpoint with no completed windows has -1 consecutive stable
+			 * windows
+			 */
+			if (latencies.getConsecutiveStableWindows() < requiredStableWindows) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Returns the name under which requests to a url are tracked. Query
+	 * strings are dropped and ids replaced so that, for example, all getItem
+	 * requests are tracked together. Numeric ids, and opaque ids such as the
+	 * UUIDs of images, are replaced. Otherwise each image would be its own
+	 * endpoint, which would never complete a window and so would keep the
+	 * latencies from converging.
+	 */
+	public static String getEndpointName(String method, String url) {
+		int queryStart = url.indexOf('?');
+		if (queryStart >= 0) {
+			url = url.substring(0, queryStart);
+		}
+		url = numericIdSegment.matcher(url).replaceAll("/{id}");
+		return method + " " + opaqueIdSegment.matcher(url).replaceAll("/{id}");
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public double getMaxCoefficientOfVariation() {
+		return maxCoefficientOfVariation;
+	}
+
+	public double getMaxMedianChange() {
+		return maxMedianChange;
+	}
+
+	public int getRequiredStableWindows() {
+		return requiredStableWindows;
+	}
+
+	protected class EndpointLatencies {
+		private final String endpoint;
+		private final long[] samples = new long[windowSize];
+		private int numSamples = 0;
+		private final Deque<LatencyWindowRepresentation> windows = new ArrayDeque<LatencyWindowRepresentation>();
+		private int numWindows = 0;
+
+		protected EndpointLatencies(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		protected synchronized void record(long latencyNanos) {
+			samples[numSamples++] = latencyNanos;
+			if (numSamples == windowSize) {
+				closeWindow();
+				numSamples = 0;
+			}
+		}
+
+		protected synchronized List<LatencyWindowRepresentation> getWindows() {
+			return new ArrayList<LatencyWindowRepresentation>(windows);
+		}
+
+		protected synchronized int getConsecutiveStableWindows() {
+			if (windows.isEmpty()) {
+				return -1;
+			}
+			return windows.peekLast().getConsecutiveStableWindows();
+		}
+
+		private void closeWindow() {
+			long[] sorted = Arrays.copyOf(samples, numSamples);
+			Arrays.sort(sorted);
+
+			double median;
+			if ((numSamples % 2) == 0) {
+				median = (sorted[numSamples / 2 - 1] + sorted[numSamples / 2]) / 2.0;
+			} else {
+				median = sorted[numSamples / 2];
+			}
+
+			double sum = 0;
+			for (long sample : sorted) {
+				sum += sample;
+			}
+			double mean = sum / numSamples;
+			double sumSquares = 0;
+			for (long sample : sorted) {
+				sumSquares += (sample - mean) * (sample - mean);
+			}
+			double stdDev = Math.sqrt(sumSquares / numSamples);
+
+			LatencyWindowRepresentation window = new LatencyWindowRepresentation();
+			window.setWindowNum(numWindows++);
+			window.setSamples(numSamples);
+			window.setMedianMillis(median / 1000000.0);
+			window.setMeanMillis(mean / 1000000.0);
+			window.setCoefficientOfVariation(mean > 0 ? stdDev / mean : 0);
+			if (!windows.isEmpty()) {
+				LatencyWindowRepresentation previousWindow = windows.peekLast();
+				double previousMedian = previousWindow.getMedianMillis();
+				if (previousMedian > 0) {
+					window.setMedianChange(Math.abs(window.getMedianMillis() - previousMedian) / previousMedian);
+				}
+				window.setStable((window.getCoefficientOfVariation() <= maxCoefficientOfVariation)
+						&& (window.getMedianChange() <= maxMedianChange));
+				if (window.isStable()) {
+					window.setConsecutiveStableWindows(previousWindow.getConsecutiveStableWindows() + 1);
+				}
+			}
+			windows.addLast(window);
+			if (windows.size() > maxWindowsKept) {
+				windows.removeFirst();
+			}
+			logger.debug("Endpoint " + endpoint + ": " + window);
+		}
+	}
+}
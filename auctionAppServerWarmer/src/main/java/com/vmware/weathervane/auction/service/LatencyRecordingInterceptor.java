@@ -0,0 +1,41 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/*
+ * Records the latency of the requests made by the blocking warmer threads so
+ * that they are tracked the same way as those of the async warmer.
+ */
+public class LatencyRecordingInterceptor implements ClientHttpRequestInterceptor {
+
+	private final EndpointLatencyTracker latencyTracker;
+	private final String basePath;
+
+	public LatencyRecordingInterceptor(EndpointLatencyTracker latencyTracker, String basePath) {
+		this.latencyTracker = latencyTracker;
+		this.basePath = basePath;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		long startNanos = System.nanoTime();
+		ClientHttpResponse response = execution.execute(request, body);
+		String path = request.getURI().getPath();
+		if (path.startsWith(basePath)) {
+			path = path.substring(basePath.length());
+		}
+		latencyTracker.record(EndpointLatencyTracker.getEndpointName(request.getMethodValue(), path),
+				System.nanoTime() - startNanos);
+		return response;
+	}
+}
@@ -4,8 +4,12 @@ SPDX-License-Identifier: BSD-2-Clause
 */
 package com.vmware.weathervane.auction.service;
 
+import com.vmware.weathervane.auction.representation.WarmerStatusRepresentation;
+
 public interface WarmerService {
 
 	boolean isWarmingComplete();
 
+	WarmerStatusRepresentation getStatus();
+
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 
@@ -35,6 +36,7 @@ import com.vmware.weathervane.auction.representation.LoginResponse;
 import com.vmware.weathervane.auction.representation.Representation;
 import com.vmware.weathervane.auction.representation.Representation.RestAction;
 import com.vmware.weathervane.auction.representation.UserRepresentation;
+import com.vmware.weathervane.auction.representation.WarmerStatusRepresentation;
 
 @Service
 public class WarmerServiceImpl implements WarmerService {
@@ -43,12 +45,42 @@ public class WarmerServiceImpl implements WarmerService {
 	public static final int WARMER_THREADS_PER_APPSERVER = Integer.getInteger("THREADSPERSERVER", 1);
 	public static final int WARMER_ITERATIONS = Integer.getInteger("ITERATIONS", 500);
 
+	/*
+	 * In async mode the warm-up sessions are driven by a non-blocking client,
+	 * with WARMER_CONCURRENCY sessions in progress at once, rather than by
+	 * WARMER_THREADS_PER_APPSERVER blocking threads.
+	 */
+	public static final String WARMER_MODE = System.getProperty("WARMERMODE", "blocking");
+	public static final int WARMER_CONCURRENCY = Integer.getInteger("CONCURRENCY", 32);
+	public static final int WARMER_LATENCY_WINDOW = Integer.getInteger("LATENCYWINDOW", 50);
+
+	/*
+	 * In adaptive mode each warmer stops once the per-endpoint latencies have
+	 * converged, with WARMER_ITERATIONS as an upper bound on the warm-up.
+	 */
+	public static final boolean WARMER_ADAPTIVE = Boolean.getBoolean("ADAPTIVE");
+	public static final double WARMER_MAX_CV = Double.parseDouble(System.getProperty("MAXCV", "0.75"));
+	public static final double WARMER_MAX_MEDIAN_CHANGE = Double.parseDouble(System.getProperty("MAXMEDIANCHANGE", "0.1"));
+	public static final int WARMER_STABLE_WINDOWS = Integer.getInteger("STABLEWINDOWS", 3);
+
 	private List<Thread> warmupThreads = new ArrayList<Thread>();
 
 	private boolean warmingComplete = false;
 
 	private RestTemplate restTemplate;
 
+	private RestTemplate warmerRestTemplate;
+
+	private final EndpointLatencyTracker latencyTracker = new EndpointLatencyTracker(WARMER_LATENCY_WINDOW,
+			WARMER_MAX_CV, WARMER_MAX_MEDIAN_CHANGE, WARMER_STABLE_WINDOWS);
+
+	private long warmingStartMillis;
+	private volatile boolean converged = false;
+	private volatile long convergedAfterMillis = 0;
+
+	private final AtomicLong sessionsCompleted = new AtomicLong(0);
+	private final AtomicLong sessionsFailed = new AtomicLong(0);
+
 	@Value("${spring.profiles.active:Unknown}")
 	private String activeProfile;
 
@@ -89,6 +121,30 @@ public class WarmerServiceImpl implements WarmerService {
 			}
 		}
 
+		warmingStartMillis = System.currentTimeMillis();
+		if (isAsyncMode()) {
+			final AsyncAppServerWarmer asyncWarmer = new AsyncAppServerWarmer(appServerTarget, activeProfile,
+					WARMER_CONCURRENCY, WARMER_ITERATIONS, latencyTracker, sessionsCompleted, sessionsFailed,
+					() -> shouldStopWarming());
+			Thread asyncWarmerThread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						asyncWarmer.warmUp();
+					} catch (RuntimeException e) {
+						logger.warn("Async warmer failed: " + e.getMessage());
+					}
+					setWarmingComplete(true);
+				}
+			}, "asyncWarmerThread");
+			asyncWarmerThread.start();
+			return;
+		}
+
+		warmerRestTemplate = new RestTemplate();
+		warmerRestTemplate.getInterceptors().add(new LatencyRecordingInterceptor(latencyTracker, "/auction"));
+
 		final int iterationsPerWarmer = (int) Math.ceil(WARMER_ITERATIONS / (WARMER_THREADS_PER_APPSERVER * 1.0));
 		for (int i = 1; i <= WARMER_THREADS_PER_APPSERVER; i++) {
 			String username = "warmer" + UUID.randomUUID() + "@auction.xyz";
@@ -131,6 +187,48 @@ public class WarmerServiceImpl implements WarmerService {
 		this.warmingComplete = warmingComplete;
 	}
 
+	/*
+	 * Checked by the warmers before each iteration
+	 */
+	protected boolean shouldStopWarming() {
+		if (!WARMER_ADAPTIVE) {
+			return false;
+		}
+		if (!converged && latencyTracker.isConverged()) {
+			synchronized (this) {
+				if (!converged) {
+					convergedAfterMillis = System.currentTimeMillis() - warmingStartMillis;
+					converged = true;
+					logger.info("Latencies converged after " + convergedAfterMillis + "ms and "
+							+ sessionsCompleted.get() + " sessions. Stopping warm-up");
+				}
+			}
+		}
+		return converged;
+	}
+
+	@Override
+	public WarmerStatusRepresentation getStatus() {
+		WarmerStatusRepresentation status = new WarmerStatusRepresentation();
+		status.setMode(WARMER_MODE);
+		status.setConcurrency(isAsyncMode() ? WARMER_CONCURRENCY : WARMER_THREADS_PER_APPSERVER);
+		status.setWarmingComplete(warmingComplete);
+		status.setSessionsCompleted(sessionsCompleted.get());
+		status.setSessionsFailed(sessionsFailed.get());
+		status.setAdaptive(WARMER_ADAPTIVE);
+		status.setConverged(converged);
+		status.setConvergedAfterMillis(convergedAfterMillis);
+		status.setMaxCoefficientOfVariation(latencyTracker.getMaxCoefficientOfVariation());
+		status.setMaxMedianChange(latencyTracker.getMaxMedianChange());
+		status.setRequiredStableWindows(latencyTracker.getRequiredStableWindows());
+		status.setEndpointLatencies(latencyTracker.getWindows());
+		return status;
+	}
+
+	private boolean isAsyncMode() {
+		return WARMER_MODE.equalsIgnoreCase("async");
+	}
+
 	private class AppServerWarmer implements Runnable {
 
 		private final int interations;
@@ -171,7 +269,7 @@ public class WarmerServiceImpl implements WarmerService {
 			UserRepresentation newUserRepresentation = new UserRepresentation(newUser);
 			HttpEntity<UserRepresentation> registerRequestEntity = new HttpEntity<UserRepresentation>(
 					newUserRepresentation, requestHeaders);
-			ResponseEntity<UserRepresentation> userRepresentationEntity = restTemplate.exchange(registerUrl,
+			ResponseEntity<UserRepresentation> userRepresentationEntity = warmerRestTemplate.exchange(registerUrl,
 					HttpMethod.POST, registerRequestEntity, UserRepresentation.class);
 			newUserRepresentation = userRepresentationEntity.getBody();
 
@@ -183,7 +281,10 @@ public class WarmerServiceImpl implements WarmerService {
 					authenticationRequest, requestHeaders);
 
 			for (int i = 0; i <= interations; i++) {
-				ResponseEntity<LoginResponse> loginResponseEntity = restTemplate.exchange(loginUrl, HttpMethod.POST,
+				if (shouldStopWarming()) {
+					break;
+				}
+				ResponseEntity<LoginResponse> loginResponseEntity = warmerRestTemplate.exchange(loginUrl, HttpMethod.POST,
 						authenticationRequestEntity, LoginResponse.class);
 				LoginResponse loginResponse = loginResponseEntity.getBody();
 				String authtoken = loginResponse.getAuthToken();
@@ -196,7 +297,7 @@ public class WarmerServiceImpl implements WarmerService {
 				try {
 					String getUserProfileUrl = baseUrl + "/user/" + loginResponse.getId();
 					logger.trace("Executing getUserProfile with url " + getUserProfileUrl);
-					ResponseEntity<UserRepresentation> userRE = restTemplate.exchange(getUserProfileUrl, HttpMethod.GET,
+					ResponseEntity<UserRepresentation> userRE = warmerRestTemplate.exchange(getUserProfileUrl, HttpMethod.GET,
 							requestEntity, UserRepresentation.class);
 					logger.trace("Executed getUserProfile");
 
@@ -208,12 +309,12 @@ public class WarmerServiceImpl implements WarmerService {
 							authTokenHeaders);
 
 					logger.trace("Executing updateUserProfile with url " + getUserProfileUrl);
-					userRE = restTemplate.exchange(getUserProfileUrl, HttpMethod.PUT, userEntity,
+					userRE = warmerRestTemplate.exchange(getUserProfileUrl, HttpMethod.PUT, userEntity,
 							UserRepresentation.class);
 					logger.trace("Executed updateUserProfile");
 
 					logger.trace("Executing getActiveAuctions with url " + getActiveAuctionsUrl);
-					ResponseEntity<CollectionRepresentation<AuctionRepresentation>> auctionCollectionRE = restTemplate
+					ResponseEntity<CollectionRepresentation<AuctionRepresentation>> auctionCollectionRE = warmerRestTemplate
 							.exchange(getActiveAuctionsUrl, HttpMethod.GET, requestEntity,
 									new ParameterizedTypeReference<CollectionRepresentation<AuctionRepresentation>>() {
 									});
@@ -221,11 +322,11 @@ public class WarmerServiceImpl implements WarmerService {
 					CollectionRepresentation<AuctionRepresentation> auctionCollection = auctionCollectionRE.getBody();
 
 					logger.trace("Executing getAuction with url " + getAuctionUrl);
-					restTemplate.exchange(getAuctionUrl, HttpMethod.GET, requestEntity, AuctionRepresentation.class);
+					warmerRestTemplate.exchange(getAuctionUrl, HttpMethod.GET, requestEntity, AuctionRepresentation.class);
 					logger.trace("Executed getAuction");
 
 					logger.trace("Executing getItemsForAuction with url " + getItemsForAuctionUrl);
-					ResponseEntity<CollectionRepresentation<ItemRepresentation>> itemCollectionRE = restTemplate
+					ResponseEntity<CollectionRepresentation<ItemRepresentation>> itemCollectionRE = warmerRestTemplate
 							.exchange(getItemsForAuctionUrl, HttpMethod.GET, requestEntity,
 									new ParameterizedTypeReference<CollectionRepresentation<ItemRepresentation>>() {
 									});
@@ -239,14 +340,14 @@ public class WarmerServiceImpl implements WarmerService {
 							String itemImageUrl = baseUrl + "/" + links.get(0).get(RestAction.READ);
 							itemImageUrl += "?size=THUMBNAIL";
 							logger.trace("Executing getImageForItem with url " + itemImageUrl);
-							restTemplate.exchange(itemImageUrl, HttpMethod.GET, requestEntity, String.class);
+							warmerRestTemplate.exchange(itemImageUrl, HttpMethod.GET, requestEntity, String.class);
 							logger.trace("Executed getImageForItem ");
 
 						}
 
 						String getItemUrl = baseUrl + "/item/" + item.getId();
 						logger.trace("Executing getItem with url " + getItemUrl);
-						restTemplate.exchange(getItemUrl, HttpMethod.GET, requestEntity, ItemRepresentation.class);
+						warmerRestTemplate.exchange(getItemUrl, HttpMethod.GET, requestEntity, ItemRepresentation.class);
 						logger.trace("Executed getItem");
 
 						String addItemUrl = baseUrl + "/item";
@@ -255,7 +356,7 @@ public class WarmerServiceImpl implements WarmerService {
 						HttpEntity<ItemRepresentation> itemEntity = new HttpEntity<ItemRepresentation>(item,
 								authTokenHeaders);
 						logger.trace("Executing addItem with url " + addItemUrl);
-						restTemplate.exchange(addItemUrl, HttpMethod.POST, itemEntity, ItemRepresentation.class);
+						warmerRestTemplate.exchange(addItemUrl, HttpMethod.POST, itemEntity, ItemRepresentation.class);
 						logger.trace("Executed addItem");
 
 					}
@@ -270,27 +371,27 @@ public class WarmerServiceImpl implements WarmerService {
 								arr, authTokenHeaders);
 						String joinAuctionUrl = baseUrl + "/live/auction";
 						logger.trace("Executing joinAuction with url " + getAuctionUrl);
-						ResponseEntity<AttendanceRecordRepresentation> arrRE = restTemplate.exchange(joinAuctionUrl,
+						ResponseEntity<AttendanceRecordRepresentation> arrRE = warmerRestTemplate.exchange(joinAuctionUrl,
 								HttpMethod.POST, arrEntity, AttendanceRecordRepresentation.class);
 						logger.trace("Executed joinAuction");
 
 						if (activeProfile.contains("noBidService")) {
 							String getCurrentItemUrl = baseUrl + "/item/current/auction/" + auction.getId();
 							logger.trace("Executing getCurrentItem with url " + getCurrentItemUrl);
-							ResponseEntity<ItemRepresentation> itemRE = restTemplate.exchange(getCurrentItemUrl,
+							ResponseEntity<ItemRepresentation> itemRE = warmerRestTemplate.exchange(getCurrentItemUrl,
 									HttpMethod.GET, requestEntity, ItemRepresentation.class);
 							ItemRepresentation curItem = itemRE.getBody();
 							logger.trace("Executed getCurrentItem");
 
 							String getItemUrl = baseUrl + "/item/" + curItem.getId();
 							logger.trace("Executing getItem with url " + getItemUrl);
-							restTemplate.exchange(getItemUrl, HttpMethod.GET, requestEntity, ItemRepresentation.class);
+							warmerRestTemplate.exchange(getItemUrl, HttpMethod.GET, requestEntity, ItemRepresentation.class);
 							logger.trace("Executed getItem");
 
 							String getCurrentBidUrl = baseUrl + "/bid/auction/" + auction.getId() + "/item/"
 									+ curItem.getId() + "/count/0";
 							logger.trace("Executing getNextBid with url " + getCurrentBidUrl);
-							ResponseEntity<BidRepresentation> bidRE = restTemplate.exchange(getCurrentBidUrl,
+							ResponseEntity<BidRepresentation> bidRE = warmerRestTemplate.exchange(getCurrentBidUrl,
 									HttpMethod.GET, requestEntity, BidRepresentation.class);
 							logger.trace("Executed getNextBid");
 
@@ -302,14 +403,14 @@ public class WarmerServiceImpl implements WarmerService {
 							HttpEntity<BidRepresentation> bidEntity = new HttpEntity<BidRepresentation>(
 									bidRepresentation, authTokenHeaders);
 							logger.trace("Executing postBid with url " + postBidUrl);
-							bidRE = restTemplate.exchange(postBidUrl, HttpMethod.POST, bidEntity,
+							bidRE = warmerRestTemplate.exchange(postBidUrl, HttpMethod.POST, bidEntity,
 									BidRepresentation.class);
 							logger.trace("Executed postBid");
 						}
 						
 						String leaveAuctionUrl = baseUrl + "/live/auction/" + auction.getId();
 						logger.trace("Executing leaveAuction with url " + leaveAuctionUrl);
-						arrRE = restTemplate.exchange(leaveAuctionUrl, HttpMethod.DELETE, requestEntity,
+						arrRE = warmerRestTemplate.exchange(leaveAuctionUrl, HttpMethod.DELETE, requestEntity,
 								AttendanceRecordRepresentation.class);
 						logger.trace("Executed leaveAuction");
 
@@ -318,38 +419,40 @@ public class WarmerServiceImpl implements WarmerService {
 					String getPurchaseHistoryUrl = baseUrl + "/item/user/" + user.getId()
 							+ "/purchased?page=0&pageSize=5";
 					logger.trace("Executing getPurchaseHistory with url " + getPurchaseHistoryUrl);
-					itemCollectionRE = restTemplate.exchange(getPurchaseHistoryUrl, HttpMethod.GET, requestEntity,
+					itemCollectionRE = warmerRestTemplate.exchange(getPurchaseHistoryUrl, HttpMethod.GET, requestEntity,
 							new ParameterizedTypeReference<CollectionRepresentation<ItemRepresentation>>() {
 							});
 					logger.trace("Executed getPurchaseHistory");
 
 					String getAttendanceHistoryUrl = baseUrl + "/attendance/user/" + user.getId();
 					logger.trace("Executing getAttendanceHistory with url " + getAttendanceHistoryUrl);
-					restTemplate.exchange(getAttendanceHistoryUrl, HttpMethod.GET, requestEntity,
+					warmerRestTemplate.exchange(getAttendanceHistoryUrl, HttpMethod.GET, requestEntity,
 							new ParameterizedTypeReference<CollectionRepresentation<AttendanceRecordRepresentation>>() {
 							});
 					logger.trace("Executed getAttendanceHistory");
 
 					String getbidHistoryUrl = baseUrl + "/bid/user/" + user.getId() + "?page=0&pageSize=5";
 					logger.trace("Executing getBidHistory with url " + getbidHistoryUrl);
-					restTemplate.exchange(getbidHistoryUrl, HttpMethod.GET, requestEntity,
+					warmerRestTemplate.exchange(getbidHistoryUrl, HttpMethod.GET, requestEntity,
 							new ParameterizedTypeReference<CollectionRepresentation<BidRepresentation>>() {
 							});
 					logger.trace("Executed getBidHistory");
 
 					logger.trace("Executing logout with url " + logoutUrl);
-					restTemplate.exchange(logoutUrl, HttpMethod.GET, requestEntity, String.class);
+					warmerRestTemplate.exchange(logoutUrl, HttpMethod.GET, requestEntity, String.class);
 					logger.trace("Executed logout");
+					sessionsCompleted.incrementAndGet();
 
 				} catch (RestClientException e) {
 					logger.warn("Got RestClientException: " + e.getMessage());
+					sessionsFailed.incrementAndGet();
 				}
 			}
 
 			// Delete the created user
 			HttpEntity<UserRepresentation> deleteRequestEntity = new HttpEntity<UserRepresentation>(
 					newUserRepresentation, requestHeaders);
-			ResponseEntity<UserRepresentation> deleteUserRepresentationEntity = restTemplate.exchange(registerUrl,
+			ResponseEntity<UserRepresentation> deleteUserRepresentationEntity = warmerRestTemplate.exchange(registerUrl,
 					HttpMethod.DELETE, deleteRequestEntity, UserRepresentation.class);
 
 		}
@@ -11,6 +11,7 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.vmware.weathervane.auction.data.model.Bid;
 import com.vmware.weathervane.auction.data.model.Bid.BidKey;
 import com.vmware.weathervane.auction.data.model.HighBid;
@@ -43,7 +44,15 @@ public class BidRepresentation extends Representation implements Serializable {
 	
 	private String message;
 
-	private BidRepresentation() {}
+	/*
+	 * The number of the node running the auctioneer, set on the high bids
+	 * that it sends, and the number of times a new bid has been forwarded
+	 * between nodes.  These are only used in messages between the services.
+	 */
+	private Long ownerNode;
+	private Integer forwardCount;
+
+	BidRepresentation() {}
 
 	/**
 	 * This is a constructor to create a bidRepresentation from a bid. It
@@ -277,6 +286,26 @@ public class BidRepresentation extends Representation implements Serializable {
 		this.receivingNode = receivingNode;
 	}
 
+	@JsonIgnore
+	public Long getOwnerNode() {
+		return ownerNode;
+	}
+
+	@JsonIgnore
+	public void setOwnerNode(Long ownerNode) {
+		this.ownerNode = ownerNode;
+	}
+
+	@JsonIgnore
+	public Integer getForwardCount() {
+		return forwardCount;
+	}
+
+	@JsonIgnore
+	public void setForwardCount(Integer forwardCount) {
+		this.forwardCount = forwardCount;
+	}
+
 	@Override
 	public String toString() {
 		String bidString;
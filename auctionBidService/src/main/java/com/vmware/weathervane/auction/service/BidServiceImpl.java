@@ -44,6 +44,15 @@ public class BidServiceImpl implements BidService {
 	public static final String liveAuctionExchangeName = "liveAuctionMgmtExchange";
 	public static final String newBidRoutingKey = "newBid.";
 
+	/*
+	 * New bids are sent to the node running the auction, which is taken from
+	 * the high bids it sends.  Until a high bid has been received for an
+	 * auction, its new bids are sent to the shared unrouted queue of the app
+	 * servers, which forward them to the node running the auction.
+	 */
+	public static final String nodeNewBidRoutingKey = newBidRoutingKey + "node.";
+	public static final String unroutedNewBidRoutingKey = newBidRoutingKey + "unrouted.";
+
 	// The longest that an auction can go (in seconds) without a bid before the
 	// state of the current item is changed to either LASTCALL or SOLD
 	private int auctionMaxIdleTime = 30;
@@ -163,13 +172,27 @@ public class BidServiceImpl implements BidService {
 	public BidRepresentation postNewBid(BidRepresentation theBid) throws InvalidStateException {
 
 		logger.debug("postNewBid propagating bid " + theBid);
-		liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName, newBidRoutingKey + theBid.getAuctionId(), theBid);
+		ClientBidUpdater clientBidUpdater = _clientBidUpdaterMap.get(theBid.getAuctionId());
+		Long ownerNode = (clientBidUpdater != null) ? clientBidUpdater.getOwnerNode() : null;
+		liveAuctionRabbitTemplate.convertAndSend(liveAuctionExchangeName,
+				getNewBidRoutingKey(theBid.getAuctionId(), ownerNode), theBid);
 
 		theBid.setBiddingState(BiddingState.ACCEPTED);
 		theBid.setMessage(BiddingState.ACCEPTED.toString());
 		return theBid;
 	}
 
+	/**
+	 * Returns the routing key for a new bid, which goes to the node running
+	 * the auction if it is known, and to the unrouted queue otherwise.
+	 */
+	public static String getNewBidRoutingKey(Long auctionId, Long ownerNode) {
+		if (ownerNode != null) {
+			return nodeNewBidRoutingKey + ownerNode;
+		}
+		return unroutedNewBidRoutingKey + auctionId;
+	}
+
 	/**
 	 * This method returns the most recent bid on the item identified by itemId
 	 * in the auction identified by auctionId. If the bid identified by
@@ -89,6 +89,9 @@ public class ClientBidUpdater {
 
 	private boolean _release;
 
+	// The number of the node running the auction, from the last high bid
+	private volatile Long _ownerNode = null;
+
 	
 	public ClientBidUpdater(Long auctionId, HighBidDao highBidDao, ItemDao itemDao,
 			ScheduledExecutorService scheduledExecutorService, ImageStoreFacade imageStoreFacade,
@@ -148,6 +151,9 @@ public class ClientBidUpdater {
 					+ " got a high bid message for auction " + newHighBid.getAuctionId());
 			return;
 		}
+		if (newHighBid.getOwnerNode() != null) {
+			_ownerNode = newHighBid.getOwnerNode();
+		}
 		
 		Long itemId = newHighBid.getItemId();
 		BidRepresentation curHighBid = _itemHighBidMap.get(itemId);
@@ -266,7 +272,7 @@ public class ClientBidUpdater {
 			if ((highBidRepresentation != null) &&
 				(highBidRepresentation.getLastBidCount() == 1) && !_sentWakeUpBid) {
 				_rabbitTemplate.convertAndSend(BidServiceImpl.liveAuctionExchangeName, 
-						BidServiceImpl.newBidRoutingKey + highBidRepresentation.getAuctionId(), 
+						BidServiceImpl.getNewBidRoutingKey(highBidRepresentation.getAuctionId(), _ownerNode), 
 						highBidRepresentation);
 				_sentWakeUpBid = true;
 			}
@@ -415,6 +421,10 @@ public class ClientBidUpdater {
 		return itemToReturn;
 	}
 
+	public Long getOwnerNode() {
+		return _ownerNode;
+	}
+
 	public void shutdown() {
 		this._shuttingDown = true;
 		
@@ -0,0 +1,392 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+
+/**
+ * A RabbitTemplate that coalesces the messages sent to each routing key
+ * within a short window into a single message. Only routing keys that start
+ * with one of the batched prefixes are batched, so that the high rate bid
+ * traffic is batched but the management messages are sent as before.
+ *
+ * Unlike the BatchingRabbitTemplate, which sends its batch whenever the
+ * routing key changes, a batch is kept for each routing key. The messages for
+ * one routing key are always sent in the order in which they were given to
+ * the template.
+ *
+ * A batch uses the same format as the SimpleBatchingStrategy, so the listener
+ * containers split it back into the original messages before they reach the
+ * listeners. The split messages all get the properties of the batch message,
+ * so only messages with the same properties are batched together.
+ *
+ * A full batch is sent by the thread that filled it, and a batch whose
+ * window has passed by one of a small pool of release threads. The sends are
+ * made without holding the lock of the batch, so other threads can keep
+ * adding messages for the routing key while a batch is being sent. Only one
+ * thread at a time sends for a routing key, so that the batches are sent in
+ * order. A thread that finds another one sending leaves its batch to that
+ * thread.
+ *
+ * Each send goes through the RetryTemplate of the template, if one is set. A
+ * batch that still fails to send is dropped, and the dropped batches and
+ * messages are counted.
+ */
+public class RoutingKeyBatchingRabbitTemplate extends RabbitTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(RoutingKeyBatchingRabbitTemplate.class);
+
+	private boolean batchingEnabled = true;
+	private String[] batchedRoutingKeyPrefixes = new String[0];
+	private long batchWindowMicros = 200;
+	private int maxBatchSize = 50;
+	private int maxBatchBytes = 64 * 1024;
+
+	private final ConcurrentMap<String, RoutingKeyBatch> batches = new ConcurrentHashMap<String, RoutingKeyBatch>();
+
+	private final AtomicLong droppedBatches = new AtomicLong();
+	private final AtomicLong droppedMessages = new AtomicLong();
+
+	private static final int numBatchReleaseThreads = 4;
+
+	private final AtomicInteger batchReleaseThreadNum = new AtomicInteger();
+
+	private final ScheduledExecutorService batchReleaseExecutor = Executors
+			.newScheduledThreadPool(numBatchReleaseThreads, r -> {
+				Thread newThread = new Thread(r, "rabbitBatchReleaseThread" + batchReleaseThreadNum.getAndIncrement());
+				newThread.setDaemon(true);
+				return newThread;
+			});
+
+	public RoutingKeyBatchingRabbitTemplate(ConnectionFactory connectionFactory) {
+		super(connectionFactory);
+	}
+
+	@Override
+	public void send(String exchange, String routingKey, Message message, CorrelationData correlationData)
+			throws AmqpException {
+		if (!batchingEnabled || (correlationData != null) || !isBatched(routingKey)) {
+			super.send(exchange, routingKey, message, correlationData);
+			return;
+		}
+
+		String batchKey = exchange + "/" + routingKey;
+		boolean added = false;
+		while (!added) {
+			RoutingKeyBatch batch = batches.get(batchKey);
+			if (batch == null) {
+				batch = new RoutingKeyBatch(batchKey, exchange, routingKey);
+				RoutingKeyBatch existing = batches.putIfAbsent(batchKey, batch);
+				if (existing != null) {
+					batch = existing;
+				}
+			}
+			added = batch.add(message);
+		}
+	}
+
+	/**
+	 * Sends all of the messages that are waiting in batches
+	 */
+	public void flush() {
+		for (RoutingKeyBatch batch : batches.values()) {
+			batch.release();
+		}
+	}
+
+	@Override
+	protected void doStop() {
+		flush();
+		super.doStop();
+	}
+
+	private boolean isBatched(String routingKey) {
+		if (routingKey == null) {
+			return false;
+		}
+		for (String prefix : batchedRoutingKeyPrefixes) {
+			if (routingKey.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isBatchingEnabled() {
+		return batchingEnabled;
+	}
+
+	public void setBatchingEnabled(boolean batchingEnabled) {
+		this.batchingEnabled = batchingEnabled;
+	}
+
+	public String[] getBatchedRoutingKeyPrefixes() {
+		return batchedRoutingKeyPrefixes;
+	}
+
+	public void setBatchedRoutingKeyPrefixes(String[] batchedRoutingKeyPrefixes) {
+		this.batchedRoutingKeyPrefixes = batchedRoutingKeyPrefixes;
+	}
+
+	public long getBatchWindowMicros() {
+		return batchWindowMicros;
+	}
+
+	public void setBatchWindowMicros(long batchWindowMicros) {
+		this.batchWindowMicros = batchWindowMicros;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * @return The number of batches that could not be sent
+	 */
+	public long getDroppedBatches() {
+		return droppedBatches.get();
+	}
+
+	/**
+	 * @return The number of messages in the batches that could not be sent
+	 */
+	public long getDroppedMessages() {
+		return droppedMessages.get();
+	}
+
+	public int getMaxBatchBytes() {
+		return maxBatchBytes;
+	}
+
+	public void setMaxBatchBytes(int maxBatchBytes) {
+		this.maxBatchBytes = maxBatchBytes;
+	}
+
+	/*
+	 * The messages that can share the properties of one batch message
+	 */
+	private static boolean haveSameProperties(MessageProperties first, MessageProperties second) {
+		return Objects.equals(first.getContentType(), second.getContentType())
+				&& Objects.equals(first.getContentEncoding(), second.getContentEncoding())
+				&& Objects.equals(first.getHeaders(), second.getHeaders())
+				&& Objects.equals(first.getDeliveryMode(), second.getDeliveryMode())
+				&& Objects.equals(first.getPriority(), second.getPriority())
+				&& Objects.equals(first.getExpiration(), second.getExpiration())
+				&& Objects.equals(first.getType(), second.getType())
+				&& Objects.equals(first.getAppId(), second.getAppId())
+				&& Objects.equals(first.getUserId(), second.getUserId())
+				&& Objects.equals(first.getReplyTo(), second.getReplyTo())
+				&& Objects.equals(first.getCorrelationId(), second.getCorrelationId())
+				&& Objects.equals(first.getMessageId(), second.getMessageId());
+	}
+
+	/*
+	 * The messages waiting to be sent to one routing key.  Messages are added,
+	 * and full batches moved to the sends, while holding the lock of the
+	 * batch, but the sends are made without it.  Once the batch has been
+	 * released by the timer, and has nothing left to send, it is removed from
+	 * the batches, so that the batches of routing keys that are no longer
+	 * used, such as those of ended auctions, are not kept.
+	 */
+	private class RoutingKeyBatch implements Runnable {
+		private final String batchKey;
+		private final String exchange;
+		private final String routingKey;
+
+		private final List<Message> messages = new ArrayList<Message>();
+		private int bytes = 0;
+		private boolean removed = false;
+		private boolean releaseScheduled = false;
+
+		/*
+		 * The batches waiting to be sent, in order, and whether a thread is
+		 * sending them
+		 */
+		private final Deque<PendingSend> pendingSends = new ArrayDeque<PendingSend>();
+		private boolean sending = false;
+
+		public RoutingKeyBatch(String batchKey, String exchange, String routingKey) {
+			this.batchKey = batchKey;
+			this.exchange = exchange;
+			this.routingKey = routingKey;
+		}
+
+		/*
+		 * Returns false if the batch has been removed, in which case the
+		 * message must be added to a new batch
+		 */
+		public boolean add(Message message) {
+			synchronized (this) {
+				if (removed) {
+					return false;
+				}
+
+				if (!messages.isEmpty()
+						&& !haveSameProperties(message.getMessageProperties(), messages.get(0).getMessageProperties())) {
+					swapOut();
+				}
+
+				messages.add(message);
+				bytes += message.getBody().length + 4;
+				if ((messages.size() >= maxBatchSize) || (bytes >= maxBatchBytes)) {
+					swapOut();
+				} else if (messages.size() == 1) {
+					releaseScheduled = true;
+					batchReleaseExecutor.schedule(this, batchWindowMicros, TimeUnit.MICROSECONDS);
+				}
+			}
+			sendPending();
+			return true;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				releaseScheduled = false;
+				swapOut();
+			}
+			try {
+				sendPending();
+			} catch (AmqpException e) {
+				logger.warn("Failed to send batch for routing key " + routingKey + ": " + e.getMessage());
+			} finally {
+				synchronized (this) {
+					removeIfIdle();
+				}
+			}
+		}
+
+		/*
+		 * Sends the messages in the batch
+		 */
+		public void release() {
+			synchronized (this) {
+				swapOut();
+			}
+			sendPending();
+		}
+
+		/*
+		 * Moves the messages in the batch to the sends as one message.  A
+		 * batch that holds a single message is sent as that message.  The
+		 * caller must hold the lock of the batch.
+		 */
+		private void swapOut() {
+			if (messages.isEmpty()) {
+				return;
+			}
+
+			Message toSend;
+			int numMessages = messages.size();
+			if (numMessages == 1) {
+				toSend = messages.get(0);
+			} else {
+				ByteBuffer body = ByteBuffer.allocate(bytes);
+				for (Message message : messages) {
+					body.putInt(message.getBody().length);
+					body.put(message.getBody());
+				}
+				MessageProperties batchProperties = MessagePropertiesBuilder
+						.fromClonedProperties(messages.get(0).getMessageProperties())
+						.setHeader(MessageProperties.SPRING_BATCH_FORMAT, MessageProperties.BATCH_FORMAT_LENGTH_HEADER4)
+						.setHeader(AmqpHeaders.BATCH_SIZE, numMessages)
+						.setContentLength(bytes)
+						.build();
+				toSend = new Message(body.array(), batchProperties);
+			}
+			messages.clear();
+			bytes = 0;
+			pendingSends.add(new PendingSend(toSend, numMessages));
+		}
+
+		/*
+		 * Sends the pending batches in order, unless another thread is
+		 * already sending them.  Throws the first exception if any of the
+		 * batches sent by this thread could not be sent.
+		 */
+		private void sendPending() {
+			synchronized (this) {
+				if (sending || pendingSends.isEmpty()) {
+					return;
+				}
+				sending = true;
+			}
+
+			AmqpException failure = null;
+			while (true) {
+				PendingSend pendingSend;
+				synchronized (this) {
+					pendingSend = pendingSends.poll();
+					if (pendingSend == null) {
+						sending = false;
+						removeIfIdle();
+						break;
+					}
+				}
+				try {
+					RoutingKeyBatchingRabbitTemplate.super.send(exchange, routingKey, pendingSend.message, null);
+				} catch (AmqpException e) {
+					long dropped = droppedMessages.addAndGet(pendingSend.numMessages);
+					logger.warn("Dropped batch of " + pendingSend.numMessages + " messages for routing key "
+							+ routingKey + ". Dropped " + droppedBatches.incrementAndGet() + " batches and " + dropped
+							+ " messages so far.");
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		/*
+		 * Removes the batch once there is nothing left for it to do.  The
+		 * caller must hold the lock of the batch.
+		 */
+		private void removeIfIdle() {
+			if (!removed && messages.isEmpty() && pendingSends.isEmpty() && !sending && !releaseScheduled) {
+				removed = true;
+				batches.remove(batchKey, this);
+			}
+		}
+	}
+
+	private static class PendingSend {
+		private final Message message;
+		private final int numMessages;
+
+		public PendingSend(Message message, int numMessages) {
+			this.message = message;
+			this.numMessages = numMessages;
+		}
+	}
+}
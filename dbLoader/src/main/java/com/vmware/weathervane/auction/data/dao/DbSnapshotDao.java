@@ -0,0 +1,22 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.dao;
+
+/*
+ * Captures the preloaded state of the tables that are modified during a run
+ * into shadow tables, and restores that state with TRUNCATE plus
+ * INSERT ... SELECT instead of per-row deletes and updates.
+ */
+public interface DbSnapshotDao {
+
+	boolean snapshotExists();
+
+	void createSnapshot();
+
+	void restoreSnapshot();
+
+	void dropSnapshot();
+
+}
@@ -0,0 +1,135 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository("dbSnapshotDao")
+@Transactional
+public class DbSnapshotDaoJpa implements DbSnapshotDao {
+	private static final Logger logger = LoggerFactory.getLogger(DbSnapshotDaoJpa.class);
+
+	private static final String snapshotPrefix = "snap_";
+
+	/*
+	 * The tables that are modified during a run, in the order in which they
+	 * must be repopulated to satisfy the foreign key constraints.
+	 */
+	private static final String[] snapshotTables = { "userdata", "auction", "auction_keyword", "item", "highbid" };
+
+	/*
+	 * Tables that reference the snapshot tables but only hold per-run data.
+	 * They are truncated along with the snapshot tables.
+	 */
+	private static final String[] perRunTables = { "bidcompletiondelay" };
+
+	private EntityManager entityManager;
+
+	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
+	public void setEntityManager(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	public DbSnapshotDaoJpa() {
+		logger.info("DbSnapshotDaoJpa constructor");
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public boolean snapshotExists() {
+		for (String table : snapshotTables) {
+			Object regclass = entityManager
+					.createNativeQuery("SELECT CAST(to_regclass('" + snapshotPrefix + table + "') AS text)")
+					.getSingleResult();
+			if (regclass == null) {
+				logger.info("snapshotExists: No snapshot table for " + table);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	@Transactional
+	public void createSnapshot() {
+		for (String table : snapshotTables) {
+			logger.info("createSnapshot: Capturing " + table + " into " + snapshotPrefix + table);
+			entityManager.createNativeQuery("DROP TABLE IF EXISTS " + snapshotPrefix + table).executeUpdate();
+			entityManager.createNativeQuery("CREATE TABLE " + snapshotPrefix + table + " AS SELECT * FROM " + table)
+					.executeUpdate();
+		}
+	}
+
+	@Override
+	@Transactional
+	public void restoreSnapshot() {
+		StringBuilder truncateTables = new StringBuilder();
+		for (String table : snapshotTables) {
+			truncateTables.append(table).append(", ");
+		}
+		for (String table : perRunTables) {
+			truncateTables.append(table).append(", ");
+		}
+		truncateTables.setLength(truncateTables.length() - 2);
+
+		logger.info("restoreSnapshot: Truncating " + truncateTables);
+		entityManager.createNativeQuery("TRUNCATE " + truncateTables).executeUpdate();
+
+		/*
+		 * item and highbid reference each other, so the items are inserted
+		 * without their highbid_id, which is filled in once the highbids exist.
+		 */
+		String itemColumns = getColumnsExcept("item", "highbid_id");
+		for (String table : snapshotTables) {
+			int numInserted;
+			if (table.equals("item")) {
+				numInserted = entityManager.createNativeQuery("INSERT INTO item (" + itemColumns + ") SELECT "
+						+ itemColumns + " FROM " + snapshotPrefix + "item").executeUpdate();
+			} else {
+				numInserted = entityManager
+						.createNativeQuery("INSERT INTO " + table + " SELECT * FROM " + snapshotPrefix + table)
+						.executeUpdate();
+			}
+			logger.info("restoreSnapshot: Restored " + numInserted + " rows into " + table);
+		}
+		int numUpdated = entityManager.createNativeQuery("UPDATE item SET highbid_id = s.highbid_id FROM "
+				+ snapshotPrefix + "item s WHERE item.id = s.id AND s.highbid_id IS NOT NULL").executeUpdate();
+		logger.info("restoreSnapshot: Restored highbid_id on " + numUpdated + " items");
+
+		// TRUNCATE discards the planner statistics, so refresh them
+		for (String table : snapshotTables) {
+			entityManager.createNativeQuery("ANALYZE " + table).executeUpdate();
+		}
+	}
+
+	@Override
+	@Transactional
+	public void dropSnapshot() {
+		for (String table : snapshotTables) {
+			logger.info("dropSnapshot: Dropping " + snapshotPrefix + table);
+			entityManager.createNativeQuery("DROP TABLE IF EXISTS " + snapshotPrefix + table).executeUpdate();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private String getColumnsExcept(String table, String excludedColumn) {
+		List<String> columns = entityManager
+				.createNativeQuery("SELECT CAST(column_name AS text) FROM information_schema.columns "
+						+ "WHERE table_schema = current_schema() AND table_name = :table AND column_name <> :excluded "
+						+ "ORDER BY ordinal_position")
+				.setParameter("table", table).setParameter("excluded", excludedColumn).getResultList();
+		return String.join(", ", columns);
+	}
+
+}
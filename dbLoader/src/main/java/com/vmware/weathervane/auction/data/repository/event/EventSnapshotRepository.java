@@ -0,0 +1,151 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.auction.data.repository.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.stereotype.Repository;
+
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.TableMetadata;
+
+/*
+ * Keeps a copy of the preloaded bid and attendance data in a snapshot keyspace
+ * so that the event tables can be reset by truncating and copying back rather
+ * than by deleting the records of each auction, which leaves tombstones behind.
+ */
+@Repository("eventSnapshotRepository")
+public class EventSnapshotRepository {
+	private static final Logger logger = LoggerFactory.getLogger(EventSnapshotRepository.class);
+
+	private static final String eventKeyspace = "auction_event";
+	private static final String snapshotKeyspace = "auction_event_snapshot";
+
+	private static final String[] snapshotTables = { "bid_by_bidderid", "attendancerecord_by_userid" };
+
+	private static final int fetchSize = 5000;
+	private static final int maxInFlightWrites = 512;
+
+	@Autowired
+	@Qualifier("cassandraEventTemplate")
+	CassandraOperations cassandraOperations;
+
+	public boolean snapshotExists() {
+		KeyspaceMetadata snapshot = getMetadata().getKeyspace(snapshotKeyspace);
+		if (snapshot == null) {
+			logger.info("snapshotExists: No keyspace " + snapshotKeyspace);
+			return false;
+		}
+		for (String table : snapshotTables) {
+			if (snapshot.getTable(table) == null) {
+				logger.info("snapshotExists: No snapshot table for " + table);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void createSnapshot() {
+		Session session = cassandraOperations.getSession();
+		KeyspaceMetadata source = getMetadata().getKeyspace(eventKeyspace);
+
+		session.execute("DROP KEYSPACE IF EXISTS " + snapshotKeyspace);
+		session.execute("CREATE KEYSPACE " + snapshotKeyspace + " WITH REPLICATION = "
+				+ getReplicationString(source.getReplication()));
+
+		for (String table : snapshotTables) {
+			String createTable = source.getTable(table).asCQLQuery().replaceFirst(eventKeyspace + "\\.",
+					snapshotKeyspace + ".");
+			session.execute(createTable);
+			long numCopied = copyTable(eventKeyspace, snapshotKeyspace, table);
+			logger.info("createSnapshot: Copied " + numCopied + " rows of " + table + " into " + snapshotKeyspace);
+		}
+	}
+
+	public void restoreSnapshot() {
+		Session session = cassandraOperations.getSession();
+		for (String table : snapshotTables) {
+			logger.info("restoreSnapshot: Truncating " + eventKeyspace + "." + table);
+			session.execute("TRUNCATE " + eventKeyspace + "." + table);
+			long numCopied = copyTable(snapshotKeyspace, eventKeyspace, table);
+			logger.info("restoreSnapshot: Restored " + numCopied + " rows into " + table);
+		}
+	}
+
+	public void dropSnapshot() {
+		cassandraOperations.getSession().execute("DROP KEYSPACE IF EXISTS " + snapshotKeyspace);
+	}
+
+	private long copyTable(String fromKeyspace, String toKeyspace, String table) {
+		Session session = cassandraOperations.getSession();
+		TableMetadata tableMetadata = getMetadata().getKeyspace(fromKeyspace).getTable(table);
+
+		List<String> columns = new ArrayList<String>();
+		List<String> markers = new ArrayList<String>();
+		for (ColumnMetadata column : tableMetadata.getColumns()) {
+			columns.add(column.getName());
+			markers.add("?");
+		}
+		String columnList = String.join(", ", columns);
+
+		PreparedStatement insert = session.prepare("INSERT INTO " + toKeyspace + "." + table + " (" + columnList
+				+ ") VALUES (" + String.join(", ", markers) + ")");
+		SimpleStatement select = new SimpleStatement("SELECT " + columnList + " FROM " + fromKeyspace + "." + table);
+		select.setFetchSize(fetchSize);
+
+		long numCopied = 0;
+		List<ResultSetFuture> inFlight = new ArrayList<ResultSetFuture>(maxInFlightWrites);
+		for (Row row : session.execute(select)) {
+			Object[] values = new Object[columns.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = row.getObject(i);
+			}
+			inFlight.add(session.executeAsync(insert.bind(values)));
+			numCopied++;
+			if (inFlight.size() >= maxInFlightWrites) {
+				waitForWrites(inFlight);
+			}
+		}
+		waitForWrites(inFlight);
+
+		return numCopied;
+	}
+
+	private void waitForWrites(List<ResultSetFuture> inFlight) {
+		for (ResultSetFuture future : inFlight) {
+			future.getUninterruptibly();
+		}
+		inFlight.clear();
+	}
+
+	private String getReplicationString(Map<String, String> replication) {
+		StringBuilder replicationString = new StringBuilder("{");
+		for (Map.Entry<String, String> entry : replication.entrySet()) {
+			if (replicationString.length() > 1) {
+				replicationString.append(", ");
+			}
+			replicationString.append("'").append(entry.getKey()).append("' : '").append(entry.getValue()).append("'");
+		}
+		return replicationString.append("}").toString();
+	}
+
+	private Metadata getMetadata() {
+		return cassandraOperations.getSession().getCluster().getMetadata();
+	}
+}
@@ -23,6 +23,7 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
 import com.vmware.weathervane.auction.data.dao.AuctionDao;
 import com.vmware.weathervane.auction.data.dao.AuctionMgmtDao;
 import com.vmware.weathervane.auction.data.dao.DbBenchmarkInfoDao;
+import com.vmware.weathervane.auction.data.dao.DbSnapshotDao;
 import com.vmware.weathervane.auction.data.dao.FixedTimeOffsetDao;
 import com.vmware.weathervane.auction.data.dao.HighBidDao;
 import com.vmware.weathervane.auction.data.dao.ItemDao;
@@ -38,6 +39,7 @@ import com.vmware.weathervane.auction.data.model.ImageStoreBenchmarkInfo;
 import com.vmware.weathervane.auction.data.model.NosqlBenchmarkInfo;
 import com.vmware.weathervane.auction.data.repository.event.AttendanceRecordRepository;
 import com.vmware.weathervane.auction.data.repository.event.BidRepository;
+import com.vmware.weathervane.auction.data.repository.event.EventSnapshotRepository;
 import com.vmware.weathervane.auction.data.repository.event.NosqlBenchmarkInfoRepository;
 
 public class DBPrep {
@@ -54,9 +56,11 @@ public class DBPrep {
 	private static HighBidDao highBidDao;
 	private static AuctionMgmtDao auctionMgmtDao;
 	private static FixedTimeOffsetDao fixedTimeOffsetDao;
+	private static DbSnapshotDao dbSnapshotDao;
 	
 	private static BidRepository bidRepository;
 	private static AttendanceRecordRepository attendanceRecordRepository;
+	private static EventSnapshotRepository eventSnapshotRepository;
 
 	private static final Logger logger = LoggerFactory.getLogger(DBPrep.class);
 
@@ -80,6 +84,8 @@ public class DBPrep {
 				"Number of auctions to be active in current run.");
 		a.setRequired(true);
 		Option t = new Option("t", "threads", true, "Number of threads for dbprep");
+		Option s = new Option("s", "snapshot", false,
+				"If set, dbPrep captures the preloaded data in snapshot tables and resets the data by restoring the snapshot.");
 
 		Options cliOptions = new Options();
 		cliOptions.addOption(u);
@@ -88,6 +94,7 @@ public class DBPrep {
 		cliOptions.addOption(p);
 		cliOptions.addOption(l);
 		cliOptions.addOption(t);
+		cliOptions.addOption(s);
 
 		CommandLine cliCmd = null;
 		CommandLineParser cliParser = new PosixParser();
@@ -113,6 +120,11 @@ public class DBPrep {
 			afterLoad = true;
 		}
 		
+		boolean useSnapshot = false;
+		if (cliCmd.hasOption("s")) {
+			useSnapshot = true;
+		}
+		
 		// Determine the imageStore type from the spring.profiles.active
 		// property
 		String springProfilesActive = System.getProperty("spring.profiles.active");
@@ -144,8 +156,10 @@ public class DBPrep {
 		highBidDao = (HighBidDao) context.getBean("highBidDao");
 		auctionMgmtDao = (AuctionMgmtDao) context.getBean("auctionMgmtDao");
 		fixedTimeOffsetDao = (FixedTimeOffsetDao) context.getBean("fixedTimeOffsetDao");
+		dbSnapshotDao = (DbSnapshotDao) context.getBean("dbSnapshotDao");
 		bidRepository = (BidRepository) context.getBean("bidRepository");
 		attendanceRecordRepository = (AttendanceRecordRepository) context.getBean("attendanceRecordRepository");
+		eventSnapshotRepository = (EventSnapshotRepository) context.getBean("eventSnapshotRepository");
 
 		
 		/*
@@ -264,67 +278,32 @@ public class DBPrep {
 			logger.debug("Clearing non-preloaded images");
 			imageStore.clearNonpreloadedImages();
 
-			/*
-			 * Reset the data on all auctions that could be current in a run and that were
-			 * used in a previous run
-			 */
-			List<Auction> preusedAuctions = auctionDao.findByCurrentAndActivated(true, true);
-			logger.info("Found " + preusedAuctions.size() + " auctions that were activated in a previous run");
-			int auctionsPerThread = (int) Math.ceil(preusedAuctions.size() / (1.0 * numThreads));
-			int numRemainingAuctions = preusedAuctions.size();
-			int startIndex = 0;
-			for (int j = 0; j < numThreads; j++) {
-				if (numRemainingAuctions == 0)
-					break;
-				int numAuctionsToReset = auctionsPerThread;
-				if (numAuctionsToReset > numRemainingAuctions) {
-					numAuctionsToReset = numRemainingAuctions;
+			if (useSnapshot && dbSnapshotDao.snapshotExists() && eventSnapshotRepository.snapshotExists()) {
+				/*
+				 * Restore the preloaded data from the snapshot rather than
+				 * undoing the changes from the last run row by row
+				 */
+				logger.info("Restoring preloaded data from snapshot");
+				dbSnapshotDao.restoreSnapshot();
+				eventSnapshotRepository.restoreSnapshot();
+			} else {
+				resetPreviousRunData(numThreads);
+				if (useSnapshot) {
+					createSnapshot();
 				}
-				int endIndex = startIndex + numAuctionsToReset;
-
-				DBPrepService dbPrepService = new DBPrepService();
-				dbPrepService.setAuctionsToPrep(preusedAuctions);
-				dbPrepService.setAuctionDao(auctionDao);
-				dbPrepService.setHighBidDao(highBidDao);
-				dbPrepService.setPrepStartIndex(startIndex);
-				dbPrepService.setPrepEndIndex(endIndex);
-				dbPrepService.setResetAuctions(true);
-				dbPrepService.setPretouch(false);
-				Thread dbPrepThread = new Thread(dbPrepService, "dbPrepService" + j);
-				dbPrepThread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
-					public void uncaughtException(Thread th, Throwable ex) {
-						logger.warn("Uncaught exception in dbPrepService: " + ex);
-						System.exit(1);
-					}
-				});
-				threadList.add(dbPrepThread);
-				dbPrepThread.start();
-				startIndex += numAuctionsToReset;
-				numRemainingAuctions -= numAuctionsToReset;
 			}
-			// Wait for all threads to complete
-			for (Thread thread : threadList) {
-				thread.join();
-			}
-			threadList.clear();
-
+		} else if (useSnapshot) {
 			/*
-			 * Delete items that were added during the last run
+			 * The data has just been loaded, so capture it before this run
+			 * changes anything
 			 */
-			logger.debug("Deleting non-preloaded highbids");
-			int numDeleted = highBidDao.deleteByPreloaded(false);
-			logger.info("Deleted " + numDeleted + " non-preloaded highbids");
-
-			logger.info("Deleting non-preloaded items");
-			numDeleted = itemDao.deleteByPreloaded(false);
-			logger.info("Deleted " + numDeleted + " non-preloaded items");
-
+			createSnapshot();
+		} else {
 			/*
-			 * Reset the users
+			 * Any existing snapshot was taken from an earlier load
 			 */
-			userDao.clearAllAuthTokens();
-			userDao.resetAllCreditLimits();
-			userDao.clearAllLoggedIn();
+			dbSnapshotDao.dropSnapshot();
+			eventSnapshotRepository.dropSnapshot();
 		}
 		
 		/*
@@ -444,4 +423,77 @@ public class DBPrep {
 
 		System.exit(0);
 	}
+
+	/*
+	 * Undo the changes made to the data during the previous run
+	 */
+	private static void resetPreviousRunData(long numThreads) throws InterruptedException {
+		/*
+		 * Reset the data on all auctions that could be current in a run and that were
+		 * used in a previous run
+		 */
+		List<Auction> preusedAuctions = auctionDao.findByCurrentAndActivated(true, true);
+		logger.info("Found " + preusedAuctions.size() + " auctions that were activated in a previous run");
+		int auctionsPerThread = (int) Math.ceil(preusedAuctions.size() / (1.0 * numThreads));
+		int numRemainingAuctions = preusedAuctions.size();
+		int startIndex = 0;
+		for (int j = 0; j < numThreads; j++) {
+			if (numRemainingAuctions == 0)
+				break;
+			int numAuctionsToReset = auctionsPerThread;
+			if (numAuctionsToReset > numRemainingAuctions) {
+				numAuctionsToReset = numRemainingAuctions;
+			}
+			int endIndex = startIndex + numAuctionsToReset;
+
+			DBPrepService dbPrepService = new DBPrepService();
+			dbPrepService.setAuctionsToPrep(preusedAuctions);
+			dbPrepService.setAuctionDao(auctionDao);
+			dbPrepService.setHighBidDao(highBidDao);
+			dbPrepService.setPrepStartIndex(startIndex);
+			dbPrepService.setPrepEndIndex(endIndex);
+			dbPrepService.setResetAuctions(true);
+			dbPrepService.setPretouch(false);
+			Thread dbPrepThread = new Thread(dbPrepService, "dbPrepService" + j);
+			dbPrepThread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+				public void uncaughtException(Thread th, Throwable ex) {
+					logger.warn("Uncaught exception in dbPrepService: " + ex);
+					System.exit(1);
+				}
+			});
+			threadList.add(dbPrepThread);
+			dbPrepThread.start();
+			startIndex += numAuctionsToReset;
+			numRemainingAuctions -= numAuctionsToReset;
+		}
+		// Wait for all threads to complete
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+		threadList.clear();
+
+		/*
+		 * Delete items that were added during the last run
+		 */
+		logger.debug("Deleting non-preloaded highbids");
+		int numDeleted = highBidDao.deleteByPreloaded(false);
+		logger.info("Deleted " + numDeleted + " non-preloaded highbids");
+
+		logger.info("Deleting non-preloaded items");
+		numDeleted = itemDao.deleteByPreloaded(false);
+		logger.info("Deleted " + numDeleted + " non-preloaded items");
+
+		/*
+		 * Reset the users
+		 */
+		userDao.clearAllAuthTokens();
+		userDao.resetAllCreditLimits();
+		userDao.clearAllLoggedIn();
+	}
+
+	private static void createSnapshot() {
+		logger.info("Capturing snapshot of preloaded data");
+		dbSnapshotDao.createSnapshot();
+		eventSnapshotRepository.createSnapshot();
+	}
 }
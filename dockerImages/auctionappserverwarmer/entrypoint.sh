@@ -17,7 +17,7 @@ perl /updateResolveConf.pl
 if [ $# -gt 0 ]; then
 	eval "$* &"
 else
-	setsid java -jar ${WARMER_JVMOPTS} -DTHREADSPERSERVER=${WARMER_THREADS_PER_SERVER} -DITERATIONS=${WARMER_ITERATIONS} /auctionAppServerWarmer.jar 
+	setsid java -jar ${WARMER_JVMOPTS} -DTHREADSPERSERVER=${WARMER_THREADS_PER_SERVER} -DITERATIONS=${WARMER_ITERATIONS} -DWARMERMODE=${WARMER_MODE} -DCONCURRENCY=${WARMER_CONCURRENCY} -DADAPTIVE=${WARMER_ADAPTIVE} /auctionAppServerWarmer.jar 
 fi
 
 pid="$!"
@@ -26,6 +26,9 @@ if (($auctions % 2) != 0) {
 my $dbPrepOptions = " -a $auctions ";
 
 $dbPrepOptions .= " -u $users -t $threads ";
+if ( $ENV{'PREPSNAPSHOT'} eq "true" ) {
+	$dbPrepOptions .= " -s ";
+}
 
 my $springProfilesActive = $ENV{'SPRINGPROFILESACTIVE'};
 $springProfilesActive .= ",dbprep";
@@ -377,6 +377,15 @@ sub getSpringProfilesActive {
 		$springProfilesActive .= ",noBidService";
 	}
 
+	my $numAppServers = $self->getTotalNumOfServiceType('appServer');
+	if ($self->getParamValue('inMemoryMessaging')) {
+		if (($numBidServers > 0) || ($numAppServers > 1)) {
+			$logger->warn("inMemoryMessaging requires a single appServer and no auctionBidServers.  Using RabbitMQ.");
+		} else {
+			$springProfilesActive .= ",inMemoryMessaging";
+		}
+	}
+
 	$logger->debug(
 		"getSpringProfilesActive finished for workload ",
 		$self->workload->instanceNum,
@@ -414,7 +423,6 @@ sub getServiceConfigParameters {
 		my $numAppServers                  = $self->getTotalNumOfServiceType('appServer');
 		my $numWebServers                  = $self->getTotalNumOfServiceType('webServer');
 		my $authTokenCacheSize             = 2 * $users;
-		my $activeAuctionCacheSize         = 2 * $auctions;
 		my $itemsForAuctionCacheSize       = 2 * $auctions;
 		my $itemCacheSize                  = 20 * $auctions;
 		my $auctionRepresentationCacheSize = 2 * $auctions;
@@ -424,7 +432,7 @@ sub getServiceConfigParameters {
 		  $self->getParamValue('appServerThumbnailImageCacheSizeMultiplier') * $auctions;
 		my $itemPreviewImageCacheSize = $self->getParamValue('appServerPreviewImageCacheSizeMultiplier') * $auctions;
 		my $itemFullImageCacheSize    = $self->getParamValue('appServerFullImageCacheSizeMultiplier') * $auctions;
-		$jvmOpts .= " -DAUTHTOKENCACHESIZE=$authTokenCacheSize -DACTIVEAUCTIONCACHESIZE=$activeAuctionCacheSize ";
+		$jvmOpts .= " -DAUTHTOKENCACHESIZE=$authTokenCacheSize ";
 		$jvmOpts .= " -DAUCTIONREPRESENTATIONCACHESIZE=$auctionRepresentationCacheSize ";
 		$jvmOpts .= " -DIMAGEINFOCACHESIZE=$imageInfoCacheSize -DITEMSFORAUCTIONCACHESIZE=$itemsForAuctionCacheSize ";
 		$jvmOpts .= " -DITEMCACHESIZE=$itemCacheSize ";
@@ -433,6 +441,8 @@ sub getServiceConfigParameters {
 		} else {
 			$jvmOpts .= " -DPREWARM=false ";	
 		}
+		$jvmOpts .= " -DCACHEWARMERTHREADS=" . $self->getParamValue('cacheWarmerThreads') . " ";
+		$jvmOpts .= " -DCACHEWARMERRATE=" . $self->getParamValue('cacheWarmerRequestsPerSecond') . " ";
 
 		my $zookeeperConnectionString = "";
 		my $coordinationServersRef    = $self->getAllServicesByType('coordinationServer');
@@ -510,6 +520,21 @@ sub getServiceConfigParameters {
 		$jvmOpts .= " -DNUMCLIENTUPDATETHREADS=" . $service->getParamValue('numClientUpdateThreads') . " ";
 		$jvmOpts .= " -DNUMAUCTIONEERTHREADS=" . $service->getParamValue('numAuctioneerThreads') . " ";
 
+		if ( $service->getParamValue('useAttendanceWriters') ) {
+			$jvmOpts .= " -DUSEATTENDANCEWRITERS=true ";
+		}
+		else {
+			$jvmOpts .= " -DUSEATTENDANCEWRITERS=false ";
+		}
+		$jvmOpts .= " -DATTENDANCEWRITERTHREADS=" . $service->getParamValue('attendanceWriterThreads') . " ";
+
+		if ( $service->getParamValue('inMemoryHighBids') ) {
+			$jvmOpts .= " -DINMEMORYHIGHBIDS=true ";
+		}
+		else {
+			$jvmOpts .= " -DINMEMORYHIGHBIDS=false ";
+		}
+
 
 		my $clusteredRabbit = '';
 		my $numMsgServers   = $self->getTotalNumOfServiceType('msgServer');
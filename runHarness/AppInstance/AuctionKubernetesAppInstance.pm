@@ -187,7 +187,6 @@ override 'getServiceConfigParameters' => sub {
 		my $numAppServers                  = $self->getTotalNumOfServiceType('appServer');
 		my $numWebServers                  = $self->getTotalNumOfServiceType('webServer');
 		my $authTokenCacheSize             = 2 * $users;
-		my $activeAuctionCacheSize         = 2 * $auctions;
 		my $itemsForAuctionCacheSize       = 2 * $auctions;
 		my $itemCacheSize                  = 20 * $auctions;
 		my $auctionRepresentationCacheSize = 2 * $auctions;
@@ -197,7 +196,7 @@ override 'getServiceConfigParameters' => sub {
 		  $self->getParamValue('appServerThumbnailImageCacheSizeMultiplier') * $auctions;
 		my $itemPreviewImageCacheSize = $self->getParamValue('appServerPreviewImageCacheSizeMultiplier') * $auctions;
 		my $itemFullImageCacheSize    = $self->getParamValue('appServerFullImageCacheSizeMultiplier') * $auctions;
-		$jvmOpts .= " -DAUTHTOKENCACHESIZE=$authTokenCacheSize -DACTIVEAUCTIONCACHESIZE=$activeAuctionCacheSize ";
+		$jvmOpts .= " -DAUTHTOKENCACHESIZE=$authTokenCacheSize ";
 		$jvmOpts .= " -DAUCTIONREPRESENTATIONCACHESIZE=$auctionRepresentationCacheSize ";
 		$jvmOpts .= " -DIMAGEINFOCACHESIZE=$imageInfoCacheSize -DITEMSFORAUCTIONCACHESIZE=$itemsForAuctionCacheSize ";
 		$jvmOpts .= " -DITEMCACHESIZE=$itemCacheSize ";
@@ -206,6 +205,8 @@ override 'getServiceConfigParameters' => sub {
 		} else {
 			$jvmOpts .= " -DPREWARM=false ";	
 		}
+		$jvmOpts .= " -DCACHEWARMERTHREADS=" . $self->getParamValue('cacheWarmerThreads') . " ";
+		$jvmOpts .= " -DCACHEWARMERRATE=" . $self->getParamValue('cacheWarmerRequestsPerSecond') . " ";
 
 		my $zookeeperConnectionString = "";
 		my $numCoordinationServers   = $self->getTotalNumOfServiceType('coordinationServer');
@@ -284,6 +285,21 @@ override 'getServiceConfigParameters' => sub {
 		
 		$jvmOpts .= " -DNUMCLIENTUPDATETHREADS=" . $service->getParamValue('numClientUpdateThreads') . " ";
 
+		if ( $service->getParamValue('useAttendanceWriters') ) {
+			$jvmOpts .= " -DUSEATTENDANCEWRITERS=true ";
+		}
+		else {
+			$jvmOpts .= " -DUSEATTENDANCEWRITERS=false ";
+		}
+		$jvmOpts .= " -DATTENDANCEWRITERTHREADS=" . $service->getParamValue('attendanceWriterThreads') . " ";
+
+		if ( $service->getParamValue('inMemoryHighBids') ) {
+			$jvmOpts .= " -DINMEMORYHIGHBIDS=true ";
+		}
+		else {
+			$jvmOpts .= " -DINMEMORYHIGHBIDS=false ";
+		}
+
 		$jvmOpts .= " -DRABBITMQ_HOST=rabbitmq -DRABBITMQ_PORT=5672 ";
 
 		$jvmOpts .= " -DCASSANDRA_CONTACTPOINTS=cassandra -DCASSANDRA_PORT=9042 ";
@@ -63,6 +63,7 @@ sub startDataManagerContainer {
 	$envVarMap{"JVMOPTS"} = "\"$jvmopts\"";
 	$envVarMap{"LOADERTHREADS"} = $loaderThreads;	
 	$envVarMap{"PREPTHREADS"} = $prepThreads;	
+	$envVarMap{"PREPSNAPSHOT"} = $self->getParamValue('dbPrepUseSnapshot') ? "true" : "false";	
 	
 	my $cassandraContactpoints = "";
 	my $nosqlServicesRef = $self->appInstance->getAllServicesByType("nosqlServer");
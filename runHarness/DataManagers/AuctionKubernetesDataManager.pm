@@ -77,6 +77,9 @@ sub startDataManagerContainer {
 		elsif ( $inline =~ /PREPTHREADS:/ ) {
 			print FILEOUT "  PREPTHREADS: \"$prepThreads\"\n";
 		}
+		elsif ( $inline =~ /PREPSNAPSHOT:/ ) {
+			print FILEOUT "  PREPSNAPSHOT: \"" . ($self->getParamValue('dbPrepUseSnapshot') ? "true" : "false") . "\"\n";
+		}
 		elsif ( $inline =~ /APPINSTANCENUM:/ ) {
 			print FILEOUT "  APPINSTANCENUM: \"$appInstanceNum\"\n";
 		}
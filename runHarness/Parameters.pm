@@ -1042,6 +1042,45 @@ $parameters{"findMaxStopPct"} = {
 	"usageText" => "findMax will stop when the difference between maxPass and minFail is less than findMaxStopPct*minFail",
 	"showUsage" => 0,
 };
+$parameters{"findMaxSearch"} = {
+	"type"    => "=s",
+	"default" => "stepped",
+	"parent"  => "runProc",
+	"usageText" => "The search used by findMax runs. Allowed values are: stepped, bisect.\n\t"
+	  . "bisect brackets the maximum with a doubling ramp and then bisects the bracket,\n\t"
+	  . "ending each step early once the QoS result is significant.",
+	"showUsage" => 0,
+};
+$parameters{"findMaxDecisionSec"} = {
+	"type"    => "=i",
+	"default" => 60,
+	"parent"  => "runProc",
+	"usageText" => "The length of the decision periods of sequential findMax intervals.",
+	"showUsage" => 0,
+};
+$parameters{"findMaxConfidence"} = {
+	"type"    => "=f",
+	"default" => 0.95,
+	"parent"  => "runProc",
+	"usageText" => "The confidence needed for a sequential findMax interval to end before qosPeriodSec.",
+	"showUsage" => 0,
+};
+$parameters{"findMaxSequential"} = {
+	"type"    => "!",
+	"default" => JSON::false,
+	"parent"  => "runProc",
+	"usageText" => "If set to true, the findMax intervals used to search for the maximum end as soon as\n\t"
+	  . "their QoS result is significant at findMaxConfidence. The bisect findMaxSearch always does this.",
+	"showUsage" => 0,
+};
+$parameters{"findMaxThroughputPrecision"} = {
+	"type"    => "=f",
+	"default" => 0.05,
+	"parent"  => "runProc",
+	"usageText" => "A sequential findMax interval only passes early once the confidence interval for\n\t"
+	  . "its throughput is within this fraction of the mean.",
+	"showUsage" => 0,
+};
 $parameters{"rampDown"} = {
 	"type"      => "=i",
 	"default"   => "120",
@@ -1763,6 +1802,56 @@ $parameters{"newBidQueueConcurrency"} = {
 	"showUsage" => 0,
 };
 
+$parameters{"useAttendanceWriters"} = {
+	"type"      => "!",
+	"default"   => JSON::true,
+	"parent"    => "appInstance",
+	"usageText" => "Controls whether the Auction application writes attendance records in the background.",
+	"showUsage" => 0,
+};
+
+$parameters{"attendanceWriterThreads"} = {
+	"type"      => "=i",
+	"default"   => 2,
+	"parent"    => "appInstance",
+	"usageText" => "Number of threads each app server uses to write attendance records.",
+	"showUsage" => 0,
+};
+
+$parameters{"inMemoryHighBids"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "appInstance",
+	"usageText" => "Controls whether the auctioneers in the Auction application keep high bids in memory\n"
+	  . "and write them to the database behind the bids.",
+	"showUsage" => 0,
+};
+
+$parameters{"inMemoryMessaging"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "appInstance",
+	"usageText" => "Controls whether the Auction application delivers the live auction messages in memory\n"
+	  . "rather than through RabbitMQ.  Only used with a single appServer and no auctionBidServers.",
+	"showUsage" => 0,
+};
+
+$parameters{"cacheWarmerThreads"} = {
+	"type"      => "=i",
+	"default"   => 8,
+	"parent"    => "appInstance",
+	"usageText" => "Number of threads each app server uses to pre-warm its caches.",
+	"showUsage" => 0,
+};
+
+$parameters{"cacheWarmerRequestsPerSecond"} = {
+	"type"      => "=i",
+	"default"   => 0,
+	"parent"    => "appInstance",
+	"usageText" => "Target rate of cache pre-warming requests per app server. 0 means no limit.",
+	"showUsage" => 0,
+};
+
 $parameters{"prewarmAppServers"} = {
 	"type"    => "!",
 	"default"   => JSON::true,
@@ -1828,6 +1917,14 @@ $parameters{"dbPrepThreads"} = {
 	"showUsage" => 1,
 };
 
+$parameters{"dbPrepUseSnapshot"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "dataManager",
+	"usageText" => "If true, dbPrep captures the preloaded data in snapshot tables after a load\n\tand resets the data between runs by restoring the snapshot.",
+	"showUsage" => 1,
+};
+
 $parameters{"dbLoaderJvmOpts"} = {
 	"type"      => "=s",
 	"default"   => "-Xmx4g -Xms4g -XX:+UseParallelGC -XX:+AlwaysPreTouch",
@@ -1844,6 +1941,60 @@ $parameters{"useThinkTime"} = {
 	"showUsage" => 0,
 };
 
+$parameters{"openLoop"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "workloadDriver",
+	"usageText" => "When true, the workload driver starts operations at an arrival rate\n\t"
+	  . "rather than after each user's think time. The load levels of the\n\t"
+	  . "run are then in ops/sec, up to maxArrivalRate.",
+	"showUsage" => 0,
+};
+
+$parameters{"arrivalProcess"} = {
+	"type"      => "=s",
+	"default"   => "poisson",
+	"parent"    => "workloadDriver",
+	"usageText" => "The arrival process used when openLoop is true.\n\t"
+	  . "Valid values are poisson and uniform.",
+	"showUsage" => 0,
+};
+
+$parameters{"maxArrivalRate"} = {
+	"type"      => "=i",
+	"default"   => 10000,
+	"parent"    => "workloadDriver",
+	"usageText" => "The maximum arrival rate in ops/sec for each workload when openLoop is true.",
+	"showUsage" => 0,
+};
+
+$parameters{"maxQueuedArrivals"} = {
+	"type"      => "=i",
+	"default"   => 1000,
+	"parent"    => "workloadDriver",
+	"usageText" => "The number of arrivals that can wait for a free user on each target\n\t"
+	  . "when openLoop is true. Further arrivals are dropped and counted.",
+	"showUsage" => 0,
+};
+
+$parameters{"randomSeed"} = {
+	"type"      => "=i",
+	"default"   => 0,
+	"parent"    => "workloadDriver",
+	"usageText" => "The seed for the random number generators of the workload driver.\n\t"
+	  . "Runs with the same non-zero seed make the same random choices.\n\t"
+	  . "If 0, a seed is chosen at random and logged by the driver.",
+	"showUsage" => 0,
+};
+$parameters{"driverUseHttp2"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "workloadDriver",
+	"usageText" => "If true, each simulated user sends its requests as HTTP/2 streams multiplexed on one\n\t"
+	  . "connection per server, using h2c for http and h2 negotiated with ALPN for https.",
+	"showUsage" => 0,
+};
+
 $parameters{"driverControllerJvmOpts"} = {
 	"type"      => "=s",
 	"default"   => "-Xmx1g -Xms1g -XX:+AlwaysPreTouch",
@@ -2132,6 +2283,30 @@ $parameters{"appServerWarmerIterations"} = {
 	"showUsage" => 0,
 };
 
+$parameters{"appServerWarmerMode"} = {
+	"type"      => "=s",
+	"default"   => "blocking",
+	"parent"    => "appServer",
+	"usageText" => "Whether the appServer warmer uses blocking threads or a non-blocking client.\n\tValues: blocking, async",
+	"showUsage" => 0,
+};
+
+$parameters{"appServerWarmerConcurrency"} = {
+	"type"      => "=i",
+	"default"   => 32,
+	"parent"    => "appServer",
+	"usageText" => "Number of concurrent warm-up sessions when appServerWarmerMode is async.",
+	"showUsage" => 0,
+};
+
+$parameters{"appServerWarmerAdaptive"} = {
+	"type"      => "!",
+	"default"   => JSON::false,
+	"parent"    => "appServer",
+	"usageText" => "If true, the appServer warmer stops once the request latencies have converged,\n\twith appServerWarmerIterations as an upper bound.",
+	"showUsage" => 0,
+};
+
 $parameters{"auctionBidServerThreads"} = {
 	"type"      => "=i",
 	"default"   => 48,
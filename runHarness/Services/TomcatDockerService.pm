@@ -135,6 +135,13 @@ override 'create' => sub {
 		$envVarMapWarmer{"WARMER_JVMOPTS"} = "\"$warmerJvmOpts\"";
 		$envVarMapWarmer{"WARMER_THREADS_PER_SERVER"} = $self->getParamValue('appServerWarmerThreadsPerServer');
 		$envVarMapWarmer{"WARMER_ITERATIONS"} = $self->getParamValue('appServerWarmerIterations');
+		$envVarMapWarmer{"WARMER_MODE"} = $self->getParamValue('appServerWarmerMode');
+		$envVarMapWarmer{"WARMER_CONCURRENCY"} = $self->getParamValue('appServerWarmerConcurrency');
+		if ($self->getParamValue('appServerWarmerAdaptive')) {
+			$envVarMapWarmer{"WARMER_ADAPTIVE"} = "true";
+		} else {
+			$envVarMapWarmer{"WARMER_ADAPTIVE"} = "false";
+		}
 
 		my $warmerPort = 8888;
 		my %portMapWarmer;
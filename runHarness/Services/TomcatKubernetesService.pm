@@ -86,6 +86,19 @@ sub configure {
 		elsif ( $inline =~ /WARMER_ITERATIONS/ ) {
 			print FILEOUT "  WARMER_ITERATIONS: \"" . $self->getParamValue('appServerWarmerIterations') . "\"\n";
 		}
+		elsif ( $inline =~ /WARMER_MODE:/ ) {
+			print FILEOUT "  WARMER_MODE: \"" . $self->getParamValue('appServerWarmerMode') . "\"\n";
+		}
+		elsif ( $inline =~ /WARMER_CONCURRENCY:/ ) {
+			print FILEOUT "  WARMER_CONCURRENCY: \"" . $self->getParamValue('appServerWarmerConcurrency') . "\"\n";
+		}
+		elsif ( $inline =~ /WARMER_ADAPTIVE:/ ) {
+			if ($self->getParamValue('appServerWarmerAdaptive')) {
+				print FILEOUT "  WARMER_ADAPTIVE: \"true\"\n";
+			} else {
+				print FILEOUT "  WARMER_ADAPTIVE: \"false\"\n";
+			}
+		}
 		elsif ( $inline =~ /TOMCAT_THREADS:/ ) {
 			print FILEOUT "  TOMCAT_THREADS: \"$threads\"\n";
 		}
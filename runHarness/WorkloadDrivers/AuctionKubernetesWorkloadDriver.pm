@@ -102,6 +102,7 @@ sub configureWkldController {
 	
 	# Calculate the values for the environment variables used by the auctiondatamanager container
 	my $driverThreads                       = $self->getParamValue('driverThreads');
+	my $randomSeed                          = $self->getParamValue('randomSeed');
 	my $driverHttpThreads                   = $self->getParamValue('driverHttpThreads');
 	my $maxConnPerUser                      = $self->getParamValue('driverMaxConnPerUser');
 	my $driverJvmOpts           = $self->getParamValue('driverControllerJvmOpts');
@@ -124,6 +125,9 @@ sub configureWkldController {
 	if ( $driverThreads > 0 ) {
 		$driverJvmOpts .= " -DNUMSCHEDULEDPOOLTHREADS=" . $driverThreads . " ";
 	}
+	if ( $randomSeed != 0 ) {
+		$driverJvmOpts .= " -DRUNSEED=" . $randomSeed . " ";
+	}
 
 	open( FILEIN,  "$configDir/kubernetes/auctionworkloadcontroller.yaml" ) or die "$configDir/kubernetes/auctionworkloadcontroller.yaml: $!\n";
 	open( FILEOUT, ">/tmp/auctionworkloadcontroller-$namespace.yaml" )             or die "Can't open file /tmp/auctionworkloadcontroller-$namespace.yaml: $!\n";	
@@ -175,6 +179,8 @@ sub configureWkldDriver {
 
 	# Calculate the values for the environment variables used by the auctiondatamanager container
 	my $driverThreads                       = $self->getParamValue('driverThreads');
+	my $randomSeed                          = $self->getParamValue('randomSeed');
+	my $useHttp2                            = $self->getParamValue('driverUseHttp2');
 	my $driverHttpThreads                   = $self->getParamValue('driverHttpThreads');
 	my $maxConnPerUser                      = $self->getParamValue('driverMaxConnPerUser');
 	my $driverJvmOpts           = $self->getParamValue('driverJvmOpts');
@@ -197,6 +203,12 @@ sub configureWkldDriver {
 	if ( $driverThreads > 0 ) {
 		$driverJvmOpts .= " -DNUMSCHEDULEDPOOLTHREADS=" . $driverThreads . " ";
 	}
+	if ( $randomSeed != 0 ) {
+		$driverJvmOpts .= " -DRUNSEED=" . $randomSeed . " ";
+	}
+	if ( $useHttp2 ) {
+		$driverJvmOpts .= " -DUSEHTTP2=true ";
+	}
 
 	open( FILEIN,  "$configDir/kubernetes/auctionworkloaddriver.yaml" ) or die "$configDir/kubernetes/auctionworkloaddriver.yaml: $!\n";
 	open( FILEOUT, ">/tmp/auctionworkloaddriver-$namespace.yaml" )             or die "Can't open file /tmp/auctionworkloaddriver-$namespace.yaml: $!\n";	
@@ -433,6 +445,8 @@ override 'getStatsFiles' => sub {
 	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-loadPath1-allSamples.csv", "$destinationPath/appInstance${workloadNum}-loadPath1-allSamples.csv" );
 	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-periodic.csv", "$destinationPath/appInstance${workloadNum}-periodic.csv" );
 	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-periodic-allSamples.csv", "$destinationPath/appInstance${workloadNum}-periodic-allSamples.csv" );
+	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-loadPath1-allSamples.smile.gz", "$destinationPath/appInstance${workloadNum}-loadPath1-allSamples.smile.gz" );
+	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-periodic-allSamples.smile.gz", "$destinationPath/appInstance${workloadNum}-periodic-allSamples.smile.gz" );
 	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=controller", "wkldcontroller", $namespace, "/tmp/appInstance${workloadNum}-loadPath1-summary.txt", "$destinationPath/appInstance${workloadNum}-loadPath1-summary.txt" );
 	$self->host->kubernetesCopyFromFirst("app=auction,tier=driver,type=node", "wklddriver", $namespace, "/tmp/gc-W${workloadNum}.log", "$destinationPath/gc-W${workloadNum}-wklddriver.log" );
 };
@@ -439,6 +439,16 @@ sub createRunConfigHash {
 			$workload->{"useThinkTime"} = JSON::false;
 		}
 
+		if ( $self->getParamValue('openLoop') ) {
+			$workload->{"openLoop"}          = JSON::true;
+			$workload->{"arrivalProcess"}    = $self->getParamValue('arrivalProcess');
+			$workload->{"maxRate"}           = $self->getParamValue('maxArrivalRate');
+			$workload->{"maxQueuedArrivals"} = $self->getParamValue('maxQueuedArrivals');
+		}
+		else {
+			$workload->{"openLoop"} = JSON::false;
+		}
+
 		$workload->{"type"}             = "auction";
 		$workload->{"usersScaleFactor"} = $usersScaleFactor;
 		$workload->{"usersPerAuction"}  = $usersPerAuctionScaleFactor;
@@ -506,6 +516,18 @@ sub createRunConfigHash {
 			$loadPath->{"qosPeriodSec"} = $self->getParamValue('qosPeriodSec');
 			$loadPath->{"initialRampRateStep"} = $self->getParamValue('initialRampRateStep');
 			$loadPath->{"findMaxStopPct"} = $self->getParamValue('findMaxStopPct');
+			if ( $self->getParamValue('findMaxSequential') ) {
+				$loadPath->{"sequentialIntervals"} = JSON::true;
+			}
+			else {
+				$loadPath->{"sequentialIntervals"} = JSON::false;
+			}
+			$loadPath->{"decisionPeriodSec"} = $self->getParamValue('findMaxDecisionSec');
+			$loadPath->{"confidenceLevel"} = $self->getParamValue('findMaxConfidence');
+			$loadPath->{"throughputPrecision"} = $self->getParamValue('findMaxThroughputPrecision');
+			if (($loadPathType eq "findmax") && ($self->getParamValue('findMaxSearch') eq "bisect")) {
+				$loadPath->{"type"} = "bisectfindmax";
+			}
 		}
 		elsif ( $loadPathType eq "ramptomax" ) {
 			$logger->debug(
@@ -791,6 +813,8 @@ sub startAuctionWorkloadDriverContainer {
 
 	# Calculate the values for the environment variables used by the auctiondatamanager container
 	my $driverThreads                       = $driver->getParamValue('driverThreads');
+	my $randomSeed                          = $driver->getParamValue('randomSeed');
+	my $useHttp2                            = $driver->getParamValue('driverUseHttp2');
 	my $driverHttpThreads                   = $driver->getParamValue('driverHttpThreads');
 	my $maxConnPerUser                      = $driver->getParamValue('driverMaxConnPerUser');
 
@@ -808,6 +832,12 @@ sub startAuctionWorkloadDriverContainer {
 	if ( $driverThreads > 0 ) {
 		$driverJvmOpts .= " -DNUMSCHEDULEDPOOLTHREADS=" . $driverThreads . " ";
 	}
+	if ( $randomSeed != 0 ) {
+		$driverJvmOpts .= " -DRUNSEED=" . $randomSeed . " ";
+	}
+	if ( $useHttp2 ) {
+		$driverJvmOpts .= " -DUSEHTTP2=true ";
+	}
 	my %envVarMap;
 	my $port = $driver->portMap->{'http'};
 	$envVarMap{"PORT"} = $port;	
@@ -1881,6 +1911,8 @@ sub getStatsFiles {
 	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-loadPath1-allSamples.csv", "$destinationPath/." );
 	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-periodic.csv", "$destinationPath/." );
 	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-periodic-allSamples.csv", "$destinationPath/." );
+	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-loadPath1-allSamples.smile.gz", "$destinationPath/." );
+	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-periodic-allSamples.smile.gz", "$destinationPath/." );
 	$self->host->dockerCopyFrom( $applog, $name, "/tmp/appInstance${workloadNum}-loadPath1-summary.txt", "$destinationPath/." );
 
 	my $secondariesRef = $self->secondaries;
@@ -237,10 +237,10 @@ public class AuctionUser extends User {
 		this.setOperationFactory(new AuctionOperationFactory());
 		this.setTransitionChooserFactory(new AuctionTransitionChooserFactory());
 		
-		_randomGenerator = new Random();
+		_randomGenerator = _randomNumberGenerator.split();
 
-		_allBidStrategies.add(new LowerRandomBidStrategy());
-		_allBidStrategies.add(new RandomBidStrategy());
+		_allBidStrategies.add(new LowerRandomBidStrategy(_randomNumberGenerator.split()));
+		_allBidStrategies.add(new RandomBidStrategy(_randomNumberGenerator.split()));
 	}
 
 	@Override
@@ -7,7 +7,6 @@ package com.vmware.weathervane.workloadDriver.benchmarks.auction.common;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +18,6 @@ public class AuctionValueGenerator {
 	private static final String LASTNAME="Doe";
 	private static final String PASSWORD="password";
 	private static final String DOMAIN="foobar.xyz";
-		
-	Random ranGen = new Random();
 	
 	public AuctionValueGenerator() {
 
@@ -7,7 +7,6 @@ package com.vmware.weathervane.workloadDriver.benchmarks.auction.operations;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,8 +51,6 @@ public class JoinAuctionOperation extends AuctionOperation implements NeedsLogin
 		ContainsAttendedAuctions,  NeedsCurrentItem, NeedsCurrentBid, NeedsUsersPerAuction, 
 		NeedsFirstAuctionId, NeedsGlobalOrderingId {
 
-	private static Random _random = new Random();
-	
 	private CurrentAuctionListener _currentAuctionListener;
 	private CurrentItemListener _currentItemListener;
 	private CurrentBidListener _currentBidListener;
@@ -176,7 +173,7 @@ public class JoinAuctionOperation extends AuctionOperation implements NeedsLogin
 		/*
 		 * Pick an auction to attend, out of the allowable set, at random
 		 */
-		int offset = _random.nextInt(_maxNumAsyncBehaviors);
+		int offset = getRandomNumberGenerator().nextInt(_maxNumAsyncBehaviors);
 		logger.info("JoinAuctionOperation:initialStep behaviorID = " + this.getBehaviorId() + " userId = "
 				+ _userId + ", globalOrderingId = " + globalOrderingId + ", usersPerAuction = " 
 				+ _usersPerAuction + ", maxNumAsyncBehaviors = " + _maxNumAsyncBehaviors 
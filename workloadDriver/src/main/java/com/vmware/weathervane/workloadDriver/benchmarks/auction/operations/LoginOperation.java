@@ -85,9 +85,9 @@ public class LoginOperation extends AuctionOperation implements  NeedsPersonName
 		BidStrategy choice = null;
 		if (this.getBehavior().getBehaviorSpec().getName().equals("auctionRevisedMainUser") 
 				|| this.getBehavior().getBehaviorSpec().getName().equals("auctionMainUser2")) {
-			choice = new LowerRandomBidStrategy();
+			choice = new LowerRandomBidStrategy(getUser().getRandomNumberGenerator().split());
 		} else {
-			choice = new RandomBidStrategy();
+			choice = new RandomBidStrategy(getUser().getRandomNumberGenerator().split());
 		}
 		_bidStrategyChooser.setChosen(choice);
 
@@ -23,8 +23,12 @@ public class LowerRandomBidStrategy implements BidStrategy {
 	
 	Random randGen;
 	
-	public LowerRandomBidStrategy() {
-		randGen = new Random();
+	/*
+	 * The generator should be a split of the user's generator, so that the
+	 * bids are repeatable for a given run seed and not shared between users
+	 */
+	public LowerRandomBidStrategy(Random randGen) {
+		this.randGen = randGen;
 	}
 	
 	
@@ -23,8 +23,12 @@ public class RandomBidStrategy implements BidStrategy {
 	
 	Random randGen;
 	
-	public RandomBidStrategy() {
-		randGen = new Random();
+	/*
+	 * The generator should be a split of the user's generator, so that the
+	 * bids are repeatable for a given run seed and not shared between users
+	 */
+	public RandomBidStrategy(Random randGen) {
+		this.randGen = randGen;
 	}
 	
 	
@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import com.vmware.weathervane.workloadDriver.common.chooser.TransitionChooser;
 import com.vmware.weathervane.workloadDriver.common.chooser.TransitionChooserResponse;
+import com.vmware.weathervane.workloadDriver.common.core.target.ArrivalGenerator;
 import com.vmware.weathervane.workloadDriver.common.core.target.Target;
 import com.vmware.weathervane.workloadDriver.common.http.HttpTransport;
 import com.vmware.weathervane.workloadDriver.common.random.NegativeExponential;
@@ -65,7 +66,7 @@ public class Behavior implements OperationCompleteCallback {
 	 */
 	private Behavior _pendingAsyncBehavior = null;
 
-	private boolean _stop = false;
+	private volatile boolean _stop = false;
 
 	private StatsCollector _statsCollector = null;
 
@@ -110,7 +111,7 @@ public class Behavior implements OperationCompleteCallback {
 		// Give this behavior a unique If
 		_behaviorId = UUID.randomUUID();
 
-		_randomNumberGenerator = new java.util.Random();
+		_randomNumberGenerator = user.getRandomNumberGenerator().split();
 
 		// Create the transition chooser objects for the behavior
 		_transitionChoosers = getTransitionChoosers();
@@ -190,83 +191,80 @@ public class Behavior implements OperationCompleteCallback {
 
 		
 		/*
-		 * Only one behavior per user can be going through the 
-		 * completion process or startNextOp process at a time
+		 * All of the behaviors of a user run on the user's event loop, so only
+		 * one of them can be going through the completion process or
+		 * startNextOp process at a time.
 		 */
-		synchronized (_user) {
-						
-			if (logger.isDebugEnabled()) {
+		if (logger.isDebugEnabled()) {
+			String msg = "Behavior:operationComplete User " + _user.getId()
+					+ ", Behavior UUID = " + _behaviorId;
+			if (_parentBehavior != null) {
+				msg += ", Parent Behavior UUID = " + getParentBehavior().getBehaviorId();
+			}
+			msg += ", operation = " + _currentOperation.getOperationName();
+			logger.debug(msg);
+		}
+
+		/*
+		 * Check whether the just completed operation is one that causes a
+		 * reset of the user state (e.g. a logout)
+		 */
+		Boolean[] resetState = _behaviorSpec.getIsResetState();
+		if (resetState[_currentOperation.getOperationIndex()]) {
+			/*
+			 * The last operation was a reset state. Reset the user
+			 */
+			if (logger.isInfoEnabled()) {
 				String msg = "Behavior:operationComplete User " + _user.getId()
 						+ ", Behavior UUID = " + _behaviorId;
 				if (_parentBehavior != null) {
 					msg += ", Parent Behavior UUID = " + getParentBehavior().getBehaviorId();
 				}
-				msg += ", operation = " + _currentOperation.getOperationName();
-				logger.debug(msg);
+				msg += ", operation = " + _currentOperation.getOperationName()
+						+ " Resetting user and restarting ";
+				logger.info(msg);
 			}
 
 			/*
-			 * Check whether the just completed operation is one that causes a
-			 * reset of the user state (e.g. a logout)
+			 * The last operation was a reset state. Let the user know to
+			 * reset. This will stop this behavior and start a new behavior
 			 */
-			Boolean[] resetState = _behaviorSpec.getIsResetState();
-			if (resetState[_currentOperation.getOperationIndex()]) {
-				/*
-				 * The last operation was a reset state. Reset the user
-				 */
-				if (logger.isInfoEnabled()) {
-					String msg = "Behavior:operationComplete User " + _user.getId()
-							+ ", Behavior UUID = " + _behaviorId;
-					if (_parentBehavior != null) {
-						msg += ", Parent Behavior UUID = " + getParentBehavior().getBehaviorId();
-					}
-					msg += ", operation = " + _currentOperation.getOperationName()
-							+ " Resetting user and restarting ";
-					logger.info(msg);
-				}
+			_user.reset();
+		}
 
-				/*
-				 * The last operation was a reset state. Let the user know to
-				 * reset. This will stop this behavior and start a new behavior
-				 */
-				_user.reset();
-			}
+		/*
+		 * Only undertake the steps required to set up and run the next
+		 * operation if this behavior has not been told to stop and it is
+		 * not time to end.
+		 */
+		if (!_stop) {
 
 			/*
-			 * Only undertake the steps required to set up and run the next
-			 * operation if this behavior has not been told to stop and it is
-			 * not time to end.
+			 * Decide whether any sub-behavior should be stopped. This was
+			 * decided by the transition chooser of the previous operation
 			 */
-			if (!_stop) {
-
-				/*
-				 * Decide whether any sub-behavior should be stopped. This was
-				 * decided by the transition chooser of the previous operation
-				 */
-				if (_behaviorsToStopOnOperationComplete != null) {
-					for (UUID id : _behaviorsToStopOnOperationComplete) {
-						logger.debug("Behavior:operationComplete User " + _user.getId()
-								+ ", Behavior UUID = " + _behaviorId
-								+ " Based on previous transition, stopping subbehavior with UUID "
-								+ id);
-						_subBehaviors.get(id).stop();
-					}
-				}
-
-				/*
-				 * Check whether we previously decided that what is now the last
-				 * operation should start an asynchronous behavior
-				 */
-				if (_pendingAsyncBehavior != null) {
-					_subBehaviors.put(_pendingAsyncBehavior.getBehaviorId(), _pendingAsyncBehavior);
-					_pendingAsyncBehavior.start();
-					_activeSubBehaviors.add(_pendingAsyncBehavior.getBehaviorId());
-					
-					_pendingAsyncBehavior = null;
+			if (_behaviorsToStopOnOperationComplete != null) {
+				for (UUID id : _behaviorsToStopOnOperationComplete) {
+					logger.debug("Behavior:operationComplete User " + _user.getId()
+							+ ", Behavior UUID = " + _behaviorId
+							+ " Based on previous transition, stopping subbehavior with UUID "
+							+ id);
+					_subBehaviors.get(id).stop();
 				}
+			}
 
+			/*
+			 * Check whether we previously decided that what is now the last
+			 * operation should start an asynchronous behavior
+			 */
+			if (_pendingAsyncBehavior != null) {
+				_subBehaviors.put(_pendingAsyncBehavior.getBehaviorId(), _pendingAsyncBehavior);
+				_pendingAsyncBehavior.start();
+				_activeSubBehaviors.add(_pendingAsyncBehavior.getBehaviorId());
+				
+				_pendingAsyncBehavior = null;
 			}
-			
+
 		}
 				
 		// Now start the next operation
@@ -277,197 +275,205 @@ public class Behavior implements OperationCompleteCallback {
 	protected void startNextOperation(boolean firstOp) {
 
 		/*
-		 * Only one behavior per user can be going through the 
-		 * completion process or startNextOp process at a time
+		 * All of the behaviors of a user run on the user's event loop, so only
+		 * one of them can be going through the completion process or
+		 * startNextOp process at a time.
 		 */
-		synchronized (_user) {
-			logger.debug("startNextOperation User = " + _user.getId() + ", Behavior UUID = "
-					+ _behaviorId );
-
-			if (_stop) {
-				logger.debug("startNextOperation: Stopping User = " + _user.getId()
-						+ ", behavior = " + _behaviorId);
-				return;
-			}
-
-			TransitionChooserResponse chooserResponse = null;
-			if (firstOp) {
-				/*
-				 * There is no transition chooser for the initial operation, so
-				 * we just send along a dummy transitionChooserResponse.
-				 */
-				chooserResponse = new TransitionChooserResponse(0, null, null, null);
-
-			} else {
+		logger.debug("startNextOperation User = " + _user.getId() + ", Behavior UUID = "
+				+ _behaviorId );
 
-				/*
-				 * Set up the transition chooser for the just completed
-				 * operation with all of the data it needs to make the
-				 * transition decisions
-				 */
-				String transitionChooserName = _behaviorSpec.getTransitionChoosers()[_currentOperation
-						.getOperationIndex()];
-				TransitionChooser chooserForCompletedOp = _transitionChoosers.get(transitionChooserName);
-				_user.prepareSharedData(chooserForCompletedOp, _behaviorId, _behaviorId);
+		if (_stop) {
+			logger.debug("startNextOperation: Stopping User = " + _user.getId()
+					+ ", behavior = " + _behaviorId);
+			return;
+		}
 
-				/*
-				 * Use the transitionChooser for the current operation to select
-				 * the information needed for selecting the next operation and
-				 * the data on which it should operate
-				 */
-				try {
-					chooserResponse = chooserForCompletedOp.chooseTransition();
-				} catch (RuntimeException ex) {
-					if (logger.isWarnEnabled()) {
-						logger.warn("startNextOperation Exception when choosing transition.  AsyncId = " + _behaviorId + " Exception: " + ex.getMessage()
-								+ ". Operation = " + _currentOperation.getOperationName());
-						ex.printStackTrace();
-					}
-					/*
-					 * Restart the user
-					 */
-					_user.reset();
-				}
+		TransitionChooserResponse chooserResponse = null;
+		if (firstOp) {
+			/*
+			 * There is no transition chooser for the initial operation, so
+			 * we just send along a dummy transitionChooserResponse.
+			 */
+			chooserResponse = new TransitionChooserResponse(0, null, null, null);
 
-				// Save the list of behaviors to stop after this operation
-				_behaviorsToStopOnOperationComplete = chooserResponse.getBehaviorsToStopAtEnd();
-				
-				/* 
-				 * Clean up the current operation
-				 */
-				_currentOperation.stop();
+		} else {
 
-			}
+			/*
+			 * Set up the transition chooser for the just completed
+			 * operation with all of the data it needs to make the
+			 * transition decisions
+			 */
+			String transitionChooserName = _behaviorSpec.getTransitionChoosers()[_currentOperation
+					.getOperationIndex()];
+			TransitionChooser chooserForCompletedOp = _transitionChoosers.get(transitionChooserName);
+			_user.prepareSharedData(chooserForCompletedOp, _behaviorId, _behaviorId);
 
 			/*
-			 * Check whether the transitionChooser selected any async behaviors
-			 * to be stopped before the next operation executes.
+			 * Use the transitionChooser for the current operation to select
+			 * the information needed for selecting the next operation and
+			 * the data on which it should operate
 			 */
-			if (chooserResponse.getBehaviorsToStopAtStart() != null) {
-				for (UUID id : chooserResponse.getBehaviorsToStopAtStart()) {
-					logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
-							+ _behaviorId + " Stopping subbehavior with UUID " + id);
-					_subBehaviors.get(id).stop();
+			try {
+				chooserResponse = chooserForCompletedOp.chooseTransition();
+			} catch (RuntimeException ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("startNextOperation Exception when choosing transition.  AsyncId = " + _behaviorId + " Exception: " + ex.getMessage()
+							+ ". Operation = " + _currentOperation.getOperationName());
+					ex.printStackTrace();
 				}
+				/*
+				 * Restart the user
+				 */
+				_user.reset();
 			}
 
-			// Get the start time for the next operation
-			long operationStartTime = nextStartTime();
-
-			// Choose the next operation to execute
-			_currentOperation = nextRequest(chooserResponse.getChosenTransitionMatrix());
-			int currentOpIndex = _currentOperation.getOperationIndex();
-
-			// Choose the cycleTime for the new operation
-			chooseCycleTime(_currentOperation);			
+			// Save the list of behaviors to stop after this operation
+			_behaviorsToStopOnOperationComplete = chooserResponse.getBehaviorsToStopAtEnd();
 			
-			/*
-			 * Check whether the next operation will initiate an asynchronous
-			 * behavior. If so, set up for the async behavior so that any data
-			 * generated by the next operation that is specific to a single
-			 * async behavior can be associated with the asyncId of the yet to
-			 * be created thread.
+			/* 
+			 * Clean up the current operation
 			 */
-			String[] asyncBehaviors = _behaviorSpec.getAsyncBehaviors();
-			if ((asyncBehaviors != null) && !asyncBehaviors[currentOpIndex].equals("none")
-					&& (_activeSubBehaviors.size() < _behaviorSpec.getMaxNumAsyncBehaviors())) {
-				String asyncMixName = asyncBehaviors[currentOpIndex];
-				/*
-				 * Create a new asynchronous sub-behavior
-				 */
-				BehaviorSpec spec = BehaviorSpec.getBehaviorSpec(asyncMixName);
-				_pendingAsyncBehavior = new Behavior(_user, spec,_statsCollector, _target);
-				UUID behaviorId = _pendingAsyncBehavior.getBehaviorId();
-				_pendingAsyncBehavior.setOperations(_user.getOperationFactory().getOperations(_statsCollector, _user, _pendingAsyncBehavior, _target));
-				for (Operation operation : _pendingAsyncBehavior.getOperations()) {
-					_user.prepareData(operation, behaviorId, behaviorId);
-				}
-				
-				_pendingAsyncBehavior.setTransitionChoosers(_user.getTransitionChooserFactory().getTransitionChoosers(_randomNumberGenerator, _pendingAsyncBehavior));
-				for (TransitionChooser transitionChooser : _pendingAsyncBehavior.getTransitionChoosers().values()) {
-					_user.prepareData(transitionChooser, behaviorId, behaviorId);
-				}
-				
-				_pendingAsyncBehavior.setHttpTransport(_httpTransport);
-				_pendingAsyncBehavior.setParentBehavior(this);
+			_currentOperation.stop();
+
+		}
+
+		/*
+		 * Check whether the transitionChooser selected any async behaviors
+		 * to be stopped before the next operation executes.
+		 */
+		if (chooserResponse.getBehaviorsToStopAtStart() != null) {
+			for (UUID id : chooserResponse.getBehaviorsToStopAtStart()) {
 				logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
-						+ _behaviorId + " created new subbehavior with behaviorId = " + _pendingAsyncBehavior.getBehaviorId());
+						+ _behaviorId + " Stopping subbehavior with UUID " + id);
+				_subBehaviors.get(id).stop();
 			}
+		}
 
+		// Get the start time for the next operation
+		long operationStartTime = nextStartTime();
+
+		// Choose the next operation to execute
+		_currentOperation = nextRequest(chooserResponse.getChosenTransitionMatrix());
+		int currentOpIndex = _currentOperation.getOperationIndex();
+
+		// Choose the cycleTime for the new operation
+		chooseCycleTime(_currentOperation);			
+		
+		/*
+		 * Check whether the next operation will initiate an asynchronous
+		 * behavior. If so, set up for the async behavior so that any data
+		 * generated by the next operation that is specific to a single
+		 * async behavior can be associated with the asyncId of the yet to
+		 * be created thread.
+		 */
+		String[] asyncBehaviors = _behaviorSpec.getAsyncBehaviors();
+		if ((asyncBehaviors != null) && !asyncBehaviors[currentOpIndex].equals("none")
+				&& (_activeSubBehaviors.size() < _behaviorSpec.getMaxNumAsyncBehaviors())) {
+			String asyncMixName = asyncBehaviors[currentOpIndex];
 			/*
-			 * Check whether the next operation is one that causes subBehaviors
-			 * to be stopped. If so, stop them.
+			 * Create a new asynchronous sub-behavior
 			 */
-			logger.debug("Checking if next operation is a reset state for opIndex " + currentOpIndex);
-			Boolean[] resetState = _behaviorSpec.getIsResetState();
-			if (resetState[currentOpIndex]) {
-				/*
-				 * The next operation is a reset state. Stop the subBehaviors
-				 */
-				if (logger.isInfoEnabled()) {
-					String msg = "Behavior:startNextOperation User " + _user.getId()
-							+ ", Behavior UUID = " + _behaviorId;
-					if (_parentBehavior != null) {
-						msg += ", Parent Behavior UUID = " + getParentBehavior().getBehaviorId();
-					}
-					msg += ", operation = " + _currentOperation.getOperationName()
-							+ " Stopping sub-behaviors: ";
-					msg += this.getSubBehaviorIdsString();
-					logger.info(msg);
-				}
-
-				/*
-				 * Stop all of the sub-behaviors
-				 */
-				List<Behavior> subBehaviorList = new ArrayList<Behavior>(_subBehaviors.values());
-				for (Behavior behavior : subBehaviorList) {
-					_activeSubBehaviors.remove(behavior.getBehaviorId());
-					behavior.stop();
-				}
+			BehaviorSpec spec = BehaviorSpec.getBehaviorSpec(asyncMixName);
+			_pendingAsyncBehavior = new Behavior(_user, spec,_statsCollector, _target);
+			UUID behaviorId = _pendingAsyncBehavior.getBehaviorId();
+			_pendingAsyncBehavior.setOperations(_user.getOperationFactory().getOperations(_statsCollector, _user, _pendingAsyncBehavior, _target));
+			for (Operation operation : _pendingAsyncBehavior.getOperations()) {
+				_user.prepareData(operation, behaviorId, behaviorId);
+			}
+			
+			_pendingAsyncBehavior.setTransitionChoosers(_user.getTransitionChooserFactory().getTransitionChoosers(_randomNumberGenerator, _pendingAsyncBehavior));
+			for (TransitionChooser transitionChooser : _pendingAsyncBehavior.getTransitionChoosers().values()) {
+				_user.prepareData(transitionChooser, behaviorId, behaviorId);
 			}
+			
+			_pendingAsyncBehavior.setHttpTransport(_httpTransport);
+			_pendingAsyncBehavior.setParentBehavior(this);
+			logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
+					+ _behaviorId + " created new subbehavior with behaviorId = " + _pendingAsyncBehavior.getBehaviorId());
+		}
 
+		/*
+		 * Check whether the next operation is one that causes subBehaviors
+		 * to be stopped. If so, stop them.
+		 */
+		logger.debug("Checking if next operation is a reset state for opIndex " + currentOpIndex);
+		Boolean[] resetState = _behaviorSpec.getIsResetState();
+		if (resetState[currentOpIndex]) {
 			/*
-			 * For some operations, the transition chooser will indicate that
-			 * data needed by the next operation should be used from a
-			 * sub-behavior, rather than the current behavior. The ID of that
-			 * behavior is the selectedAsyncId
+			 * The next operation is a reset state. Stop the subBehaviors
 			 */
-			_selectedAsyncId = chooserResponse.getBehaviorToUseAsDataSource();
-			if (_selectedAsyncId == null) {
-				_selectedAsyncId = _behaviorId;
+			if (logger.isInfoEnabled()) {
+				String msg = "Behavior:startNextOperation User " + _user.getId()
+						+ ", Behavior UUID = " + _behaviorId;
+				if (_parentBehavior != null) {
+					msg += ", Parent Behavior UUID = " + getParentBehavior().getBehaviorId();
+				}
+				msg += ", operation = " + _currentOperation.getOperationName()
+						+ " Stopping sub-behaviors: ";
+				msg += this.getSubBehaviorIdsString();
+				logger.info(msg);
 			}
-			logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
-					+ _behaviorId + " behaviorToUseAsDataSource for currentOperation "
-					+ _currentOperation.getOperationName() + " is " + _selectedAsyncId);
 
 			/*
-			 * If there is an async behavior that will start after this
-			 * operation completes, then the data from this operation should be
-			 * stored using the UUID of that behavior.
+			 * Stop all of the sub-behaviors
 			 */
-			UUID pendingAsyncBehaviorId = _selectedAsyncId;
-			if (_pendingAsyncBehavior != null) {
-				pendingAsyncBehaviorId = _pendingAsyncBehavior.getBehaviorId();
+			List<Behavior> subBehaviorList = new ArrayList<Behavior>(_subBehaviors.values());
+			for (Behavior behavior : subBehaviorList) {
+				_activeSubBehaviors.remove(behavior.getBehaviorId());
+				behavior.stop();
 			}
-			logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
-					+ _behaviorId + " behaviorToUseAsDataSink for currentOperation "
-					+ _currentOperation.getOperationName() + " is " + pendingAsyncBehaviorId);
+		}
 
-			_user.prepareSharedData((Operation) _currentOperation, _selectedAsyncId,
-					pendingAsyncBehaviorId);
-			// rememberOperation((GenericOperation) _currentOperation);
+		/*
+		 * For some operations, the transition chooser will indicate that
+		 * data needed by the next operation should be used from a
+		 * sub-behavior, rather than the current behavior. The ID of that
+		 * behavior is the selectedAsyncId
+		 */
+		_selectedAsyncId = chooserResponse.getBehaviorToUseAsDataSource();
+		if (_selectedAsyncId == null) {
+			_selectedAsyncId = _behaviorId;
+		}
+		logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
+				+ _behaviorId + " behaviorToUseAsDataSource for currentOperation "
+				+ _currentOperation.getOperationName() + " is " + _selectedAsyncId);
 
-			long now = System.currentTimeMillis();
-			long opStartDelay = operationStartTime - now;
-			if (opStartDelay < 0) {
-				opStartDelay = 0;
-			}
+		/*
+		 * If there is an async behavior that will start after this
+		 * operation completes, then the data from this operation should be
+		 * stored using the UUID of that behavior.
+		 */
+		UUID pendingAsyncBehaviorId = _selectedAsyncId;
+		if (_pendingAsyncBehavior != null) {
+			pendingAsyncBehaviorId = _pendingAsyncBehavior.getBehaviorId();
+		}
+		logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
+				+ _behaviorId + " behaviorToUseAsDataSink for currentOperation "
+				+ _currentOperation.getOperationName() + " is " + pendingAsyncBehaviorId);
 
-			logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
-					+ _behaviorId + ", nextOperation = " + _currentOperation.getOperationName()
-					+ " Scheduling for " + opStartDelay + " milliseconds from now. now = " + now
-					+ " operationStartTime = " + operationStartTime);
+		_user.prepareSharedData((Operation) _currentOperation, _selectedAsyncId,
+				pendingAsyncBehaviorId);
+		// rememberOperation((GenericOperation) _currentOperation);
+
+		long now = System.currentTimeMillis();
+		long opStartDelay = operationStartTime - now;
+		if (opStartDelay < 0) {
+			opStartDelay = 0;
+		}
 
+		logger.debug("startNextOperation User " + _user.getId() + ", Behavior UUID = "
+				+ _behaviorId + ", nextOperation = " + _currentOperation.getOperationName()
+				+ " Scheduling for " + opStartDelay + " milliseconds from now. now = " + now
+				+ " operationStartTime = " + operationStartTime);
+
+		ArrivalGenerator arrivalGenerator = _target.getArrivalGenerator();
+		if (arrivalGenerator != null) {
+			/*
+			 * When running open-loop the operation starts when an arrival
+			 * releases it rather than after the think time.
+			 */
+			arrivalGenerator.operationReady(_currentOperation);
+		} else {
 			_currentOperation.start(opStartDelay);
 		}
 	}
@@ -491,7 +497,7 @@ public class Behavior implements OperationCompleteCallback {
 		double stdev = meanCycleTime/4.0;
 		double min = meanCycleTime - (meanCycleTime/2.0);
 		double max = meanCycleTime + (meanCycleTime/2.0);
-		long cycleTime = (long) Math.ceil(TruncatedNormal.getNext(meanCycleTime, stdev, min, max));
+		long cycleTime = (long) Math.ceil(TruncatedNormal.getNext(_randomNumberGenerator, meanCycleTime, stdev, min, max));
 		logger.debug("meanCycleTime = " + meanCycleTime + ", cycleTime = " + cycleTime);
 		operation.setCycleTime(cycleTime);
 	}
@@ -607,15 +613,11 @@ public class Behavior implements OperationCompleteCallback {
 	 * operations can query whether or not those operations have occurred
 	 */
 	public void rememberOperation(Operation operation) {
-		synchronized (_operationsRun) {
-			_operationsRun.add(operation);
-		}
+		_operationsRun.add(operation);
 	}
 
 	public void clearRememberedOperations() {
-		synchronized (_operationsRun) {
-			_operationsRun.clear();
-		}
+		_operationsRun.clear();
 	}
 
 	/**
@@ -643,11 +645,9 @@ public class Behavior implements OperationCompleteCallback {
 	 * operation of a particular type
 	 */
 	protected Operation checkForLastRememberedOperationOfType(Class<?> type) {
-		synchronized (_operationsRun) {
-			for (Operation go : _operationsRun) {
-				if (isOperationOfType(go, type)) {
-					return go;
-				}
+		for (Operation go : _operationsRun) {
+			if (isOperationOfType(go, type)) {
+				return go;
 			}
 		}
 		return null;
@@ -18,9 +18,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONObject;
@@ -47,31 +44,12 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 
 	private static final Logger logger = LoggerFactory.getLogger(Operation.class);
 	
-	private static final ScheduledExecutorService _scheduledExecutor;
-	static {
-		Integer numScheduledPoolThreads = Integer.getInteger("NUMSCHEDULEDPOOLTHREADS", 
-													8 * Runtime.getRuntime().availableProcessors());
-		_scheduledExecutor = Executors.newScheduledThreadPool(numScheduledPoolThreads);
-		
-		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
-			
-			@Override
-			public void run() {
-				_scheduledExecutor.shutdownNow();
-			}
-		}));
-		
-	}
-	
 	public static void scheduleRunnable(Runnable runnable) {
-		if (!_scheduledExecutor.isShutdown()) {
-			_scheduledExecutor.schedule(runnable, 1, TimeUnit.MICROSECONDS);
-		}
+		UserScheduler.execute(runnable);
 	}
 	
 	public static void shutdownExecutor() throws InterruptedException {
-		_scheduledExecutor.shutdown();
-		_scheduledExecutor.awaitTermination(10, TimeUnit.SECONDS);
+		UserScheduler.shutdown();
 	}
 	
 	public enum UrlType {  GET, POST;  }
@@ -178,6 +156,12 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 	 */
 	protected boolean _checkCacheForRecursive;
 
+	/*
+	 * The page cache entry for the embedded link that is being fetched. It
+	 * is updated with the validators from the response.
+	 */
+	private PageCache.CachedPage _currentCachedPage = null;
+
 	/**
 	 * The list of embedded links that need to be followed recursively for the
 	 * current operation.
@@ -209,6 +193,8 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 	
 	private long _timeStarted           = 0;
 	private long _timeFinished          = 0;
+	// Set when the operation was released by an open-loop arrival
+	private long _timeArrived           = 0;
 	
 	private Random _randomNumberGenerator;
 	
@@ -252,18 +238,23 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 		this.target = target;
 		this._statsCollector = statsCollector;
 		_nextOperationStep = 0;
+		_randomNumberGenerator = userState.getRandomNumberGenerator().split();
 	}
 	
 	
+	/*
+	 * The operation always runs on the event loop of its user, so its steps
+	 * never run concurrently with the user's behaviors.
+	 */
 	public void start(long startDelayMs) {
-		_scheduledExecutor.schedule(this, startDelayMs, TimeUnit.MILLISECONDS);
+		UserScheduler.schedule(_user.getEventLoop(), this, startDelayMs);
 	}
 	
 	private void reschedule() {
-		if (!_scheduledExecutor.isShutdown()) {
+		if (!UserScheduler.isShutdown()) {
 			logger.info("Operation:reschedule Rescheduling " + getOperationName() + " for behavior UUID "
 					+ _behavior.getBehaviorId());
-			_scheduledExecutor.schedule(this, 1, TimeUnit.MICROSECONDS);
+			UserScheduler.execute(_user.getEventLoop(), this);
 		}
 	}
 	
@@ -283,6 +274,7 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 		_numRedirectsFollowed = 0;
 		_recursive = false;
 		_checkCacheForRecursive = false;
+		_currentCachedPage = null;
 		_embeddedLinks.clear();
 		_operationCompleteCallbacks.clear();
 		_failed = false;
@@ -290,6 +282,7 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 		_failureString = null;
 		setTimeStarted(0);
 		setTimeFinished(0);
+		setTimeArrived(0);
 		_totalSteps = 0;
 	}
 
@@ -424,6 +417,11 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 				 * change in the flow of operations.
 				 */
 				int statusCode = _currentResponseStatus.code();
+				if (_currentCachedPage != null) {
+					_currentCachedPage.update(statusCode, _currentResponseHeaders, System.currentTimeMillis());
+					_currentCachedPage = null;
+				}
+
 				if (_abortResponseCodes != null) {
 					if (isAbortStatusCode(statusCode, _abortResponseCodes)) {
 						_user.reset();
@@ -450,14 +448,20 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 				 * text, then read the HttpResponse data into a string
 				 * and release the buffer. Otherwise we just release the buffer.
 				 */
+				/*
+				 * A 304 response to a conditional get of an embedded link has
+				 * no content, but the remaining embedded links still need to
+				 * be fetched.
+				 */
+				boolean notModified = (statusCode == HttpResponseStatus.NOT_MODIFIED.code());
 				if (_recursive ||  (_mustContainText != null) ||  (_listeners != null)) {
 					
-					if (_currentResponseContent == null) {
+					if ((_currentResponseContent == null) && !notModified) {
 						throw new OperationFailedException("Attempting parse null content.");
 					}
 					
 					
-					if (logger.isDebugEnabled()) {
+					if (logger.isDebugEnabled() && (_currentResponseContent != null)) {
 						if ((_currentResponseContent.charAt(0) == '{') || (_currentResponseContent.charAt(0) == '[')) {
 							// Log all of JSON objects
 							logger.debug("Operation::run.  behaviorId = " + _behavior.getBehaviorId() 
@@ -514,9 +518,10 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 							parseResourceLinksIntoUrls(_currentURI, urls, _currentResponseContent);
 						}
 
+						PageCache pageCache = this.getUser().getPageCache();
 						for (UrlToLoad url : urls) {
-							// Only add to list of URLs to get if not in cache
-							if (!this.getUser().checkCache(url.uri.toString())) {
+							// Only add to list of URLs to get if not fresh in cache
+							if (!pageCache.isFresh(url.uri.toString())) {
 								_embeddedLinks.add(url);
 							}
 						}
@@ -528,8 +533,9 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 						 */
 						while (!_embeddedLinks.isEmpty()) {
 							UrlToLoad url = _embeddedLinks.remove(0);
+							String urlString = url.uri.toString();
 
-							if (!_checkCacheForRecursive || !getUser().checkCache(url.uri.toString())) {
+							if (!_checkCacheForRecursive || !pageCache.isFresh(urlString)) {
 								/*
 								 * Only load the embedded link if we are not
 								 * checking the cache, or it is not in the cache
@@ -547,8 +553,19 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 									return;
 								}
 
-								// Cache embedded links
-								_user.cachePage(url.uri.toString());
+								/*
+								 * Cache embedded links. A stale page that has
+								 * validators is revalidated with a conditional
+								 * GET rather than fetched again.
+								 */
+								Map<String, String> conditionalHeaders = null;
+								PageCache.CachedPage cachedPage = pageCache.get(urlString);
+								if (cachedPage != null) {
+									conditionalHeaders = cachedPage.getConditionalHeaders();
+								} else {
+									cachedPage = pageCache.put(urlString);
+								}
+								_currentCachedPage = cachedPage;
 
 								logger.debug(
 										"Operation:run Fetching embedded link for behavior UUID " + _behavior.getBehaviorId() + " URL = " + url.uri.toString());
@@ -557,12 +574,18 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 								 * This recursive get will cause the
 								 * getResponseHandler to schedule this operation
 								 * again when it has completed, The only
-								 * response accepted for a recursive get is 200
-								 * - OK, and there is no mustContainsText or
+								 * responses accepted for a recursive get are 200
+								 * - OK, or 304 - Not Modified for a conditional
+								 * get, and there is no mustContainsText or
 								 * data listeners
 								 */
 								SimpleUri simpleUri = new SimpleUri(url.uri);
-								doHttpGet(simpleUri, null, new int[] { 200 }, null, url.recursive, true, null, null, null);
+								int[] validResponseCodes = new int[] { 200 };
+								if (conditionalHeaders != null) {
+									validResponseCodes = new int[] { 200, 304 };
+								}
+								doHttpGet(simpleUri, null, validResponseCodes, null, url.recursive, true, null, null,
+										conditionalHeaders);
 								return;
 							}
 						}
@@ -1150,6 +1173,8 @@ public abstract class Operation implements Runnable, HttpRequestCompleteCallback
 	public void setTimeStarted( long val ) { this._timeStarted = val; }
 	public long getTimeFinished() { return this._timeFinished; }
 	public void setTimeFinished( long val ) { this._timeFinished = val; }
+	public long getTimeArrived() { return this._timeArrived; }
+	public void setTimeArrived( long val ) { this._timeArrived = val; }
 
 	public HttpResponseStatus getCurrentResponseStatus() {
 		return _currentResponseStatus;
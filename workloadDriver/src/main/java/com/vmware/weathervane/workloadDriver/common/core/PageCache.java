@@ -0,0 +1,228 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.core;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * Emulates a user's browser cache.
+ *
+ * Entries are indexed by URL and the least recently used entry is evicted once
+ * the cache holds maxEntries pages. Each entry keeps the validators and the
+ * freshness lifetime from the response that filled it. A fresh page is served
+ * from the cache, and a stale page that has validators is revalidated with a
+ * conditional request.
+ *
+ * The cache is only accessed from the event loop of its user, so it is not
+ * synchronized.
+ */
+public class PageCache {
+	private static final Logger logger = LoggerFactory.getLogger(PageCache.class);
+
+	/*
+	 * Fraction of the time since a page was last modified for which it is
+	 * considered fresh when the response gives no explicit lifetime
+	 */
+	private static final double heuristicFreshnessFraction = 0.1;
+
+	private final int maxEntries;
+
+	private final LinkedHashMap<String, CachedPage> pages;
+
+	public PageCache(final int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.pages = new LinkedHashMap<String, CachedPage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+				return size() > PageCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Adds an entry for a page that is about to be fetched, so that other
+	 * references to the same page are not fetched at the same time. The entry
+	 * is filled in by update once the response arrives.
+	 */
+	public CachedPage put(String url) {
+		CachedPage page = pages.get(url);
+		if (page == null) {
+			page = new CachedPage();
+			pages.put(url, page);
+		}
+		return page;
+	}
+
+	public CachedPage get(String url) {
+		return pages.get(url);
+	}
+
+	public boolean contains(String url) {
+		return pages.containsKey(url);
+	}
+
+	/**
+	 * Returns true if the page can be used without contacting the server
+	 */
+	public boolean isFresh(String url) {
+		CachedPage page = pages.get(url);
+		return (page != null) && page.isFresh(System.currentTimeMillis());
+	}
+
+	public void remove(String url) {
+		pages.remove(url);
+	}
+
+	public void clear() {
+		pages.clear();
+	}
+
+	public int size() {
+		return pages.size();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public static class CachedPage {
+		private String etag = null;
+		private String lastModified = null;
+
+		/*
+		 * Until a response has been seen the page is treated as fresh, which
+		 * matches the behavior of a cache that only records which pages it has
+		 * fetched.
+		 */
+		private long expiresAt = Long.MAX_VALUE;
+		private boolean noStore = false;
+
+		/**
+		 * Updates the validators and freshness from the response to a
+		 * request for the page. A 200 response replaces the page, so its
+		 * validators and freshness are taken only from that response. A 304
+		 * response keeps the existing validators unless new ones are given.
+		 */
+		public void update(int statusCode, HttpHeaders headers, long now) {
+			if (headers == null) {
+				return;
+			}
+			if ((statusCode != 200) && (statusCode != 304)) {
+				noStore = true;
+				return;
+			}
+
+			String newEtag = headers.get(HttpHeaderNames.ETAG);
+			String newLastModified = headers.get(HttpHeaderNames.LAST_MODIFIED);
+			if (statusCode == 200) {
+				etag = newEtag;
+				lastModified = newLastModified;
+				expiresAt = Long.MAX_VALUE;
+				noStore = false;
+			} else {
+				if (newEtag != null) {
+					etag = newEtag;
+				}
+				if (newLastModified != null) {
+					lastModified = newLastModified;
+				}
+			}
+
+			Long maxAgeSeconds = null;
+			boolean noCache = false;
+			String cacheControl = headers.get(HttpHeaderNames.CACHE_CONTROL);
+			if (cacheControl != null) {
+				for (String directive : cacheControl.split(",")) {
+					directive = directive.trim().toLowerCase();
+					if (directive.equals("no-store")) {
+						noStore = true;
+					} else if (directive.equals("no-cache")) {
+						noCache = true;
+					} else if (directive.startsWith("max-age=")) {
+						try {
+							maxAgeSeconds = Long.parseLong(directive.substring("max-age=".length()));
+						} catch (NumberFormatException e) {
+							logger.debug("update: Ignoring malformed Cache-Control directive " + directive);
+						}
+					}
+				}
+			}
+
+			if (noCache) {
+				expiresAt = 0;
+			} else if (maxAgeSeconds != null) {
+				expiresAt = now + (maxAgeSeconds * 1000);
+			} else {
+				Date expires = parseDate(headers.get(HttpHeaderNames.EXPIRES));
+				Date modified = parseDate(lastModified);
+				if (expires != null) {
+					expiresAt = expires.getTime();
+				} else if (modified != null) {
+					expiresAt = now + (long) ((now - modified.getTime()) * heuristicFreshnessFraction);
+				} else if (etag != null) {
+					// Only a validator, so always revalidate
+					expiresAt = 0;
+				}
+			}
+		}
+
+		public boolean isFresh(long now) {
+			return !noStore && (now < expiresAt);
+		}
+
+		public boolean hasValidators() {
+			return !noStore && ((etag != null) || (lastModified != null));
+		}
+
+		/**
+		 * Returns the headers that turn a request for the page into a
+		 * conditional request, or null if there are no validators
+		 */
+		public Map<String, String> getConditionalHeaders() {
+			if (!hasValidators()) {
+				return null;
+			}
+			Map<String, String> headers = new HashMap<String, String>();
+			if (etag != null) {
+				headers.put(HttpHeaderNames.IF_NONE_MATCH.toString(), etag);
+			}
+			if (lastModified != null) {
+				headers.put(HttpHeaderNames.IF_MODIFIED_SINCE.toString(), lastModified);
+			}
+			return headers;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+
+		private static Date parseDate(String date) {
+			if (date == null) {
+				return null;
+			}
+			return DateFormatter.parseHttpDate(date);
+		}
+	}
+}
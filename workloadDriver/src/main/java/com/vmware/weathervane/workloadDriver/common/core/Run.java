@@ -268,9 +268,9 @@ public class Run {
 	public void changeActiveUsers(String workloadName, long numUsers) throws TooManyUsersException {
 		for (Workload workload : workloads) {
 			if (workload.getName() == workloadName) {
-				if (numUsers > workload.getMaxUsers()) {
+				if (numUsers > workload.getMaxLoad()) {
 					throw new TooManyUsersException("Workload " + workloadName 
-							+ " has a maxUsers of " + workload.getMaxUsers() + " users.");
+							+ " has a maximum load of " + workload.getMaxLoad() + ".");
 				}
 				workload.changeActiveUsers(numUsers);
 			}
@@ -24,6 +24,12 @@ public class SimpleUri {
 	private String path;
 	private String queryString;
 
+	/*
+	 * The compiled requests for this uri, kept for the http package, which
+	 * owns their type.  They are rebuilt if any part of the uri is changed.
+	 */
+	private volatile Object requestTemplates = null;
+
 	public SimpleUri(URI uri) {
 		this.scheme = uri.getScheme();
 		this.hostname = uri.getHost();
@@ -56,20 +62,6 @@ public class SimpleUri {
 
 	public String getUriString(Map<String, String> bindVariables) {
 		
-		String realPort;
-		if (port == null) {
-			realPort = "";
-		} else {
-			realPort = ":" + port.toString();
-		}
-		
-		String realServletPath;
-		if ((servletPath == null) || (servletPath.equals(""))) {
-			realServletPath = "";
-		} else {
-			realServletPath = "/" + servletPath;
-		}
-		
 		String realPath;
 		if ((path == null) || (path.equals(""))) {
 			realPath = "";
@@ -86,8 +78,37 @@ public class SimpleUri {
 		}
 		
 		
-		return scheme + "://" + hostname + realPort + realServletPath + realPath + realQueryString;
+		return getBaseUriString() + realPath + realQueryString;
+
+	}
+
+	/**
+	 * Returns the part of the uri before the path, which never has variables
+	 */
+	public String getBaseUriString() {
+		String realPort;
+		if (port == null) {
+			realPort = "";
+		} else {
+			realPort = ":" + port.toString();
+		}
+		
+		String realServletPath;
+		if ((servletPath == null) || (servletPath.equals(""))) {
+			realServletPath = "";
+		} else {
+			realServletPath = "/" + servletPath;
+		}
+
+		return scheme + "://" + hostname + realPort + realServletPath;
+	}
+
+	public Object getRequestTemplates() {
+		return requestTemplates;
+	}
 
+	public void setRequestTemplates(Object requestTemplates) {
+		this.requestTemplates = requestTemplates;
 	}
 
 	public String getScheme() {
@@ -96,6 +117,7 @@ public class SimpleUri {
 
 	public void setScheme(String scheme) {
 		this.scheme = scheme;
+		this.requestTemplates = null;
 	}
 
 	public String getPath() {
@@ -108,6 +130,7 @@ public class SimpleUri {
 
 	public void setPath(String path) {
 		this.path = path;
+		this.requestTemplates = null;
 	}
 
 	public String getQueryString() {
@@ -120,6 +143,7 @@ public class SimpleUri {
 
 	public void setQueryString(String queryString) {
 		this.queryString = queryString;
+		this.requestTemplates = null;
 	}
 
 	public String getHostname() {
@@ -128,6 +152,7 @@ public class SimpleUri {
 
 	public void setHostname(String hostname) {
 		this.hostname = hostname;
+		this.requestTemplates = null;
 	}
 
 	public int getPort() {
@@ -136,6 +161,7 @@ public class SimpleUri {
 
 	public void setPort(int port) {
 		this.port = port;
+		this.requestTemplates = null;
 	}
 
 	public String getServletPathString() {
@@ -144,6 +170,7 @@ public class SimpleUri {
 
 	public void setServletPathString(String contextPathString) {
 		this.servletPath = contextPathString;
+		this.requestTemplates = null;
 	}
 
 	private String doReplace(String str, Map<String, String> bindVariables) {
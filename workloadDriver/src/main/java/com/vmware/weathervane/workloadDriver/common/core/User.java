@@ -9,9 +9,6 @@ SPDX-License-Identifier: BSD-2-Clause
  */
 package com.vmware.weathervane.workloadDriver.common.core;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -25,8 +22,12 @@ import com.vmware.weathervane.workloadDriver.common.core.target.Target;
 import com.vmware.weathervane.workloadDriver.common.factory.OperationFactory;
 import com.vmware.weathervane.workloadDriver.common.factory.TransitionChooserFactory;
 import com.vmware.weathervane.workloadDriver.common.http.HttpTransport;
+import com.vmware.weathervane.workloadDriver.common.random.RandomSource;
+import com.vmware.weathervane.workloadDriver.common.random.SplittableRandomAdapter;
 import com.vmware.weathervane.workloadDriver.common.statistics.statsCollector.StatsCollector;
 
+import io.netty.util.concurrent.EventExecutor;
+
 /**
  * @author Hal
  * 
@@ -47,6 +48,17 @@ public abstract class User implements LoadProfileChangeCallback {
 	 */
 	private long _id;
 
+	/**
+	 * All of the work of this user runs on this event loop, so the state of
+	 * the user and its behaviors is only accessed by one thread.
+	 */
+	private final EventExecutor _eventLoop;
+
+	/**
+	 * Set once this user has been reset and replaced by a new user
+	 */
+	private boolean _replaced = false;
+
 	/**
 	 * The orderingId uniquely identifies the user in its own ScenarioTrack. It
 	 * is used when deciding which users should be running
@@ -104,21 +116,28 @@ public abstract class User implements LoadProfileChangeCallback {
 	 */
 	private ScheduledFuture<?> _resetTimerFuture = null;
 	
+	private static final Integer pageCacheMaxEntries = Integer.getInteger("PAGECACHEMAXENTRIES", 1000);
+
 	/**
 	 * Emulate the user's browser cache by storing the URLs that have been
-	 * cached.
+	 * cached, along with their validators.
 	 */
-	private List<String> _pageCache = new ArrayList<String>();
+	private PageCache _pageCache = new PageCache(pageCacheMaxEntries);
 
 	// Fields related to selecting the next operation for each behavior
 
-	protected Random _randomNumberGenerator;
+	/*
+	 * Seeded from the run seed and the id of the user. The behaviors and
+	 * operations of the user use splits of this generator.
+	 */
+	protected SplittableRandomAdapter _randomNumberGenerator;
 	
 	public User(Long id, Long orderingId, Long globalOrderingId, String behaviorSpecName, Target target) {
 
 		logger.debug("Creating user with userId " + id + ", globalOrderingId = " 
 				+ globalOrderingId + " for target " + target.getName());
 		this._id = id;
+		this._eventLoop = UserScheduler.getEventLoop(id);
 		this._orderingId = orderingId;
 		this._globalOrderingId = globalOrderingId;
 		this.setTarget(target);
@@ -126,7 +145,7 @@ public abstract class User implements LoadProfileChangeCallback {
 		
 		setUserName(Long.toString(_id));
 
-		_randomNumberGenerator = new java.util.Random();
+		_randomNumberGenerator = RandomSource.forUser(target.getWorkloadName(), _id);
 
 		_httpTransport = new HttpTransport(this);
 	}
@@ -179,13 +198,11 @@ public abstract class User implements LoadProfileChangeCallback {
 	 * @return false if already in the cache, true otherwise.
 	 */
 	public boolean cachePage(String url) {
-		synchronized (_pageCache) {
-			if (_pageCache.indexOf(url) >= 0) {
-				return false;
-			} else {
-				_pageCache.add(url);
-				return true;
-			}
+		if (_pageCache.contains(url)) {
+			return false;
+		} else {
+			_pageCache.put(url);
+			return true;
 		}
 	}
 
@@ -197,22 +214,18 @@ public abstract class User implements LoadProfileChangeCallback {
 	 * @return true if in the cache, false otherwise.
 	 */
 	public boolean checkCache(String url) {
-		synchronized (_pageCache) {
-			if (_pageCache.indexOf(url) >= 0) {
-				return true;
-			} else {
-				return false;
-			}
-		}
+		return _pageCache.contains(url);
 	}
 
 	/**
 	 * Clear the user's page cache
 	 */
 	public void clearCache() {
-		synchronized (_pageCache) {
-			_pageCache.clear();
-		}
+		_pageCache.clear();
+	}
+
+	public PageCache getPageCache() {
+		return _pageCache;
 	}
 
 	/*** STATE PER OPERATION ***/
@@ -226,6 +239,10 @@ public abstract class User implements LoadProfileChangeCallback {
 		this._id = id;
 	}
 
+	public EventExecutor getEventLoop() {
+		return _eventLoop;
+	}
+
 	public boolean isActive() {
 		return _isActive;
 	}
@@ -245,7 +262,14 @@ public abstract class User implements LoadProfileChangeCallback {
 	 * and whether the mix for its main behavior has changed.
 	 */
 	@Override
-	public void loadProfileChanged(long numActiveUsers) {
+	public void loadProfileChanged(final long numActiveUsers) {
+		UserScheduler.execute(_eventLoop, () -> changeLoadProfile(numActiveUsers));
+	}
+
+	private void changeLoadProfile(long numActiveUsers) {
+		if (_replaced) {
+			return;
+		}
 		logger.info("User:loadProfileChanged. userId = " + _id + ", orderingId = " + _orderingId 
 					+ ", isActive = " + _isActive + ", numActiveUsers = " + numActiveUsers);
 		/*
@@ -293,6 +317,10 @@ public abstract class User implements LoadProfileChangeCallback {
 	 */
 	@Override
 	public void loadProfilesComplete() {
+		UserScheduler.execute(_eventLoop, () -> completeLoadProfiles());
+	}
+
+	private void completeLoadProfiles() {
 
 		logger.debug("User:loadProfilesComplete. userId = " + _id);
 
@@ -336,6 +364,7 @@ public abstract class User implements LoadProfileChangeCallback {
 	 * 
 	 */
 	protected void reset() {
+		_replaced = true;
 		logger.info("startReset called for user " + this.getId() + ", main behavior = " + _behavior.getBehaviorId()
 				+ ", subBehavior Ids: " + _behavior.getSubBehaviorIdsString());
 		
@@ -391,6 +420,10 @@ public abstract class User implements LoadProfileChangeCallback {
 		this._operationFactory = operationFactory;
 	}
 
+	public SplittableRandomAdapter getRandomNumberGenerator() {
+		return _randomNumberGenerator;
+	}
+
 	public TransitionChooserFactory getTransitionChooserFactory() {
 		return _transitionChooserFactory;
 	}
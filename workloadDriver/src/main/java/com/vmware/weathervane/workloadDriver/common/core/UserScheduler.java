@@ -0,0 +1,121 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Schedules the work of the simulated users.
+ *
+ * Each user is pinned to one event loop, chosen from its id, and all of its
+ * operation steps and behavior state transitions run on that loop. As a
+ * result the state of a user is only ever touched by one thread and does not
+ * need to be locked. Delays such as think times are kept on a hashed timer
+ * wheel, which only hands the work to the user's event loop once the delay
+ * has expired, so that adding a delay is constant time regardless of the
+ * number of users.
+ */
+public class UserScheduler {
+	private static final Logger logger = LoggerFactory.getLogger(UserScheduler.class);
+
+	private static final Integer numUserEventLoops = Integer.getInteger("NUMSCHEDULEDPOOLTHREADS",
+			2 * Runtime.getRuntime().availableProcessors());
+	private static final Long timerTickMs = Long.getLong("TIMERTICKMS", 1L);
+	private static final Integer timerTicksPerWheel = Integer.getInteger("TIMERTICKSPERWHEEL", 4096);
+
+	private static final EventLoopGroup userEventLoopGroup;
+	private static final EventExecutor[] userEventLoops;
+	private static final Timer timer;
+
+	private static final AtomicInteger nextEventLoop = new AtomicInteger(0);
+
+	static {
+		logger.info("Creating " + numUserEventLoops + " user event loops with a timer tick of " + timerTickMs + "ms");
+		userEventLoopGroup = new DefaultEventLoopGroup(numUserEventLoops, new DefaultThreadFactory("userEventLoop"));
+		List<EventExecutor> eventLoops = new ArrayList<EventExecutor>();
+		for (EventExecutor eventLoop : userEventLoopGroup) {
+			eventLoops.add(eventLoop);
+		}
+		userEventLoops = eventLoops.toArray(new EventExecutor[eventLoops.size()]);
+
+		timer = new HashedWheelTimer(new DefaultThreadFactory("userTimer"), timerTickMs, TimeUnit.MILLISECONDS,
+				timerTicksPerWheel);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				timer.stop();
+				userEventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+			}
+		}));
+	}
+
+	/**
+	 * Returns the event loop to which the user with the given id is pinned.
+	 * A user that replaces another on reset keeps its id, and so stays on the
+	 * same loop.
+	 */
+	public static EventExecutor getEventLoop(long userId) {
+		return userEventLoops[(int) (userId % userEventLoops.length)];
+	}
+
+	/**
+	 * Runs the runnable on the event loop after the delay
+	 */
+	public static void schedule(final EventExecutor eventLoop, final Runnable runnable, long delayMs) {
+		if (eventLoop.isShuttingDown()) {
+			return;
+		}
+		if (delayMs <= 0) {
+			eventLoop.execute(runnable);
+		} else {
+			timer.newTimeout(timeout -> {
+				if (!eventLoop.isShuttingDown()) {
+					eventLoop.execute(runnable);
+				}
+			}, delayMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Runs the runnable on the event loop as soon as possible
+	 */
+	public static void execute(EventExecutor eventLoop, Runnable runnable) {
+		if (!eventLoop.isShuttingDown()) {
+			eventLoop.execute(runnable);
+		}
+	}
+
+	/**
+	 * Runs work that is not associated with a user
+	 */
+	public static void execute(Runnable runnable) {
+		int index = (nextEventLoop.getAndIncrement() & Integer.MAX_VALUE) % userEventLoops.length;
+		execute(userEventLoops[index], runnable);
+	}
+
+	public static boolean isShutdown() {
+		return userEventLoopGroup.isShuttingDown();
+	}
+
+	public static void shutdown() throws InterruptedException {
+		timer.stop();
+		userEventLoopGroup.shutdownGracefully(0, 10, TimeUnit.SECONDS).await(10, TimeUnit.SECONDS);
+	}
+}
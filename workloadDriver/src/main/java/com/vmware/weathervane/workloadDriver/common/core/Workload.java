@@ -57,6 +57,18 @@ public abstract class Workload implements UserFactory {
 
 	private Boolean useThinkTime = false;
 
+	/*
+	 * When running open-loop, operations are started by arrivals generated
+	 * at a target rate rather than by users completing their think times.
+	 * The load values used by the LoadPath are then arrival rates in ops/sec,
+	 * up to maxRate, and maxUsers is the size of the pool of users that
+	 * service the arrivals.
+	 */
+	private Boolean openLoop = false;
+	private String arrivalProcess = "poisson";
+	private long maxRate = 0;
+	private int maxQueuedArrivals = 1000;
+
 	private List<Target> targets;
 
 	private LoadPath loadPath;
@@ -244,6 +256,9 @@ public abstract class Workload implements UserFactory {
 		int targetNum = 0;
 		for (Target target: getTargets()) {
 			target.initialize(name, maxUsers, nodeNumber, numNodes, targetNum, getTargets().size(), this, statsCollector);
+			if (openLoop) {
+				target.configureOpenLoop(arrivalProcess, maxQueuedArrivals);
+			}
 			targetNames.add(target.getName());
 			targetNum++;
 		}
@@ -354,8 +369,8 @@ public abstract class Workload implements UserFactory {
 	}
 
 	public void changeActiveUsers(long numUsers) throws TooManyUsersException {
-		if (maxUsers < numUsers) {
-			throw new TooManyUsersException("MaxUsers = " + maxUsers);
+		if (getMaxLoad() < numUsers) {
+			throw new TooManyUsersException((openLoop ? "MaxRate = " : "MaxUsers = ") + getMaxLoad());
 		}
 		if (numUsers != this.getNumActiveUsers()) {
 			getLoadPath().changeActiveUsers(numUsers);
@@ -364,8 +379,8 @@ public abstract class Workload implements UserFactory {
 
 
 	public void setCurrentUsers(long numUsers) throws TooManyUsersException {
-		if (maxUsers < numUsers) {
-			throw new TooManyUsersException("MaxUsers = " + maxUsers);
+		if (getMaxLoad() < numUsers) {
+			throw new TooManyUsersException((openLoop ? "MaxRate = " : "MaxUsers = ") + getMaxLoad());
 		}
 				
 		/*
@@ -446,6 +461,49 @@ public abstract class Workload implements UserFactory {
 		this.maxUsers = maxUsers;
 	}
 
+	/*
+	 * The upper bound on the load values used by the LoadPath
+	 */
+	@JsonIgnore
+	public long getMaxLoad() {
+		if (openLoop) {
+			return maxRate;
+		}
+		return maxUsers;
+	}
+
+	public Boolean getOpenLoop() {
+		return openLoop;
+	}
+
+	public void setOpenLoop(Boolean openLoop) {
+		this.openLoop = openLoop;
+	}
+
+	public String getArrivalProcess() {
+		return arrivalProcess;
+	}
+
+	public void setArrivalProcess(String arrivalProcess) {
+		this.arrivalProcess = arrivalProcess;
+	}
+
+	public long getMaxRate() {
+		return maxRate;
+	}
+
+	public void setMaxRate(long maxRate) {
+		this.maxRate = maxRate;
+	}
+
+	public int getMaxQueuedArrivals() {
+		return maxQueuedArrivals;
+	}
+
+	public void setMaxQueuedArrivals(int maxQueuedArrivals) {
+		this.maxQueuedArrivals = maxQueuedArrivals;
+	}
+
 	public Boolean getUseThinkTime() {
 		return useThinkTime;
 	}
@@ -524,6 +582,12 @@ public abstract class Workload implements UserFactory {
 		theStringBuilder.append(", behaviorSpecName: " + behaviorSpecName);
 		theStringBuilder.append(", maxUsers: " + maxUsers);
 		theStringBuilder.append(", useThinkTime: " + useThinkTime);
+		theStringBuilder.append(", openLoop: " + openLoop);
+		if (openLoop) {
+			theStringBuilder.append(", arrivalProcess: " + arrivalProcess);
+			theStringBuilder.append(", maxRate: " + maxRate);
+			theStringBuilder.append(", maxQueuedArrivals: " + maxQueuedArrivals);
+		}
 		if (getLoadPath() != null) {
 			theStringBuilder.append(", loadPath: " + getLoadPath().getName());
 		} else {
@@ -0,0 +1,657 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.core.loadControl.loadPath;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.vmware.weathervane.workloadDriver.common.core.Workload;
+import com.vmware.weathervane.workloadDriver.common.core.WorkloadStatus;
+import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadInterval.RampLoadInterval;
+import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadInterval.UniformLoadInterval;
+import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadPathController.LoadPathController;
+import com.vmware.weathervane.workloadDriver.common.statistics.SequentialQosTest;
+import com.vmware.weathervane.workloadDriver.common.statistics.SequentialQosTest.Verdict;
+import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummaryRollup;
+
+/*
+ * A findMax load path that brackets the maximum passing load and then
+ * bisects the bracket, rather than stepping towards the maximum.
+ *
+ * - INITIALRAMP: Use short intervals, doubling the load each time, until
+ *   response-times begin to fail. This brackets the maximum.
+ * - FINDFIRSTMAX: Bisect the bracket until maxPass and minFail are within
+ *   findMaxStopPct of each other. Each bisection step is always run as a
+ *   sequential interval, made up of decision periods of decisionPeriodSec,
+ *   and stops as soon as the QoS verdict is significant at confidenceLevel,
+ *   or after qosPeriodSec.
+ * - VERIFYMAX: Verify the maximum with full-length QoS periods, exactly as
+ *   in FindMaxLoadPath, so that the reported maximum is the same.
+ */
+@JsonTypeName(value = "bisectfindmax")
+public class BisectFindMaxLoadPath extends LoadPath {
+	private static final Logger logger = LoggerFactory.getLogger(BisectFindMaxLoadPath.class);
+
+	private long maxUsers;
+	private long minUsers;
+	private long maxPassHint = 0;
+
+	private long numQosPeriods = 3;
+	private long qosPeriodSec = 300;
+	private double findMaxStopPct = 0.01;
+	private long initialRampRateStep = 1000;
+
+	/*
+	 * The number of decision periods of a bisection step whose stats can be
+	 * missing before the step is treated as failing
+	 */
+	private static final int maxMissingRollups = 2;
+
+	private enum Phase {
+		INITIALRAMP, FINDFIRSTMAX, VERIFYMAX
+	};
+
+	private enum SubInterval {
+		RAMP, WARMUP, STEADY, DECISION
+	};
+
+	@JsonIgnore
+	private Phase curPhase = Phase.INITIALRAMP;
+
+	@JsonIgnore
+	private SubInterval nextSubInterval = SubInterval.DECISION;
+
+	@JsonIgnore
+	private long curUsers = 0;
+
+	@JsonIgnore
+	private long intervalNum = 0;
+
+	@JsonIgnore
+	private UniformLoadInterval curInterval = null;
+
+	@JsonIgnore
+	private Deque<UniformLoadInterval> rampIntervals = new ArrayDeque<UniformLoadInterval>();
+
+	@JsonIgnore
+	private long minFailUsers = Long.MAX_VALUE;
+	@JsonIgnore
+	private long maxPassUsers = 0;
+	@JsonIgnore
+	private String maxPassIntervalName = "";
+
+	/*
+	 * Whether the bisection step that passed at maxPassUsers ran for the full
+	 * QoS period, rather than stopping early
+	 */
+	@JsonIgnore
+	private boolean maxPassFullLength = false;
+
+	/*
+	 * The highest load that passed during the initial ramp
+	 */
+	@JsonIgnore
+	private long rampMaxPassUsers = 0;
+
+	@JsonIgnore
+	private boolean loadPathComplete = false;
+
+	@JsonIgnore
+	private int numRepeatsPassed = 0;
+
+	@JsonIgnore
+	private long curPhaseRepeats = 1;
+
+	/*
+	 * The decision periods of the current bisection step
+	 */
+	@JsonIgnore
+	private SequentialQosTest qosTest;
+
+	/*
+	 * The decision periods run in the current bisection step, including those
+	 * whose stats were missing, and the number that were missing
+	 */
+	@JsonIgnore
+	private int stepPeriods = 0;
+	@JsonIgnore
+	private int stepMissingRollups = 0;
+
+	@JsonIgnore
+	private final long initialRampIntervalSec = 60;
+	@JsonIgnore
+	private final long rampIntervalSec = 120;
+	@JsonIgnore
+	private final long warmupIntervalSec = 180;
+
+	@JsonIgnore
+	private boolean statsIntervalComplete = false;
+
+	@JsonIgnore
+	private UniformLoadInterval curStatsInterval = new UniformLoadInterval();
+
+	@Override
+	public void initialize(String runName, String workloadName, Workload workload,
+			LoadPathController loadPathController, List<String> hosts,
+			String statsHostName, RestTemplate restTemplate, ScheduledExecutorService executorService) {
+		super.initialize(runName, workloadName, workload, loadPathController,
+				hosts, statsHostName, restTemplate,
+				executorService);
+		this.maxUsers = workload.getMaxLoad();
+		logger.debug("initialize " + this.getName() + ": minUsers = {}, maxUsers = {}", getMinUsers(), maxUsers);
+		qosTest = new SequentialQosTest(getConfidenceLevel(), getThroughputPrecision());
+
+		curInterval = new UniformLoadInterval();
+		curInterval.setUsers(getInitialRampRateStep());
+		curInterval.setName("prerun");
+		curInterval.setDuration(initialRampIntervalSec);
+
+		curStatusInterval.setName("InitialRamp-0");
+		curStatusInterval.setDuration(initialRampIntervalSec);
+		curStatusInterval.setStartUsers(0L);
+		curStatusInterval.setEndUsers(0L);
+	}
+
+	@JsonIgnore
+	@Override
+	public UniformLoadInterval getNextInterval() {
+		logger.debug("getNextInterval: " + this.getName());
+		statsIntervalComplete = false;
+		if (Phase.INITIALRAMP.equals(curPhase)) {
+			curInterval = getNextInitialRampInterval();
+		} else {
+			curInterval = nextInterval();
+		}
+		return curInterval;
+	}
+
+	/*
+	 * Doubles the load until an interval fails, or the maxPassHint or maxUsers
+	 * is reached
+	 */
+	@JsonIgnore
+	private UniformLoadInterval getNextInitialRampInterval() {
+		UniformLoadInterval nextInterval = curInterval;
+		intervalNum++;
+		logger.debug("getNextInitialRampInterval " + this.getName() + ": interval " + intervalNum);
+
+		boolean prevIntervalPassed = true;
+		if (intervalNum != 1) {
+			StatsSummaryRollup rollup = fetchStatsSummaryRollup(curInterval.getName());
+			if (rollup != null) {
+				/*
+				 * The first interval always passes to avoid warmup issues
+				 */
+				if (intervalNum != 2) {
+					prevIntervalPassed = (rollup.getPctPassing() >= 0.999);
+				}
+				getIntervalStatsSummaries().add(rollup);
+			}
+			logger.debug("getNextInitialRampInterval " + this.getName() + ": Interval " + intervalNum
+					+ " prevIntervalPassed = " + prevIntervalPassed);
+			if (prevIntervalPassed) {
+				rampMaxPassUsers = curUsers;
+			}
+		}
+
+		if (!prevIntervalPassed || (curUsers >= maxUsers)
+				|| ((getMaxPassHint() > 0) && (curUsers >= getMaxPassHint()))) {
+			moveToFindFirstMax(prevIntervalPassed ? Long.MAX_VALUE : curUsers);
+			return nextInterval();
+		}
+
+		if (curUsers == 0) {
+			curUsers = getInitialRampRateStep();
+		} else {
+			curUsers *= 2;
+		}
+		if ((getMaxPassHint() > 0) && (curUsers > getMaxPassHint())) {
+			curUsers = getMaxPassHint();
+		}
+		if (curUsers > maxUsers) {
+			curUsers = maxUsers;
+		}
+
+		long nextIntervalDuration = initialRampIntervalSec;
+		if (curUsers < 1000) {
+			nextIntervalDuration *= 2;
+		}
+
+		nextInterval.setUsers(curUsers);
+		nextInterval.setDuration(nextIntervalDuration);
+		nextInterval.setName("InitialRamp-" + curUsers);
+
+		curStatusInterval.setName(nextInterval.getName());
+		curStatusInterval.setStartUsers(curUsers);
+		curStatusInterval.setEndUsers(curUsers);
+		curStatusInterval.setDuration(nextIntervalDuration);
+
+		statsIntervalComplete = true;
+		curStatsInterval.setName(nextInterval.getName());
+		curStatsInterval.setUsers(curUsers);
+		curStatsInterval.setDuration(nextIntervalDuration);
+
+		return nextInterval;
+	}
+
+	@JsonIgnore
+	private UniformLoadInterval nextInterval() {
+		intervalNum++;
+		if (loadPathComplete) {
+			curInterval.setName("PostRun-" + intervalNum);
+			return curInterval;
+		}
+
+		if (!rampIntervals.isEmpty()) {
+			return rampIntervals.pop();
+		}
+
+		switch (nextSubInterval) {
+		case RAMP:
+			nextSubInterval = SubInterval.WARMUP;
+			return nextInterval();
+		case WARMUP:
+			return getWarmupInterval();
+		case STEADY:
+			return getSteadyInterval();
+		default:
+			if (Phase.FINDFIRSTMAX.equals(curPhase)) {
+				return decideFindFirstMax();
+			} else {
+				return decideVerifyMax();
+			}
+		}
+	}
+
+	/*
+	 * Called after each decision period of a bisection step
+	 */
+	private UniformLoadInterval decideFindFirstMax() {
+		StatsSummaryRollup rollup = fetchStatsSummaryRollup(curInterval.getName());
+		Verdict verdict;
+		if (rollup != null) {
+			getIntervalStatsSummaries().add(rollup);
+			qosTest.addPeriod(rollup);
+			verdict = qosTest.getVerdict(Math.round(qosTest.getDurationSec()) >= getQosPeriodSec(), true);
+		} else {
+			/*
+			 * Without the stats the period adds nothing to the QoS test, so
+			 * run it again, up to a limit, rather than waiting forever for a
+			 * verdict
+			 */
+			stepMissingRollups++;
+			logger.warn("decideFindFirstMax " + getName() + ": no stats for interval " + curInterval.getName()
+					+ ", " + stepMissingRollups + " missing at " + curUsers + " users");
+			verdict = (stepMissingRollups > maxMissingRollups) ? Verdict.FAIL : Verdict.UNDECIDED;
+		}
+		logger.debug("decideFindFirstMax " + getName() + ": curUsers = " + curUsers + ", " + qosTest
+				+ ", verdict = " + verdict);
+		if (Verdict.UNDECIDED.equals(verdict)) {
+			nextSubInterval = SubInterval.STEADY;
+			return nextInterval();
+		}
+
+		if (Verdict.PASS.equals(verdict)) {
+			maxPassUsers = curUsers;
+			maxPassIntervalName = curInterval.getName();
+			maxPassFullLength = Math.round(qosTest.getDurationSec()) >= getQosPeriodSec();
+			if (curUsers >= maxUsers) {
+				/*
+				 * Already passing at maxUsers. The actual maximum must be higher than we can
+				 * run, so just end the run.
+				 */
+				logger.debug("decideFindFirstMax " + getName() + ": At max users, so can't advance.  Ending workload");
+				loadPathComplete(false);
+				return nextInterval();
+			}
+		} else {
+			minFailUsers = curUsers;
+			if (minFailUsers <= getMinUsers()) {
+				logger.debug("decideFindFirstMax " + getName() + ": Failed at minUsers.  Ending run");
+				maxPassUsers = minUsers;
+				maxPassIntervalName = "";
+				loadPathComplete(false);
+				return nextInterval();
+			}
+		}
+
+		long nextUsers;
+		if (minFailUsers == Long.MAX_VALUE) {
+			/*
+			 * The initial ramp stopped at maxPassHint or maxUsers without
+			 * failing, so there is no upper end to the bracket yet. Step up
+			 * from the load that passed.
+			 */
+			nextUsers = maxPassUsers + Math.max(1, maxPassUsers / 10);
+			if (nextUsers > maxUsers) {
+				nextUsers = maxUsers;
+			}
+		} else {
+			long lowerBound = Math.max(maxPassUsers, getMinUsers());
+			nextUsers = lowerBound + ((minFailUsers - lowerBound) / 2);
+			nextUsers = niceRound(nextUsers, lowerBound, minFailUsers);
+		}
+
+		/*
+		 * The bracket is closed once it is within findMaxStopPct, or can't be
+		 * split any further
+		 */
+		if (bracketClosed() || (nextUsers <= maxPassUsers) || (nextUsers >= minFailUsers)) {
+			if (maxPassUsers < getMinUsers()) {
+				logger.debug("decideFindFirstMax " + getName() + ": never passed.  Ending run");
+				maxPassUsers = minUsers;
+				maxPassIntervalName = "";
+				loadPathComplete(false);
+				return nextInterval();
+			}
+			moveToVerifyMax();
+			return nextInterval();
+		}
+
+		startBisectionStep(nextUsers);
+		return nextInterval();
+	}
+
+	/*
+	 * Called after each full-length QoS period at the verification load
+	 */
+	private UniformLoadInterval decideVerifyMax() {
+		StatsSummaryRollup rollup = fetchStatsSummaryRollup(curInterval.getName());
+		boolean prevIntervalPassed = false;
+		if (rollup != null) {
+			prevIntervalPassed = rollup.isIntervalPassed();
+			getIntervalStatsSummaries().add(rollup);
+		}
+
+		if (prevIntervalPassed) {
+			numRepeatsPassed++;
+			if (numRepeatsPassed >= curPhaseRepeats) {
+				maxPassUsers = curUsers;
+				maxPassIntervalName = curInterval.getName();
+				loadPathComplete(maxPassUsers > minUsers);
+				return nextInterval();
+			}
+			nextSubInterval = SubInterval.STEADY;
+			return nextInterval();
+		}
+
+		/*
+		 * Failed verification. Step down by findMaxStopPct and verify again
+		 */
+		long prevCurUsers = curUsers;
+		long step = (long) Math.ceil(curUsers * getFindMaxStopPct());
+		if (step < 1) {
+			step = 1;
+		}
+		if ((curUsers - step) <= getMinUsers()) {
+			logger.debug("decideVerifyMax " + getName() + ": Failed verification at minUsers.  Ending run");
+			maxPassUsers = minUsers;
+			maxPassIntervalName = "";
+			loadPathComplete(false);
+			return nextInterval();
+		}
+		curUsers -= step;
+		numRepeatsPassed = 0;
+		rampTo("VERIFYMAX", prevCurUsers, curUsers);
+		return nextInterval();
+	}
+
+	private UniformLoadInterval getWarmupInterval() {
+		UniformLoadInterval nextInterval = new UniformLoadInterval();
+		nextInterval.setUsers(curUsers);
+		nextInterval.setDuration(warmupIntervalSec);
+		nextInterval.setName(curPhase + "-Warmup-" + curUsers);
+
+		curStatusInterval.setName(nextInterval.getName());
+		curStatusInterval.setStartUsers(curUsers);
+		curStatusInterval.setEndUsers(curUsers);
+		curStatusInterval.setDuration(warmupIntervalSec);
+
+		statsIntervalComplete = true;
+		curStatsInterval.setName(nextInterval.getName());
+		curStatsInterval.setUsers(curUsers);
+		curStatsInterval.setDuration(warmupIntervalSec);
+
+		nextSubInterval = SubInterval.STEADY;
+		return nextInterval;
+	}
+
+	/*
+	 * While bisecting, the steady interval is one decision period. The first
+	 * decision period for a load is named as in FindMaxLoadPath, and any
+	 * further periods needed to reach a verdict, including those that repeat
+	 * a period whose stats were missing, are named as numbered extensions.
+	 */
+	private UniformLoadInterval getSteadyInterval() {
+		UniformLoadInterval nextInterval = new UniformLoadInterval();
+		nextInterval.setUsers(curUsers);
+		long duration;
+		if (Phase.FINDFIRSTMAX.equals(curPhase)) {
+			duration = Math.min(getDecisionPeriodSec(), getQosPeriodSec() - Math.round(qosTest.getDurationSec()));
+			if (stepPeriods == 0) {
+				nextInterval.setName(curPhase + "-" + curUsers);
+			} else {
+				nextInterval.setName(curPhase + "-" + curUsers + "-EXTEND-" + stepPeriods);
+			}
+			stepPeriods++;
+		} else {
+			duration = getQosPeriodSec();
+			nextInterval.setName(curPhase + "-" + curUsers + "-ITERATION-" + numRepeatsPassed);
+		}
+		nextInterval.setDuration(duration);
+
+		curStatusInterval.setName(nextInterval.getName());
+		curStatusInterval.setStartUsers(curUsers);
+		curStatusInterval.setEndUsers(curUsers);
+		curStatusInterval.setDuration(duration);
+
+		statsIntervalComplete = true;
+		curStatsInterval.setName(nextInterval.getName());
+		curStatsInterval.setUsers(curUsers);
+		curStatsInterval.setDuration(duration);
+
+		nextSubInterval = SubInterval.DECISION;
+		return nextInterval;
+	}
+
+	private void moveToFindFirstMax(long rampMinFailUsers) {
+		curPhase = Phase.FINDFIRSTMAX;
+		intervalNum = 0;
+		maxPassUsers = 0;
+		maxPassFullLength = false;
+		minFailUsers = Long.MAX_VALUE;
+
+		/*
+		 * The initial ramp intervals are too short to trust, so its failing load
+		 * is only used as the end of the bracket, and the bisection starts by
+		 * testing the last load that passed the ramp.
+		 */
+		long firstUsers = rampMaxPassUsers;
+		if (rampMinFailUsers != Long.MAX_VALUE) {
+			minFailUsers = rampMinFailUsers;
+		}
+		if (firstUsers <= 0) {
+			firstUsers = Math.max(getMinUsers(), curUsers / 2);
+		}
+		logger.debug("moveToFindFirstMax " + getName() + ": bracket is (" + maxPassUsers + ", " + minFailUsers
+				+ "), first load is " + firstUsers);
+		startBisectionStep(niceRound(firstUsers, 0, minFailUsers == Long.MAX_VALUE ? 0 : minFailUsers));
+	}
+
+	private void moveToVerifyMax() {
+		curPhase = Phase.VERIFYMAX;
+		intervalNum = 0;
+		numRepeatsPassed = 0;
+		/*
+		 * A pass that stopped early is not counted as one of the QoS periods,
+		 * and at least one full-length period is always run at the maximum
+		 */
+		curPhaseRepeats = getNumQosPeriods();
+		if (maxPassFullLength) {
+			curPhaseRepeats--;
+		}
+		if (curPhaseRepeats < 1) {
+			curPhaseRepeats = 1;
+		}
+
+		long prevCurUsers = curUsers;
+		curUsers = maxPassUsers;
+		maxPassUsers = 0;
+		maxPassIntervalName = "";
+		if (prevCurUsers != curUsers) {
+			rampTo("VERIFYMAX", prevCurUsers, curUsers);
+		} else {
+			nextSubInterval = SubInterval.STEADY;
+		}
+	}
+
+	private void startBisectionStep(long nextUsers) {
+		long prevCurUsers = curUsers;
+		curUsers = nextUsers;
+		qosTest.reset();
+		stepPeriods = 0;
+		stepMissingRollups = 0;
+		logger.debug("startBisectionStep " + getName() + ": maxPass = " + maxPassUsers + ", minFail = "
+				+ minFailUsers + ", testing " + curUsers);
+		rampTo(curPhase.toString(), prevCurUsers, curUsers);
+	}
+
+	private void rampTo(String prefix, long prevCurUsers, long nextUsers) {
+		nextSubInterval = SubInterval.RAMP;
+		rampIntervals.addAll(generateRampIntervals(prefix + "-RampTo-" + nextUsers + "-", rampIntervalSec, 15,
+				prevCurUsers, nextUsers));
+
+		curStatusInterval.setName(prefix + "-RampTo-" + nextUsers);
+		curStatusInterval.setStartUsers(prevCurUsers);
+		curStatusInterval.setEndUsers(nextUsers);
+		curStatusInterval.setDuration(rampIntervalSec);
+	}
+
+	private boolean bracketClosed() {
+		if (minFailUsers == Long.MAX_VALUE) {
+			return false;
+		}
+		return (minFailUsers - maxPassUsers) < (minFailUsers * getFindMaxStopPct());
+	}
+
+	private void loadPathComplete(boolean passed) {
+		loadPathComplete = true;
+		intervalNum = 0;
+		WorkloadStatus status = new WorkloadStatus();
+		status.setIntervalStatsSummaries(getIntervalStatsSummaries());
+		status.setMaxPassUsers(maxPassUsers);
+		status.setMaxPassIntervalName(maxPassIntervalName);
+		status.setPassed(passed);
+		status.setLoadPathName(this.getName());
+
+		curInterval.setUsers(maxPassUsers);
+		curInterval.setDuration(getQosPeriodSec());
+		curInterval.setName("PostRun-" + intervalNum);
+
+		curStatusInterval.setName(curInterval.getName());
+		curStatusInterval.setStartUsers(curUsers);
+		curStatusInterval.setEndUsers(curUsers);
+		curStatusInterval.setDuration(getQosPeriodSec());
+
+		loadPathController.removeIntervalResultCallback(getName());
+		workload.loadPathComplete(status);
+	}
+
+	@JsonIgnore
+	@Override
+	public boolean isStatsIntervalComplete() {
+		return statsIntervalComplete;
+	}
+
+	@JsonIgnore
+	@Override
+	public UniformLoadInterval getCurStatsInterval() {
+		return curStatsInterval;
+	}
+
+	@Override
+	public RampLoadInterval getCurStatusInterval() {
+		return curStatusInterval;
+	}
+
+	public long getMaxUsers() {
+		return maxUsers;
+	}
+
+	public void setMaxUsers(long maxUsers) {
+		this.maxUsers = maxUsers;
+	}
+
+	public long getMinUsers() {
+		return minUsers;
+	}
+
+	public void setMinUsers(long minUsers) {
+		this.minUsers = minUsers;
+	}
+
+	public long getNumQosPeriods() {
+		return numQosPeriods;
+	}
+
+	public void setNumQosPeriods(long numQosPeriods) {
+		this.numQosPeriods = numQosPeriods;
+	}
+
+	public long getQosPeriodSec() {
+		return qosPeriodSec;
+	}
+
+	public void setQosPeriodSec(long qosPeriodSec) {
+		this.qosPeriodSec = qosPeriodSec;
+	}
+
+	public double getFindMaxStopPct() {
+		return findMaxStopPct;
+	}
+
+	public void setFindMaxStopPct(double findMaxStopPct) {
+		this.findMaxStopPct = findMaxStopPct;
+	}
+
+	public long getInitialRampRateStep() {
+		return initialRampRateStep;
+	}
+
+	public void setInitialRampRateStep(long initialRampRateStep) {
+		this.initialRampRateStep = initialRampRateStep;
+	}
+
+	public long getMaxPassHint() {
+		return maxPassHint;
+	}
+
+	public void setMaxPassHint(long maxPassHint) {
+		this.maxPassHint = maxPassHint;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder theStringBuilder = new StringBuilder("BisectFindMaxLoadPath: ");
+		theStringBuilder.append("minUsers: " + minUsers);
+		theStringBuilder.append("; maxUsers: " + maxUsers);
+		theStringBuilder.append("; maxPassHint: " + maxPassHint);
+		theStringBuilder.append("; numQosPeriods: " + numQosPeriods);
+		theStringBuilder.append("; qosPeriodSec: " + qosPeriodSec);
+		theStringBuilder.append("; findMaxStopPct: " + findMaxStopPct);
+		theStringBuilder.append("; initialRampRateStep: " + initialRampRateStep);
+
+		return theStringBuilder.toString();
+	}
+
+}
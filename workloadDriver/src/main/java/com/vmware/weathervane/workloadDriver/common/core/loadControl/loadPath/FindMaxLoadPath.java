@@ -20,6 +20,8 @@ import com.vmware.weathervane.workloadDriver.common.core.WorkloadStatus;
 import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadInterval.RampLoadInterval;
 import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadInterval.UniformLoadInterval;
 import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadPathController.LoadPathController;
+import com.vmware.weathervane.workloadDriver.common.statistics.SequentialQosTest;
+import com.vmware.weathervane.workloadDriver.common.statistics.SequentialQosTest.Verdict;
 import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummaryRollup;
 
 @JsonTypeName(value = "findmax")
@@ -82,6 +84,13 @@ public class FindMaxLoadPath extends LoadPath {
 	@JsonIgnore
 	private String maxPassIntervalName = "";
 
+	/*
+	 * Whether the interval that passed at maxPassUsers ran for the full QoS
+	 * period.  Only a sequential interval can stop early.
+	 */
+	@JsonIgnore
+	private boolean maxPassFullLength = true;
+
 	@JsonIgnore
 	private long curRateStep;
 	
@@ -100,6 +109,12 @@ public class FindMaxLoadPath extends LoadPath {
 	@JsonIgnore
 	private int numSucessiveIntervalsFailed = 0;
 	
+	/*
+	 * Used to decide FINDFIRSTMAX intervals when sequentialIntervals is set
+	 */
+	@JsonIgnore
+	private SequentialQosTest qosTest;
+
 	@JsonIgnore
 	private final long initialRampIntervalSec = 60;
 
@@ -123,7 +138,12 @@ public class FindMaxLoadPath extends LoadPath {
 				executorService);
 		logger.debug("initialize " + this.getName() + ": minUsers = {}, maxUsers = {}", getMinUsers(), maxUsers);
 
-		this.maxUsers = workload.getMaxUsers();
+		/*
+		 * For an open-loop workload the search is over the arrival rate in
+		 * ops/sec rather than the number of users
+		 */
+		this.maxUsers = workload.getMaxLoad();
+		qosTest = new SequentialQosTest(getConfidenceLevel(), getThroughputPrecision());
 		
 		curInterval= new UniformLoadInterval();
 		curInterval.setUsers(getInitialRampRateStep());
@@ -266,9 +286,30 @@ public class FindMaxLoadPath extends LoadPath {
 				String curIntervalName = curInterval.getName();
 				StatsSummaryRollup rollup = fetchStatsSummaryRollup(curIntervalName);
 				boolean prevIntervalPassed = false;
+				boolean prevIntervalFullLength = true;
 				if (rollup != null) {
 					prevIntervalPassed = rollup.isIntervalPassed();
 					getIntervalStatsSummaries().add(rollup);
+					if (isSequentialInterval()) {
+						qosTest.addPeriod(rollup);
+					}
+				}
+
+				if (isSequentialInterval()) {
+					/*
+					 * Keep running decision periods at curUsers until the result
+					 * is significant or the full QoS period has run
+					 */
+					Verdict verdict = qosTest.getVerdict(Math.round(qosTest.getDurationSec()) >= getQosPeriodSec(), true);
+					logger.debug("nextInterval {}, phase = {}: curUsers = {}, {}, verdict = {}", getName(), curPhase,
+							curUsers, qosTest, verdict);
+					if (Verdict.UNDECIDED.equals(verdict)) {
+						nextSubInterval = SubInterval.STEADY;
+						return nextInterval();
+					}
+					prevIntervalPassed = Verdict.PASS.equals(verdict);
+					prevIntervalFullLength = Math.round(qosTest.getDurationSec()) >= getQosPeriodSec();
+					qosTest.reset();
 				}
 
 				if (prevIntervalPassed) {
@@ -280,6 +321,7 @@ public class FindMaxLoadPath extends LoadPath {
 							logger.debug("nextInterval {}, phase = {}: found new maxPassUsers = {}", getName(), curPhase, curUsers);
 							maxPassUsers = curUsers;
 							maxPassIntervalName = curInterval.getName();
+							maxPassFullLength = prevIntervalFullLength;
 						}			
 						if (curUsers == maxUsers) {
 							/*
@@ -472,22 +514,34 @@ public class FindMaxLoadPath extends LoadPath {
 				logger.debug("getNextFindFirstMaxInterval " + getName() + ": STEADY subinterval for interval " + intervalNum);
 				UniformLoadInterval nextInterval = new UniformLoadInterval();
 				nextInterval.setUsers(curUsers);
-				nextInterval.setDuration(getQosPeriodSec());
-				if (Phase.FINDFIRSTMAX.equals(curPhase)) {
+				long duration = getQosPeriodSec();
+				if (isSequentialInterval()) {
+					/*
+					 * Run the next decision period. Periods after the first are
+					 * named as extensions of the interval.
+					 */
+					duration = Math.min(getDecisionPeriodSec(), getQosPeriodSec() - Math.round(qosTest.getDurationSec()));
+					if (qosTest.getNumPeriods() == 0) {
+						nextInterval.setName(curPhase + "-" + curUsers);
+					} else {
+						nextInterval.setName(curPhase + "-" + curUsers + "-EXTEND-" + qosTest.getNumPeriods());
+					}
+				} else if (Phase.FINDFIRSTMAX.equals(curPhase)) {
 					nextInterval.setName(curPhase + "-" + curUsers);
 				} else if (Phase.VERIFYMAX.equals(curPhase)) {
 					nextInterval.setName(curPhase + "-" + curUsers + "-ITERATION-" + numRepeatsPassed);					
 				}
+				nextInterval.setDuration(duration);
 
 				curStatusInterval.setName(nextInterval.getName());
 				curStatusInterval.setStartUsers(curUsers);
 				curStatusInterval.setEndUsers(curUsers);
-				curStatusInterval.setDuration(getQosPeriodSec());
+				curStatusInterval.setDuration(duration);
 
 				statsIntervalComplete = true;
 				curStatsInterval.setName(nextInterval.getName());
 				curStatsInterval.setUsers(curUsers);
-				curStatsInterval.setDuration(getQosPeriodSec());
+				curStatsInterval.setDuration(duration);
 
 				nextSubInterval = SubInterval.DECISION;
 				return nextInterval;
@@ -497,6 +551,15 @@ public class FindMaxLoadPath extends LoadPath {
 		}
 	}
 
+	/*
+	 * Only the FINDFIRSTMAX intervals are run as sequential intervals. The
+	 * VERIFYMAX intervals always run for the full QoS period, as they are the
+	 * intervals reported for the run.
+	 */
+	private boolean isSequentialInterval() {
+		return isSequentialIntervals() && Phase.FINDFIRSTMAX.equals(curPhase);
+	}
+
 	private void moveToVerifyMax() {
 		/*
 		 * When moving to VERIFYMAX, the initial rateStep is findMaxStopPct*maxPassUsers, 
@@ -516,7 +579,15 @@ public class FindMaxLoadPath extends LoadPath {
 		 */
 		minFailUsers = maxPassUsers + 1;
 		
-		curPhaseRepeats = numQosPeriods - 1;
+		/*
+		 * A sequential interval that passed early is not counted as one of
+		 * the QoS periods, so at least one full-length period is run at the
+		 * maximum
+		 */
+		curPhaseRepeats = numQosPeriods;
+		if (maxPassFullLength) {
+			curPhaseRepeats--;
+		}
 		if (curPhaseRepeats <= 0) {
 			loadPathComplete(true);
 			return;
@@ -578,6 +649,7 @@ public class FindMaxLoadPath extends LoadPath {
 		 */
 		minFailUsers = maxUsers;
 		maxPassUsers = 0;
+		maxPassFullLength = true;
 		
 		/*
 		 * Generate the intervals to ramp-up to the next curUsers
@@ -609,75 +681,6 @@ public class FindMaxLoadPath extends LoadPath {
 		}
 	}
 
-	// round to nice numbers by at most 2% and 1000
-	// meeting or exceeding the limits will return the original number, limits <= 0 are ignored
-	private long niceRound(long number, long lowerLimit, long upperLimit) {
-		long originalNumber = number;
-		long tensMultiplier = 1;
-
-		while (number > 1000 && tensMultiplier < 100) {
-			number /= 10;
-			tensMultiplier *= 10;
-		}
-		long rounder;
-		if (number >= 250) {
-			rounder = 10;
-		} else if (tensMultiplier > 1 && number >= 200) {
-			rounder = 5;
-		} else if (tensMultiplier == 1 && number >= 100) {
-			rounder = 4;
-		} else if (number >= 50) {
-			rounder = 2;
-		} else {
-			rounder = 1;
-		}
-		long roundDown = (number / rounder) * rounder * tensMultiplier;
-		long roundUp = roundDown + rounder * tensMultiplier;
-		//logger.debug("niceRound o:"+originalNumber+" ll:"+lowerLimit+" ul:"+upperLimit+" r:"+rounder+" t:"+tensMultiplier+" rd:"+roundDown+ " ru:"+roundUp);
-
-		if (originalNumber - roundDown < roundUp - originalNumber) {
-			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
-				return roundDown;
-			}
-		} else {
-			if ((upperLimit <= 0 || roundUp < upperLimit) && (lowerLimit <= 0 || roundUp > lowerLimit)) {
-				return roundUp;
-			}
-			// limits prevent roundUp, try roundDown instead
-			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
-				return roundDown;
-			}
-		}
-
-		// find a middle number within restrictive limits
-		long rangeStart = lowerLimit;
-		long rangeEnd = upperLimit;
-		if (lowerLimit <= 0) {
-			rangeStart = roundDown;
-		}
-		if (upperLimit <= 0) {
-			rangeEnd = roundUp;
-		}
-		long rangeDelta = rangeEnd - rangeStart;
-		long adder = rounder * tensMultiplier / 2;
-
-		if (adder == rangeDelta && adder > 1) {
-			// an edge case where conflicting rounding and limits should pick a simple mid point
-			adder /= 2;
-		}
-		while (rangeDelta < adder && adder > 1) {
-			// reduce until a middle number can be calculated within small range limits
-			adder /= 2;
-		}
-		long middleNumber = rangeStart + adder;
-		if ((lowerLimit <= 0 || middleNumber > lowerLimit) && (upperLimit <= 0 || middleNumber < upperLimit)) {
-			return middleNumber;
-		}
-
-		// give up and return the original number
-		return originalNumber;
-	}
-
 	private void loadPathComplete(boolean passed) {
 		loadPathComplete = true;
 		intervalNum = 0;
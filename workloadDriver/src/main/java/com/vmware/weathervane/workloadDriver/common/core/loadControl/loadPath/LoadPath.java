@@ -44,7 +44,8 @@ import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummaryRollu
 @JsonSubTypes({ 
 	@Type(value = IntervalLoadPath.class, name = "interval"), 
 	@Type(value = FindMaxLoadPath.class, name = "findmax"), 
-	@Type(value = SyncedFindMaxLoadPath.class, name = "syncedfindmax"), 
+	@Type(value = SyncedFindMaxLoadPath.class, name = "syncedfindmax"),
+	@Type(value = BisectFindMaxLoadPath.class, name = "bisectfindmax"),
 	@Type(value = FixedLoadPath.class, name = "fixed"), 
 	@Type(value = RampToMaxLoadPath.class, name = "ramptomax")
 })
@@ -63,6 +64,18 @@ public abstract class LoadPath implements Runnable, LoadPathIntervalResultWatche
 	private Boolean printIntervals;
 	private Boolean printCsv;
 
+	/*
+	 * When sequentialIntervals is set, load paths that support it run their
+	 * QoS intervals as a sequence of decision periods of decisionPeriodSec,
+	 * and end the interval as soon as the QoS result is significant at
+	 * confidenceLevel. A load only passes early once the confidence interval
+	 * for its throughput is within throughputPrecision of the mean.
+	 */
+	private boolean sequentialIntervals = false;
+	private long decisionPeriodSec = 60;
+	private double confidenceLevel = 0.95;
+	private double throughputPrecision = 0.05;
+
 	protected RampLoadInterval curStatusInterval;
 
 	@JsonIgnore
@@ -455,6 +468,75 @@ public abstract class LoadPath implements Runnable, LoadPathIntervalResultWatche
 
 	}
 
+	// round to nice numbers by at most 2% and 1000
+	// meeting or exceeding the limits will return the original number, limits <= 0 are ignored
+	protected long niceRound(long number, long lowerLimit, long upperLimit) {
+		long originalNumber = number;
+		long tensMultiplier = 1;
+
+		while (number > 1000 && tensMultiplier < 100) {
+			number /= 10;
+			tensMultiplier *= 10;
+		}
+		long rounder;
+		if (number >= 250) {
+			rounder = 10;
+		} else if (tensMultiplier > 1 && number >= 200) {
+			rounder = 5;
+		} else if (tensMultiplier == 1 && number >= 100) {
+			rounder = 4;
+		} else if (number >= 50) {
+			rounder = 2;
+		} else {
+			rounder = 1;
+		}
+		long roundDown = (number / rounder) * rounder * tensMultiplier;
+		long roundUp = roundDown + rounder * tensMultiplier;
+		//logger.debug("niceRound o:"+originalNumber+" ll:"+lowerLimit+" ul:"+upperLimit+" r:"+rounder+" t:"+tensMultiplier+" rd:"+roundDown+ " ru:"+roundUp);
+
+		if (originalNumber - roundDown < roundUp - originalNumber) {
+			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
+				return roundDown;
+			}
+		} else {
+			if ((upperLimit <= 0 || roundUp < upperLimit) && (lowerLimit <= 0 || roundUp > lowerLimit)) {
+				return roundUp;
+			}
+			// limits prevent roundUp, try roundDown instead
+			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
+				return roundDown;
+			}
+		}
+
+		// find a middle number within restrictive limits
+		long rangeStart = lowerLimit;
+		long rangeEnd = upperLimit;
+		if (lowerLimit <= 0) {
+			rangeStart = roundDown;
+		}
+		if (upperLimit <= 0) {
+			rangeEnd = roundUp;
+		}
+		long rangeDelta = rangeEnd - rangeStart;
+		long adder = rounder * tensMultiplier / 2;
+
+		if (adder == rangeDelta && adder > 1) {
+			// an edge case where conflicting rounding and limits should pick a simple mid point
+			adder /= 2;
+		}
+		while (rangeDelta < adder && adder > 1) {
+			// reduce until a middle number can be calculated within small range limits
+			adder /= 2;
+		}
+		long middleNumber = rangeStart + adder;
+		if ((lowerLimit <= 0 || middleNumber > lowerLimit) && (upperLimit <= 0 || middleNumber < upperLimit)) {
+			return middleNumber;
+		}
+
+		// give up and return the original number
+		return originalNumber;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -503,6 +585,38 @@ public abstract class LoadPath implements Runnable, LoadPathIntervalResultWatche
 		this.printCsv = printCsv;
 	}
 
+	public boolean isSequentialIntervals() {
+		return sequentialIntervals;
+	}
+
+	public void setSequentialIntervals(boolean sequentialIntervals) {
+		this.sequentialIntervals = sequentialIntervals;
+	}
+
+	public long getDecisionPeriodSec() {
+		return decisionPeriodSec;
+	}
+
+	public void setDecisionPeriodSec(long decisionPeriodSec) {
+		this.decisionPeriodSec = decisionPeriodSec;
+	}
+
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	public void setConfidenceLevel(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+
+	public double getThroughputPrecision() {
+		return throughputPrecision;
+	}
+
+	public void setThroughputPrecision(double throughputPrecision) {
+		this.throughputPrecision = throughputPrecision;
+	}
+
 	public long getNumActiveUsers() {
 		return numActiveUsers;
 	}
@@ -122,7 +122,11 @@ public class SyncedFindMaxLoadPath extends SyncedLoadPath {
 				executorService);
 		logger.debug("initialize " + this.getName() + ": minUsers = {}, maxUsers = {}", getMinUsers(), maxUsers);
 
-		this.maxUsers = workload.getMaxUsers();
+		/*
+		 * For an open-loop workload the search is over the arrival rate in
+		 * ops/sec rather than the number of users
+		 */
+		this.maxUsers = workload.getMaxLoad();
 		
 		curInterval= new UniformLoadInterval();
 		curInterval.setUsers(getInitialRampRateStep());
@@ -659,75 +663,6 @@ public class SyncedFindMaxLoadPath extends SyncedLoadPath {
 		}
 	}
 
-	// round to nice numbers by at most 2% and 1000
-	// meeting or exceeding the limits will return the original number, limits <= 0 are ignored
-	private long niceRound(long number, long lowerLimit, long upperLimit) {
-		long originalNumber = number;
-		long tensMultiplier = 1;
-
-		while (number > 1000 && tensMultiplier < 100) {
-			number /= 10;
-			tensMultiplier *= 10;
-		}
-		long rounder;
-		if (number >= 250) {
-			rounder = 10;
-		} else if (tensMultiplier > 1 && number >= 200) {
-			rounder = 5;
-		} else if (tensMultiplier == 1 && number >= 100) {
-			rounder = 4;
-		} else if (number >= 50) {
-			rounder = 2;
-		} else {
-			rounder = 1;
-		}
-		long roundDown = (number / rounder) * rounder * tensMultiplier;
-		long roundUp = roundDown + rounder * tensMultiplier;
-		//logger.debug("niceRound o:"+originalNumber+" ll:"+lowerLimit+" ul:"+upperLimit+" r:"+rounder+" t:"+tensMultiplier+" rd:"+roundDown+ " ru:"+roundUp);
-
-		if (originalNumber - roundDown < roundUp - originalNumber) {
-			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
-				return roundDown;
-			}
-		} else {
-			if ((upperLimit <= 0 || roundUp < upperLimit) && (lowerLimit <= 0 || roundUp > lowerLimit)) {
-				return roundUp;
-			}
-			// limits prevent roundUp, try roundDown instead
-			if ((lowerLimit <= 0 || roundDown > lowerLimit) && (upperLimit <= 0 || roundDown < upperLimit)) {
-				return roundDown;
-			}
-		}
-
-		// find a middle number within restrictive limits
-		long rangeStart = lowerLimit;
-		long rangeEnd = upperLimit;
-		if (lowerLimit <= 0) {
-			rangeStart = roundDown;
-		}
-		if (upperLimit <= 0) {
-			rangeEnd = roundUp;
-		}
-		long rangeDelta = rangeEnd - rangeStart;
-		long adder = rounder * tensMultiplier / 2;
-
-		if (adder == rangeDelta && adder > 1) {
-			// an edge case where conflicting rounding and limits should pick a simple mid point
-			adder /= 2;
-		}
-		while (rangeDelta < adder && adder > 1) {
-			// reduce until a middle number can be calculated within small range limits
-			adder /= 2;
-		}
-		long middleNumber = rangeStart + adder;
-		if ((lowerLimit <= 0 || middleNumber > lowerLimit) && (upperLimit <= 0 || middleNumber < upperLimit)) {
-			return middleNumber;
-		}
-
-		// give up and return the original number
-		return originalNumber;
-	}
-
 	private void loadPathComplete(boolean passed) {
 		logger.info("loadPathComplete for loadPath {}", this.getName());
 		loadPathComplete = true;
@@ -0,0 +1,216 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.core.target;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.workloadDriver.common.core.Behavior;
+import com.vmware.weathervane.workloadDriver.common.core.Operation;
+import com.vmware.weathervane.workloadDriver.common.random.NegativeExponential;
+import com.vmware.weathervane.workloadDriver.common.random.RandomSource;
+import com.vmware.weathervane.workloadDriver.common.random.SplittableRandomAdapter;
+import com.vmware.weathervane.workloadDriver.common.statistics.statsCollector.StatsCollector;
+
+/**
+ * Generates operation arrivals for a target at a given rate, independent of
+ * when earlier operations complete.
+ *
+ * Users that are ready to run their next operation wait here until an
+ * arrival releases them. If no user is ready when an arrival is generated,
+ * the arrival is queued, and the time it spends in the queue is reported as
+ * the queueing delay of the operation that eventually takes it. The queue is
+ * bounded, and arrivals that do not fit are dropped and counted. The number
+ * of outstanding operations is therefore bounded by the number of users on
+ * the target.
+ */
+public class ArrivalGenerator implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(ArrivalGenerator.class);
+
+	public enum ArrivalProcess { POISSON, UNIFORM };
+
+	private final String targetName;
+	private final ArrivalProcess arrivalProcess;
+	private final int maxQueuedArrivals;
+	private final StatsCollector statsCollector;
+
+	private final ScheduledExecutorService arrivalExecutor;
+
+	/*
+	 * Only used while holding the lock on the generator
+	 */
+	private final SplittableRandomAdapter randomNumberGenerator;
+
+	private final Deque<Long> pendingArrivals = new ArrayDeque<Long>();
+	private final Deque<Operation> readyOperations = new ArrayDeque<Operation>();
+
+	/*
+	 * Arrivals per second
+	 */
+	private double rate = 0;
+
+	/*
+	 * Kept as a double so that inter-arrival times below a millisecond
+	 * do not get rounded away at high rates
+	 */
+	private double nextArrivalTime = 0;
+
+	private ScheduledFuture<?> nextArrival = null;
+
+	private boolean finished = false;
+
+	public ArrivalGenerator(String targetName, String arrivalProcess, int maxQueuedArrivals,
+			StatsCollector statsCollector) {
+		this.targetName = targetName;
+		this.arrivalProcess = ArrivalProcess.valueOf(arrivalProcess.toUpperCase());
+		this.maxQueuedArrivals = maxQueuedArrivals;
+		this.statsCollector = statsCollector;
+		this.arrivalExecutor = Executors.newSingleThreadScheduledExecutor();
+		this.randomNumberGenerator = RandomSource.forStream("arrivals-" + targetName);
+	}
+
+	public synchronized void setRate(double rate) {
+		logger.debug("setRate for target " + targetName + " to " + rate + " arrivals/sec");
+		double previousRate = this.rate;
+		this.rate = rate;
+		if (finished) {
+			return;
+		}
+
+		if (rate <= 0) {
+			/*
+			 * Arrivals queued for the previous rate should not be taken by
+			 * operations once the load is restored
+			 */
+			pendingArrivals.clear();
+			if (nextArrival != null) {
+				nextArrival.cancel(false);
+				nextArrival = null;
+			}
+		} else if ((previousRate <= 0) || (nextArrival == null)) {
+			double interArrivalTime = getInterArrivalTime();
+			nextArrivalTime = System.currentTimeMillis() + interArrivalTime;
+			nextArrival = arrivalExecutor.schedule(this, (long) interArrivalTime, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Called by a behavior when its next operation is ready to run. The
+	 * operation is started when an arrival is available for it.
+	 */
+	public void operationReady(Operation operation) {
+		Long arrivalTime;
+		synchronized (this) {
+			arrivalTime = pendingArrivals.pollFirst();
+			if (arrivalTime == null) {
+				readyOperations.addLast(operation);
+				return;
+			}
+		}
+		operation.setTimeArrived(arrivalTime);
+		operation.start(0);
+	}
+
+	@Override
+	public void run() {
+		List<Operation> operationsToStart = new ArrayList<Operation>();
+		long numDropped = 0;
+		synchronized (this) {
+			nextArrival = null;
+			if (finished || (rate <= 0)) {
+				return;
+			}
+
+			/*
+			 * Generate every arrival that is due. If the generator fell behind,
+			 * this releases a burst, as the arrivals should not depend on how
+			 * quickly they are serviced.
+			 */
+			long now = System.currentTimeMillis();
+			while (nextArrivalTime <= now) {
+				long arrivalTime = (long) nextArrivalTime;
+				Operation operation = pollReadyOperation();
+				if (operation != null) {
+					operation.setTimeArrived(arrivalTime);
+					operationsToStart.add(operation);
+				} else if (pendingArrivals.size() < maxQueuedArrivals) {
+					pendingArrivals.addLast(arrivalTime);
+				} else {
+					numDropped++;
+				}
+				nextArrivalTime += getInterArrivalTime();
+			}
+
+			nextArrival = arrivalExecutor.schedule(this, (long) Math.ceil(nextArrivalTime - now),
+					TimeUnit.MILLISECONDS);
+		}
+
+		for (Operation operation : operationsToStart) {
+			operation.start(0);
+		}
+		if (numDropped > 0) {
+			logger.debug("run: target " + targetName + " dropped " + numDropped + " arrivals");
+			statsCollector.submitDroppedArrivals(targetName, numDropped);
+		}
+	}
+
+	public void stop() {
+		synchronized (this) {
+			finished = true;
+			pendingArrivals.clear();
+			readyOperations.clear();
+		}
+		arrivalExecutor.shutdownNow();
+	}
+
+	/*
+	 * Operations of behaviors that were stopped while waiting for an arrival
+	 * are discarded.
+	 */
+	private Operation pollReadyOperation() {
+		Operation operation = readyOperations.pollFirst();
+		while (operation != null) {
+			Behavior behavior = operation.getBehavior();
+			if ((behavior != null) && !behavior.isStopped()) {
+				return operation;
+			}
+			operation = readyOperations.pollFirst();
+		}
+		return null;
+	}
+
+	/*
+	 * Returns the time until the next arrival in milliseconds
+	 */
+	private double getInterArrivalTime() {
+		double meanInterArrivalTime = 1000.0 / rate;
+		if (arrivalProcess == ArrivalProcess.POISSON) {
+			return NegativeExponential.getNext(randomNumberGenerator, meanInterArrivalTime);
+		} else {
+			return meanInterArrivalTime;
+		}
+	}
+
+	public String getTargetName() {
+		return targetName;
+	}
+
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	public synchronized int getNumQueuedArrivals() {
+		return pendingArrivals.size();
+	}
+}
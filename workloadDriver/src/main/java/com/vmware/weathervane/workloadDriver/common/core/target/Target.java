@@ -68,6 +68,15 @@ public abstract class Target {
 	@JsonIgnore
 	private long numActiveUsers = 0;
 
+	@JsonIgnore
+	private long usersToCreate = 0;
+
+	/*
+	 * Only set when the workload runs open-loop
+	 */
+	@JsonIgnore
+	private ArrivalGenerator arrivalGenerator = null;
+
 	@JsonIgnore
 	private UserFactory userFactory;
 
@@ -96,7 +105,7 @@ public abstract class Target {
 		int targetOrderingId = targetNumber + (nodeNumber * numTargets);
 		long usersPerTarget = maxUsers / (numNodes * numTargets);
 		long excessUsers = maxUsers % (numNodes * numTargets);
-		long usersToCreate = usersPerTarget;
+		usersToCreate = usersPerTarget;
 		if (targetOrderingId < excessUsers) {
 			usersToCreate++;
 		}
@@ -114,10 +123,24 @@ public abstract class Target {
 			this.registerLoadProfileChangeCallback(user);
 		}
 	}
+
+	/*
+	 * In open-loop mode the user load given to the target is an arrival
+	 * rate, and the users only supply the operations that the arrivals
+	 * release.
+	 */
+	public void configureOpenLoop(String arrivalProcess, int maxQueuedArrivals) {
+		logger.info("configureOpenLoop: Target " + name + " arrivalProcess = " + arrivalProcess
+				+ ", maxQueuedArrivals = " + maxQueuedArrivals);
+		arrivalGenerator = new ArrivalGenerator(name, arrivalProcess, maxQueuedArrivals, statsCollector);
+	}
 		
 	public void stop() {
 		logger.debug("Stopping Target ");				
 		finished = true;
+		if (arrivalGenerator != null) {
+			arrivalGenerator.stop();
+		}
 		
 		logger.debug("run finished");				
 		synchronized (loadProfileChangeCallbacks) {
@@ -157,7 +180,17 @@ public abstract class Target {
 	}
 
 	public void setUserLoad(long numUsers) {
-		logger.debug("setUserLoad for target " + this.name + " to " + numUsers + " users.");
+		if (arrivalGenerator != null) {
+			/*
+			 * The load is an arrival rate in ops/sec. All of the users are
+			 * kept active while there are arrivals for them to take.
+			 */
+			logger.debug("setUserLoad for target " + this.name + " to " + numUsers + " ops/sec.");
+			arrivalGenerator.setRate(numUsers);
+			numUsers = (numUsers > 0) ? usersToCreate : 0;
+		} else {
+			logger.debug("setUserLoad for target " + this.name + " to " + numUsers + " users.");
+		}
 		numActiveUsers = numUsers;
 
 		// Call loadProfileChange callback for existing users
@@ -178,6 +211,11 @@ public abstract class Target {
 		return numActiveUsers ;
 	}
 
+	@JsonIgnore
+	public ArrivalGenerator getArrivalGenerator() {
+		return arrivalGenerator;
+	}
+
 	public String getWorkloadName() {
 		return workloadName;
 	}
@@ -12,19 +12,9 @@ import org.slf4j.LoggerFactory;
 
 import com.vmware.weathervane.workloadDriver.common.core.SimpleUri;
 
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.pool.FixedChannelPool;
-import io.netty.handler.codec.http.DefaultFullHttpRequest;
-import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
-import io.netty.handler.codec.http.HttpObjectAggregator;
-import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
-import io.netty.handler.codec.http.multipart.HttpDataFactory;
-import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
@@ -34,8 +24,6 @@ public class ChannelAllocatedFutureListener implements FutureListener<Channel> {
 	private static final Logger logger = LoggerFactory.getLogger(ChannelAllocatedFutureListener.class);
 	private static final Logger channelStatsCollectorLogger = LoggerFactory.getLogger(ChannelStatsCollector.class);
 
-	private static HttpDataFactory _factory = new DefaultHttpDataFactory(false);
-	
 	private HttpTransport _httpTransport;
 	private HttpMethod _httpMethod;
 	private SimpleUri _simpleUri;
@@ -142,108 +130,12 @@ public class ChannelAllocatedFutureListener implements FutureListener<Channel> {
 					+ ", remoteAddress = " + ch.remoteAddress()
 					+ ", localAddress = " + ch.localAddress()
 					);
-			if ((_content != null) && (_formParameters != null) && !_formParameters.isEmpty()) {
-				logger.warn("Got a " + _httpMethod + " request with url "
-					+ uri + " which has both content and form parameters.  This is not currently supported.  Only content will be sent.");
-			}
-
-			if ((_content != null) && (_fileUploads != null) && !_fileUploads.isEmpty()) {
-				logger.warn("Got a " + _httpMethod + " request with url "
-					+ uri + " which has both content and file uploads.  This is not currently supported.  Only content will be sent.");
-			}
-			
-			// Create the request.
-			HttpRequest request = null;
-			ByteBuf buf = null;
-			HttpPostRequestEncoder bodyRequestEncoder = null;
-			if (_content != null) {
-				buf = ch.alloc().buffer();
-				buf.writeBytes(_content.getBytes());
-				
-				request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, _httpMethod, uri, buf);
-				request.headers().set(HttpHeaderNames.CONTENT_LENGTH, buf.readableBytes());
-
-			} else if ((_fileUploads != null) && !_fileUploads.isEmpty())  {
-
-				request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, _httpMethod, uri);				
-				/*
-				 * Handle a multipart request
-				 */
-				bodyRequestEncoder = new HttpPostRequestEncoder(_factory, request, true);
-				/*
-				 * Add any form parameters
-				 */
-				if (_formParameters != null)  {
-					for (String key: _formParameters.keySet()) {
-						bodyRequestEncoder.addBodyAttribute(key, _formParameters.get(key));
-					}
-				}
-				
-				/*
-				 * Add the files
-				 */
-				for (FileUploadInfo uploadInfo : _fileUploads) {
-					bodyRequestEncoder.addBodyFileUpload(uploadInfo.getName(), uploadInfo.getFile(), 
-												uploadInfo.getContentType(), uploadInfo.isText());
-				}
-				
-			} else if ((_formParameters != null) && !_formParameters.isEmpty()) {
-				request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, _httpMethod, uri);
-				bodyRequestEncoder = new HttpPostRequestEncoder(_factory, request, false);
-				for (String key : _formParameters.keySet()) {
-					bodyRequestEncoder.addBodyAttribute(key, _formParameters.get(key));
-				}
-			} else {
-				request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, _httpMethod, uri);
-				request.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
-			}
-
-			setHeaders(request, _headers);
-			request.headers().set(HttpHeaderNames.HOST, _simpleUri.getHostname());
-			request.headers().set(HttpHeaderNames.USER_AGENT, "Weathervane Workload Driver");
-			_httpTransport.setCookies(request);			
-			
-			if (bodyRequestEncoder != null) {
-				request = bodyRequestEncoder.finalizeRequest();
-			}
-			
-			if (!_dropResponse) {
-				/*
-				 * If not dropping response, then use the HttpObjectAggregator to get 
-				 * a FullHttpMessage 
-				 */
-				if (ch.pipeline().get("aggregator") == null) {
-					logger.debug("Adding httpObjectAggregator to pipeline for " + _httpMethod + " request with url " + uri + ",  userId = " + _userId + ", behaviorId = "
-							+ _callback.getBehaviorId());
-					if (ch.pipeline().get("chunkedWriter") != null) {
-						ch.pipeline().addAfter("chunkedWriter", "aggregator", new HttpObjectAggregator(512*1024));
-					} else {
-						logger.warn("Trying to add aggregator but there is no chunkedWriter. "
-								+ " isActive = " + ch.isActive()
-								+ ", localAddress = " + ch.localAddress()
-								+ ", remoteAddress = " + ch.remoteAddress()
-								);
-						StringBuilder handlerNames = new StringBuilder("Pipeline has handlers: ");
-						for (String name : ch.pipeline().names()) {
-							handlerNames.append(name + ", ");
-						}
-						logger.warn(handlerNames.toString());
-						throw new RuntimeException("Trying to add aggregator but there is no chunkedWriter.");
-					}
-				}
-			} else {
-				if (ch.pipeline().get("aggregator") != null) {
-					logger.debug("Removing httpObjectAggregator from pipeline for " + _httpMethod + " request with url " + uri + ",  userId = " + _userId + ", behaviorId = "
-							+ _callback.getBehaviorId());
-					ch.pipeline().remove("aggregator");
-				}
-			}
-
-			if (ch.pipeline().get("responseHandler") != null) {
-				ch.pipeline().remove("responseHandler");
-			}
-			ch.pipeline().addLast("responseHandler", new ResponseInboundHandler(_httpTransport, request, _dropResponse, 
-							_callback, ch, _pool, closeListener, _userId));
+			/*
+			 * The responseHandler stays in the pipeline for the life of the
+			 * channel, and only needs to be told about the new request
+			 */
+			ResponseInboundHandler responseHandler = (ResponseInboundHandler) ch.pipeline().get("responseHandler");
+			responseHandler.startRequest(ch, _httpMethod, uri, _dropResponse, _callback, closeListener);
 
 			if (logger.isTraceEnabled()) {
 				if (ch.pipeline().get("logger") == null) {
@@ -260,11 +152,15 @@ public class ChannelAllocatedFutureListener implements FutureListener<Channel> {
 			}
 						
 			logger.debug("Writing request " + _httpMethod + ":" + uri + ",  userId = " + _userId + ", behaviorId = " + _callback.getBehaviorId());
-			ch.write(request);
-			if ((bodyRequestEncoder != null) && (bodyRequestEncoder.isChunked())) {
-				ch.write(bodyRequestEncoder);
+			if (HttpRequestTemplate.canUseTemplate(_httpMethod, _fileUploads)) {
+				HttpRequestTemplate template = HttpRequestTemplate.forUri(_simpleUri, _httpMethod);
+				HttpRequestTemplate.write(ch, template.encode(ch.alloc(), _urlBindVariables, _headers,
+						_httpTransport.getCookieHeader(), _content, _formParameters, _userId));
+			} else {
+				PreparedHttpRequest preparedRequest = PreparedHttpRequest.prepare(_httpTransport, _httpMethod, _simpleUri,
+						uri, _headers, _content, _formParameters, _fileUploads, ch.alloc(), _userId);
+				preparedRequest.write(ch);
 			}
-			ch.flush();			
 			
 		} else {
 			/*
@@ -276,29 +172,5 @@ public class ChannelAllocatedFutureListener implements FutureListener<Channel> {
 			_callback.httpRequestFailed(t, _httpMethod == HttpMethod.GET);
 		}
 	}
-	
-	/**
-	 * Sets the headers of an HTTP request necessary to execute.
-	 * 
-	 * @param httpRequest
-	 *            The HTTP request to add the basic headers.
-	 * @param headers
-	 *            A map of key-value pairs representing the headers.
-	 */
-	protected void setHeaders(HttpRequest httpRequest, Map<String, String> headers) {
-
-		HttpHeaders httpHeaders = httpRequest.headers();
-		
-		synchronized (headers) {
-			if (headers == null) {
-				logger.warn("Headers for " + _httpMethod + " request with url " 
-							+ _simpleUri.getUriString() + ",  userId = " + _userId + ", behaviorId = " + _callback.getBehaviorId() + " are null");
-			} else {
-				for (Map.Entry<String, String> entry : headers.entrySet()) {
-					httpHeaders.set(entry.getKey(), entry.getValue());
-				}
-			}
-		}
-	}
 
 }
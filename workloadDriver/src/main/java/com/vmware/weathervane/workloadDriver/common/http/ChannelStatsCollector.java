@@ -30,6 +30,14 @@ public class ChannelStatsCollector implements Runnable {
 	private AtomicLong numChannelsAcquired = new AtomicLong(0);
 	private AtomicLong numChannelsAcquiredClosed = new AtomicLong(0);
 	private AtomicLong numChannelsAcquiredFailed = new AtomicLong(0);
+
+	/*
+	 * Streams opened on HTTP/2 connections, the number of HTTP/2 connections
+	 * open, and the most streams open at once on any one connection
+	 */
+	private AtomicLong numStreamsOpened = new AtomicLong(0);
+	private AtomicLong numHttp2ConnectionsOpen = new AtomicLong(0);
+	private AtomicLong maxStreamsPerConnection = new AtomicLong(0);
 	
 	
 	private AtomicLong totalCreateTime = new AtomicLong(0);
@@ -75,6 +83,10 @@ public class ChannelStatsCollector implements Runnable {
 			logHeaders.append(", Channels Acquired Failed");
 			logHeaders.append(", Avg Create Time (ms)");
 			logHeaders.append(", Avg Acquire Time (ms)");
+			logHeaders.append(", Streams Opened");
+			logHeaders.append(", Open HTTP/2 Channels");
+			logHeaders.append(", Streams per Open Channel");
+			logHeaders.append(", Max Concurrent Streams per Channel");
 
 			try {
 				logWriter.write(logHeaders.toString() + "\n");
@@ -96,6 +108,9 @@ public class ChannelStatsCollector implements Runnable {
 				long channelsAcquired = numChannelsAcquired.getAndSet(0);
 				long channelsAcquiredClosed = numChannelsAcquiredClosed.getAndSet(0);
 				long channelsAcquiredFailed = numChannelsAcquiredFailed.getAndSet(0);
+				long streamsOpened = numStreamsOpened.getAndSet(0);
+				long maxStreams = maxStreamsPerConnection.getAndSet(0);
+				long http2ConnectionsOpen = numHttp2ConnectionsOpen.get();
 
 				long totalCreateTimeMillis = totalCreateTime.getAndSet(0);
 				long totalAcquireTimeMillis = totalAcquireTime.getAndSet(0);
@@ -109,13 +124,19 @@ public class ChannelStatsCollector implements Runnable {
 					avgAcquireTimeMillis = totalAcquireTimeMillis / (channelsAcquired * 1.0);
 				}
 
+				double avgStreamsPerChannel = 0;
+				if (http2ConnectionsOpen > 0) {
+					avgStreamsPerChannel = streamsOpened / (http2ConnectionsOpen * 1.0);
+				}
+
 				SimpleDateFormat dateFormatter = new SimpleDateFormat("MMM d yyyy HH:mm:ss z");
 				String logLine = dateFormatter.format(new Date()) + ", " + channelsRequested 
 						+ ", " + channelsCreated + ", " 
 						+ channelsAcquired + ", "
 						+ channelsAcquiredClosed + ", "
 						+ channelsAcquiredFailed + ", "
-						+ avgCreateTimeMillis + ", " + avgAcquireTimeMillis + "\n";
+						+ avgCreateTimeMillis + ", " + avgAcquireTimeMillis + ", "
+						+ streamsOpened + ", " + http2ConnectionsOpen + ", " + avgStreamsPerChannel + ", " + maxStreams + "\n";
 
 				try {
 					logWriter.write(logLine);
@@ -131,7 +152,11 @@ public class ChannelStatsCollector implements Runnable {
 						+ ", Channels Acquired Closed = " + channelsAcquiredClosed
 						+ ", Channels Acquired Failed = " + channelsAcquiredFailed
 						+ ", Avg Create Time = " + doubleFormat.format(avgCreateTimeMillis) 
-						+ ", Avg Acquire Time = " + doubleFormat.format(avgAcquireTimeMillis));
+						+ ", Avg Acquire Time = " + doubleFormat.format(avgAcquireTimeMillis)
+						+ ", Streams Opened = " + streamsOpened
+						+ ", Open HTTP/2 Channels = " + http2ConnectionsOpen
+						+ ", Streams per Open Channel = " + doubleFormat.format(avgStreamsPerChannel)
+						+ ", Max Concurrent Streams per Channel = " + maxStreams);
 
 			}
 
@@ -164,6 +189,25 @@ public class ChannelStatsCollector implements Runnable {
 		numChannelsAcquired.incrementAndGet();
 	}
 
+	public void incrementNumStreamsOpened() {
+		numStreamsOpened.incrementAndGet();
+	}
+
+	public void incrementNumHttp2ConnectionsOpen() {
+		numHttp2ConnectionsOpen.incrementAndGet();
+	}
+
+	public void decrementNumHttp2ConnectionsOpen() {
+		numHttp2ConnectionsOpen.decrementAndGet();
+	}
+
+	public void updateMaxStreamsPerConnection(long activeStreams) {
+		long curMax = maxStreamsPerConnection.get();
+		while ((activeStreams > curMax) && !maxStreamsPerConnection.compareAndSet(curMax, activeStreams)) {
+			curMax = maxStreamsPerConnection.get();
+		}
+	}
+
 	public void addCreateTime(long createTimeMillis) {
 		totalCreateTime.addAndGet(createTimeMillis);
 	}
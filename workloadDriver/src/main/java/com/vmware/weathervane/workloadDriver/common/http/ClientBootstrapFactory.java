@@ -17,6 +17,13 @@ public class ClientBootstrapFactory {
 	private static final Logger logger = LoggerFactory.getLogger(ClientBootstrapFactory.class);
 	
 	private static final Integer numHttpPoolThreads = Integer.getInteger("NUMHTTPPOOLTHREADS", 4 * Runtime.getRuntime().availableProcessors());
+
+	/*
+	 * When USEHTTP2 is set, each user multiplexes its requests as HTTP/2
+	 * streams on one connection per server. http URLs use h2c with prior
+	 * knowledge, and https URLs negotiate h2 with ALPN.
+	 */
+	private static final boolean useHttp2 = Boolean.getBoolean("USEHTTP2");
 	private static Bootstrap bootstrapInstance;
 	
 	static {
@@ -34,4 +41,8 @@ public class ClientBootstrapFactory {
 		return bootstrapInstance;
 	}
 
+	public static boolean isUseHttp2() {
+		return useHttp2;
+	}
+
 }
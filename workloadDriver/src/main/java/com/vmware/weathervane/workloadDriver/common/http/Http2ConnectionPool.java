@@ -0,0 +1,224 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.http;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * The HTTP/2 connection of a user to one server. All of the requests of the
+ * user to that server are sent as streams multiplexed on the one connection,
+ * which is opened when the first stream is needed and re-opened if it is
+ * closed.
+ */
+public class Http2ConnectionPool {
+	private static final Logger logger = LoggerFactory.getLogger(Http2ConnectionPool.class);
+	private static final Logger channelStatsCollectorLogger = LoggerFactory.getLogger(ChannelStatsCollector.class);
+
+	/*
+	 * The number of streams currently open on a connection
+	 */
+	public static final AttributeKey<AtomicInteger> ACTIVESTREAMSKEY = AttributeKey.valueOf("activeStreams");
+
+	private final Bootstrap _bootstrap;
+	private final InetSocketAddress _address;
+	private final SslContext _sslContext;
+	private final long _userId;
+	private final ChannelStatsCollector _channelStatsCollector = ChannelStatsCollector.getInstance();
+
+	private Future<Channel> _connectionFuture = null;
+	private boolean _closed = false;
+
+	/**
+	 * @param sslContext
+	 *            The context for h2 connections, or null for h2c connections
+	 */
+	public Http2ConnectionPool(Bootstrap bootstrap, InetSocketAddress address, SslContext sslContext, long userId) {
+		this._bootstrap = bootstrap;
+		this._address = address;
+		this._sslContext = sslContext;
+		this._userId = userId;
+	}
+
+	/**
+	 * Opens a new stream on the connection, first opening the connection if
+	 * necessary
+	 */
+	public synchronized Future<Http2StreamChannel> openStream() {
+		final Promise<Http2StreamChannel> streamPromise = _bootstrap.config().group().next().newPromise();
+		if (_closed) {
+			streamPromise.setFailure(new IllegalStateException("Http2ConnectionPool for userId " + _userId + " is closed"));
+			return streamPromise;
+		}
+
+		getConnection().addListener(new FutureListener<Channel>() {
+			@Override
+			public void operationComplete(Future<Channel> future) throws Exception {
+				if (!future.isSuccess()) {
+					streamPromise.tryFailure(future.cause());
+					return;
+				}
+				final Channel connection = future.getNow();
+				new Http2StreamChannelBootstrap(connection).open().addListener(new FutureListener<Http2StreamChannel>() {
+					@Override
+					public void operationComplete(Future<Http2StreamChannel> streamFuture) throws Exception {
+						if (!streamFuture.isSuccess()) {
+							streamPromise.tryFailure(streamFuture.cause());
+							return;
+						}
+						Http2StreamChannel stream = streamFuture.getNow();
+						final AtomicInteger activeStreams = connection.attr(ACTIVESTREAMSKEY).get();
+						int numActive = activeStreams.incrementAndGet();
+						stream.closeFuture().addListener(new ChannelFutureListener() {
+							@Override
+							public void operationComplete(ChannelFuture closeFuture) throws Exception {
+								activeStreams.decrementAndGet();
+							}
+						});
+						if (channelStatsCollectorLogger.isDebugEnabled()) {
+							_channelStatsCollector.incrementNumStreamsOpened();
+							_channelStatsCollector.updateMaxStreamsPerConnection(numActive);
+						}
+						if (!streamPromise.trySuccess(stream)) {
+							stream.close();
+						}
+					}
+				});
+			}
+		});
+		return streamPromise;
+	}
+
+	public synchronized void close() {
+		logger.debug("close for userId = " + _userId + ", remoteAddress = " + _address);
+		_closed = true;
+		if (_connectionFuture != null) {
+			_connectionFuture.addListener(new FutureListener<Channel>() {
+				@Override
+				public void operationComplete(Future<Channel> future) throws Exception {
+					if (future.isSuccess()) {
+						future.getNow().close();
+					}
+				}
+			});
+			_connectionFuture = null;
+		}
+	}
+
+	/*
+	 * Returns the future for the current connection, or opens a new connection
+	 * if there is none or it has been closed
+	 */
+	private Future<Channel> getConnection() {
+		if ((_connectionFuture != null)
+				&& (!_connectionFuture.isDone() || (_connectionFuture.isSuccess() && _connectionFuture.getNow().isActive()))) {
+			return _connectionFuture;
+		}
+
+		logger.debug("getConnection: Opening HTTP/2 connection for userId = " + _userId + ", remoteAddress = " + _address
+				+ ", useSsl = " + (_sslContext != null));
+		Bootstrap bootstrap = _bootstrap.clone().remoteAddress(_address).handler(new Http2ClientChannelInitializer());
+		ChannelFuture connectFuture = bootstrap.connect();
+		final Channel connection = connectFuture.channel();
+		final Promise<Channel> connectionPromise = _bootstrap.config().group().next().newPromise();
+		connectFuture.addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				if (!future.isSuccess()) {
+					connectionPromise.tryFailure(future.cause());
+					return;
+				}
+				if (channelStatsCollectorLogger.isDebugEnabled()) {
+					_channelStatsCollector.incrementNumChannelsCreated();
+					_channelStatsCollector.incrementNumHttp2ConnectionsOpen();
+					connection.closeFuture().addListener(new ChannelFutureListener() {
+						@Override
+						public void operationComplete(ChannelFuture closeFuture) throws Exception {
+							_channelStatsCollector.decrementNumHttp2ConnectionsOpen();
+						}
+					});
+				}
+				if (_sslContext == null) {
+					connectionPromise.trySuccess(connection);
+					return;
+				}
+
+				/*
+				 * The connection can only be used once TLS has negotiated h2
+				 */
+				final SslHandler sslHandler = connection.pipeline().get(SslHandler.class);
+				sslHandler.handshakeFuture().addListener(new FutureListener<Channel>() {
+					@Override
+					public void operationComplete(Future<Channel> handshakeFuture) throws Exception {
+						if (!handshakeFuture.isSuccess()) {
+							connectionPromise.tryFailure(handshakeFuture.cause());
+						} else if (!ApplicationProtocolNames.HTTP_2.equals(sslHandler.applicationProtocol())) {
+							logger.warn("getConnection: Server " + _address + " did not negotiate h2, negotiated "
+									+ sslHandler.applicationProtocol());
+							connection.close();
+							connectionPromise.tryFailure(new IllegalStateException("Server " + _address
+									+ " did not negotiate h2"));
+						} else {
+							connectionPromise.trySuccess(connection);
+						}
+					}
+				});
+			}
+		});
+		_connectionFuture = connectionPromise;
+		return _connectionFuture;
+	}
+
+	private class Http2ClientChannelInitializer extends ChannelInitializer<Channel> {
+		@Override
+		protected void initChannel(Channel ch) throws Exception {
+			ch.closeFuture().addListener(new LoggingChannelCloseFutureListener(_userId));
+			ch.attr(ACTIVESTREAMSKEY).set(new AtomicInteger(0));
+			if (_sslContext != null) {
+				ch.pipeline().addLast("ssl", _sslContext.newHandler(ch.alloc(), _address.getHostString(), _address.getPort()));
+			}
+			ch.pipeline().addLast("http2FrameCodec", Http2FrameCodecBuilder.forClient()
+					.initialSettings(Http2Settings.defaultSettings().pushEnabled(false)).build());
+			ch.pipeline().addLast("http2Multiplexer", new Http2MultiplexHandler(IgnoreInboundStreamHandler.INSTANCE));
+		}
+	}
+
+	/*
+	 * Push is disabled, so the server should never open a stream
+	 */
+	@Sharable
+	private static class IgnoreInboundStreamHandler extends ChannelInboundHandlerAdapter {
+		private static final IgnoreInboundStreamHandler INSTANCE = new IgnoreInboundStreamHandler();
+
+		@Override
+		public void channelActive(ChannelHandlerContext ctx) throws Exception {
+			ctx.close();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.http;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.workloadDriver.common.core.SimpleUri;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+
+/**
+ * Writes a request on a newly opened HTTP/2 stream. This is the HTTP/2
+ * counterpart of ChannelAllocatedFutureListener. Each request gets its own
+ * stream, which is closed once the response has been received.
+ */
+public class Http2StreamOpenedListener implements FutureListener<Http2StreamChannel> {
+	private static final Logger logger = LoggerFactory.getLogger(Http2StreamOpenedListener.class);
+
+	private HttpTransport _httpTransport;
+	private HttpMethod _httpMethod;
+	private SimpleUri _simpleUri;
+	private Map<String, String> _urlBindVariables;
+	private Map<String, String> _headers;
+	private String _content;
+	private Map<String, String> _formParameters;
+	private List<FileUploadInfo> _fileUploads;
+	private boolean _dropResponse;
+	private HttpRequestCompleteCallback _callback;
+	private Http2ConnectionPool _pool;
+	private long _userId;
+
+	/*
+	 * A request whose stream is closed before the response arrives is retried
+	 * once on a new stream, if it was refused by the server or is idempotent
+	 */
+	private boolean _retried;
+
+	public Http2StreamOpenedListener(HttpTransport httpTransport, HttpMethod httpMethod, SimpleUri simpleUri,
+			Map<String, String> urlBindVariables, Map<String, String> headers, String content,
+			Map<String, String> formParameters, List<FileUploadInfo> fileUploads, boolean dropResponse,
+			HttpRequestCompleteCallback callback, Http2ConnectionPool pool, long userId, boolean retried) {
+		super();
+		this._httpTransport = httpTransport;
+		this._httpMethod = httpMethod;
+		this._simpleUri = simpleUri;
+		this._urlBindVariables = urlBindVariables;
+		this._headers = headers;
+		this._content = content;
+		this._formParameters = formParameters;
+		this._fileUploads = fileUploads;
+		this._dropResponse = dropResponse;
+		this._callback = callback;
+		this._pool = pool;
+		this._userId = userId;
+		this._retried = retried;
+	}
+
+	@Override
+	public void operationComplete(Future<Http2StreamChannel> future) throws Exception {
+		String uri;
+		if ((_urlBindVariables != null) && !_urlBindVariables.isEmpty()) {
+			uri = _simpleUri.getUriString(_urlBindVariables);
+		} else {
+			uri = _simpleUri.getUriString();
+		}
+
+		if (!future.isSuccess()) {
+			Throwable t = future.cause();
+			logger.info("stream open failed for " + _httpMethod + " request with url "
+					+ uri + ",  userId = " + _userId + ", behaviorId = " + _callback.getBehaviorId() + ", cause = " + t.getMessage());
+			_callback.httpRequestFailed(t, _httpMethod == HttpMethod.GET);
+			return;
+		}
+
+		Http2StreamChannel stream = future.getNow();
+		logger.debug("stream opened for " + _httpMethod + " request with url "
+				+ uri + ", userId = " + _userId + ", behaviorId = " + _callback.getBehaviorId()
+				+ ", streamId = " + stream.stream().id());
+
+		PreparedHttpRequest preparedRequest = PreparedHttpRequest.prepare(_httpTransport, _httpMethod, _simpleUri,
+				uri, _headers, _content, _formParameters, _fileUploads, stream.alloc(), _userId);
+
+		stream.pipeline().addLast("codec", new Http2StreamFrameToHttpObjectCodec(false));
+		stream.pipeline().addLast("chunkedWriter", new ChunkedWriteHandler());
+		if (!_dropResponse) {
+			stream.pipeline().addLast("aggregator", new HttpObjectAggregator(512*1024));
+		}
+		stream.pipeline().addLast("readTimeoutHandler", new ReadTimeoutHandler(45));
+		stream.pipeline().addLast("responseHandler", new Http2StreamResponseHandler(_httpTransport,
+				preparedRequest.getRequest(), _callback, this, _userId));
+
+		logger.debug("Writing request " + _httpMethod + ":" + uri + ",  userId = " + _userId + ", behaviorId = " + _callback.getBehaviorId());
+		preparedRequest.write(stream);
+	}
+
+	/*
+	 * Returns true if the request has been re-sent on a new stream
+	 */
+	public boolean retry() {
+		if (_retried) {
+			return false;
+		}
+		logger.info("retry: Retrying " + _httpMethod + " request with url " + _simpleUri.getUriString()
+				+ " for userId = " + _userId + " on a new stream");
+		_pool.openStream().addListener(new Http2StreamOpenedListener(_httpTransport, _httpMethod, _simpleUri,
+				_urlBindVariables, _headers, _content, _formParameters, _fileUploads, _dropResponse,
+				_callback, _pool, _userId, true));
+		return true;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.http;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.Charset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2ResetFrame;
+
+/**
+ * Handles the response to a request sent on an HTTP/2 stream. The stream is
+ * closed once the response is complete, and the callback is then notified.
+ * Unlike an HTTP/1.1 response, a response with no body may arrive as a
+ * FullHttpResponse even when the response is being dropped.
+ */
+public class Http2StreamResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
+	private static final Logger logger = LoggerFactory.getLogger(Http2StreamResponseHandler.class);
+
+	private HttpTransport _httpTransport;
+	private HttpRequest _httpRequest;
+	private HttpRequestCompleteCallback _callbackObject;
+	private Http2StreamOpenedListener _streamOpenedListener;
+	private long _userId;
+
+	private HttpResponse _response = null;
+	private boolean _completed = false;
+
+	/*
+	 * Set if the server reset the stream with REFUSED_STREAM, which means
+	 * that it did not process the request
+	 */
+	private boolean _refused = false;
+
+	public Http2StreamResponseHandler(HttpTransport httpTransport, HttpRequest httpRequest,
+			HttpRequestCompleteCallback callbackObject, Http2StreamOpenedListener streamOpenedListener, long userId) {
+		super();
+		this._httpTransport = httpTransport;
+		this._httpRequest = httpRequest;
+		this._callbackObject = callbackObject;
+		this._streamOpenedListener = streamOpenedListener;
+		this._userId = userId;
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+		if (_completed) {
+			return;
+		}
+
+		if (msg instanceof FullHttpResponse) {
+			FullHttpResponse fullResponse = (FullHttpResponse) msg;
+			logger.debug("channelRead: received FullHttpResponse status:" + fullResponse.status()
+					+ " for userId = " + _userId + " request with url " + _httpRequest.uri());
+			if (fullResponse.status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+				return;
+			}
+			complete(ctx, fullResponse, fullResponse.content().toString(Charset.defaultCharset()));
+		} else if (msg instanceof HttpResponse) {
+			/*
+			 * Save the response to return once all content has been received.
+			 */
+			_response = (HttpResponse) msg;
+			logger.debug("channelRead: received HttpResponse for userId = " + _userId + ", status:" + _response.status()
+					+ " for request with url " + _httpRequest.uri());
+		} else if (msg instanceof LastHttpContent) {
+			logger.debug("channelRead: received LastHttpContent for userId = " + _userId + " for request with url " + _httpRequest.uri());
+			if (_response == null) {
+				throw new RuntimeException("ChannelRead got LastHttpContent with null response for request with url "
+						+ _httpRequest.uri() + ", userId = " + _userId);
+			}
+			complete(ctx, _response, null);
+		} else if (msg instanceof HttpContent) {
+			/*
+			 * The content of a response that is being dropped
+			 */
+		} else {
+			throw new RuntimeException("channelRead: received response with unknown type " + msg.getClass().getName()
+					+ " for request with url " + _httpRequest.uri() + ", userId = " + _userId);
+		}
+	}
+
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		if ((evt instanceof Http2ResetFrame)
+				&& (((Http2ResetFrame) evt).errorCode() == Http2Error.REFUSED_STREAM.code())) {
+			_refused = true;
+		}
+		super.userEventTriggered(ctx, evt);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (!_completed) {
+			/*
+			 * The stream was reset or the connection closed before the response
+			 * arrived. The server may already have processed the request, so it
+			 * is only retried if it was refused or is idempotent.
+			 */
+			_completed = true;
+			logger.info("channelInactive: stream closed before response for userId = " + _userId
+					+ " for request with url " + _httpRequest.uri() + ", refused = " + _refused);
+			if (!(_refused || isIdempotent(_httpRequest.method())) || !_streamOpenedListener.retry()) {
+				_callbackObject.httpRequestFailed(new ClosedChannelException(), _httpRequest.method() == HttpMethod.GET);
+			}
+		}
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+		logger.info("exceptionCaught reason = " + cause + ".  Was for for userId " + _userId + ", behaviour id = "
+				+ _callbackObject.getBehaviorId());
+		boolean wasCompleted = _completed;
+		_completed = true;
+		ctx.close();
+		if (!wasCompleted) {
+			_callbackObject.httpRequestFailed(cause, _httpRequest.method() == HttpMethod.GET);
+		}
+	}
+
+	private static boolean isIdempotent(HttpMethod method) {
+		return method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD) || method.equals(HttpMethod.PUT)
+				|| method.equals(HttpMethod.DELETE) || method.equals(HttpMethod.OPTIONS)
+				|| method.equals(HttpMethod.TRACE);
+	}
+
+	private void complete(ChannelHandlerContext ctx, HttpResponse response, String content) {
+		_completed = true;
+		ctx.close();
+
+		/*
+		 * Get the cookies from the response for use in future requests
+		 */
+		_httpTransport.extractCookies(response);
+		_callbackObject.httpRequestCompleted(response.status(), response.headers(), content,
+				_httpRequest.method() == HttpMethod.GET);
+	}
+
+}
@@ -9,16 +9,18 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.channel.Channel;
 import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 
 public class HttpClientChannelPoolHandler extends AbstractChannelPoolHandler {
 
 	private static final Logger logger = LoggerFactory.getLogger(HttpClientChannelPoolHandler.class);
 	private static final Logger channelStatsCollectorLogger = LoggerFactory.getLogger(ChannelStatsCollector.class);
 
+	private HttpTransport _httpTransport;
+	private FixedChannelPool _pool;
 	private SslContext _sslContext = null;
 	private boolean _useSsl = false;
 	private long _userId;
@@ -26,13 +28,21 @@ public class HttpClientChannelPoolHandler extends AbstractChannelPoolHandler {
 	private long _channelsOutstanding = 0;
 	private ChannelStatsCollector _channelStatsCollector = ChannelStatsCollector.getInstance();
 	
-	public HttpClientChannelPoolHandler(SslContext sslContext, boolean useSsl, long userId) {
+	public HttpClientChannelPoolHandler(HttpTransport httpTransport, SslContext sslContext, boolean useSsl, long userId) {
 		super();
+		this._httpTransport = httpTransport;
 		this._useSsl = useSsl;
 		this._sslContext = sslContext;
 		this._userId = userId;
 	}
 
+	/*
+	 * The pool is created after its handler, so it is set once it exists
+	 */
+	public void setPool(FixedChannelPool pool) {
+		this._pool = pool;
+	}
+
 	@Override
 	public void channelCreated(Channel ch) throws Exception {
 		LoggingChannelCloseFutureListener closeListener = new LoggingChannelCloseFutureListener(_userId);
@@ -58,15 +68,11 @@ public class HttpClientChannelPoolHandler extends AbstractChannelPoolHandler {
 		}
 
 		/*
-		 * Add a read timeout handler to close the connection if a request takes
-		 * too long. 
-		 * ToDo: Need to parameterize the timeout as 45 seconds may
-		 * not be correct for some workloads.
+		 * The pipeline is not changed after this.  The responseHandler
+		 * aggregates or discards the content of each response, and times out
+		 * requests whose response takes too long.
 		 */
-		if (ch.pipeline().get("readTimeoutHandler") != null) {
-			ch.pipeline().remove("readTimeoutHandler");
-		}
-		ch.pipeline().addLast("readTimeoutHandler", new ReadTimeoutHandler(45));
+		ch.pipeline().addLast("responseHandler", new ResponseInboundHandler(_httpTransport, _pool, _userId));
 
 	}
 
@@ -77,11 +83,6 @@ public class HttpClientChannelPoolHandler extends AbstractChannelPoolHandler {
 				+ ", useSsl = " + _useSsl + ", channelsCreated = " + _channelsCreated + ", channelsOutstanding = " + _channelsOutstanding);
 
 		ch.attr(ChannelAllocatedFutureListener.WASCREATEDKEY).getAndSet(null);
-
-		if (ch.pipeline().get("readTimeoutHandler") != null) {
-			ch.pipeline().remove("readTimeoutHandler");
-		}
-
 	}
 
 	@Override
@@ -99,16 +100,6 @@ public class HttpClientChannelPoolHandler extends AbstractChannelPoolHandler {
 		_channelsOutstanding++;
 		logger.debug("channelAcquired for userId = " + _userId + ", remoteAddress = " + ch.remoteAddress() + ", localAddress = " + ch.localAddress()
 				+ ", useSsl = " + _useSsl + ", channelsCreated = " + _channelsCreated + ", channelsOutstanding = " + _channelsOutstanding);
-
-		/*
-		 * Add a read timeout handler to close the connection if a request takes
-		 * too long. ToDo: Need to parameterize the timeout as 60 seconds may
-		 * not be correct for some workloads.
-		 */
-		if (ch.pipeline().get("readTimeoutHandler") != null) {
-			ch.pipeline().remove("readTimeoutHandler");
-		}
-		ch.pipeline().addLast("readTimeoutHandler", new ReadTimeoutHandler(45));
 	}
 
 }
@@ -0,0 +1,299 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.workloadDriver.common.core.SimpleUri;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * A precompiled HTTP/1.1 request for one SimpleUri and method. The parts of
+ * the request that are the same every time the uri is used, the request line
+ * up to the path, the literal pieces of the path and query string, and the
+ * Host and User-Agent headers, are encoded once. Each request then only has
+ * to splice in the bound variables, the headers of the operation, the
+ * cookies and the body.
+ *
+ * The encoded request is written below the HttpClientCodec, so that no
+ * HttpRequest or HttpHeaders objects are created. Multipart requests still
+ * go through PreparedHttpRequest.
+ */
+public class HttpRequestTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(HttpRequestTemplate.class);
+
+	private static final boolean useRequestTemplates = Boolean
+			.parseBoolean(System.getProperty("USEREQUESTTEMPLATES", "true"));
+
+	private static final ByteBuf CRLF = preEncode("\r\n");
+	private static final ByteBuf HEADER_SEPARATOR = preEncode(": ");
+	private static final ByteBuf COOKIE_HEADER = preEncode(HttpHeaderNames.COOKIE + ": ");
+	private static final ByteBuf CONTENT_LENGTH_HEADER = preEncode(HttpHeaderNames.CONTENT_LENGTH + ": ");
+	private static final ByteBuf FORM_CONTENT_TYPE_HEADER = preEncode(HttpHeaderNames.CONTENT_TYPE + ": "
+			+ HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED + "\r\n");
+
+	private final HttpMethod _httpMethod;
+
+	/*
+	 * The request line up to the end of the request target.  Each fragment is
+	 * either pre-encoded literal text or the name of a bind variable.
+	 */
+	private final List<Fragment> _targetFragments = new ArrayList<Fragment>();
+
+	/*
+	 * The rest of the request line, and the Host and User-Agent headers
+	 */
+	private final ByteBuf _staticHeaders;
+
+	private HttpRequestTemplate(SimpleUri simpleUri, HttpMethod httpMethod) {
+		this._httpMethod = httpMethod;
+
+		StringBuilder prefix = new StringBuilder();
+		prefix.append(httpMethod.name()).append(' ').append(simpleUri.getBaseUriString());
+		String path = simpleUri.getPath();
+		if ((path != null) && !path.equals("")) {
+			prefix.append('/');
+			addFragments(prefix, path);
+		}
+		String queryString = simpleUri.getQueryString();
+		if ((queryString != null) && !queryString.equals("")) {
+			prefix.append('?');
+			addFragments(prefix, queryString);
+		}
+		if (prefix.length() > 0) {
+			_targetFragments.add(new Fragment(preEncode(prefix.toString()), null));
+		}
+
+		_staticHeaders = preEncode(" HTTP/1.1\r\n"
+				+ HttpHeaderNames.HOST + ": " + simpleUri.getHostname() + "\r\n"
+				+ HttpHeaderNames.USER_AGENT + ": Weathervane Workload Driver\r\n");
+	}
+
+	/**
+	 * Templates are used for all requests other than file uploads, unless
+	 * USEREQUESTTEMPLATES is set to false
+	 */
+	public static boolean canUseTemplate(HttpMethod httpMethod, List<FileUploadInfo> fileUploads) {
+		return useRequestTemplates && ((fileUploads == null) || fileUploads.isEmpty())
+				&& ((httpMethod == HttpMethod.GET) || (httpMethod == HttpMethod.POST)
+						|| (httpMethod == HttpMethod.PUT) || (httpMethod == HttpMethod.DELETE));
+	}
+
+	/**
+	 * Returns the template for the uri and method, compiling it the first time
+	 * it is needed.  The templates are kept with the SimpleUri, one for each
+	 * method, so the templates for the uris of an operation are shared by all
+	 * users.
+	 */
+	@SuppressWarnings("unchecked")
+	public static HttpRequestTemplate forUri(SimpleUri simpleUri, HttpMethod httpMethod) {
+		ConcurrentMap<HttpMethod, HttpRequestTemplate> templates = (ConcurrentMap<HttpMethod, HttpRequestTemplate>) simpleUri
+				.getRequestTemplates();
+		if (templates == null) {
+			templates = new ConcurrentHashMap<HttpMethod, HttpRequestTemplate>(4);
+			simpleUri.setRequestTemplates(templates);
+		}
+		HttpRequestTemplate template = templates.get(httpMethod);
+		if (template == null) {
+			template = new HttpRequestTemplate(simpleUri, httpMethod);
+			templates.put(httpMethod, template);
+		}
+		return template;
+	}
+
+	/**
+	 * Encodes a request using the template.
+	 *
+	 * @param cookieHeader
+	 *            The encoded cookies of the user, or null if there are none
+	 */
+	public ByteBuf encode(ByteBufAllocator alloc, Map<String, String> urlBindVariables, Map<String, String> headers,
+			String cookieHeader, String content, Map<String, String> formParameters, long userId) {
+
+		byte[] body = null;
+		boolean isForm = false;
+		if (content != null) {
+			if ((formParameters != null) && !formParameters.isEmpty()) {
+				logger.warn("Got a " + _httpMethod + " request with url " + describeTarget(urlBindVariables)
+						+ " which has both content and form parameters.  This is not currently supported.  Only content will be sent.");
+			}
+			body = content.getBytes();
+		} else if ((formParameters != null) && !formParameters.isEmpty()) {
+			body = encodeForm(formParameters);
+			isForm = true;
+		}
+
+		ByteBuf buf = alloc.buffer(256 + ((body != null) ? body.length : 0));
+
+		for (Fragment fragment : _targetFragments) {
+			if (fragment.literal != null) {
+				buf.writeBytes(fragment.literal, fragment.literal.readerIndex(), fragment.literal.readableBytes());
+			} else {
+				String value = (urlBindVariables != null) ? urlBindVariables.get(fragment.variableName) : null;
+				if (value != null) {
+					buf.writeCharSequence(value, StandardCharsets.UTF_8);
+				} else {
+					/*
+					 * An unbound variable is left in place, as SimpleUri does
+					 */
+					ByteBufUtil.writeAscii(buf, "{" + fragment.variableName + "}");
+				}
+			}
+		}
+		writeStatic(buf, _staticHeaders);
+
+		if (headers == null) {
+			logger.warn("Headers for " + _httpMethod + " request with url "
+					+ describeTarget(urlBindVariables) + ",  userId = " + userId + " are null");
+		} else {
+			synchronized (headers) {
+				for (Map.Entry<String, String> entry : headers.entrySet()) {
+					String name = entry.getKey();
+					if (isTemplateHeader(name, isForm, cookieHeader != null)) {
+						continue;
+					}
+					buf.writeCharSequence(name, StandardCharsets.US_ASCII);
+					writeStatic(buf, HEADER_SEPARATOR);
+					buf.writeCharSequence(entry.getValue(), StandardCharsets.UTF_8);
+					writeStatic(buf, CRLF);
+				}
+			}
+		}
+
+		if (cookieHeader != null) {
+			writeStatic(buf, COOKIE_HEADER);
+			buf.writeCharSequence(cookieHeader, StandardCharsets.US_ASCII);
+			writeStatic(buf, CRLF);
+		}
+		if (isForm) {
+			writeStatic(buf, FORM_CONTENT_TYPE_HEADER);
+		}
+		writeStatic(buf, CONTENT_LENGTH_HEADER);
+		ByteBufUtil.writeAscii(buf, Integer.toString((body != null) ? body.length : 0));
+		writeStatic(buf, CRLF);
+		writeStatic(buf, CRLF);
+
+		if (body != null) {
+			buf.writeBytes(body);
+		}
+		return buf;
+	}
+
+	/**
+	 * Writes an encoded request to the channel and flushes it.  The request
+	 * is written from the context of the codec so that it goes straight to
+	 * the transport, or to the SslHandler.
+	 */
+	public static void write(Channel ch, ByteBuf encodedRequest) {
+		ChannelHandlerContext codecContext = ch.pipeline().context("codec");
+		codecContext.writeAndFlush(encodedRequest, codecContext.voidPromise());
+	}
+
+	/*
+	 * The headers that the template always sets replace those of the same
+	 * name in the headers of the operation
+	 */
+	private static boolean isTemplateHeader(String name, boolean isForm, boolean hasCookies) {
+		return HttpHeaderNames.HOST.contentEqualsIgnoreCase(name)
+				|| HttpHeaderNames.USER_AGENT.contentEqualsIgnoreCase(name)
+				|| HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(name)
+				|| (isForm && HttpHeaderNames.CONTENT_TYPE.contentEqualsIgnoreCase(name))
+				|| (hasCookies && HttpHeaderNames.COOKIE.contentEqualsIgnoreCase(name));
+	}
+
+	private static byte[] encodeForm(Map<String, String> formParameters) {
+		StringBuilder form = new StringBuilder();
+		try {
+			for (Map.Entry<String, String> entry : formParameters.entrySet()) {
+				if (form.length() > 0) {
+					form.append('&');
+				}
+				form.append(URLEncoder.encode(entry.getKey(), "UTF-8")).append('=')
+						.append(URLEncoder.encode(entry.getValue(), "UTF-8"));
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		return form.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/*
+	 * Splits a path or query string into literal text, which is appended to
+	 * the pending literal, and bind variables, which end it.
+	 */
+	private void addFragments(StringBuilder pendingLiteral, String str) {
+		int pos = 0;
+		while (pos < str.length()) {
+			int open = str.indexOf('{', pos);
+			int close = (open >= 0) ? str.indexOf('}', open) : -1;
+			if ((open < 0) || (close < 0)) {
+				pendingLiteral.append(str, pos, str.length());
+				return;
+			}
+			pendingLiteral.append(str, pos, open);
+			if (pendingLiteral.length() > 0) {
+				_targetFragments.add(new Fragment(preEncode(pendingLiteral.toString()), null));
+				pendingLiteral.setLength(0);
+			}
+			_targetFragments.add(new Fragment(null, str.substring(open + 1, close)));
+			pos = close + 1;
+		}
+	}
+
+	private String describeTarget(Map<String, String> urlBindVariables) {
+		StringBuilder target = new StringBuilder();
+		for (Fragment fragment : _targetFragments) {
+			if (fragment.literal != null) {
+				target.append(fragment.literal.toString(StandardCharsets.UTF_8));
+			} else if ((urlBindVariables != null) && urlBindVariables.containsKey(fragment.variableName)) {
+				target.append(urlBindVariables.get(fragment.variableName));
+			} else {
+				target.append('{').append(fragment.variableName).append('}');
+			}
+		}
+		return target.toString();
+	}
+
+	/*
+	 * The pre-encoded buffers are shared by all of the event loops, so they
+	 * are only ever read by index
+	 */
+	private static void writeStatic(ByteBuf buf, ByteBuf staticBuf) {
+		buf.writeBytes(staticBuf, staticBuf.readerIndex(), staticBuf.readableBytes());
+	}
+
+	private static ByteBuf preEncode(String str) {
+		return Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(str, StandardCharsets.UTF_8).asReadOnly());
+	}
+
+	private static class Fragment {
+		private final ByteBuf literal;
+		private final String variableName;
+
+		public Fragment(ByteBuf literal, String variableName) {
+			this.literal = literal;
+			this.variableName = variableName;
+		}
+	}
+}
@@ -43,9 +43,17 @@ import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.cookie.ClientCookieDecoder;
 import io.netty.handler.codec.http.cookie.ClientCookieEncoder;
 import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ReferenceCountedOpenSslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.util.concurrent.Future;
 
@@ -60,11 +68,24 @@ public class HttpTransport {
 	private static final Integer _maxConnPerUser = Integer.getInteger("MAXCONNPERUSER", 4);
 
 	static private ReferenceCountedOpenSslContext _sslContext = null;
+	static private ReferenceCountedOpenSslContext _http2SslContext = null;
 	static {
 		try {
 			_sslContext = (ReferenceCountedOpenSslContext) SslContextBuilder.forClient()
 								.sslProvider(SslProvider.OPENSSL_REFCNT)
 								.trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+			if (ClientBootstrapFactory.isUseHttp2()) {
+				/*
+				 * h2 is negotiated with ALPN, and requires the ciphers allowed by RFC 7540
+				 */
+				_http2SslContext = (ReferenceCountedOpenSslContext) SslContextBuilder.forClient()
+								.sslProvider(SslProvider.OPENSSL_REFCNT)
+								.ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+								.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN,
+										SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT,
+										ApplicationProtocolNames.HTTP_2))
+								.trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+			}
 		} catch (Exception e) {
 			logger.error("Caught exception when creating sslContext: " + e.getMessage());
 		}
@@ -81,6 +102,12 @@ public class HttpTransport {
 	private ChannelPoolMap<ChannelPoolKey, FixedChannelPool> _poolMap;
 	
 	private Set<FixedChannelPool> _pools = new HashSet<FixedChannelPool>();
+
+	/*
+	 * The HTTP/2 connections of the user, used instead of the channel pools
+	 * when USEHTTP2 is set
+	 */
+	private Map<ChannelPoolKey, Http2ConnectionPool> _http2Pools = new HashMap<ChannelPoolKey, Http2ConnectionPool>();
  	
 	private ChannelStatsCollector _channelStatsCollector = ChannelStatsCollector.getInstance();
 	
@@ -99,10 +126,12 @@ public class HttpTransport {
 				logger.debug("newPool: Creating new FixedChannelPool for userId = " + _user.getId() + ".  remoteAddress = " + key.getAddress()
 								+ ", useSSl = " + key.isUseSsl());
 				Bootstrap bootstrap = ClientBootstrapFactory.getInstance();
+				HttpClientChannelPoolHandler poolHandler = new HttpClientChannelPoolHandler(HttpTransport.this, 
+						_sslContext, key.isUseSsl(), _user.getId());
 				FixedChannelPool pool = new FixedChannelPool(bootstrap.remoteAddress(key.getAddress()), 
-						new HttpClientChannelPoolHandler(_sslContext, key.isUseSsl(), _user.getId()), 
-						ChannelHealthChecker.ACTIVE, AcquireTimeoutAction.FAIL,
+						poolHandler, ChannelHealthChecker.ACTIVE, AcquireTimeoutAction.FAIL,
 						5000, _maxConnPerUser, 20, true);
+				poolHandler.setPool(pool);
 				return pool;
 			}
 		};
@@ -115,15 +144,32 @@ public class HttpTransport {
 		}
 		_pools.clear();
 		_pools = null;
+		synchronized (_http2Pools) {
+			for (Http2ConnectionPool http2Pool : _http2Pools.values()) {
+				http2Pool.close();
+			}
+			_http2Pools.clear();
+		}
 		_user = null;
 	}
 	
 	
 	protected void setCookies(HttpRequest httpRequest) {
 		
+		String cookieHeader = getCookieHeader();
+		if (cookieHeader != null) {
+			httpRequest.headers().set(HttpHeaderNames.COOKIE, cookieHeader);
+		}
+	}
+	
+	/*
+	 * Returns the encoded cookies of the user, or null if there are none
+	 */
+	protected String getCookieHeader() {
 		if ((cookies != null) && !cookies.isEmpty()) {
-			httpRequest.headers().set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(cookies));
+			return ClientCookieEncoder.STRICT.encode(cookies);
 		}
+		return null;
 	}
 	
 	protected void extractCookies(HttpResponse httpResponse) {
@@ -275,6 +321,12 @@ public class HttpTransport {
 		boolean useSsl = (simpleUri.getScheme().equalsIgnoreCase("https")) ? true : false;
 		ChannelPoolKey poolKey = new ChannelPoolKey(address, useSsl);
 		
+		if (ClientBootstrapFactory.isUseHttp2()) {
+			executeHttp2Request(poolKey, httpMethod, simpleUri, urlBindVariables, headers, content,
+					formParameters, fileUploads, dropResponse, callback);
+			return;
+		}
+
 		final FixedChannelPool pool = _poolMap.get(poolKey);
 		_pools.add(pool);
 		Future<Channel> f = pool.acquire();
@@ -291,6 +343,35 @@ public class HttpTransport {
 
 	}
 	
+	/*
+	 * Sends the request on a new stream of the user's HTTP/2 connection to the
+	 * server
+	 */
+	private void executeHttp2Request(ChannelPoolKey poolKey, HttpMethod httpMethod, SimpleUri simpleUri,
+			Map<String, String> urlBindVariables, Map<String, String> headers, String content,
+			Map<String, String> formParameters, List<FileUploadInfo> fileUploads,
+			boolean dropResponse, HttpRequestCompleteCallback callback) {
+		Http2ConnectionPool http2Pool;
+		synchronized (_http2Pools) {
+			http2Pool = _http2Pools.get(poolKey);
+			if (http2Pool == null) {
+				logger.debug("executeHttp2Request: Creating new Http2ConnectionPool for userId = " + _user.getId()
+						+ ".  remoteAddress = " + poolKey.getAddress() + ", useSsl = " + poolKey.isUseSsl());
+				http2Pool = new Http2ConnectionPool(ClientBootstrapFactory.getInstance(), poolKey.getAddress(),
+						poolKey.isUseSsl() ? _http2SslContext : null, _user.getId());
+				_http2Pools.put(poolKey, http2Pool);
+			}
+		}
+
+		if (channelStatsCollectorLogger.isDebugEnabled()) {
+			_channelStatsCollector.incrementNumChannelsRequested();
+		}
+
+		Future<Http2StreamChannel> f = http2Pool.openStream();
+		f.addListener(new Http2StreamOpenedListener(this, httpMethod, simpleUri, urlBindVariables, headers,
+				content, formParameters, fileUploads, dropResponse, callback, http2Pool, _user.getId(), false));
+	}
+
 	private class ChannelPoolKey {
 		private InetSocketAddress _address;
 		private boolean _useSsl;
@@ -0,0 +1,159 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.http;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.weathervane.workloadDriver.common.core.SimpleUri;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder;
+import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder.ErrorDataEncoderException;
+
+/**
+ * An HTTP request built from the parameters of an HttpTransport request,
+ * ready to be written to a channel. The request is the same whether it is
+ * written to an HTTP/1.1 connection or to an HTTP/2 stream.
+ */
+public class PreparedHttpRequest {
+	private static final Logger logger = LoggerFactory.getLogger(PreparedHttpRequest.class);
+
+	private static HttpDataFactory _factory = new DefaultHttpDataFactory(false);
+
+	private final HttpRequest _request;
+	private final HttpPostRequestEncoder _bodyRequestEncoder;
+
+	private PreparedHttpRequest(HttpRequest request, HttpPostRequestEncoder bodyRequestEncoder) {
+		this._request = request;
+		this._bodyRequestEncoder = bodyRequestEncoder;
+	}
+
+	public static PreparedHttpRequest prepare(HttpTransport httpTransport, HttpMethod httpMethod, SimpleUri simpleUri,
+			String uri, Map<String, String> headers, String content, Map<String, String> formParameters,
+			List<FileUploadInfo> fileUploads, ByteBufAllocator alloc, long userId) throws ErrorDataEncoderException {
+
+		if ((content != null) && (formParameters != null) && !formParameters.isEmpty()) {
+			logger.warn("Got a " + httpMethod + " request with url "
+				+ uri + " which has both content and form parameters.  This is not currently supported.  Only content will be sent.");
+		}
+
+		if ((content != null) && (fileUploads != null) && !fileUploads.isEmpty()) {
+			logger.warn("Got a " + httpMethod + " request with url "
+				+ uri + " which has both content and file uploads.  This is not currently supported.  Only content will be sent.");
+		}
+
+		// Create the request.
+		HttpRequest request = null;
+		ByteBuf buf = null;
+		HttpPostRequestEncoder bodyRequestEncoder = null;
+		if (content != null) {
+			buf = alloc.buffer();
+			buf.writeBytes(content.getBytes());
+
+			request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, httpMethod, uri, buf);
+			request.headers().set(HttpHeaderNames.CONTENT_LENGTH, buf.readableBytes());
+
+		} else if ((fileUploads != null) && !fileUploads.isEmpty())  {
+
+			request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, httpMethod, uri);
+			/*
+			 * Handle a multipart request
+			 */
+			bodyRequestEncoder = new HttpPostRequestEncoder(_factory, request, true);
+			/*
+			 * Add any form parameters
+			 */
+			if (formParameters != null)  {
+				for (String key: formParameters.keySet()) {
+					bodyRequestEncoder.addBodyAttribute(key, formParameters.get(key));
+				}
+			}
+
+			/*
+			 * Add the files
+			 */
+			for (FileUploadInfo uploadInfo : fileUploads) {
+				bodyRequestEncoder.addBodyFileUpload(uploadInfo.getName(), uploadInfo.getFile(),
+											uploadInfo.getContentType(), uploadInfo.isText());
+			}
+
+		} else if ((formParameters != null) && !formParameters.isEmpty()) {
+			request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, httpMethod, uri);
+			bodyRequestEncoder = new HttpPostRequestEncoder(_factory, request, false);
+			for (String key : formParameters.keySet()) {
+				bodyRequestEncoder.addBodyAttribute(key, formParameters.get(key));
+			}
+		} else {
+			request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, httpMethod, uri);
+			request.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+		}
+
+		setHeaders(request, headers, httpMethod, simpleUri, userId);
+		request.headers().set(HttpHeaderNames.HOST, simpleUri.getHostname());
+		request.headers().set(HttpHeaderNames.USER_AGENT, "Weathervane Workload Driver");
+		httpTransport.setCookies(request);
+
+		if (bodyRequestEncoder != null) {
+			request = bodyRequestEncoder.finalizeRequest();
+		}
+
+		return new PreparedHttpRequest(request, bodyRequestEncoder);
+	}
+
+	/**
+	 * Writes the request, and its body if it is chunked, and flushes the
+	 * channel
+	 */
+	public void write(Channel ch) {
+		ch.write(_request);
+		if ((_bodyRequestEncoder != null) && (_bodyRequestEncoder.isChunked())) {
+			ch.write(_bodyRequestEncoder);
+		}
+		ch.flush();
+	}
+
+	public HttpRequest getRequest() {
+		return _request;
+	}
+
+	/**
+	 * Sets the headers of an HTTP request necessary to execute.
+	 *
+	 * @param httpRequest
+	 *            The HTTP request to add the basic headers.
+	 * @param headers
+	 *            A map of key-value pairs representing the headers.
+	 */
+	private static void setHeaders(HttpRequest httpRequest, Map<String, String> headers, HttpMethod httpMethod,
+			SimpleUri simpleUri, long userId) {
+
+		HttpHeaders httpHeaders = httpRequest.headers();
+
+		if (headers == null) {
+			logger.warn("Headers for " + httpMethod + " request with url "
+						+ simpleUri.getUriString() + ",  userId = " + userId + " are null");
+			return;
+		}
+		synchronized (headers) {
+			for (Map.Entry<String, String> entry : headers.entrySet()) {
+				httpHeaders.set(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+}
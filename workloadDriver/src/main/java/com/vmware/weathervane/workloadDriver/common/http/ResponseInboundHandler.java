@@ -5,162 +5,202 @@ SPDX-License-Identifier: BSD-2-Clause
 package com.vmware.weathervane.workloadDriver.common.http;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.pool.FixedChannelPool;
-import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObject;
-import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 
+/**
+ * Handles the responses received on a pooled HTTP/1.1 channel. One handler is
+ * added to the pipeline when the channel is created and stays there for the
+ * life of the channel. Each request calls startRequest, which tells the
+ * handler whether to aggregate the content of the response or to discard it,
+ * and starts the read timeout for the request.
+ */
 public class ResponseInboundHandler extends SimpleChannelInboundHandler<HttpObject> {
 	private static final Logger logger = LoggerFactory.getLogger(ResponseInboundHandler.class);
 
-	private HttpTransport _httpTransport;
-	private HttpRequest _httpRequest;
+	/*
+	 * The largest response content that will be aggregated
+	 */
+	private static final int maxContentLength = 512 * 1024;
+
+	/*
+	 * A request fails if nothing is read for this long while waiting for its
+	 * response.
+	 * ToDo: Need to parameterize the timeout as 45 seconds may
+	 * not be correct for some workloads.
+	 */
+	private static final long readTimeoutNanos = TimeUnit.SECONDS.toNanos(45);
+
+	private final HttpTransport _httpTransport;
+	private final FixedChannelPool _pool;
+	private final long _userId;
+
+	/*
+	 * The state of the current request.  _inFlight is only true between
+	 * startRequest and the completion or failure of the request.
+	 */
+	private volatile boolean _inFlight = false;
+	private HttpMethod _httpMethod;
+	private String _uri;
 	private boolean _dropResponse;
 	private HttpRequestCompleteCallback _callbackObject;
-	private Channel _channel;
-	private FixedChannelPool _pool;
 	private ChannelCloseFutureListener _closeListener;
-	private long _userId ;
-	
-	private HttpResponse _response = null;	
-	
-	public ResponseInboundHandler(HttpTransport httpTransport, HttpRequest httpRequest, 
-			boolean dropResponse, HttpRequestCompleteCallback callbackObject, 
-			Channel channel, FixedChannelPool pool, ChannelCloseFutureListener closeListener,
-			long userId) {
+
+	private HttpResponse _response = null;
+	private CompositeByteBuf _content = null;
+
+	private long _lastReadNanos;
+	private ScheduledFuture<?> _readTimeoutFuture = null;
+
+	public ResponseInboundHandler(HttpTransport httpTransport, FixedChannelPool pool, long userId) {
 		super();
 		this._httpTransport = httpTransport;
-		this._httpRequest = httpRequest;
-		this._dropResponse = dropResponse;
-		this._callbackObject = callbackObject;
-		this._channel = channel;
 		this._pool = pool;
-		this._closeListener = closeListener;
 		this._userId = userId;
 	}
 
-	@Override
-	protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+	/**
+	 * Prepares the handler for the response to a request that is about to be
+	 * written to the channel. The state of the request is only used on the
+	 * channel's event loop, so if called from another thread the handler is
+	 * prepared by a task on the event loop. The request is written after this
+	 * call, and so is queued on the event loop behind that task.
+	 */
+	public void startRequest(Channel channel, HttpMethod httpMethod, String uri, boolean dropResponse,
+			HttpRequestCompleteCallback callbackObject, ChannelCloseFutureListener closeListener) {
+		if (channel.eventLoop().inEventLoop()) {
+			doStartRequest(channel, httpMethod, uri, dropResponse, callbackObject, closeListener);
+		} else {
+			channel.eventLoop().execute(
+					() -> doStartRequest(channel, httpMethod, uri, dropResponse, callbackObject, closeListener));
+		}
+	}
 
-		if (msg instanceof FullHttpResponse) {
-			/* 
-			 * This is the full message.  Clean up and notify the callback
-			 */
-			if (_dropResponse) {
-				logger.warn("Got a FullHttpResponse even though dropResponse==true");
-			}
-			
-			_response =  (HttpResponse) msg;
-			FullHttpResponse fullResponse = (FullHttpResponse) msg;
-			
-			logger.debug("channelRead: received FullHttpResponse status:" + fullResponse.status()
-			+ " for userId = " + _userId + " request with url " + _httpRequest.uri());
+	private void doStartRequest(Channel channel, HttpMethod httpMethod, String uri, boolean dropResponse,
+			HttpRequestCompleteCallback callbackObject, ChannelCloseFutureListener closeListener) {
+		this._httpMethod = httpMethod;
+		this._uri = uri;
+		this._dropResponse = dropResponse;
+		this._callbackObject = callbackObject;
+		this._closeListener = closeListener;
+		this._response = null;
+		this._lastReadNanos = System.nanoTime();
 
-			/*
-			 * Stop listening for the close callback
-			 */
-			_channel.closeFuture().removeListener(_closeListener);
-			
-			/*
-			 * Return the channel to the pool
-			 */
-			Future<Void> releaseFuture = _pool.release(_channel);
-			
-			if (fullResponse != null) {
-				/*
-				 * Get the cookies from the response for use in future requests
-				 */
-				_httpTransport.extractCookies(_response);
+		/*
+		 * The timer is started before the request is published as in flight,
+		 * so that the end of the request always finds it to cancel
+		 */
+		cancelReadTimeout();
+		_readTimeoutFuture = channel.eventLoop().schedule(new ReadTimeoutTask(channel), readTimeoutNanos,
+				TimeUnit.NANOSECONDS);
+		this._inFlight = true;
+	}
 
-				/*
-				 * Signal that the request is complete
-				 */
-				releaseFuture.addListener(new RequestCompletedCallback(fullResponse.status(), 
-						fullResponse.headers(), fullResponse.content().toString(Charset.defaultCharset())));
-			} 
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+		if (!_inFlight) {
+			logger.debug("channelRead: received " + msg.getClass().getName() + " with no request in flight for userId = "
+					+ _userId);
+			return;
+		}
+		_lastReadNanos = System.nanoTime();
 
-		
-		} else if (msg instanceof HttpResponse) {
+		if (msg instanceof HttpResponse) {
 			/*
 			 * Save the response to return once all content has been received.
 			 */
 			_response = (HttpResponse) msg;
 
 			logger.debug("channelRead: received HttpResponse for userId = " + _userId + ", status:" + _response.status()
-						+ " for request with url " + _httpRequest.uri());
-
-		} else if (msg instanceof LastHttpContent) {
-			/* 
-			 * This is the end of the message.  Clean up and notify the callback
-			 */
-			logger.debug("channelRead: received LastHttpContentfor userId = " + _userId + " for request with url " + _httpRequest.uri());
+						+ " for request with url " + _uri);
 			if (!_dropResponse) {
-				logger.warn("Got HttpContent even though dropResponse==false");
+				_content = ctx.alloc().compositeBuffer();
 			}
-			
-			/*
-			 * Stop listening for the close callback
-			 */
-			_channel.closeFuture().removeListener(_closeListener);
-			
+		}
+
+		if (msg instanceof HttpContent) {
+			if (_response == null) {
+				logger.debug("channelRead got HttpContent with null response for userId " + _userId + " for request with url " + _uri);
+				throw new RuntimeException("ChannelRead got HttpContent with null response for request with url " + _uri + ", userId = " + _userId);
+			}
+
 			/*
-			 * Return the channel to the pool
+			 * The content of a response that is being dropped is simply released.
 			 */
-			Future<Void> releaseFuture = _pool.release(_channel);
-						
-			if (_response != null) {
+			HttpContent httpContent = (HttpContent) msg;
+			if (!_dropResponse && httpContent.content().isReadable()) {
+				if (_content.readableBytes() + httpContent.content().readableBytes() > maxContentLength) {
+					throw new TooLongFrameException("Response content exceeds " + maxContentLength
+							+ " bytes for request with url " + _uri + ", userId = " + _userId);
+				}
+				_content.addComponent(true, httpContent.content().retain());
+			}
+
+			if (msg instanceof LastHttpContent) {
+				/*
+				 * This is the end of the message.  Clean up and notify the callback
+				 */
+				logger.debug("channelRead: received LastHttpContent for userId = " + _userId + " for request with url " + _uri);
+				String content = null;
+				if (_content != null) {
+					_response.headers().add(((LastHttpContent) msg).trailingHeaders());
+					content = _content.toString(Charset.defaultCharset());
+				}
+				HttpResponse response = _response;
+				endRequest(ctx.channel());
+
 				/*
 				 * Get the cookies from the response for use in future requests
 				 */
-				_httpTransport.extractCookies(_response);
+				_httpTransport.extractCookies(response);
 
 				/*
 				 * Once the channel is returned, signal that the request is complete
 				 */
-				releaseFuture.addListener(new RequestCompletedCallback(_response.status(), 
-													_response.headers(), null));
-			} else {
-				logger.debug("channelRead got LastHttpContent with null response for userId " + _userId + " for request with url " + _httpRequest.uri());				
-				throw new RuntimeException("ChannelRead got LastHttpContent with null response for request with url " + _httpRequest.uri() + ", userId = " + _userId);
+				Future<Void> releaseFuture = _pool.release(ctx.channel());
+				releaseFuture.addListener(new RequestCompletedCallback(_callbackObject, _httpMethod,
+						response.status(), response.headers(), content));
 			}
-
-
-		} else if (msg instanceof HttpContent) {
-			logger.debug("channelRead: received HttpContent for userId = " + _userId + " for request with url " + _httpRequest.uri());				
-			if (!_dropResponse) {
-				logger.warn("Got HttpContent even though dropResponse==false");
-			}
-			/*
-			 * Should only get HttpContent in response to requests for which we don't 
-			 * have any use for the content.  Otherwise we would have placed an HttpObjectAggregator
-			 * into the pipeline before this handler.  As a result we can simply release the message. 
-			 */
-		} else {
-			logger.debug("channelRead: received response with unknown type " + msg.getClass().getName() + " for request with url " + _httpRequest.uri());				
+		} else if (!(msg instanceof HttpResponse)) {
+			logger.debug("channelRead: received response with unknown type " + msg.getClass().getName() + " for request with url " + _uri);
 			throw new RuntimeException("channelRead: received response with unknown type " + msg.getClass().getName()
-												+ " for request with url " + _httpRequest.uri() + ", userId = " + _userId);
+												+ " for request with url " + _uri + ", userId = " + _userId);
 		}
-		
+
 	}
 
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-		logger.debug("exceptionCaught for request with url " + _httpRequest.uri());
+		Channel channel = ctx.channel();
+		if (!_inFlight) {
+			/*
+			 * The channel is idle in the pool.  Close it so that it is not
+			 * handed out again.
+			 */
+			logger.debug("exceptionCaught with no request in flight for userId = " + _userId + ", reason = " + cause);
+			channel.close();
+			return;
+		}
 
 		/*
 		 * Call the registered callback
@@ -168,34 +208,105 @@ public class ResponseInboundHandler extends SimpleChannelInboundHandler<HttpObje
 		logger.info("exceptionCaught reason = " + cause + ".  Was for for userId " + _userId + ", behaviour id = " + _callbackObject.getBehaviorId());
 		if (logger.isDebugEnabled()) {
 			cause.printStackTrace();
-		}	
-		
-		/*
-		 * Stop listening for the close callback
-		 */
-		_channel.closeFuture().removeListener(_closeListener);
+		}
+
+		final HttpRequestCompleteCallback callbackObject = _callbackObject;
+		final boolean isGet = _httpMethod == HttpMethod.GET;
+		endRequest(channel);
 
-		if (_channel.isOpen()) {
-			_channel.close();
+		if (channel.isOpen()) {
+			channel.close();
 		}
 
-		Future<Void> releaseFuture = _pool.release(_channel);
+		Future<Void> releaseFuture = _pool.release(channel);
 		releaseFuture.addListener(new FutureListener<Void>() {
 			@Override
 			public void operationComplete(Future<Void> future) throws Exception {
-				_callbackObject.httpRequestFailed(cause, _httpRequest.method() == HttpMethod.GET);
+				callbackObject.httpRequestFailed(cause, isGet);
 			}
 		});
 
 	}
-	
-	private class RequestCompletedCallback implements FutureListener<Void> {
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		/*
+		 * The ChannelCloseFutureListener retries a request that was in flight
+		 */
+		_inFlight = false;
+		cancelReadTimeout();
+		releaseContent();
+		super.channelInactive(ctx);
+	}
+
+	/*
+	 * Clears the state of the current request.  The channel stops listening for
+	 * the close callback, as the request no longer needs to be retried.
+	 */
+	private void endRequest(Channel channel) {
+		_inFlight = false;
+		cancelReadTimeout();
+		releaseContent();
+		_response = null;
+		channel.closeFuture().removeListener(_closeListener);
+		_closeListener = null;
+	}
+
+	private void cancelReadTimeout() {
+		if (_readTimeoutFuture != null) {
+			_readTimeoutFuture.cancel(false);
+			_readTimeoutFuture = null;
+		}
+	}
+
+	private void releaseContent() {
+		if (_content != null) {
+			_content.release();
+			_content = null;
+		}
+	}
+
+	/*
+	 * Fails the request if nothing has been read for the length of the read
+	 * timeout, otherwise reschedules itself for the remainder of the timeout.
+	 */
+	private class ReadTimeoutTask implements Runnable {
+		private final Channel _channel;
+
+		public ReadTimeoutTask(Channel channel) {
+			this._channel = channel;
+		}
+
+		@Override
+		public void run() {
+			if (!_inFlight || (_readTimeoutFuture == null) || !_channel.isOpen()) {
+				return;
+			}
+			long remainingNanos = readTimeoutNanos - (System.nanoTime() - _lastReadNanos);
+			if (remainingNanos > 0) {
+				_readTimeoutFuture = _channel.eventLoop().schedule(this, remainingNanos, TimeUnit.NANOSECONDS);
+				return;
+			}
+			_readTimeoutFuture = null;
+			ChannelHandlerContext ctx = _channel.pipeline().context(ResponseInboundHandler.this);
+			if (ctx != null) {
+				exceptionCaught(ctx, ReadTimeoutException.INSTANCE);
+			}
+		}
+	}
+
+	private static class RequestCompletedCallback implements FutureListener<Void> {
+		private HttpRequestCompleteCallback _callbackObject;
+		private HttpMethod _httpMethod;
 		private HttpResponseStatus _status;
 		private HttpHeaders _headers;
 		private String _content;
 
-		public RequestCompletedCallback(HttpResponseStatus status, HttpHeaders headers, String content) {
+		public RequestCompletedCallback(HttpRequestCompleteCallback callbackObject, HttpMethod httpMethod,
+				HttpResponseStatus status, HttpHeaders headers, String content) {
 			super();
+			this._callbackObject = callbackObject;
+			this._httpMethod = httpMethod;
 			this._status = status;
 			this._headers = headers;
 			this._content = content;
@@ -203,7 +314,7 @@ public class ResponseInboundHandler extends SimpleChannelInboundHandler<HttpObje
 
 		@Override
 		public void operationComplete(Future<Void> future) throws Exception {
-			_callbackObject.httpRequestCompleted(_status, _headers, _content, _httpRequest.method() == HttpMethod.GET);
+			_callbackObject.httpRequestCompleted(_status, _headers, _content, _httpMethod == HttpMethod.GET);
 		}
 	}
 
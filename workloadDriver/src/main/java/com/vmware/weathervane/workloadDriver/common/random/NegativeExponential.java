@@ -8,9 +8,11 @@ import java.util.Random;
 
 public class NegativeExponential {
 	
-	private static final Random rand = new Random();
-		
 	public static double getNext(double mean) {
+		return getNext(RandomSource.current(), mean);
+	}	
+	
+	public static double getNext(Random rand, double mean) {
 		if (mean == 0) {
 			return 0.0;
 		} else {		
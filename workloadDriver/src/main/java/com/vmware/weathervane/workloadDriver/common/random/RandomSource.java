@@ -0,0 +1,110 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.random;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the random number generators used by the driver.
+ *
+ * All generators are seeded from a single run seed, taken from the RUNSEED
+ * system property. If no run seed is given a random one is chosen and logged,
+ * so that a run can be repeated by passing the logged seed. The seed of each
+ * generator is derived from the run seed and a name that does not depend on
+ * thread scheduling, such as the workload and id of a user, so that the same
+ * user gets the same sequence of random values in every run with the same
+ * seed.
+ */
+public class RandomSource {
+	private static final Logger logger = LoggerFactory.getLogger(RandomSource.class);
+
+	private static final long runSeed;
+
+	/*
+	 * Counts the users created for each user id. A user that replaces another
+	 * one keeps its id, and must not repeat the sequence of the user it
+	 * replaced.
+	 */
+	private static final Map<String, AtomicLong> userGenerations = new ConcurrentHashMap<String, AtomicLong>();
+
+	private static final ThreadLocal<SplittableRandomAdapter> threadRandom = new ThreadLocal<SplittableRandomAdapter>() {
+		@Override
+		protected SplittableRandomAdapter initialValue() {
+			return forStream("thread-" + Thread.currentThread().getName());
+		}
+	};
+
+	static {
+		Long seed = Long.getLong("RUNSEED");
+		if ((seed == null) || (seed == 0)) {
+			seed = new SplittableRandom().nextLong();
+		}
+		runSeed = seed;
+		logger.info("Random number generators use run seed " + runSeed);
+	}
+
+	public static long getRunSeed() {
+		return runSeed;
+	}
+
+	/**
+	 * Returns the generator for a user. The behaviors and operations of the
+	 * user should use splits of this generator.
+	 */
+	public static SplittableRandomAdapter forUser(String workloadName, long userId) {
+		String userKey = workloadName + "-" + userId;
+		AtomicLong generation = userGenerations.get(userKey);
+		if (generation == null) {
+			userGenerations.putIfAbsent(userKey, new AtomicLong(0));
+			generation = userGenerations.get(userKey);
+		}
+		return forStream("user-" + userKey + "-" + generation.getAndIncrement());
+	}
+
+	/**
+	 * Returns a generator for a named stream of random values
+	 */
+	public static SplittableRandomAdapter forStream(String name) {
+		return new SplittableRandomAdapter(mix(runSeed ^ hash(name)));
+	}
+
+	/*
+	 * A 64-bit FNV-1a hash of the name, finished with mix. String.hashCode is
+	 * only 32 bits, so the streams of different names would collide far more
+	 * often than those of different seeds.
+	 */
+	private static long hash(String name) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < name.length(); i++) {
+			hash ^= name.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Returns the generator of the current thread, for callers that do not have
+	 * a generator of their own.
+	 */
+	public static SplittableRandomAdapter current() {
+		return threadRandom.get();
+	}
+
+	/*
+	 * The finalizer of MurmurHash3, so that seeds that differ in only a few bits
+	 * give unrelated generators.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+		value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return value ^ (value >>> 33);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.random;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A java.util.Random backed by a SplittableRandom.
+ *
+ * This lets the choosers and state-manager providers, which take a Random,
+ * use a SplittableRandom. Unlike Random, the generator has no atomic seed, so
+ * it does no CAS on every call. It must only be used by one thread at a time,
+ * which is the case for the generators owned by a user since a user only runs
+ * on its own event loop.
+ */
+public class SplittableRandomAdapter extends Random {
+	private static final long serialVersionUID = 1L;
+
+	private final SplittableRandom splittableRandom;
+
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian = false;
+
+	public SplittableRandomAdapter(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private SplittableRandomAdapter(SplittableRandom splittableRandom) {
+		super(0);
+		this.splittableRandom = splittableRandom;
+	}
+
+	/**
+	 * Returns a new generator whose values are independent of this one. The
+	 * new generator is derived from the state of this one, so splitting is
+	 * repeatable for a given seed.
+	 */
+	public SplittableRandomAdapter split() {
+		return new SplittableRandomAdapter(splittableRandom.split());
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (splittableRandom.nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return splittableRandom.nextInt();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return splittableRandom.nextInt(bound);
+	}
+
+	@Override
+	public long nextLong() {
+		return splittableRandom.nextLong();
+	}
+
+	@Override
+	public double nextDouble() {
+		return splittableRandom.nextDouble();
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return splittableRandom.nextBoolean();
+	}
+
+	/*
+	 * The polar method, as in Random, but without the synchronization
+	 */
+	@Override
+	public double nextGaussian() {
+		if (haveNextNextGaussian) {
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * splittableRandom.nextDouble() - 1;
+			v2 = 2 * splittableRandom.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while ((s >= 1) || (s == 0));
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
+	}
+}
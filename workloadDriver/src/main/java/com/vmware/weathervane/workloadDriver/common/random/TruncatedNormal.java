@@ -8,9 +8,11 @@ import java.util.Random;
 
 public class TruncatedNormal {
 	
-	private static final Random rand = new Random();
-		
 	public static double getNext(double mean, double stddev, double min, double max) {
+		return getNext(RandomSource.current(), mean, stddev, min, max);
+	}		
+
+	public static double getNext(Random rand, double mean, double stddev, double min, double max) {
 		double rVal;
 		do {
 			rVal = rand.nextGaussian()*stddev + mean;
@@ -23,6 +23,23 @@ public class ComputedOpStatsSummary {
 	private double avgPassedRt = 0;
 	private double mixPct = 0;
 	private double avgCycleTime = 0;
+	/*
+	 * The fraction of operations that must meet the response-time limit, 
+	 * or 0 if the operation has no response-time requirement
+	 */
+	private double requiredPassingPct = 0;
+	/*
+	 * The fraction of all operations that should be made up by this
+	 * operation, or 0 if the operation has no requirements
+	 */
+	private double requiredMixPct = 0;
+	/*
+	 * The limits on the fraction of all operations made up by this operation,
+	 * and the fraction of this operation that is allowed to fail
+	 */
+	private double minMixPct = 0;
+	private double maxMixPct = 1;
+	private double allowedFailurePct = 1;
 	
 	public boolean isPassed() {
 		return passed;
@@ -109,6 +126,36 @@ public class ComputedOpStatsSummary {
 	public void setRtFailures(long rtFailures) {
 		this.rtFailures = rtFailures;
 	}
+	public double getRequiredPassingPct() {
+		return requiredPassingPct;
+	}
+	public void setRequiredPassingPct(double requiredPassingPct) {
+		this.requiredPassingPct = requiredPassingPct;
+	}
+	public double getRequiredMixPct() {
+		return requiredMixPct;
+	}
+	public void setRequiredMixPct(double requiredMixPct) {
+		this.requiredMixPct = requiredMixPct;
+	}
+	public double getMinMixPct() {
+		return minMixPct;
+	}
+	public void setMinMixPct(double minMixPct) {
+		this.minMixPct = minMixPct;
+	}
+	public double getMaxMixPct() {
+		return maxMixPct;
+	}
+	public void setMaxMixPct(double maxMixPct) {
+		this.maxMixPct = maxMixPct;
+	}
+	public double getAllowedFailurePct() {
+		return allowedFailurePct;
+	}
+	public void setAllowedFailurePct(double allowedFailurePct) {
+		this.allowedFailurePct = allowedFailurePct;
+	}
 	public boolean isPassedFailurePct() {
 		return passedFailurePct;
 	}
@@ -17,6 +17,7 @@ public class OperationStats {
 	
 	private long startTime = 0;
 	private long endTime = 0;
+	private long arrivalTime = 0;
 	private long cycleTime;
 	private long totalSteps;
 			
@@ -28,6 +29,7 @@ public class OperationStats {
 		this.failureString = operation.getFailureString();
 		this.startTime = operation.getTimeStarted();
 		this.endTime = operation.getTimeFinished();
+		this.arrivalTime = operation.getTimeArrived();
 		this.setCycleTime(operation.getCycleTime());
 		this.totalSteps = operation.getTotalSteps();		
 	}
@@ -88,6 +90,18 @@ public class OperationStats {
 		this.endTime = endTime;
 	}
 
+	/*
+	 * The time at which the arrival that released this operation was
+	 * generated.  Only set when running open-loop, 0 otherwise.
+	 */
+	public long getArrivalTime() {
+		return arrivalTime;
+	}
+
+	public void setArrivalTime(long arrivalTime) {
+		this.arrivalTime = arrivalTime;
+	}
+
 	public long getTotalSteps() {
 		return totalSteps;
 	}
@@ -113,6 +127,7 @@ public class OperationStats {
 		retVal.append(", _failureString = " + failureString);
 		retVal.append(", startTime = " + startTime);
 		retVal.append(", endTime = " + endTime);
+		retVal.append(", arrivalTime = " + arrivalTime);
 		retVal.append(", cycleTime = " + getCycleTime());
 		retVal.append(", responseTime = " + (endTime - startTime) / 1000.0);
 		retVal.append(", totalSteps = " + totalSteps);
@@ -30,6 +30,14 @@ public class OperationStatsSummary {
 	public long maxResponseTime				= Long.MIN_VALUE;
 	private long totalCycleTime = 0;
 
+	/*
+	 * Time between an open-loop arrival and the start of the operation
+	 * it released.
+	 */
+	private long totalNumQueuedOps = 0;
+	private long totalQueueingDelay = 0;
+	private long maxQueueingDelay = 0;
+
 	private long totalSteps = 0;
 
 	private long responseTimeLimit;	
@@ -87,6 +95,15 @@ public class OperationStatsSummary {
 		
 		totalCycleTime += operationStats.getCycleTime();
 		
+		if (operationStats.getArrivalTime() > 0) {
+			long queueingDelay = Math.max(0, operationStats.getStartTime() - operationStats.getArrivalTime());
+			totalNumQueuedOps++;
+			totalQueueingDelay += queueingDelay;
+			if (queueingDelay > maxQueueingDelay) {
+				maxQueueingDelay = queueingDelay;
+			}
+		}
+		
 		if (operationStats.isFailed()) {
 			totalNumFailed++;
 			Long failureStringCount = failureStringCounts.get(operationStats.getFailureString());
@@ -138,6 +155,12 @@ public class OperationStatsSummary {
 		
 		this.totalCycleTime += that.totalCycleTime;
 		
+		this.totalNumQueuedOps += that.totalNumQueuedOps;
+		this.totalQueueingDelay += that.totalQueueingDelay;
+		if (that.maxQueueingDelay > this.maxQueueingDelay) {
+			this.maxQueueingDelay = that.maxQueueingDelay;
+		}
+		
 		this.totalSteps += that.getTotalSteps();
 
 		this.responseTimeLimit = that.responseTimeLimit;
@@ -163,6 +186,10 @@ public class OperationStatsSummary {
 		this.minResponseTime = Long.MAX_VALUE;
 		this.maxResponseTime = Long.MIN_VALUE;
 		
+		this.totalNumQueuedOps = 0;
+		this.totalQueueingDelay = 0;
+		this.maxQueueingDelay = 0;
+		
 		this.totalSteps = 0;
 
 		
@@ -320,6 +347,30 @@ public class OperationStatsSummary {
 		this.totalCycleTime = totalCycleTime;
 	}
 
+	public long getTotalNumQueuedOps() {
+		return totalNumQueuedOps;
+	}
+
+	public void setTotalNumQueuedOps(long totalNumQueuedOps) {
+		this.totalNumQueuedOps = totalNumQueuedOps;
+	}
+
+	public long getTotalQueueingDelay() {
+		return totalQueueingDelay;
+	}
+
+	public void setTotalQueueingDelay(long totalQueueingDelay) {
+		this.totalQueueingDelay = totalQueueingDelay;
+	}
+
+	public long getMaxQueueingDelay() {
+		return maxQueueingDelay;
+	}
+
+	public void setMaxQueueingDelay(long maxQueueingDelay) {
+		this.maxQueueingDelay = maxQueueingDelay;
+	}
+
 	public boolean passedRt() {
 		if (!useResponseTime) {
 			return true;
@@ -389,6 +440,9 @@ public class OperationStatsSummary {
 		retVal.append(", minResponseTime = " + minResponseTime);
 		retVal.append(", maxResponseTime = " + maxResponseTime);
 		retVal.append(", totalCycleTime = " + totalCycleTime);
+		retVal.append(", totalNumQueuedOps = " + totalNumQueuedOps);
+		retVal.append(", totalQueueingDelay = " + totalQueueingDelay);
+		retVal.append(", maxQueueingDelay = " + maxQueueingDelay);
 		retVal.append(", totalSteps = " + totalSteps);
 		retVal.append(", responseTimeLimit = " + responseTimeLimit);
 		retVal.append(", responseTimeLimitPercentile = " + responseTimeLimitPercentile);
@@ -0,0 +1,343 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Decides whether a load passes QoS from a sequence of short decision periods,
+ * so that a load path can end an interval as soon as its result is known.
+ *
+ * The rollups of the decision periods run at a load are added as they
+ * complete. For each operation, confidence intervals are computed for the
+ * fraction of operations that met the response-time limit, for the fraction
+ * of the mix made up by the operation, and for the fraction of operations
+ * that failed. The load fails as soon as any of these is significantly
+ * outside its requirement, and passes once all of them are significantly
+ * inside their requirements and the confidence interval for the throughput
+ * is within throughputPrecision of the mean. Otherwise more decision periods
+ * are needed, until the maximum duration is reached and the point estimates
+ * over all of the periods are used.
+ *
+ * Response-time failures come in bursts, so the operations of a period are
+ * not independent trials. The intervals are therefore computed from the
+ * values of each period, as batch means, and are never narrower than the
+ * binomial interval over all of the operations. No early verdict is given
+ * before minPeriodsForEarlyVerdict periods. Since the test is repeated after
+ * every period, the k-th test is made at a significance of
+ * (1 - confidenceLevel) / (k * (k + 1)), so that the chance of a wrong early
+ * verdict over all of the tests is at most 1 - confidenceLevel.
+ */
+public class SequentialQosTest {
+	private static final Logger logger = LoggerFactory.getLogger(SequentialQosTest.class);
+
+	public enum Verdict {
+		PASS, FAIL, UNDECIDED
+	};
+
+	private static final int minPeriodsForEarlyVerdict = 3;
+
+	private final double confidenceLevel;
+	private final double throughputPrecision;
+
+	private final NormalDistribution normalDistribution = new NormalDistribution();
+
+	private final Map<String, OpCounts> opCounts = new HashMap<String, OpCounts>();
+	private final List<Double> periodThroughputs = new ArrayList<Double>();
+	private long totalNumOps = 0;
+	private int numPeriodsWithOps = 0;
+	private double durationSec = 0;
+
+	private static class OpCounts {
+		private long numOps = 0;
+		private long rtFailures = 0;
+		private long failures = 0;
+		private double requiredPassingPct = 0;
+		private double minMixPct = 0;
+		private double maxMixPct = 1;
+		private double allowedFailurePct = 1;
+
+		/*
+		 * The values for each period. The passing and failure percentages are
+		 * only added for periods in which the operation was run, and the mix
+		 * for every period in which any operation was run.
+		 */
+		private final List<Double> periodPassingPcts = new ArrayList<Double>();
+		private final List<Double> periodMixPcts = new ArrayList<Double>();
+		private final List<Double> periodFailurePcts = new ArrayList<Double>();
+		private long periodNumOps = 0;
+	}
+
+	public SequentialQosTest(double confidenceLevel, double throughputPrecision) {
+		this.confidenceLevel = confidenceLevel;
+		this.throughputPrecision = throughputPrecision;
+	}
+
+	public void reset() {
+		opCounts.clear();
+		periodThroughputs.clear();
+		totalNumOps = 0;
+		numPeriodsWithOps = 0;
+		durationSec = 0;
+	}
+
+	public void addPeriod(StatsSummaryRollup rollup) {
+		durationSec += rollup.getIntervalDurationSec();
+		periodThroughputs.add(rollup.getThroughput());
+		long periodTotalNumOps = 0;
+		for (Map.Entry<String, ComputedOpStatsSummary> entry : rollup.getComputedOpStatsSummaries().entrySet()) {
+			ComputedOpStatsSummary opSummary = entry.getValue();
+			if (opSummary.getRequiredMixPct() <= 0) {
+				/*
+				 * The rollup does not fill in the counts of operations that
+				 * have no requirements, so they are not part of the test
+				 */
+				continue;
+			}
+			OpCounts counts = opCounts.get(entry.getKey());
+			if (counts == null) {
+				counts = new OpCounts();
+				// The operation was not run in any of the earlier periods
+				for (int i = 0; i < numPeriodsWithOps; i++) {
+					counts.periodMixPcts.add(0.0);
+				}
+				opCounts.put(entry.getKey(), counts);
+			}
+			long numOps = opSummary.getSuccesses() + opSummary.getFailures() + opSummary.getRtFailures();
+			counts.numOps += numOps;
+			counts.rtFailures += opSummary.getRtFailures();
+			counts.failures += opSummary.getFailures();
+			counts.requiredPassingPct = opSummary.getRequiredPassingPct();
+			counts.minMixPct = opSummary.getMinMixPct();
+			counts.maxMixPct = opSummary.getMaxMixPct();
+			counts.allowedFailurePct = opSummary.getAllowedFailurePct();
+			counts.periodNumOps += numOps;
+			if (numOps > 0) {
+				counts.periodPassingPcts.add((numOps - opSummary.getRtFailures()) / (numOps * 1.0));
+				counts.periodFailurePcts.add(opSummary.getFailures() / (numOps * 1.0));
+			}
+			periodTotalNumOps += numOps;
+		}
+		totalNumOps += periodTotalNumOps;
+
+		if (periodTotalNumOps > 0) {
+			numPeriodsWithOps++;
+		}
+		for (OpCounts counts : opCounts.values()) {
+			if (periodTotalNumOps > 0) {
+				counts.periodMixPcts.add(counts.periodNumOps / (periodTotalNumOps * 1.0));
+			}
+			counts.periodNumOps = 0;
+		}
+	}
+
+	public double getDurationSec() {
+		return durationSec;
+	}
+
+	public int getNumPeriods() {
+		return periodThroughputs.size();
+	}
+
+	/*
+	 * Returns the verdict for the periods added so far. If maxDurationReached
+	 * the verdict is never UNDECIDED. If allowEarlyPass is false, the load can
+	 * fail early but is only passed once the maximum duration is reached.
+	 */
+	public Verdict getVerdict(boolean maxDurationReached, boolean allowEarlyPass) {
+		if (totalNumOps == 0) {
+			return maxDurationReached ? Verdict.FAIL : Verdict.UNDECIDED;
+		}
+		if (maxDurationReached) {
+			return isPassing() ? Verdict.PASS : Verdict.FAIL;
+		}
+		if (getNumPeriods() < minPeriodsForEarlyVerdict) {
+			return Verdict.UNDECIDED;
+		}
+
+		double lookAlpha = getLookAlpha();
+		boolean allSignificantlyPassing = true;
+		for (Map.Entry<String, OpCounts> entry : opCounts.entrySet()) {
+			String opName = entry.getKey();
+			OpCounts counts = entry.getValue();
+
+			/*
+			 * Response-time percentile conformance.  An operation that has not
+			 * been run in enough periods neither passes nor fails the
+			 * response-time and failure checks, but still counts against the
+			 * mix.
+			 */
+			boolean enoughPeriods = counts.periodPassingPcts.size() >= minPeriodsForEarlyVerdict;
+			if ((counts.requiredPassingPct > 0) && enoughPeriods) {
+				double[] interval = confidenceInterval(counts.periodPassingPcts, counts.numOps - counts.rtFailures,
+						counts.numOps, lookAlpha);
+				logger.debug("getVerdict: " + opName + " rt passingPct interval = (" + interval[0] + ", "
+						+ interval[1] + "), required = " + counts.requiredPassingPct);
+				if (interval[1] < counts.requiredPassingPct) {
+					logger.debug("getVerdict: " + opName + " is significantly failing response-time");
+					return Verdict.FAIL;
+				}
+				allSignificantlyPassing &= (interval[0] >= counts.requiredPassingPct);
+			} else if (counts.requiredPassingPct > 0) {
+				allSignificantlyPassing = false;
+			}
+
+			/*
+			 * Mix conformance
+			 */
+			double[] mixInterval = confidenceInterval(counts.periodMixPcts, counts.numOps, totalNumOps, lookAlpha);
+			if ((mixInterval[1] < counts.minMixPct) || (mixInterval[0] > counts.maxMixPct)) {
+				logger.debug("getVerdict: " + opName + " is significantly failing mix, interval = (" + mixInterval[0]
+						+ ", " + mixInterval[1] + ")");
+				return Verdict.FAIL;
+			}
+			allSignificantlyPassing &= (mixInterval[0] >= counts.minMixPct) && (mixInterval[1] <= counts.maxMixPct);
+
+			/*
+			 * Failure percentage
+			 */
+			if (!enoughPeriods) {
+				allSignificantlyPassing = false;
+				continue;
+			}
+			double[] failureInterval = confidenceInterval(counts.periodFailurePcts, counts.failures, counts.numOps,
+					lookAlpha);
+			if (failureInterval[0] > counts.allowedFailurePct) {
+				logger.debug("getVerdict: " + opName + " is significantly failing failure pct, interval = ("
+						+ failureInterval[0] + ", " + failureInterval[1] + ")");
+				return Verdict.FAIL;
+			}
+			allSignificantlyPassing &= (failureInterval[1] <= counts.allowedFailurePct);
+		}
+
+		if (allowEarlyPass && allSignificantlyPassing && isThroughputPrecise(lookAlpha)) {
+			return Verdict.PASS;
+		}
+		return Verdict.UNDECIDED;
+	}
+
+	/*
+	 * Whether the point estimates over all of the periods meet the
+	 * requirements
+	 */
+	private boolean isPassing() {
+		for (OpCounts counts : opCounts.values()) {
+			if ((counts.requiredPassingPct > 0) && (counts.numOps > 0)) {
+				double passingPct = (counts.numOps - counts.rtFailures) / (counts.numOps * 1.0);
+				if (passingPct < counts.requiredPassingPct) {
+					return false;
+				}
+			}
+			double mixPct = counts.numOps / (totalNumOps * 1.0);
+			if ((mixPct < counts.minMixPct) || (mixPct > counts.maxMixPct)) {
+				return false;
+			}
+			if ((counts.numOps > 0) && ((counts.failures / (counts.numOps * 1.0)) > counts.allowedFailurePct)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * The significance of the current test. The tests from the first one at
+	 * minPeriodsForEarlyVerdict periods are numbered from 1.
+	 */
+	private double getLookAlpha() {
+		long look = getNumPeriods() - minPeriodsForEarlyVerdict + 1;
+		return (1 - confidenceLevel) / (look * (look + 1));
+	}
+
+	/*
+	 * Returns the mean throughput of the periods and the half-width of its
+	 * confidence interval, using the t-distribution since there are only a few
+	 * periods. The half-width is infinite until there are two periods.
+	 */
+	public double[] getThroughputInterval() {
+		return getThroughputInterval(1 - confidenceLevel);
+	}
+
+	private double[] getThroughputInterval(double alpha) {
+		int numPeriods = periodThroughputs.size();
+		double mean = 0;
+		for (Double throughput : periodThroughputs) {
+			mean += throughput;
+		}
+		if (numPeriods > 0) {
+			mean /= numPeriods;
+		}
+		if (numPeriods < 2) {
+			return new double[] { mean, Double.POSITIVE_INFINITY };
+		}
+		return new double[] { mean, tHalfWidth(periodThroughputs, mean, alpha) };
+	}
+
+	private boolean isThroughputPrecise(double alpha) {
+		double[] throughputInterval = getThroughputInterval(alpha);
+		logger.debug("isThroughputPrecise: throughput = " + throughputInterval[0] + " +/- " + throughputInterval[1]);
+		return throughputInterval[1] <= (throughputInterval[0] * throughputPrecision);
+	}
+
+	/*
+	 * The interval for a proportion from the batch means of the periods,
+	 * widened to the Wilson score interval over all of the operations if that
+	 * is wider, since the spread of a few periods can be zero by chance
+	 */
+	private double[] confidenceInterval(List<Double> periodValues, long successes, long trials, double alpha) {
+		double[] interval = wilsonInterval(successes, trials, alpha);
+		int numPeriods = periodValues.size();
+		if (numPeriods < 2) {
+			return interval;
+		}
+		double mean = 0;
+		for (Double value : periodValues) {
+			mean += value;
+		}
+		mean /= numPeriods;
+		double halfWidth = tHalfWidth(periodValues, mean, alpha);
+		return new double[] { Math.min(interval[0], mean - halfWidth), Math.max(interval[1], mean + halfWidth) };
+	}
+
+	private double tHalfWidth(List<Double> values, double mean, double alpha) {
+		int numValues = values.size();
+		double sumSquares = 0;
+		for (Double value : values) {
+			sumSquares += (value - mean) * (value - mean);
+		}
+		double stdDev = Math.sqrt(sumSquares / (numValues - 1));
+		double t = new TDistribution(numValues - 1).inverseCumulativeProbability(1 - (alpha / 2));
+		return t * stdDev / Math.sqrt(numValues);
+	}
+
+	/*
+	 * The Wilson score interval for a binomial proportion, which unlike the
+	 * normal approximation behaves well for proportions near 0 or 1
+	 */
+	private double[] wilsonInterval(long successes, long trials, double alpha) {
+		double z = normalDistribution.inverseCumulativeProbability(1 - (alpha / 2));
+		double p = successes / (trials * 1.0);
+		double zSquaredOverN = (z * z) / trials;
+		double center = (p + (zSquaredOverN / 2)) / (1 + zSquaredOverN);
+		double halfWidth = z * Math.sqrt((p * (1 - p) / trials) + (zSquaredOverN / (4.0 * trials)))
+				/ (1 + zSquaredOverN);
+		return new double[] { center - halfWidth, center + halfWidth };
+	}
+
+	@Override
+	public String toString() {
+		double[] throughputInterval = getThroughputInterval();
+		return "SequentialQosTest: periods = " + getNumPeriods() + ", durationSec = " + durationSec
+				+ ", totalNumOps = " + totalNumOps + ", throughput = " + throughputInterval[0] + " +/- "
+				+ throughputInterval[1];
+	}
+}
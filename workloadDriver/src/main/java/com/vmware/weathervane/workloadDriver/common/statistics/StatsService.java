@@ -5,6 +5,7 @@ SPDX-License-Identifier: BSD-2-Clause
 package com.vmware.weathervane.workloadDriver.common.statistics;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.vmware.weathervane.workloadDriver.common.representation.InitializeRunStatsMessage;
 import com.vmware.weathervane.workloadDriver.common.representation.StatsSummaryResponseMessage;
@@ -14,6 +15,12 @@ public interface StatsService {
 
 	void postStatsSummary(String runName, StatsSummary statsSummary) throws IOException;
 
+	/**
+	 * Merges a batch of summaries. A batch with a batchId that has already
+	 * been merged is ignored. The batchId may be null.
+	 */
+	void postStatsSummaries(String runName, String batchId, List<StatsSummary> statsSummaries) throws IOException;
+
 	void initializeRun(String runName, InitializeRunStatsMessage initializeRunStatsMessage);
 
 	void runStarted(String runName);
@@ -4,16 +4,15 @@ SPDX-License-Identifier: BSD-2-Clause
 */
 package com.vmware.weathervane.workloadDriver.common.statistics;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,30 +26,52 @@ import com.vmware.weathervane.workloadDriver.common.representation.StatsSummaryR
 public class StatsServiceImpl implements StatsService {
 	private static final Logger logger = LoggerFactory.getLogger(StatsServiceImpl.class);
 
-	private long curPeriod = 0;
+	private AtomicLong curPeriod = new AtomicLong(0);
 	
-	private Map<String, List<String>> runNameToHostsListMap = new HashMap<>();
-	private Map<String, String> runNameToStatsOutputDirName = new HashMap<>();
-	private Map<String, Map<String, Integer>> runNameToWorkloadNameToNumTargetsMap = new HashMap<>();
-	private Map<String, Boolean> runNameToIsPerTargetStatsMap = new HashMap<>();
+	private Map<String, List<String>> runNameToHostsListMap = new ConcurrentHashMap<>();
+	private Map<String, String> runNameToStatsOutputDirName = new ConcurrentHashMap<>();
+	private Map<String, Map<String, Integer>> runNameToWorkloadNameToNumTargetsMap = new ConcurrentHashMap<>();
+	private Map<String, Boolean> runNameToIsPerTargetStatsMap = new ConcurrentHashMap<>();
 
 	/*
-	 * Writers for csv files.
-	 * workload -> (statsIntervalSpec -> Writer)
+	 * The ids of the batches of summaries that have been merged for each run.
+	 * A driver resends a batch if its connection fails, which can happen after
+	 * the batch was merged.
 	 */
-	private Map<String, Map<String, Writer>> workloadAllSamplesCsvWriters 
-										= new HashMap<String, Map<String, Writer>>();
-	private Map<String, Map<String, Writer>> workloadAggregatedCsvWriters 
-		= new HashMap<String, Map<String, Writer>>();
-	private Map<String, Map<String, Writer>> workloadSummaryWriters 
-		= new HashMap<String, Map<String, Writer>>();
+	private Map<String, Set<String>> runNameToMergedBatchIds = new ConcurrentHashMap<>();
+
+	/*
+	 * The stats for each workload are merged while holding the lock for the
+	 * workload, so that summaries for different workloads can be merged at
+	 * the same time. All of the per-workload maps below are only changed
+	 * while holding the workload's lock.
+	 */
+	private Map<String, Object> workloadLocks = new ConcurrentHashMap<String, Object>();
+
+	/*
+	 * Keeps the lines of the interval output for different workloads from
+	 * being interleaved
+	 */
+	private final Object intervalOutputLock = new Object();
+
+	/*
+	 * If true, every sample is also recorded in a binary file alongside the
+	 * allSamples csv file
+	 */
+	private static final boolean binaryStatsOutput = Boolean
+			.parseBoolean(System.getProperty("STATSBINARYOUTPUT", "true"));
+
+	/*
+	 * Writes the csv, summary and binary files on its own thread
+	 */
+	private final StatsWriter statsWriter = new StatsWriter();
 	
 	/**
 	 * Overall aggregated stats
 	 * workload -> (intervalSpec -> (intervalName -> StatsSummary))
 	 */
 	private Map<String, Map<String, Map<String, StatsSummary>>> aggregatedStatsSummaries 
-							= new HashMap<String, Map<String, Map<String, StatsSummary>>>();
+							= new ConcurrentHashMap<String, Map<String, Map<String, StatsSummary>>>();
 	
 	/**
 	 * The number of samples that we have received for each workload for each stats 
@@ -58,15 +79,67 @@ public class StatsServiceImpl implements StatsService {
 	 * workload -> (intervalSpec -> (intervalName -> receivedSampleCount))
 	 */
 	private Map<String, Map<String, Map<String, Integer>>>  receivedSamplesPerSpecAndInterval 
-												= new HashMap<String, Map<String, Map<String, Integer>>>(); 
+												= new ConcurrentHashMap<String, Map<String, Map<String, Integer>>>(); 
 	
-	private Map<String, Boolean> statsIntervalSpecPrintSummary = new HashMap<String, Boolean>();
+	private Map<String, Boolean> statsIntervalSpecPrintSummary = new ConcurrentHashMap<String, Boolean>();
 	
-	private Map<String, Map<String, Queue<String>>> workloadToStatsSpecToIntervalOrder = new HashMap<String, Map<String, Queue<String>>>();
+	private Map<String, Map<String, Queue<String>>> workloadToStatsSpecToIntervalOrder = new ConcurrentHashMap<String, Map<String, Queue<String>>>();
 
 	
+	private Object getWorkloadLock(String workloadName) {
+		Object workloadLock = workloadLocks.get(workloadName);
+		if (workloadLock == null) {
+			workloadLocks.putIfAbsent(workloadName, new Object());
+			workloadLock = workloadLocks.get(workloadName);
+		}
+		return workloadLock;
+	}
+
 	@Override
-	public synchronized void postStatsSummary(String runName, StatsSummary statsSummary) throws IOException {
+	public void postStatsSummaries(String runName, String batchId, List<StatsSummary> statsSummaries) throws IOException {
+		if (batchId != null) {
+			Set<String> mergedBatchIds = runNameToMergedBatchIds.computeIfAbsent(runName,
+					name -> ConcurrentHashMap.newKeySet());
+			if (!mergedBatchIds.add(batchId)) {
+				logger.info("postStatsSummaries: ignoring batch " + batchId + " for run " + runName
+						+ ", which has already been merged");
+				return;
+			}
+		}
+
+		/*
+		 * The sender does not resend a batch that is rejected, so keep
+		 * merging the rest of the batch when one of the summaries fails
+		 */
+		Exception firstException = null;
+		int numFailed = 0;
+		for (StatsSummary statsSummary : statsSummaries) {
+			try {
+				postStatsSummary(runName, statsSummary);
+			} catch (IOException | RuntimeException e) {
+				logger.warn("postStatsSummaries: failed to merge summary from host " + statsSummary.getHostName()
+						+ " for workload " + statsSummary.getWorkloadName() + ", interval " + statsSummary.getIntervalName()
+						+ ": " + e.getMessage());
+				numFailed++;
+				if (firstException == null) {
+					firstException = e;
+				}
+			}
+		}
+		if (firstException != null) {
+			throw new IOException("Failed to merge " + numFailed + " of " + statsSummaries.size() + " summaries: "
+					+ firstException.getMessage(), firstException);
+		}
+	}
+
+	@Override
+	public void postStatsSummary(String runName, StatsSummary statsSummary) throws IOException {
+		synchronized (getWorkloadLock(statsSummary.getWorkloadName())) {
+			mergeStatsSummary(runName, statsSummary);
+		}
+	}
+
+	private void mergeStatsSummary(String runName, StatsSummary statsSummary) throws IOException {
 		String workloadName = statsSummary.getWorkloadName();
 		String statsIntervalSpecName = statsSummary.getStatsIntervalSpecName();
 		String intervalName = statsSummary.getIntervalName();
@@ -157,19 +230,7 @@ public class StatsServiceImpl implements StatsService {
 				 * print the summary line to the allSamples file
 				 */
 				if (statsSummary.getPrintCsv()) {
-					Map<String, Writer> specToAllSamplesWriterMap = workloadAllSamplesCsvWriters.get(workloadName);
-					if (specToAllSamplesWriterMap == null) {
-						specToAllSamplesWriterMap = new HashMap<String, Writer>();
-						workloadAllSamplesCsvWriters.put(workloadName, specToAllSamplesWriterMap);
-					}
-					Writer allSamplesWriter = specToAllSamplesWriterMap.get(statsIntervalSpecName);
-					if (allSamplesWriter == null) {
-						allSamplesWriter = new BufferedWriter(new OutputStreamWriter(
-								new FileOutputStream(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + "-allSamples.csv"), "utf-8"));
-						specToAllSamplesWriterMap.put(statsIntervalSpecName, allSamplesWriter);
-						allSamplesWriter.write(statsSummary.getStatsCsvHeader() + "\n");
-					}
-					allSamplesWriter.write(statsSummary.getStatsCsvLine() + "\n");
+					writeSample(statsOutputDirName, workloadName, statsIntervalSpecName, statsSummary);
 				}
 				
 			} else {
@@ -178,33 +239,11 @@ public class StatsServiceImpl implements StatsService {
 						+ ", and interval " + intervalName);
 				
 				if (intervalAggregatedStats.getPrintCsv()) {
-					Map<String, Writer> specToAllSamplesWriterMap = workloadAllSamplesCsvWriters.get(workloadName);
-					if (specToAllSamplesWriterMap == null) {
-						specToAllSamplesWriterMap = new HashMap<String, Writer>();
-						workloadAllSamplesCsvWriters.put(workloadName, specToAllSamplesWriterMap);
-					}
-					Writer allSamplesWriter = specToAllSamplesWriterMap.get(statsIntervalSpecName);
-					if (allSamplesWriter == null) {
-						allSamplesWriter = new BufferedWriter(new OutputStreamWriter(
-								new FileOutputStream(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + "-allSamples.csv"), "utf-8"));
-						specToAllSamplesWriterMap.put(statsIntervalSpecName, allSamplesWriter);
-						allSamplesWriter.write(statsSummary.getStatsCsvHeader() + "\n");
-					}
-					allSamplesWriter.write(statsSummary.getStatsCsvLine() + "\n");
+					writeSample(statsOutputDirName, workloadName, statsIntervalSpecName, statsSummary);
 
-					Map<String, Writer> specToAggregatedWriterMap = workloadAggregatedCsvWriters.get(workloadName);
-					if (specToAggregatedWriterMap == null) {
-						specToAggregatedWriterMap = new HashMap<String, Writer>();
-						workloadAggregatedCsvWriters.put(workloadName, specToAggregatedWriterMap);
-					}
-					Writer aggregatedWriter = specToAggregatedWriterMap.get(statsIntervalSpecName);
-					if (aggregatedWriter == null) {
-						aggregatedWriter = new BufferedWriter(new OutputStreamWriter(
-								new FileOutputStream(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + ".csv"), "utf-8"));
-						aggregatedWriter.write(intervalAggregatedStats.getAggregatedStatsCsvHeader() + "\n");
-						specToAggregatedWriterMap.put(statsIntervalSpecName, aggregatedWriter);
-					}
-					aggregatedWriter.write(intervalAggregatedStats.getAggregatedStatsCsvLine() + "\n");
+					statsWriter.writeCsvLine(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + ".csv",
+							intervalAggregatedStats.getAggregatedStatsCsvHeader(),
+							intervalAggregatedStats.getAggregatedStatsCsvLine());
 				}
 
 				if (intervalAggregatedStats.getPrintIntervals()) {
@@ -213,12 +252,14 @@ public class StatsServiceImpl implements StatsService {
 					if (workloadNameToNumTargetsMap.keySet().size() == 1) {
 						includeWorkload = false;
 					}
-					if (((curPeriod % 20) == 0) || (curPeriod == 0)) {
-						System.out.println(intervalAggregatedStats.getStatsIntervalHeader(includeWorkload));
-					}
+					synchronized (intervalOutputLock) {
+						long period = curPeriod.getAndIncrement();
+						if ((period % 20) == 0) {
+							System.out.println(intervalAggregatedStats.getStatsIntervalHeader(includeWorkload));
+						}
 
-					System.out.println(intervalAggregatedStats.getStatsIntervalLine(includeWorkload));			
-					curPeriod++;
+						System.out.println(intervalAggregatedStats.getStatsIntervalLine(includeWorkload));
+					}
 				}
 				
 				if (!statsSummary.getPrintSummary()) {
@@ -232,19 +273,8 @@ public class StatsServiceImpl implements StatsService {
 				} else {
 					statsIntervalSpecPrintSummary.put(statsIntervalSpecName, true);
 					
-					Map<String, Writer> specToSummaryWriterMap = workloadSummaryWriters.get(workloadName);
-					if (specToSummaryWriterMap == null) {
-						specToSummaryWriterMap = new HashMap<String, Writer>();
-						workloadSummaryWriters.put(workloadName, specToSummaryWriterMap);
-					}
-					Writer summaryWriter = specToSummaryWriterMap.get(statsIntervalSpecName);
-					if (summaryWriter == null) {
-						summaryWriter = new BufferedWriter(new OutputStreamWriter(
-								new FileOutputStream(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + "-summary.txt"), "utf-8"));
-						specToSummaryWriterMap.put(statsIntervalSpecName, summaryWriter);
-					}
-					summaryWriter.write(intervalAggregatedStats.getStatsSummary() + "\n");
-					summaryWriter.flush();
+					statsWriter.writeText(statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + "-summary.txt",
+							intervalAggregatedStats.getStatsSummary() + "\n");
 
 				}
 
@@ -254,6 +284,20 @@ public class StatsServiceImpl implements StatsService {
 				
 	}
 
+	/*
+	 * Records a sample in the allSamples csv file and, if enabled, the binary
+	 * samples file
+	 */
+	private void writeSample(String statsOutputDirName, String workloadName, String statsIntervalSpecName,
+			StatsSummary statsSummary) {
+		String fileNamePrefix = statsOutputDirName + "/" + workloadName + "-" + statsIntervalSpecName + "-allSamples";
+		statsWriter.writeCsvLine(fileNamePrefix + ".csv", statsSummary.getStatsCsvHeader(),
+				statsSummary.getStatsCsvLine());
+		if (binaryStatsOutput) {
+			statsWriter.writeRecord(fileNamePrefix + StatsWriter.getBinaryFileSuffix(), statsSummary);
+		}
+	}
+
 	@Override
 	public StatsSummaryResponseMessage getStatsSummary(String runName, String workloadName, String specName,
 			String intervalName) {
@@ -268,18 +312,20 @@ public class StatsServiceImpl implements StatsService {
 		statsSummaryResponseMessage.setNumSamplesReceived(0);
 		statsSummaryResponseMessage.setStatsSummary(null);
 		
-		Map<String, Map<String, StatsSummary>> workloadAggregatedStats = aggregatedStatsSummaries.get(workloadName);
-		Map<String, Map<String, Integer>> workloadSamplesReceived = receivedSamplesPerSpecAndInterval.get(workloadName);
-		if (workloadAggregatedStats != null) {
-			Map<String, StatsSummary> specAggregatedStats = workloadAggregatedStats.get(specName);
-			Map<String, Integer> specSamplesReceived = workloadSamplesReceived.get(specName);
-			if (specAggregatedStats != null) {
-				StatsSummary intervalAggregatedStats = specAggregatedStats.get(intervalName);
-				Integer intervalSamplesReceived = specSamplesReceived.get(intervalName);
-				if (intervalAggregatedStats != null) {
-					statsSummaryResponseMessage.setNumSamplesReceived(intervalSamplesReceived);
-					statsSummaryResponseMessage.setStatsSummary(intervalAggregatedStats);
-					statsSummaryResponseMessage.setSummaryText(intervalAggregatedStats.getStatsSummary());
+		synchronized (getWorkloadLock(workloadName)) {
+			Map<String, Map<String, StatsSummary>> workloadAggregatedStats = aggregatedStatsSummaries.get(workloadName);
+			Map<String, Map<String, Integer>> workloadSamplesReceived = receivedSamplesPerSpecAndInterval.get(workloadName);
+			if (workloadAggregatedStats != null) {
+				Map<String, StatsSummary> specAggregatedStats = workloadAggregatedStats.get(specName);
+				Map<String, Integer> specSamplesReceived = workloadSamplesReceived.get(specName);
+				if (specAggregatedStats != null) {
+					StatsSummary intervalAggregatedStats = specAggregatedStats.get(intervalName);
+					Integer intervalSamplesReceived = specSamplesReceived.get(intervalName);
+					if (intervalAggregatedStats != null) {
+						statsSummaryResponseMessage.setNumSamplesReceived(intervalSamplesReceived);
+						statsSummaryResponseMessage.setStatsSummary(intervalAggregatedStats);
+						statsSummaryResponseMessage.setSummaryText(intervalAggregatedStats.getStatsSummary());
+					}
 				}
 			}
 		}
@@ -303,25 +349,27 @@ public class StatsServiceImpl implements StatsService {
 		responseMessage.setNumSamplesReceived(0);
 		responseMessage.setStatsSummaryRollup(null);
 		
-		Map<String, Map<String, StatsSummary>> workloadAggregatedStats = aggregatedStatsSummaries.get(workloadName);
-		Map<String, Map<String, Integer>> workloadSamplesReceived = receivedSamplesPerSpecAndInterval.get(workloadName);
-		if (workloadAggregatedStats != null) {
-			Map<String, StatsSummary> specAggregatedStats = workloadAggregatedStats.get(specName);
-			Map<String, Integer> specSamplesReceived = workloadSamplesReceived.get(specName);
-			if (specAggregatedStats != null) {
-				StatsSummary intervalAggregatedStats = specAggregatedStats.get(intervalName);
-				Integer intervalSamplesReceived = specSamplesReceived.get(intervalName);
-				if (intervalAggregatedStats != null) {
-					responseMessage.setNumSamplesReceived(intervalSamplesReceived);
-					responseMessage.setStatsSummaryRollup(intervalAggregatedStats.getStatsSummaryRollup());
+		synchronized (getWorkloadLock(workloadName)) {
+			Map<String, Map<String, StatsSummary>> workloadAggregatedStats = aggregatedStatsSummaries.get(workloadName);
+			Map<String, Map<String, Integer>> workloadSamplesReceived = receivedSamplesPerSpecAndInterval.get(workloadName);
+			if (workloadAggregatedStats != null) {
+				Map<String, StatsSummary> specAggregatedStats = workloadAggregatedStats.get(specName);
+				Map<String, Integer> specSamplesReceived = workloadSamplesReceived.get(specName);
+				if (specAggregatedStats != null) {
+					StatsSummary intervalAggregatedStats = specAggregatedStats.get(intervalName);
+					Integer intervalSamplesReceived = specSamplesReceived.get(intervalName);
+					if (intervalAggregatedStats != null) {
+						responseMessage.setNumSamplesReceived(intervalSamplesReceived);
+						responseMessage.setStatsSummaryRollup(intervalAggregatedStats.getStatsSummaryRollup());
+					} else {
+						logger.info("getStatsSummaryRollup intervalAggregatedStats == null");				
+					}
 				} else {
-					logger.info("getStatsSummaryRollup intervalAggregatedStats == null");				
+					logger.info("getStatsSummaryRollup specAggregatedStats == null");				
 				}
 			} else {
-				logger.info("getStatsSummaryRollup specAggregatedStats == null");				
+				logger.info("getStatsSummaryRollup workloadSamplesReceived == null");
 			}
-		} else {
-			logger.info("getStatsSummaryRollup workloadSamplesReceived == null");
 		}
 		
 		return responseMessage;
@@ -339,6 +387,8 @@ public class StatsServiceImpl implements StatsService {
 		runNameToWorkloadNameToNumTargetsMap.put(runName, initializeRunStatsMessage.getWorkloadNameToNumTargetsMap());
 		
 		runNameToIsPerTargetStatsMap.put(runName, initializeRunStatsMessage.getIsPerTargetStats());
+
+		runNameToMergedBatchIds.put(runName, ConcurrentHashMap.<String>newKeySet());
 	}
 	
 	@Override
@@ -379,26 +429,9 @@ public class StatsServiceImpl implements StatsService {
 		}
 		
 		/*
-		 * Close all of the open csvWriters
+		 * Wait for all of the queued writes and close the files
 		 */
-		for (Map<String, Writer> specToWriterMap : workloadAllSamplesCsvWriters.values()) {
-			for (Writer writer : specToWriterMap.values()) {
-				writer.flush();
-				writer.close();
-			}
-		}
-		for (Map<String, Writer> specToWriterMap : workloadAggregatedCsvWriters.values()) {
-			for (Writer writer : specToWriterMap.values()) {
-				writer.flush();
-				writer.close();
-			}
-		}
-		for (Map<String, Writer> specToWriterMap : workloadSummaryWriters.values()) {
-			for (Writer writer : specToWriterMap.values()) {
-				writer.flush();
-				writer.close();
-			}
-		}
+		statsWriter.closeAll();
 		
 	}
 
@@ -38,6 +38,11 @@ public class StatsSummary {
 	private long startActiveUsers = -1;
 	private long endActiveUsers = -1;
 	
+	/*
+	 * Open-loop arrivals that were dropped because the arrival queue was full
+	 */
+	private long totalDroppedArrivals = 0;
+	
 	private Boolean printSummary = null;
 	private Boolean printIntervals = null;
 	private Boolean printCsv = null;
@@ -134,6 +139,8 @@ public class StatsSummary {
 			}
 		}
 		
+		this.totalDroppedArrivals += that.totalDroppedArrivals;
+		
 		if (this.startActiveUsers == -1) {
 			this.startActiveUsers = that.startActiveUsers;
 		}
@@ -165,9 +172,15 @@ public class StatsSummary {
 		return this;
 	}
 
+	public synchronized void addDroppedArrivals(long numDropped) {
+		statsSummaryRollup = null;
+		totalDroppedArrivals += numDropped;
+	}
+
 	public void reset() {
 		startActiveUsers = -1;
 		endActiveUsers = -1;
+		totalDroppedArrivals = 0;
 		for (OperationStatsSummary summary : opNameToStatsMap.values()) {
 			summary.reset();
 		}
@@ -237,6 +250,14 @@ public class StatsSummary {
 		return startActiveUsers;
 	}
 
+	public long getTotalDroppedArrivals() {
+		return totalDroppedArrivals;
+	}
+
+	public void setTotalDroppedArrivals(long totalDroppedArrivals) {
+		this.totalDroppedArrivals = totalDroppedArrivals;
+	}
+
 	public Boolean getPrintSummary() {
 		return printSummary;
 	}
@@ -602,6 +623,10 @@ public class StatsSummary {
 		retVal.append("\tThroughput: " + throughput + " ops/sec\n");
 		retVal.append("\tEffective Throughput: " + throughputPassing + " ops/sec\n");
 		retVal.append("\tAverage Response-Time: " + avgRT + " sec\n");
+		if (statsSummaryRollup.getTotalNumQueuedOps() > 0) {
+			retVal.append("\tAverage Queueing-Delay: " + doubleFormat3.format(statsSummaryRollup.getAvgQueueingDelay()) + " sec\n");
+			retVal.append("\tDropped Arrivals: " + statsSummaryRollup.getTotalDroppedArrivals() + "\n");
+		}
 		retVal.append("\tTotal Operations: " + statsSummaryRollup.getTotalNumOps() + "\n");
 		retVal.append("\tTotal operations failing response-time: " + statsSummaryRollup.getTotalNumFailedRT() + "\n");
 		retVal.append("\tTotal failed Operations: " + statsSummaryRollup.getTotalNumFailed() + "\n");
@@ -675,6 +700,7 @@ public class StatsSummary {
 		retVal.append(", printSummary = " + printSummary);
 		retVal.append(", printIntervals = " + printIntervals);
 		retVal.append(", printCsv = " + printCsv);
+		retVal.append(", totalDroppedArrivals = " + totalDroppedArrivals);
 		for (OperationStatsSummary opSummary : opNameToStatsMap.values()) {
 			retVal.append("; " + opSummary.toString());
 		}
@@ -24,11 +24,15 @@ public class StatsSummaryRollup {
 	private long totalSteps = 0;
 	private long totalRT = 0;
 	private long totalCycleTime = 0;
+	private long totalNumQueuedOps = 0;
+	private long totalQueueingDelay = 0;
+	private long totalDroppedArrivals = 0;
 	private double throughput = 0;
 	private double effectiveThroughput = 0;
 	private double stepsThroughput = 0;
 	private double avgRT = 0;
 	private double avgCycleTime = 0;
+	private double avgQueueingDelay = 0;
 	private double pctPassing = 1;
 	private boolean intervalPassed = true;
 	private boolean intervalPassedRT = true;
@@ -64,7 +68,10 @@ public class StatsSummaryRollup {
 			totalCycleTime += opStatsSummary.getTotalCycleTime();
 			setTotalSteps(getTotalSteps() + opStatsSummary.getTotalSteps());
 			totalRT += opStatsSummary.getTotalResponseTime();
+			totalNumQueuedOps += opStatsSummary.getTotalNumQueuedOps();
+			totalQueueingDelay += opStatsSummary.getTotalQueueingDelay();
 		}
+		totalDroppedArrivals = statsSummary.getTotalDroppedArrivals();
 		
 	
 		long totalNumSucessfulOps = totalNumOps - totalNumFailed - totalNumFailedRT;
@@ -76,6 +83,10 @@ public class StatsSummaryRollup {
 			avgRT = (totalRT/1000.0) / (1.0 * totalNumRTOps);
 		}
 		
+		if (totalNumQueuedOps > 0) {
+			avgQueueingDelay = (totalQueueingDelay/1000.0) / (1.0 * totalNumQueuedOps);
+		}
+		
 		if (totalNumOps > 0) {
 			this.avgCycleTime = (totalCycleTime/1000.0)/(1.0 * totalNumOps);
 		}
@@ -107,6 +118,11 @@ public class StatsSummaryRollup {
 							+ ", " + opName + " failed mix pct for this period");
 				}
 				computedOpStatsSummary.setPassedMixPct(passedMixPct);
+				double requiredMixPct = opStatsSummary.getRequiredMixPct() / 100.0;
+				computedOpStatsSummary.setRequiredMixPct(requiredMixPct);
+				computedOpStatsSummary.setMinMixPct(requiredMixPct - (requiredMixPct * opStatsSummary.getMixPctTolerance()));
+				computedOpStatsSummary.setMaxMixPct(requiredMixPct + (requiredMixPct * opStatsSummary.getMixPctTolerance()));
+				computedOpStatsSummary.setAllowedFailurePct(opStatsSummary.getAllowedFailurePercent());
 
 				boolean opPassed = computedOpStatsSummary.isPassedRt() 
 						&& computedOpStatsSummary.isPassedMixPct() 
@@ -127,6 +143,7 @@ public class StatsSummaryRollup {
 				}
 
 				if (opStatsSummary.isUseResponseTime()) {
+					computedOpStatsSummary.setRequiredPassingPct(opStatsSummary.getResponseTimeLimitPercentile() / 100.0);
 					if (opStatsSummary.getTotalNumRTOps() > 0) {
 						computedOpStatsSummary.setAvgRt((opStatsSummary.getTotalResponseTime() / 1000.0) / (1.0 * opStatsSummary.getTotalNumRTOps()));
 					}
@@ -299,6 +316,38 @@ public class StatsSummaryRollup {
 		this.totalCycleTime = totalCycleTime;
 	}
 	
+	public long getTotalNumQueuedOps() {
+		return totalNumQueuedOps;
+	}
+
+	public void setTotalNumQueuedOps(long totalNumQueuedOps) {
+		this.totalNumQueuedOps = totalNumQueuedOps;
+	}
+
+	public long getTotalQueueingDelay() {
+		return totalQueueingDelay;
+	}
+
+	public void setTotalQueueingDelay(long totalQueueingDelay) {
+		this.totalQueueingDelay = totalQueueingDelay;
+	}
+
+	public double getAvgQueueingDelay() {
+		return avgQueueingDelay;
+	}
+
+	public void setAvgQueueingDelay(double avgQueueingDelay) {
+		this.avgQueueingDelay = avgQueueingDelay;
+	}
+
+	public long getTotalDroppedArrivals() {
+		return totalDroppedArrivals;
+	}
+
+	public void setTotalDroppedArrivals(long totalDroppedArrivals) {
+		this.totalDroppedArrivals = totalDroppedArrivals;
+	}
+
 	public long getStartActiveUsers() {
 		return startActiveUsers;
 	}
@@ -346,6 +395,8 @@ public class StatsSummaryRollup {
 		retVal.append(", stepsThroughput = " + stepsThroughput);
 		retVal.append(", avgRT = " + avgRT);
 		retVal.append(", avgCycleTime = " + avgCycleTime);
+		retVal.append(", avgQueueingDelay = " + avgQueueingDelay);
+		retVal.append(", totalDroppedArrivals = " + totalDroppedArrivals);
 		retVal.append(", pctPassing = " + pctPassing);
 		retVal.append(", intervalPassed = " + intervalPassed);
 		retVal.append(", intervalPassedRT = " + intervalPassedRT);
@@ -0,0 +1,236 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.statistics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Writes the stats output files of the stats service on its own thread.
+ *
+ * Writes are queued on a bounded queue and performed in order by the writer
+ * thread, so that the merging of stats summaries never waits for the disk.
+ * Only if the writer falls behind by more than the capacity of the queue do
+ * callers wait for it.
+ *
+ * Besides the csv and summary files, every sample can be recorded in a binary
+ * file, as a sequence of records each made up of a 4-byte length followed by
+ * the Smile encoding of the StatsSummary, optionally gzip compressed.
+ *
+ * Files are opened for appending, so that a file written to again after the
+ * files have been closed keeps its earlier contents. A compressed file that is
+ * reopened gets a second gzip member, which GZIPInputStream reads as one
+ * stream.
+ */
+public class StatsWriter implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(StatsWriter.class);
+
+	private static final Integer queueSize = Integer.getInteger("STATSWRITERQUEUESIZE", 65536);
+	private static final boolean compressBinaryOutput = Boolean
+			.parseBoolean(System.getProperty("STATSCOMPRESS", "true"));
+
+	private static final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+	private final BlockingQueue<WriteRequest> writeRequests = new ArrayBlockingQueue<WriteRequest>(queueSize);
+
+	/*
+	 * Only used by the writer thread
+	 */
+	private final Map<String, Writer> textWriters = new HashMap<String, Writer>();
+	private final Map<String, DataOutputStream> binaryWriters = new HashMap<String, DataOutputStream>();
+
+	public StatsWriter() {
+		Thread writerThread = new Thread(this, "statsWriter");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public static String getBinaryFileSuffix() {
+		return compressBinaryOutput ? ".smile.gz" : ".smile";
+	}
+
+	/**
+	 * Appends a line to a csv file, writing the header first if the file is
+	 * new
+	 */
+	public void writeCsvLine(String fileName, String header, String line) {
+		enqueue(new WriteRequest(WriteType.CSV, fileName, header, line + "\n", null, null));
+	}
+
+	/**
+	 * Appends text to a file and flushes the file
+	 */
+	public void writeText(String fileName, String text) {
+		enqueue(new WriteRequest(WriteType.TEXT, fileName, null, text, null, null));
+	}
+
+	/**
+	 * Appends a length-prefixed binary record for the summary to a file. The
+	 * summary is encoded by the caller, as it may change once this returns.
+	 */
+	public void writeRecord(String fileName, StatsSummary statsSummary) {
+		byte[] record;
+		try {
+			record = smileMapper.writeValueAsBytes(statsSummary);
+		} catch (JsonProcessingException e) {
+			logger.warn("writeRecord: Could not encode summary for " + fileName + ": " + e.getMessage());
+			return;
+		}
+		enqueue(new WriteRequest(WriteType.BINARY, fileName, null, null, record, null));
+	}
+
+	/**
+	 * Waits until all of the queued writes have been performed, and then
+	 * closes all of the files
+	 */
+	public void closeAll() throws IOException {
+		CountDownLatch closed = new CountDownLatch(1);
+		enqueue(new WriteRequest(WriteType.CLOSE, null, null, null, null, closed));
+		try {
+			closed.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for stats files to be closed");
+		}
+	}
+
+	private void enqueue(WriteRequest writeRequest) {
+		try {
+			if (!writeRequests.offer(writeRequest)) {
+				logger.warn("enqueue: Stats writer queue is full, waiting for writer");
+				writeRequests.put(writeRequest);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("enqueue: Interrupted while queueing write to " + writeRequest.fileName);
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			WriteRequest writeRequest;
+			try {
+				writeRequest = writeRequests.take();
+			} catch (InterruptedException e) {
+				logger.warn("run: Stats writer interrupted, exiting");
+				return;
+			}
+
+			try {
+				switch (writeRequest.type) {
+				case CSV:
+					Writer csvWriter = textWriters.get(writeRequest.fileName);
+					if (csvWriter == null) {
+						boolean isNewFile = isNewFile(writeRequest.fileName);
+						csvWriter = openTextWriter(writeRequest.fileName);
+						if (isNewFile) {
+							csvWriter.write(writeRequest.header + "\n");
+						}
+					}
+					csvWriter.write(writeRequest.text);
+					break;
+				case TEXT:
+					Writer textWriter = textWriters.get(writeRequest.fileName);
+					if (textWriter == null) {
+						textWriter = openTextWriter(writeRequest.fileName);
+					}
+					textWriter.write(writeRequest.text);
+					textWriter.flush();
+					break;
+				case BINARY:
+					DataOutputStream binaryWriter = binaryWriters.get(writeRequest.fileName);
+					if (binaryWriter == null) {
+						OutputStream fileStream = new FileOutputStream(writeRequest.fileName, true);
+						if (compressBinaryOutput) {
+							fileStream = new GZIPOutputStream(fileStream, 65536);
+						}
+						binaryWriter = new DataOutputStream(new BufferedOutputStream(fileStream, 65536));
+						binaryWriters.put(writeRequest.fileName, binaryWriter);
+					}
+					binaryWriter.writeInt(writeRequest.record.length);
+					binaryWriter.write(writeRequest.record);
+					break;
+				case CLOSE:
+					closeWriters();
+					writeRequest.closed.countDown();
+					break;
+				}
+			} catch (IOException e) {
+				logger.warn("run: Exception when writing to " + writeRequest.fileName + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private static boolean isNewFile(String fileName) {
+		return new File(fileName).length() == 0;
+	}
+
+	private Writer openTextWriter(String fileName) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName, true), "utf-8"));
+		textWriters.put(fileName, writer);
+		return writer;
+	}
+
+	private void closeWriters() {
+		for (Map.Entry<String, Writer> entry : textWriters.entrySet()) {
+			try {
+				entry.getValue().close();
+			} catch (IOException e) {
+				logger.warn("closeWriters: Exception when closing " + entry.getKey() + ": " + e.getMessage());
+			}
+		}
+		textWriters.clear();
+		for (Map.Entry<String, DataOutputStream> entry : binaryWriters.entrySet()) {
+			try {
+				entry.getValue().close();
+			} catch (IOException e) {
+				logger.warn("closeWriters: Exception when closing " + entry.getKey() + ": " + e.getMessage());
+			}
+		}
+		binaryWriters.clear();
+	}
+
+	private enum WriteType { CSV, TEXT, BINARY, CLOSE };
+
+	private static class WriteRequest {
+		private final WriteType type;
+		private final String fileName;
+		private final String header;
+		private final String text;
+		private final byte[] record;
+		private final CountDownLatch closed;
+
+		private WriteRequest(WriteType type, String fileName, String header, String text, byte[] record,
+				CountDownLatch closed) {
+			this.type = type;
+			this.fileName = fileName;
+			this.header = header;
+			this.text = text;
+			this.record = record;
+			this.closed = closed;
+		}
+	}
+}
@@ -10,22 +10,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 
 import com.vmware.weathervane.workloadDriver.common.core.BehaviorSpec;
 import com.vmware.weathervane.workloadDriver.common.core.Operation;
 import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadPath.LoadPath;
-import com.vmware.weathervane.workloadDriver.common.representation.BasicResponse;
 import com.vmware.weathervane.workloadDriver.common.representation.StatsIntervalCompleteMessage;
 import com.vmware.weathervane.workloadDriver.common.statistics.OperationStats;
 import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummary;
@@ -34,8 +25,6 @@ import com.vmware.weathervane.workloadDriver.common.statistics.statsIntervalSpec
 public class PerTargetStatsCollector implements StatsCollector {
 	private static final Logger logger = LoggerFactory.getLogger(PerTargetStatsCollector.class);
 
-	private static final RestTemplate restTemplate = new RestTemplate();
-
 	private String workloadName;
 	
 	private List<String> targetNames = null;
@@ -71,7 +60,11 @@ public class PerTargetStatsCollector implements StatsCollector {
 		this.statsIntervalSpecs = statsIntervalSpecs;
 		this.loadPath = loadPath;
 		
-		executorService = Executors.newCachedThreadPool();
+		/*
+		 * A single thread sends the summaries so that the intervals reach the
+		 * master in order over the same connection
+		 */
+		executorService = Executors.newSingleThreadExecutor();
 
 		/*
 		 * A collector gets a message for each interval it uses.  The
@@ -102,6 +95,21 @@ public class PerTargetStatsCollector implements StatsCollector {
 		currentStats.addStats(operationStats);
 	}
 
+	@Override
+	public void submitDroppedArrivals(String targetName, long numDropped) {
+		logger.debug("submitDroppedArrivals: target " + targetName + ", numDropped = " + numDropped);
+		StatsSummary currentStats = null;
+		synchronized (targetToCurrentStatsMap) {
+			if (!targetToCurrentStatsMap.containsKey(targetName)) {
+				StatsSummary newStatsSummary = new StatsSummary(workloadName, operations, behaviorSpec,
+															targetName, localHostname, null);
+				targetToCurrentStatsMap.put(targetName, newStatsSummary);
+			}
+			currentStats = targetToCurrentStatsMap.get(targetName);
+		}
+		currentStats.addDroppedArrivals(numDropped);
+	}
+
 	/**
 	 * Roll the current stats for each target up into the interval stats for
 	 * all intervalSpecs.
@@ -178,68 +186,51 @@ public class PerTargetStatsCollector implements StatsCollector {
 		
 		/*
 		 * For the spec that actually completed an interval, send the stats to the statsService
-		 * and reset the collected stats
+		 * and reset the collected stats. The summaries for all targets are sent together.
 		 */
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setContentType(MediaType.APPLICATION_JSON);
 		String completedSpecName = completeMessage.getCompletedSpecName();
 		logger.info("Preparing to send target summaries for spec " + completedSpecName);
-		List<Future<?>> sfList = new ArrayList<>();
 		Map<String, StatsSummary> specTargetToCurrentStatsMap = specNameToTargetToIntervalStatsMap.get(completedSpecName);
-		for (String targetName : specTargetToCurrentStatsMap.keySet()) {
-			sfList.add(executorService.submit(
-					new SendTargetSummaryRunner(specTargetToCurrentStatsMap.get(targetName), 
-							requestHeaders, completedSpecName, targetName, completeMessage)));
-		}
+		List<StatsSummary> targetStatsSummaries = new ArrayList<StatsSummary>(specTargetToCurrentStatsMap.values());
+		executorService.submit(new SendTargetSummariesRunner(targetStatsSummaries, completedSpecName, completeMessage));
 	}
 	
-	private class SendTargetSummaryRunner implements Runnable {
-		private StatsSummary targetStatsSummary;
-		private HttpHeaders requestHeaders;
+	private class SendTargetSummariesRunner implements Runnable {
+		private List<StatsSummary> targetStatsSummaries;
 		private String completedSpecName;
-		private String targetName;
 		private StatsIntervalCompleteMessage completeMessage;
 
-		public SendTargetSummaryRunner(StatsSummary targetStatsSummary,
-				HttpHeaders requestHeaders, String completedSpecName, String targetName,
+		public SendTargetSummariesRunner(List<StatsSummary> targetStatsSummaries, String completedSpecName,
 				StatsIntervalCompleteMessage completeMessage) {
-			this.targetStatsSummary = targetStatsSummary;
-			this.requestHeaders = requestHeaders;
+			this.targetStatsSummaries = targetStatsSummaries;
 			this.completedSpecName = completedSpecName;
-			this.targetName = targetName;
 			this.completeMessage = completeMessage;
 		}
 
 
 		@Override
 		public void run() {
-			targetStatsSummary.setIntervalStartTime(completeMessage.getCurIntervalStartTime());
-			targetStatsSummary.setIntervalEndTime(completeMessage.getLastIntervalEndTime());
-			targetStatsSummary.setIntervalName(completeMessage.getCurIntervalName());
-			targetStatsSummary.setEndActiveUsers(completeMessage.getIntervalEndUsers());
-			targetStatsSummary.setStartActiveUsers(completeMessage.getIntervalStartUsers());
-
-			logger.info("statsIntervalComplete: Sending target summary for spec " + completedSpecName
-						+ " and target " + targetName + ", summary = " + targetStatsSummary);
-			/*
-			 * Send the stats summary
-			 */
-			HttpEntity<StatsSummary> statsEntity = new HttpEntity<StatsSummary>(targetStatsSummary, requestHeaders);
-			String url = "http://" + masterHostName + "/stats/run/" + runName;
-			logger.info("statsIntervalComplete: Sending target summary for spec " + completedSpecName
-					+ " and target " + targetName + " to url " + url);
-
-			ResponseEntity<BasicResponse> responseEntity 
-					= restTemplate.exchange(url, HttpMethod.POST, statsEntity, BasicResponse.class);
+			for (StatsSummary targetStatsSummary : targetStatsSummaries) {
+				targetStatsSummary.setIntervalStartTime(completeMessage.getCurIntervalStartTime());
+				targetStatsSummary.setIntervalEndTime(completeMessage.getLastIntervalEndTime());
+				targetStatsSummary.setIntervalName(completeMessage.getCurIntervalName());
+				targetStatsSummary.setEndActiveUsers(completeMessage.getIntervalEndUsers());
+				targetStatsSummary.setStartActiveUsers(completeMessage.getIntervalStartUsers());
+			}
 
-			BasicResponse response = responseEntity.getBody();
-			if (responseEntity.getStatusCode() != HttpStatus.OK) {
-				logger.error("Error posting statsSummary to " + url);
+			logger.info("statsIntervalComplete: Sending " + targetStatsSummaries.size() 
+					+ " target summaries for spec " + completedSpecName + " to master " + masterHostName);
+			try {
+				StatsSummarySender.send(masterHostName, runName, targetStatsSummaries);
+			} catch (RuntimeException e) {
+				logger.error("Error posting target summaries for spec " + completedSpecName + ": " + e.getMessage());
 			}
 
-			logger.info("statsIntervalComplete: sent target summary for spec " + completedSpecName
-					+ " and target " + targetName + ", summary = " + targetStatsSummary + ". Resetting stats");
-			targetStatsSummary.reset();								
+			logger.info("statsIntervalComplete: sent target summaries for spec " + completedSpecName
+					+ ". Resetting stats");
+			for (StatsSummary targetStatsSummary : targetStatsSummaries) {
+				targetStatsSummary.reset();
+			}
 		}
 		
 	}
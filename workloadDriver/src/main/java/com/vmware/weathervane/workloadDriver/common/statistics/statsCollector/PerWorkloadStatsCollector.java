@@ -5,24 +5,17 @@ SPDX-License-Identifier: BSD-2-Clause
 package com.vmware.weathervane.workloadDriver.common.statistics.statsCollector;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 
 import com.vmware.weathervane.workloadDriver.common.core.BehaviorSpec;
 import com.vmware.weathervane.workloadDriver.common.core.Operation;
 import com.vmware.weathervane.workloadDriver.common.core.loadControl.loadPath.LoadPath;
-import com.vmware.weathervane.workloadDriver.common.representation.BasicResponse;
 import com.vmware.weathervane.workloadDriver.common.representation.StatsIntervalCompleteMessage;
 import com.vmware.weathervane.workloadDriver.common.statistics.OperationStats;
 import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummary;
@@ -31,8 +24,6 @@ import com.vmware.weathervane.workloadDriver.common.statistics.statsIntervalSpec
 public class PerWorkloadStatsCollector implements StatsCollector {
 	private static final Logger logger = LoggerFactory.getLogger(PerWorkloadStatsCollector.class);
 
-	private static final RestTemplate restTemplate = new RestTemplate();
-
 	private String workloadName;
 	
 	private List<String> targetNames = null;
@@ -40,6 +31,7 @@ public class PerWorkloadStatsCollector implements StatsCollector {
 	private List<Operation> operations = null;
 	
 	private List<OperationStats> curStatsList = new ArrayList<>();
+	private long curDroppedArrivals = 0;
 	private Object curStatsListLock = new Object();
 	
 	private Map<String, StatsSummary> specNameToIntervalStatsMap = new HashMap<String, StatsSummary>();
@@ -105,6 +97,14 @@ public class PerWorkloadStatsCollector implements StatsCollector {
 		}
 	}
 
+	@Override
+	public void submitDroppedArrivals(String targetName, long numDropped) {
+		logger.debug("submitDroppedArrivals: target " + targetName + ", numDropped = " + numDropped);
+		synchronized (curStatsListLock) {
+			curDroppedArrivals += numDropped;
+		}
+	}
+
 	/**
 	 * Roll the current stats for each target up into the interval stats for
 	 * all intervalSpecs.
@@ -120,9 +120,12 @@ public class PerWorkloadStatsCollector implements StatsCollector {
 		 * counting results from the new interval
 		 */
 		List<OperationStats> curPeriodOpStats;
+		long curPeriodDroppedArrivals;
 		synchronized (curStatsListLock) {
 			curPeriodOpStats = curStatsList;
 			curStatsList = new ArrayList<>();
+			curPeriodDroppedArrivals = curDroppedArrivals;
+			curDroppedArrivals = 0;
 		}
 
 		/*
@@ -141,6 +144,7 @@ public class PerWorkloadStatsCollector implements StatsCollector {
 			}
 			curIntervalStatsSummary.addStats(operationStats);
 		}
+		curIntervalStatsSummary.addDroppedArrivals(curPeriodDroppedArrivals);
 
 		/*
 		 * Now merge the current stats into every active statsInterval
@@ -171,42 +175,11 @@ public class PerWorkloadStatsCollector implements StatsCollector {
 		completedStats.setStartActiveUsers(completeMessage.getIntervalStartUsers());
 		completedStats.setHostName(localHostname);
 		
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setContentType(MediaType.APPLICATION_JSON);
-		HttpEntity<StatsSummary> statsEntity = new HttpEntity<StatsSummary>(completedStats, requestHeaders);
-		String url = "http://" + masterHostName + "/stats/run/" + runName;
-		logger.info("statsIntervalComplete: Sending target summary for spec " + completedSpecName
-				+ " to url " + url);
-
-		boolean succeeded = false;
-		int tries = 5;
-		while (!succeeded && (tries > 0)) {
-			ResponseEntity<BasicResponse> responseEntity = null;
-			try {
-				tries--;
-				logger.debug("statsIntervalComplete: Starting HTTP Post to {}", url);
-				responseEntity = restTemplate.exchange(url, HttpMethod.POST, statsEntity, BasicResponse.class);
-				logger.debug("statsIntervalComplete: Completed HTTP Post to {}", url);
-			} catch (Throwable t) {
-					logger.warn("statsIntervalComplete: Got throwable when posting to url {}: {}", 
-							url, t.getMessage());
-					if (tries == 0) {
-						// Give up and rethrow the exception
-						throw t;
-					}
-			}
-			
-			if (responseEntity != null) {
-				BasicResponse response = responseEntity.getBody();
-				if (responseEntity.getStatusCode() != HttpStatus.OK) {
-					logger.warn("Error sending stats message to " + url);
-				} else {
-					succeeded = true;
-				}
-			}
-		}
+		logger.info("statsIntervalComplete: Sending summary for spec " + completedSpecName
+				+ " to master " + masterHostName);
+		StatsSummarySender.send(masterHostName, runName, Collections.singletonList(completedStats));
 
-		logger.info("statsIntervalComplete: sent summary for spec " + completedSpecName + " to url " + url + ". Resetting stats");
+		logger.info("statsIntervalComplete: sent summary for spec " + completedSpecName + ". Resetting stats");
 		completedStats.reset();								
 	}
 	
@@ -8,6 +8,8 @@ import com.vmware.weathervane.workloadDriver.common.statistics.OperationStats;
 public interface StatsCollector {
 	void submitOperationStats(OperationStats operationStats);
 
+	void submitDroppedArrivals(String targetName, long numDropped);
+
 	void statsIntervalComplete(StatsIntervalCompleteMessage completeMessage);
 
 	void setTargetNames(List<String> targetNames);
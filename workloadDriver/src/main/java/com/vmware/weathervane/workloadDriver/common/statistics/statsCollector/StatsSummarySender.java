@@ -0,0 +1,107 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.statistics.statsCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.vmware.weathervane.workloadDriver.common.representation.BasicResponse;
+import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummary;
+
+/**
+ * Sends stats summaries from a driver node to the stats service on the run
+ * master.
+ *
+ * The summaries that complete an interval are sent together in one request,
+ * encoded as Smile, the binary form of JSON, which is smaller and cheaper to
+ * generate and parse than the JSON text. All requests go through one
+ * RestTemplate, whose HTTP connections are kept alive between intervals so
+ * that the connection to the master is not re-established for each interval.
+ */
+public class StatsSummarySender {
+	private static final Logger logger = LoggerFactory.getLogger(StatsSummarySender.class);
+
+	public static final MediaType SMILE_MEDIA_TYPE = new MediaType("application", "x-jackson-smile");
+
+	/*
+	 * Identifies a batch, so that the master merges a batch that is resent
+	 * only once
+	 */
+	public static final String BATCH_ID_HEADER = "X-Stats-Batch-Id";
+
+	private static final int maxTries = 5;
+
+	private static final RestTemplate restTemplate;
+
+	static {
+		/*
+		 * Keep-alive connections are only reused when the response has been
+		 * fully read, which the RestTemplate always does.
+		 */
+		System.setProperty("http.keepAlive", "true");
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setOutputStreaming(true);
+
+		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>();
+		messageConverters.add(new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build()));
+		messageConverters.add(new MappingJackson2HttpMessageConverter());
+
+		restTemplate = new RestTemplate(requestFactory);
+		restTemplate.setMessageConverters(messageConverters);
+	}
+
+	/**
+	 * Sends the summaries to the master, retrying a request that fails before
+	 * the master responds. The master may have merged the summaries before the
+	 * connection failed, so every try carries the same batch id, and the
+	 * master ignores a batch that it has already merged. A request that the
+	 * master rejects is not retried, since some of the summaries may already
+	 * have been merged. Throws the last exception if the request was rejected
+	 * or all of the tries fail.
+	 */
+	public static void send(String masterHostName, String runName, List<StatsSummary> statsSummaries) {
+		HttpHeaders requestHeaders = new HttpHeaders();
+		requestHeaders.setContentType(SMILE_MEDIA_TYPE);
+		requestHeaders.set(BATCH_ID_HEADER, UUID.randomUUID().toString());
+		HttpEntity<List<StatsSummary>> statsEntity = new HttpEntity<List<StatsSummary>>(statsSummaries, requestHeaders);
+		String url = "http://" + masterHostName + "/stats/run/" + runName + "/batch";
+
+		int tries = maxTries;
+		while (true) {
+			try {
+				tries--;
+				logger.debug("send: Starting HTTP Post of {} summaries to {}", statsSummaries.size(), url);
+				restTemplate.exchange(url, HttpMethod.POST, statsEntity, BasicResponse.class);
+				logger.debug("send: Completed HTTP Post to {}", url);
+				return;
+			} catch (ResourceAccessException e) {
+				logger.warn("send: Got exception when posting to url {}: {}", url, e.getMessage());
+				if (tries == 0) {
+					throw e;
+				}
+			} catch (HttpStatusCodeException e) {
+				logger.warn("send: Master rejected stats summaries posted to url {} with status {}: {}", url,
+						e.getStatusCode(), e.getResponseBodyAsString());
+				throw e;
+			}
+		}
+	}
+}
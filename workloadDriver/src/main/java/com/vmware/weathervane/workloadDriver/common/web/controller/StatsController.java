@@ -5,6 +5,7 @@ SPDX-License-Identifier: BSD-2-Clause
 package com.vmware.weathervane.workloadDriver.common.web.controller;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
@@ -26,6 +28,7 @@ import com.vmware.weathervane.workloadDriver.common.representation.StatsSummaryR
 import com.vmware.weathervane.workloadDriver.common.representation.StatsSummaryRollupResponseMessage;
 import com.vmware.weathervane.workloadDriver.common.statistics.StatsService;
 import com.vmware.weathervane.workloadDriver.common.statistics.StatsSummary;
+import com.vmware.weathervane.workloadDriver.common.statistics.statsCollector.StatsSummarySender;
 
 @RestController
 @RequestMapping("/stats")
@@ -53,6 +56,30 @@ public class StatsController {
 		return new ResponseEntity<BasicResponse>(response, status);
 	}
 
+	/*
+	 * The driver nodes post all of the summaries for an interval together,
+	 * encoded as Smile
+	 */
+	@RequestMapping(value="/run/{runName}/batch", method = RequestMethod.POST, consumes = "application/x-jackson-smile")
+	public HttpEntity<BasicResponse> postStatsSummaries(@PathVariable String runName,
+			@RequestHeader(value = StatsSummarySender.BATCH_ID_HEADER, required = false) String batchId,
+			@RequestBody List<StatsSummary> statsSummaries) {
+		logger.debug("postStatsSummaries for run " + runName + ": " + statsSummaries.size() + " summaries");
+		BasicResponse response = new BasicResponse();
+		HttpStatus status = HttpStatus.OK;
+		
+		try {
+			statsService.postStatsSummaries(runName, batchId, statsSummaries);
+		} catch (Exception e) {
+			logger.warn("postStatsSummaries: caught exception: {}", e.getMessage());
+			response.setMessage(e.getMessage());
+			response.setStatus("Failure");
+			status = HttpStatus.CONFLICT;
+		}
+	
+		return new ResponseEntity<BasicResponse>(response, status);
+	}
+
 	@RequestMapping(value="/run/{runName}/workload/{workloadName}/specName/{specName}/intervalName/{intervalName}", method = RequestMethod.GET)
 	public HttpEntity<StatsSummaryResponseMessage> getStatsSummary(@PathVariable String runName, @PathVariable String workloadName, 
 			@PathVariable String specName, @PathVariable String intervalName) {
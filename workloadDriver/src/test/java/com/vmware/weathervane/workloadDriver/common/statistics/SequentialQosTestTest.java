@@ -0,0 +1,159 @@
+/*
+Copyright 2017-2019 VMware, Inc.
+SPDX-License-Identifier: BSD-2-Clause
+*/
+package com.vmware.weathervane.workloadDriver.common.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vmware.weathervane.workloadDriver.common.statistics.SequentialQosTest.Verdict;
+
+/*
+ * Unit tests for SequentialQosTest
+ */
+public class SequentialQosTestTest {
+
+	private SequentialQosTest qosTest;
+
+	@Before
+	public void setup() {
+		qosTest = new SequentialQosTest(0.95, 0.1);
+	}
+
+	/*
+	 * A summary for an operation with requirements, as filled in by
+	 * StatsSummaryRollup
+	 */
+	private ComputedOpStatsSummary requiredOp(double requiredMixPct, long successes, long rtFailures, long failures) {
+		ComputedOpStatsSummary opSummary = new ComputedOpStatsSummary();
+		opSummary.setRequiredMixPct(requiredMixPct);
+		opSummary.setMinMixPct(requiredMixPct * 0.95);
+		opSummary.setMaxMixPct(requiredMixPct * 1.05);
+		opSummary.setAllowedFailurePct(0.005);
+		opSummary.setRequiredPassingPct(0.99);
+		opSummary.setSuccesses(successes);
+		opSummary.setRtFailures(rtFailures);
+		opSummary.setFailures(failures);
+		return opSummary;
+	}
+
+	/*
+	 * StatsSummaryRollup adds a summary for an operation with a 0% mix, but
+	 * leaves its counts and requirements at their defaults
+	 */
+	private ComputedOpStatsSummary zeroMixOp() {
+		return new ComputedOpStatsSummary();
+	}
+
+	private StatsSummaryRollup period(double throughput, ComputedOpStatsSummary opA, ComputedOpStatsSummary opB) {
+		StatsSummaryRollup rollup = new StatsSummaryRollup();
+		rollup.setIntervalDurationSec(30);
+		rollup.setThroughput(throughput);
+		rollup.getComputedOpStatsSummaries().put("opA", opA);
+		rollup.getComputedOpStatsSummaries().put("opB", opB);
+		rollup.getComputedOpStatsSummaries().put("zeroMixOp", zeroMixOp());
+		return rollup;
+	}
+
+	@Test
+	public void passesWithZeroMixOperation() {
+		for (int i = 0; i < 5; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 15000, 10, 0), requiredOp(0.5, 15000, 10, 0)));
+		}
+
+		assertEquals(Verdict.PASS, qosTest.getVerdict(false, true));
+		assertEquals(Verdict.PASS, qosTest.getVerdict(true, false));
+	}
+
+	@Test
+	public void undecidedWithoutEarlyPass() {
+		for (int i = 0; i < 5; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 15000, 10, 0), requiredOp(0.5, 15000, 10, 0)));
+		}
+
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, false));
+	}
+
+	@Test
+	public void noEarlyVerdictBeforeMinPeriods() {
+		for (int i = 0; i < 2; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 12000, 3000, 0), requiredOp(0.5, 15000, 0, 0)));
+			assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+		}
+	}
+
+	@Test
+	public void failsEarlyOnResponseTime() {
+		for (int i = 0; i < 3; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 12000, 3000, 0), requiredOp(0.5, 15000, 0, 0)));
+		}
+
+		assertEquals(Verdict.FAIL, qosTest.getVerdict(false, true));
+	}
+
+	@Test
+	public void failsEarlyOnMix() {
+		for (int i = 0; i < 3; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 20000, 0, 0), requiredOp(0.5, 10000, 0, 0)));
+		}
+
+		assertEquals(Verdict.FAIL, qosTest.getVerdict(false, true));
+	}
+
+	@Test
+	public void failsEarlyOnFailures() {
+		for (int i = 0; i < 3; i++) {
+			qosTest.addPeriod(period(1000, requiredOp(0.5, 14000, 0, 1000), requiredOp(0.5, 15000, 0, 0)));
+		}
+
+		assertEquals(Verdict.FAIL, qosTest.getVerdict(false, true));
+	}
+
+	/*
+	 * Pooled over all of the operations the response-time failures are
+	 * significant, but they all come from one period
+	 */
+	@Test
+	public void burstOfResponseTimeFailuresIsNotSignificant() {
+		qosTest.addPeriod(period(1000, requiredOp(0.5, 14985, 15, 0), requiredOp(0.5, 15000, 0, 0)));
+		qosTest.addPeriod(period(1000, requiredOp(0.5, 14985, 15, 0), requiredOp(0.5, 15000, 0, 0)));
+		qosTest.addPeriod(period(1000, requiredOp(0.5, 14400, 600, 0), requiredOp(0.5, 15000, 0, 0)));
+
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+		assertEquals(Verdict.FAIL, qosTest.getVerdict(true, true));
+	}
+
+	@Test
+	public void requiredOperationWithNoOpsIsNeutralUntilMaxDuration() {
+		qosTest.addPeriod(period(2, requiredOp(0.5, 1, 0, 0), requiredOp(0.5, 0, 0, 0)));
+
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+	}
+
+	@Test
+	public void impreciseThroughputIsUndecided() {
+		qosTest.addPeriod(period(500, requiredOp(0.5, 15000, 10, 0), requiredOp(0.5, 15000, 10, 0)));
+		qosTest.addPeriod(period(1500, requiredOp(0.5, 15000, 10, 0), requiredOp(0.5, 15000, 10, 0)));
+		qosTest.addPeriod(period(1000, requiredOp(0.5, 15000, 10, 0), requiredOp(0.5, 15000, 10, 0)));
+
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+	}
+
+	@Test
+	public void noOperationsFailsAtMaxDuration() {
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+		assertEquals(Verdict.FAIL, qosTest.getVerdict(true, true));
+	}
+
+	@Test
+	public void resetClearsPeriods() {
+		qosTest.addPeriod(period(1000, requiredOp(0.5, 12000, 3000, 0), requiredOp(0.5, 15000, 0, 0)));
+		qosTest.reset();
+
+		assertEquals(0, qosTest.getNumPeriods());
+		assertEquals(Verdict.UNDECIDED, qosTest.getVerdict(false, true));
+	}
+}